@@ -41,6 +41,7 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProject
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.DefaultProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ResolvedConfigurationCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.*;
 import org.gradle.api.internal.artifacts.repositories.cachemanager.DownloadingRepositoryArtifactCache;
@@ -65,6 +66,7 @@ import org.gradle.api.internal.project.ProjectRegistry;
 import org.gradle.cache.CacheRepository;
 import org.gradle.initialization.ProjectAccessListener;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.typeconversion.NotationParser;
@@ -227,7 +229,7 @@ class DependencyManagementBuildScopeServices {
     ResolveIvyFactory createResolveIvyFactory(StartParameter startParameter, ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache,
                                               ArtifactAtRepositoryCachedArtifactIndex artifactAtRepositoryCachedArtifactIndex, CacheLockingManager cacheLockingManager,
                                               BuildCommencedTimeProvider buildCommencedTimeProvider, InMemoryDependencyMetadataCache inMemoryDependencyMetadataCache,
-                                              VersionMatcher versionMatcher, LatestStrategy latestStrategy) {
+                                              VersionMatcher versionMatcher, LatestStrategy latestStrategy, ExecutorFactory executorFactory) {
         StartParameterResolutionOverride startParameterResolutionOverride = new StartParameterResolutionOverride(startParameter);
         return new ResolveIvyFactory(
                 moduleVersionsCache,
@@ -238,13 +240,15 @@ class DependencyManagementBuildScopeServices {
                 buildCommencedTimeProvider,
                 inMemoryDependencyMetadataCache,
                 versionMatcher,
-                latestStrategy);
+                latestStrategy,
+                executorFactory);
     }
 
     ArtifactDependencyResolver createArtifactDependencyResolver(ResolveIvyFactory resolveIvyFactory, PublishLocalComponentFactory publishModuleDescriptorConverter,
                                                                 CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager, ResolutionResultsStoreFactory resolutionResultsStoreFactory,
                                                                 VersionMatcher versionMatcher, LatestStrategy latestStrategy, ProjectRegistry<ProjectInternal> projectRegistry,
-                                                                ComponentIdentifierFactory componentIdentifierFactory) {
+                                                                ComponentIdentifierFactory componentIdentifierFactory, ExecutorFactory executorFactory,
+                                                                ProgressLoggerFactory progressLoggerFactory, ResolvedConfigurationCache resolvedConfigurationCache) {
         ArtifactDependencyResolver resolver = new DefaultDependencyResolver(
                 resolveIvyFactory,
                 publishModuleDescriptorConverter,
@@ -259,7 +263,10 @@ class DependencyManagementBuildScopeServices {
                 ivyContextManager,
                 resolutionResultsStoreFactory,
                 versionMatcher,
-                latestStrategy);
+                latestStrategy,
+                executorFactory,
+                progressLoggerFactory,
+                resolvedConfigurationCache);
         return new ErrorHandlingArtifactDependencyResolver(
                 new ShortcircuitEmptyConfigsArtifactDependencyResolver(
                         new SelfResolvingDependencyResolver(
@@ -269,6 +276,11 @@ class DependencyManagementBuildScopeServices {
                         componentIdentifierFactory));
     }
 
+    ResolvedConfigurationCache createResolvedConfigurationCache(CacheLockingManager cacheLockingManager, VersionMatcher versionMatcher, BuildCommencedTimeProvider timeProvider,
+                                                                StartParameter startParameter) {
+        return new ResolvedConfigurationCache(cacheLockingManager, versionMatcher, timeProvider, startParameter.isRefreshDependencies());
+    }
+
     ResolutionResultsStoreFactory createResolutionResultsStoreFactory(TemporaryFileProvider temporaryFileProvider) {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
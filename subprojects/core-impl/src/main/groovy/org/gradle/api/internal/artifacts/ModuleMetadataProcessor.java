@@ -19,4 +19,9 @@ import org.gradle.api.internal.artifacts.metadata.ModuleVersionMetaData;
 
 public interface ModuleMetadataProcessor {
     void process(ModuleVersionMetaData metadata);
+
+    /**
+     * Returns true if this processor may make changes to the meta-data that it is given.
+     */
+    boolean hasRules();
 }
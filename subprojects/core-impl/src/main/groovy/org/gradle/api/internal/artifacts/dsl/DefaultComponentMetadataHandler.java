@@ -27,6 +27,7 @@ import org.gradle.listener.ActionBroadcast;
 public class DefaultComponentMetadataHandler implements ComponentMetadataHandler, ModuleMetadataProcessor {
     private final Instantiator instantiator;
     private final ActionBroadcast<ComponentMetadataDetails> moduleRules = new ActionBroadcast<ComponentMetadataDetails>();
+    private boolean hasRules;
 
     public DefaultComponentMetadataHandler(Instantiator instantiator) {
         this.instantiator = instantiator;
@@ -34,10 +35,15 @@ public class DefaultComponentMetadataHandler implements ComponentMetadataHandler
 
     public void eachComponent(Action<? super ComponentMetadataDetails> rule) {
         moduleRules.add(rule);
+        hasRules = true;
     }
 
     public void process(ModuleVersionMetaData metadata) {
         ComponentMetadataDetails details = instantiator.newInstance(ComponentMetadataDetailsAdapter.class, metadata);
         moduleRules.execute(details);
     }
+
+    public boolean hasRules() {
+        return hasRules;
+    }
 }
@@ -30,13 +30,16 @@ import java.util.*;
 
 public class DefaultLenientConfiguration implements LenientConfiguration {
     private CacheLockingManager cacheLockingManager;
+    private final ParallelArtifactDownloader artifactDownloader;
     private final Configuration configuration;
     private ResolvedConfigurationResults results;
 
-    public DefaultLenientConfiguration(Configuration configuration, ResolvedConfigurationResults results, CacheLockingManager cacheLockingManager) {
+    public DefaultLenientConfiguration(Configuration configuration, ResolvedConfigurationResults results, CacheLockingManager cacheLockingManager,
+                                       ParallelArtifactDownloader artifactDownloader) {
         this.configuration = configuration;
         this.results = results;
         this.cacheLockingManager = cacheLockingManager;
+        this.artifactDownloader = artifactDownloader;
     }
 
     public boolean hasError() {
@@ -88,6 +91,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
      */
     public Set<ResolvedArtifact> getArtifacts(Spec<? super Dependency> dependencySpec) {
         final Set<ResolvedArtifact> allArtifacts = getAllArtifacts(dependencySpec);
+        artifactDownloader.download(configuration.toString(), allArtifacts);
         return cacheLockingManager.useCache("retrieve artifacts from " + configuration, new Factory<Set<ResolvedArtifact>>() {
             public Set<ResolvedArtifact> create() {
                 return CollectionUtils.filter(allArtifacts, new Spec<ResolvedArtifact>() {
@@ -106,6 +110,7 @@ public class DefaultLenientConfiguration implements LenientConfiguration {
 
     private Set<File> getFiles(final Set<ResolvedArtifact> artifacts) {
         final Set<File> files = new LinkedHashSet<File>();
+        artifactDownloader.download(configuration.toString(), artifacts);
         cacheLockingManager.useCache("resolve files from " + configuration, new Runnable() {
             public void run() {
                 for (ResolvedArtifact artifact : artifacts) {
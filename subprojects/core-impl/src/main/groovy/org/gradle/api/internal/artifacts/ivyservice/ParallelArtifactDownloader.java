@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.logging.ProgressLogger;
+import org.gradle.logging.ProgressLoggerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+/**
+ * Resolves the files of a set of artifacts concurrently, ahead of the files being requested one at a time. Each artifact is resolved as usual using
+ * {@link ResolvedArtifact#getFile()}, which keeps the file for later use. A failure is ignored here, and is reported when the file of the artifact is
+ * requested.
+ *
+ * <p>The number of concurrent requests made to each repository host is limited separately, by the repositories themselves.</p>
+ */
+public class ParallelArtifactDownloader {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelArtifactDownloader.class);
+    private final ExecutorFactory executorFactory;
+    private final CacheLockingManager cacheLockingManager;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final int maxThreads;
+
+    public ParallelArtifactDownloader(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager, ProgressLoggerFactory progressLoggerFactory, int maxThreads) {
+        this.executorFactory = executorFactory;
+        this.cacheLockingManager = cacheLockingManager;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Resolves the files of the given artifacts, blocking until all of them have been resolved or have failed. Does nothing when the downloader is
+     * limited to a single thread.
+     */
+    public void download(String displayName, Collection<? extends ResolvedArtifact> artifacts) {
+        if (maxThreads <= 1 || artifacts.size() <= 1) {
+            return;
+        }
+
+        String description = String.format("Download artifacts for %s", displayName);
+        ProgressLogger progressLogger = progressLoggerFactory.newOperation(ParallelArtifactDownloader.class);
+        progressLogger.setDescription(description);
+        progressLogger.started();
+        try {
+            final Downloads downloads = new Downloads(artifacts, progressLogger);
+            final StoppableExecutor executor = executorFactory.create(description);
+            int threads = Math.min(maxThreads, artifacts.size());
+            for (int i = 0; i < threads; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        downloads.run();
+                    }
+                });
+            }
+            // Release the cache while waiting, so that the workers can use it
+            cacheLockingManager.longRunningOperation(description, new Runnable() {
+                public void run() {
+                    executor.stop();
+                }
+            });
+        } finally {
+            progressLogger.completed();
+        }
+    }
+
+    private static class Downloads {
+        private final LinkedList<ResolvedArtifact> queue;
+        private final ProgressLogger progressLogger;
+        private final int total;
+        private int completed;
+
+        Downloads(Collection<? extends ResolvedArtifact> artifacts, ProgressLogger progressLogger) {
+            this.queue = new LinkedList<ResolvedArtifact>(artifacts);
+            this.progressLogger = progressLogger;
+            this.total = artifacts.size();
+        }
+
+        void run() {
+            while (true) {
+                ResolvedArtifact artifact;
+                synchronized (this) {
+                    artifact = queue.poll();
+                }
+                if (artifact == null) {
+                    return;
+                }
+                try {
+                    artifact.getFile();
+                } catch (Throwable t) {
+                    LOGGER.debug(String.format("Could not download %s. It will be resolved again when its file is requested.", artifact), t);
+                }
+                synchronized (this) {
+                    completed++;
+                    progressLogger.progress(String.format("%s/%s artifacts", completed, total));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
+
+import org.gradle.api.internal.artifacts.ivyservice.BuildableArtifactResolveResult;
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactMetaData;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A wrapper around a {@link ModuleVersionRepository} that limits the number of requests made concurrently to the host of the repository. The permits
+ * are shared by all repositories with the same host.
+ */
+public class ConcurrencyLimitingModuleVersionRepository implements ModuleVersionRepository {
+    private final ModuleVersionRepository repository;
+    private final Semaphore permits;
+
+    public ConcurrencyLimitingModuleVersionRepository(ModuleVersionRepository repository, Semaphore permits) {
+        this.repository = repository;
+        this.permits = permits;
+    }
+
+    public String getId() {
+        return repository.getId();
+    }
+
+    public String getName() {
+        return repository.getName();
+    }
+
+    public void listModuleVersions(DependencyMetaData dependency, BuildableModuleVersionSelectionResolveResult result) {
+        permits.acquireUninterruptibly();
+        try {
+            repository.listModuleVersions(dependency, result);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void getDependency(DependencyMetaData dependency, BuildableModuleVersionMetaDataResolveResult result) {
+        permits.acquireUninterruptibly();
+        try {
+            repository.getDependency(dependency, result);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void resolve(ModuleVersionArtifactMetaData artifact, BuildableArtifactResolveResult result, ModuleSource moduleSource) {
+        permits.acquireUninterruptibly();
+        try {
+            repository.resolve(artifact, result, moduleSource);
+        } finally {
+            permits.release();
+        }
+    }
+}
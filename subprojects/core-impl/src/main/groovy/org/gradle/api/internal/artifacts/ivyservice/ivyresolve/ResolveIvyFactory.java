@@ -39,10 +39,29 @@ import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver;
 import org.gradle.api.internal.externalresource.cached.CachedArtifactIndex;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.util.BuildCommencedTimeProvider;
 import org.gradle.util.WrapUtil;
 
-public class ResolveIvyFactory {
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+public class ResolveIvyFactory implements Stoppable {
+    /**
+     * The maximum number of requests made concurrently to a single repository host.
+     */
+    public static final String MAX_REQUESTS_PER_HOST = "org.gradle.resolve.maxRequestsPerHost";
+    /**
+     * When true, the remote repositories are queried concurrently for a static version.
+     */
+    public static final String PARALLEL_REPOSITORY_PROBES = "org.gradle.resolve.parallelRepositoryProbes";
+    private static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+    private static final int MAX_PROBE_THREADS = 8;
     private final ModuleVersionsCache moduleVersionsCache;
     private final ModuleMetaDataCache moduleMetaDataCache;
     private final CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex;
@@ -52,11 +71,15 @@ public class ResolveIvyFactory {
     private final InMemoryDependencyMetadataCache inMemoryCache;
     private final VersionMatcher versionMatcher;
     private final LatestStrategy latestStrategy;
+    private final ExecutorFactory executorFactory;
+    private final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<String, Semaphore>();
+    private StoppableExecutor probeExecutor;
 
     public ResolveIvyFactory(ModuleVersionsCache moduleVersionsCache, ModuleMetaDataCache moduleMetaDataCache,
                              CachedArtifactIndex artifactAtRepositoryCachedResolutionIndex,
                              CacheLockingManager cacheLockingManager, StartParameterResolutionOverride startParameterResolutionOverride,
-                             BuildCommencedTimeProvider timeProvider, InMemoryDependencyMetadataCache inMemoryCache, VersionMatcher versionMatcher, LatestStrategy latestStrategy) {
+                             BuildCommencedTimeProvider timeProvider, InMemoryDependencyMetadataCache inMemoryCache, VersionMatcher versionMatcher, LatestStrategy latestStrategy,
+                             ExecutorFactory executorFactory) {
         this.moduleVersionsCache = moduleVersionsCache;
         this.moduleMetaDataCache = moduleMetaDataCache;
         this.artifactAtRepositoryCachedResolutionIndex = artifactAtRepositoryCachedResolutionIndex;
@@ -66,21 +89,52 @@ public class ResolveIvyFactory {
         this.inMemoryCache = inMemoryCache;
         this.versionMatcher = versionMatcher;
         this.latestStrategy = latestStrategy;
+        this.executorFactory = executorFactory;
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (this) {
+            executor = probeExecutor;
+            probeExecutor = null;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private synchronized StoppableExecutor getProbeExecutor() {
+        if (probeExecutor == null) {
+            probeExecutor = executorFactory.create("Repository probes", MAX_PROBE_THREADS);
+        }
+        return probeExecutor;
+    }
+
+    /**
+     * Creates a resolver for each of the given repositories, to be passed to {@link #create}.
+     */
+    public List<ConfiguredModuleVersionRepository> createResolvers(Iterable<? extends ResolutionAwareRepository> repositories) {
+        List<ConfiguredModuleVersionRepository> resolvers = new ArrayList<ConfiguredModuleVersionRepository>();
+        for (ResolutionAwareRepository repository : repositories) {
+            resolvers.add(repository.createResolver());
+        }
+        return resolvers;
     }
 
     public DependencyToModuleVersionResolver create(ConfigurationInternal configuration,
-                                                    Iterable<? extends ResolutionAwareRepository> repositories,
+                                                    List<? extends ConfiguredModuleVersionRepository> resolvers,
                                                     ModuleMetadataProcessor metadataProcessor) {
         ResolutionRules resolutionRules = configuration.getResolutionStrategy().getResolutionRules();
         startParameterResolutionOverride.addResolutionRules(resolutionRules);
 
         UserResolverChain userResolverChain = new UserResolverChain(versionMatcher, latestStrategy);
         DependencyToModuleVersionResolver parentLookupResolver = new ParentModuleLookupResolver(userResolverChain, cacheLockingManager);
+        boolean probeConcurrently = Boolean.getBoolean(PARALLEL_REPOSITORY_PROBES);
 
-        for (ResolutionAwareRepository repository : repositories) {
-            ConfiguredModuleVersionRepository moduleVersionRepository = repository.createResolver();
-
+        for (ConfiguredModuleVersionRepository moduleVersionRepository : resolvers) {
             if (moduleVersionRepository instanceof IvyAwareModuleVersionRepository) {
+                // Custom Ivy resolvers are not known to be thread-safe, so are always queried one at a time
+                probeConcurrently = false;
                 ivyContextualize((IvyAwareModuleVersionRepository) moduleVersionRepository, userResolverChain, configuration.getName());
             }
             if (moduleVersionRepository instanceof ExternalResourceResolver) {
@@ -92,7 +146,8 @@ public class ResolveIvyFactory {
             if (moduleVersionRepository.isLocal()) {
                 localAwareRepository = new LocalModuleVersionRepository(moduleVersionRepository);
             } else {
-                ModuleVersionRepository wrapperRepository = new CacheLockingModuleVersionRepository(moduleVersionRepository, cacheLockingManager);
+                ModuleVersionRepository wrapperRepository = new ConcurrencyLimitingModuleVersionRepository(moduleVersionRepository, getHostPermits(moduleVersionRepository));
+                wrapperRepository = new CacheLockingModuleVersionRepository(wrapperRepository, cacheLockingManager);
                 wrapperRepository = startParameterResolutionOverride.overrideModuleVersionRepository(wrapperRepository);
                 localAwareRepository = new CachingModuleVersionRepository(wrapperRepository, moduleVersionsCache, moduleMetaDataCache, artifactAtRepositoryCachedResolutionIndex,
                         configuration.getResolutionStrategy().getCachePolicy(), timeProvider, metadataProcessor, getModuleExtractor(moduleVersionRepository));
@@ -104,9 +159,37 @@ public class ResolveIvyFactory {
             userResolverChain.add(localAwareRepository);
         }
 
+        if (probeConcurrently) {
+            userResolverChain.probeConcurrently(getProbeExecutor(), cacheLockingManager);
+        }
         return userResolverChain;
     }
 
+    private Semaphore getHostPermits(ConfiguredModuleVersionRepository repository) {
+        String host = null;
+        if (repository instanceof ExternalResourceResolver) {
+            List<String> patterns = ((ExternalResourceResolver) repository).getArtifactPatterns();
+            host = patterns.isEmpty() ? null : getHost(patterns.get(0));
+        }
+        String key = host != null ? host : repository.getId();
+        Semaphore permits = hostPermits.get(key);
+        if (permits == null) {
+            hostPermits.putIfAbsent(key, new Semaphore(Integer.getInteger(MAX_REQUESTS_PER_HOST, DEFAULT_MAX_REQUESTS_PER_HOST)));
+            permits = hostPermits.get(key);
+        }
+        return permits;
+    }
+
+    private static String getHost(String pattern) {
+        int start = pattern.indexOf("://");
+        if (start < 0) {
+            return null;
+        }
+        start += 3;
+        int end = pattern.indexOf('/', start);
+        return end < 0 ? pattern.substring(start) : pattern.substring(start, end);
+    }
+
     private void ivyContextualize(IvyAwareModuleVersionRepository ivyAwareRepository, UserResolverChain userResolverChain, String configurationName) {
         Ivy ivy = IvyContext.getContext().getIvy();
         IvySettings ivySettings = ivy.getSettings();
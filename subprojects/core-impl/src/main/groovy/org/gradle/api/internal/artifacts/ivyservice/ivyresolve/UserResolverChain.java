@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.ivyresolve;
 
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.IvyContext;
 import org.gradle.api.artifacts.ModuleVersionSelector;
 import org.gradle.api.internal.artifacts.ivyservice.*;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.LatestStrategy;
@@ -23,6 +25,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionM
 import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
 import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactMetaData;
 import org.gradle.api.internal.artifacts.metadata.ModuleVersionMetaData;
+import org.gradle.internal.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,21 +33,39 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 // TODO:DAZ This needs to be broken up
 public class UserResolverChain implements DependencyToModuleVersionResolver {
     private static final Logger LOGGER = LoggerFactory.getLogger(UserResolverChain.class);
+    // Set while a probe runs, so that a resolve made by the probe (for a parent module, say) does not wait on a bounded probe executor that it occupies
+    private static final ThreadLocal<Boolean> PROBING = new ThreadLocal<Boolean>();
 
     private final List<LocalAwareModuleVersionRepository> moduleVersionRepositories = new ArrayList<LocalAwareModuleVersionRepository>();
     private final List<String> moduleVersionRepositoryNames = new ArrayList<String>();
     private final VersionMatcher versionMatcher;
     private final LatestStrategy latestStrategy;
+    private Executor probeExecutor;
+    private CacheLockingManager cacheLockingManager;
 
     public UserResolverChain(VersionMatcher versionMatcher, LatestStrategy latestStrategy) {
         this.versionMatcher = versionMatcher;
         this.latestStrategy = latestStrategy;
     }
 
+    /**
+     * Queries the remote repositories concurrently for a static version, using the given executor. Each query is run as a cache action.
+     */
+    public void probeConcurrently(Executor executor, CacheLockingManager cacheLockingManager) {
+        this.probeExecutor = executor;
+        this.cacheLockingManager = cacheLockingManager;
+    }
+
     public void add(LocalAwareModuleVersionRepository repository) {
         moduleVersionRepositories.add(repository);
         moduleVersionRepositoryNames.add(repository.getName());
@@ -87,9 +108,124 @@ public class UserResolverChain implements DependencyToModuleVersionResolver {
         // Nothing found - do a second pass
         queue.addAll(missing);
         missing.clear();
+        if (probeExecutor != null && queue.size() > 1 && PROBING.get() == null && !versionMatcher.isDynamic(dependency.getRequested().getVersion())) {
+            return findStaticModuleConcurrently(dependency, queue, failures);
+        }
         return findLatestModule(dependency, queue, failures, missing);
     }
 
+    /**
+     * Queries the given repositories concurrently, and picks the result of the first repository in declaration order that contains the module. The
+     * queries of the repositories that follow it are cancelled if they have not started, and their results are ignored otherwise. The queries share
+     * the {@link Ivy} instance of this resolve, so this method does not return until the queries that have started are complete.
+     */
+    private ModuleResolution findStaticModuleConcurrently(final DependencyMetaData dependency, List<RepositoryResolveState> queue, Collection<Throwable> failures) {
+        final Ivy ivy = IvyContext.getContext().peekIvy();
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        final CountDownLatch finished = new CountDownLatch(queue.size());
+        List<FutureTask<RepositoryResolveState>> probes = new ArrayList<FutureTask<RepositoryResolveState>>(queue.size());
+        for (final RepositoryResolveState request : queue) {
+            final FutureTask<RepositoryResolveState> probe = new FutureTask<RepositoryResolveState>(new Callable<RepositoryResolveState>() {
+                public RepositoryResolveState call() {
+                    IvyContext.pushNewContext().setIvy(ivy);
+                    PROBING.set(Boolean.TRUE);
+                    try {
+                        cacheLockingManager.useCache(String.format("Resolve %s using repository %s", dependency, request.repository.getId()), new Runnable() {
+                            public void run() {
+                                request.resolve(dependency);
+                            }
+                        });
+                        return request;
+                    } finally {
+                        PROBING.remove();
+                        IvyContext.popContext();
+                    }
+                }
+            });
+            probes.add(probe);
+            probeExecutor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        if (!abandoned.get()) {
+                            probe.run();
+                        }
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            });
+        }
+
+        ModuleResolution best = null;
+        try {
+            for (FutureTask<RepositoryResolveState> probe : probes) {
+                RepositoryResolveState request;
+                try {
+                    request = waitFor(dependency, probe);
+                } catch (Throwable t) {
+                    failures.add(t);
+                    continue;
+                }
+                if (request.resolveResult.getState() == BuildableModuleVersionMetaDataResolveResult.State.Resolved) {
+                    ModuleResolution moduleResolution = new ModuleResolution(request.repository, request.resolveResult.getMetaData(), request.resolveResult.getModuleSource());
+                    if (!moduleResolution.isGeneratedModuleDescriptor()) {
+                        return moduleResolution;
+                    }
+                    best = chooseBest(best, moduleResolution);
+                }
+            }
+            return best;
+        } finally {
+            abandoned.set(true);
+            awaitProbes(dependency, finished);
+        }
+    }
+
+    private void awaitProbes(DependencyMetaData dependency, final CountDownLatch finished) {
+        if (finished.getCount() == 0) {
+            return;
+        }
+        // Release the cache while waiting, so that the probes can use it
+        cacheLockingManager.longRunningOperation(String.format("Wait for remaining queries for %s", dependency), new Runnable() {
+            public void run() {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        finished.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    private RepositoryResolveState waitFor(DependencyMetaData dependency, final FutureTask<RepositoryResolveState> probe) throws Throwable {
+        if (!probe.isDone()) {
+            // Release the cache while waiting, so that the probes can use it
+            cacheLockingManager.longRunningOperation(String.format("Wait for %s", dependency), new Runnable() {
+                public void run() {
+                    try {
+                        probe.get();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    } catch (ExecutionException e) {
+                        // Handled below
+                    }
+                }
+            });
+        }
+        try {
+            return probe.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
     private RepositoryResolveState createRepositoryResolveState(LocalAwareModuleVersionRepository repository, DependencyMetaData dependency) {
         if (versionMatcher.isDynamic(dependency.getRequested().getVersion())) {
             return new DynamicVersionRepositoryResolveState(repository);
@@ -0,0 +1,470 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.apache.ivy.core.module.descriptor.*;
+import org.apache.ivy.core.module.id.ArtifactId;
+import org.apache.ivy.core.module.id.ModuleId;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.apache.ivy.plugins.matcher.PatternMatcher;
+import org.apache.ivy.plugins.parser.xml.XmlModuleDescriptorParser;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.serialize.Decoder;
+import org.gradle.messaging.serialize.Encoder;
+import org.gradle.messaging.serialize.Serializer;
+import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Writes a module descriptor in a compact binary format, so that a cached descriptor can be read without parsing its ivy.xml. The descriptor that is
+ * read has the same content as one parsed from the ivy.xml written by {@link org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter}.
+ *
+ * <p>The licenses, description, home page and extra info of the module are rarely used during resolution. These are kept in a separate section that is
+ * only decoded when one of them is first queried.</p>
+ */
+public class ModuleDescriptorSerializer implements Serializer<ModuleDescriptor> {
+    private static final int VERSION = 1;
+    private final ResolverStrategy resolverStrategy;
+
+    public ModuleDescriptorSerializer(ResolverStrategy resolverStrategy) {
+        this.resolverStrategy = resolverStrategy;
+    }
+
+    public void write(Encoder encoder, ModuleDescriptor md) throws Exception {
+        encoder.writeSmallInt(VERSION);
+        ModuleRevisionId moduleRevisionId = md.getModuleRevisionId();
+        ModuleRevisionId resolvedModuleRevisionId = md.getResolvedModuleRevisionId();
+        encoder.writeString(moduleRevisionId.getOrganisation());
+        encoder.writeString(moduleRevisionId.getName());
+        encoder.writeNullableString(resolvedModuleRevisionId.getBranch());
+        encoder.writeNullableString(resolvedModuleRevisionId.getRevision());
+        writeMap(encoder, moduleRevisionId.getQualifiedExtraAttributes());
+        encoder.writeString(md.getStatus());
+        encoder.writeLong(md.getResolvedPublicationDate().getTime());
+        encoder.writeBoolean(md.isDefault());
+        writeMap(encoder, md.getExtraAttributesNamespaces());
+
+        writeConfigurations(encoder, md);
+        writeArtifacts(encoder, md);
+        writeDependencies(encoder, md);
+        writeExcludeRules(encoder, md.getAllExcludeRules());
+
+        ByteArrayOutputStream details = new ByteArrayOutputStream();
+        KryoBackedEncoder detailsEncoder = new KryoBackedEncoder(details);
+        writeDetails(detailsEncoder, md);
+        detailsEncoder.flush();
+        encoder.writeBinary(details.toByteArray());
+    }
+
+    public ModuleDescriptor read(Decoder decoder) throws Exception {
+        int version = decoder.readSmallInt();
+        if (version != VERSION) {
+            throw new IOException(String.format("Unexpected module descriptor format version %s.", version));
+        }
+        CachedModuleDescriptor md = new CachedModuleDescriptor();
+        String organisation = decoder.readString();
+        String name = decoder.readString();
+        String branch = decoder.readNullableString();
+        String revision = decoder.readNullableString();
+        md.setModuleRevisionId(ModuleRevisionId.newInstance(organisation, name, branch, revision, readMap(decoder)));
+        md.setStatus(decoder.readString());
+        md.setPublicationDate(new Date(decoder.readLong()));
+        md.setDefault(decoder.readBoolean());
+        for (Map.Entry<String, String> entry : readMap(decoder).entrySet()) {
+            md.addExtraAttributeNamespace(entry.getKey(), entry.getValue());
+        }
+
+        readConfigurations(decoder, md);
+        readArtifacts(decoder, md);
+        readDependencies(decoder, md);
+        readExcludeRules(decoder, md);
+
+        md.details = decoder.readBinary();
+        return md;
+    }
+
+    private void writeConfigurations(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Configuration[] configurations = md.getConfigurations();
+        encoder.writeSmallInt(configurations.length);
+        for (Configuration configuration : configurations) {
+            encoder.writeString(configuration.getName());
+            encoder.writeString(configuration.getVisibility().toString());
+            encoder.writeNullableString(configuration.getDescription());
+            writeStrings(encoder, configuration.getExtends());
+            encoder.writeBoolean(configuration.isTransitive());
+            encoder.writeNullableString(configuration.getDeprecated());
+            writeMap(encoder, configuration.getQualifiedExtraAttributes());
+        }
+    }
+
+    private void readConfigurations(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String name = decoder.readString();
+            Configuration.Visibility visibility = Configuration.Visibility.getVisibility(decoder.readString());
+            String description = decoder.readNullableString();
+            String[] extendsFrom = readStrings(decoder);
+            boolean transitive = decoder.readBoolean();
+            String deprecated = decoder.readNullableString();
+            Configuration configuration = new Configuration(name, visibility, description, extendsFrom, transitive, deprecated);
+            for (Map.Entry<String, String> entry : readMap(decoder).entrySet()) {
+                configuration.setExtraAttribute(entry.getKey(), entry.getValue());
+            }
+            md.addConfiguration(configuration);
+        }
+    }
+
+    private void writeArtifacts(Encoder encoder, ModuleDescriptor md) throws IOException {
+        Artifact[] artifacts = md.getAllArtifacts();
+        String[] configurationNames = md.getConfigurationsNames();
+        encoder.writeSmallInt(artifacts.length);
+        for (Artifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeString(artifact.getExt());
+            encoder.writeNullableString(artifact.getUrl() == null ? null : artifact.getUrl().toString());
+            writeMap(encoder, artifact.getQualifiedExtraAttributes());
+            List<String> configurations = new ArrayList<String>();
+            for (String configurationName : configurationNames) {
+                if (Arrays.asList(md.getArtifacts(configurationName)).contains(artifact)) {
+                    configurations.add(configurationName);
+                }
+            }
+            writeStrings(encoder, configurations.toArray(new String[configurations.size()]));
+        }
+    }
+
+    private void readArtifacts(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readString();
+            URL url = readUrl(decoder);
+            MDArtifact artifact = new MDArtifact(md, name, type, ext, url, readMap(decoder));
+            for (String configuration : readStrings(decoder)) {
+                artifact.addConfiguration(configuration);
+                md.addArtifact(configuration, artifact);
+            }
+        }
+    }
+
+    private void writeDependencies(Encoder encoder, ModuleDescriptor md) throws IOException {
+        DependencyDescriptor[] dependencies = md.getDependencies();
+        encoder.writeSmallInt(dependencies.length);
+        for (DependencyDescriptor dependency : dependencies) {
+            ModuleRevisionId dependencyRevisionId = dependency.getDependencyRevisionId();
+            ModuleRevisionId dynamicConstraintRevisionId = dependency.getDynamicConstraintDependencyRevisionId();
+            encoder.writeString(dependencyRevisionId.getOrganisation());
+            encoder.writeString(dependencyRevisionId.getName());
+            encoder.writeNullableString(dependencyRevisionId.getBranch());
+            encoder.writeNullableString(dependencyRevisionId.getRevision());
+            encoder.writeNullableString(dynamicConstraintRevisionId.getBranch());
+            encoder.writeNullableString(dynamicConstraintRevisionId.getRevision());
+            writeMap(encoder, dependencyRevisionId.getQualifiedExtraAttributes());
+            encoder.writeBoolean(dependency.isForce());
+            encoder.writeBoolean(dependency.isChanging());
+            encoder.writeBoolean(dependency.isTransitive());
+
+            String[] moduleConfigurations = dependency.getModuleConfigurations();
+            encoder.writeSmallInt(moduleConfigurations.length);
+            for (String moduleConfiguration : moduleConfigurations) {
+                encoder.writeString(moduleConfiguration);
+                writeStrings(encoder, dependency.getDependencyConfigurations(moduleConfiguration));
+            }
+
+            DependencyArtifactDescriptor[] dependencyArtifacts = dependency.getAllDependencyArtifacts();
+            encoder.writeSmallInt(dependencyArtifacts.length);
+            for (DependencyArtifactDescriptor dependencyArtifact : dependencyArtifacts) {
+                encoder.writeString(dependencyArtifact.getName());
+                encoder.writeString(dependencyArtifact.getType());
+                encoder.writeString(dependencyArtifact.getExt());
+                encoder.writeNullableString(dependencyArtifact.getUrl() == null ? null : dependencyArtifact.getUrl().toString());
+                writeMap(encoder, dependencyArtifact.getQualifiedExtraAttributes());
+                writeStrings(encoder, dependencyArtifact.getConfigurations());
+            }
+
+            IncludeRule[] includeRules = dependency.getAllIncludeRules();
+            encoder.writeSmallInt(includeRules.length);
+            for (IncludeRule includeRule : includeRules) {
+                writeRule(encoder, includeRule.getId(), includeRule.getMatcher(), includeRule.getQualifiedExtraAttributes(), includeRule.getConfigurations());
+            }
+            writeExcludeRules(encoder, dependency.getAllExcludeRules());
+        }
+    }
+
+    private void readDependencies(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            String organisation = decoder.readString();
+            String name = decoder.readString();
+            String branch = decoder.readNullableString();
+            String revision = decoder.readNullableString();
+            String branchConstraint = decoder.readNullableString();
+            String revisionConstraint = decoder.readNullableString();
+            Map<String, String> extraAttributes = readMap(decoder);
+            ModuleRevisionId revisionId = ModuleRevisionId.newInstance(organisation, name, branch, revision, extraAttributes);
+            ModuleRevisionId dynamicConstraintRevisionId = ModuleRevisionId.newInstance(organisation, name, branchConstraint, revisionConstraint, extraAttributes, false);
+            boolean force = decoder.readBoolean();
+            boolean changing = decoder.readBoolean();
+            boolean transitive = decoder.readBoolean();
+            DefaultDependencyDescriptor dependency = new DefaultDependencyDescriptor(md, revisionId, dynamicConstraintRevisionId, force, changing, transitive);
+            md.addDependency(dependency);
+
+            int moduleConfigurations = decoder.readSmallInt();
+            for (int j = 0; j < moduleConfigurations; j++) {
+                String moduleConfiguration = decoder.readString();
+                for (String dependencyConfiguration : readStrings(decoder)) {
+                    dependency.addDependencyConfiguration(moduleConfiguration, dependencyConfiguration);
+                }
+            }
+
+            int dependencyArtifacts = decoder.readSmallInt();
+            for (int j = 0; j < dependencyArtifacts; j++) {
+                String artifactName = decoder.readString();
+                String type = decoder.readString();
+                String ext = decoder.readString();
+                URL url = readUrl(decoder);
+                DefaultDependencyArtifactDescriptor dependencyArtifact = new DefaultDependencyArtifactDescriptor(dependency, artifactName, type, ext, url, readMap(decoder));
+                for (String configuration : readStrings(decoder)) {
+                    dependencyArtifact.addConfiguration(configuration);
+                    dependency.addDependencyArtifact(configuration, dependencyArtifact);
+                }
+            }
+
+            int includeRules = decoder.readSmallInt();
+            for (int j = 0; j < includeRules; j++) {
+                ArtifactId artifactId = readArtifactId(decoder);
+                PatternMatcher matcher = readMatcher(decoder);
+                DefaultIncludeRule includeRule = new DefaultIncludeRule(artifactId, matcher, readMap(decoder));
+                for (String configuration : readStrings(decoder)) {
+                    includeRule.addConfiguration(configuration);
+                    dependency.addIncludeRule(configuration, includeRule);
+                }
+            }
+
+            int excludeRules = decoder.readSmallInt();
+            for (int j = 0; j < excludeRules; j++) {
+                DefaultExcludeRule excludeRule = readExcludeRule(decoder);
+                for (String configuration : excludeRule.getConfigurations()) {
+                    dependency.addExcludeRule(configuration, excludeRule);
+                }
+            }
+        }
+    }
+
+    private void writeExcludeRules(Encoder encoder, ExcludeRule[] excludeRules) throws IOException {
+        encoder.writeSmallInt(excludeRules.length);
+        for (ExcludeRule excludeRule : excludeRules) {
+            writeRule(encoder, excludeRule.getId(), excludeRule.getMatcher(), excludeRule.getQualifiedExtraAttributes(), excludeRule.getConfigurations());
+        }
+    }
+
+    private void readExcludeRules(Decoder decoder, DefaultModuleDescriptor md) throws IOException {
+        int count = decoder.readSmallInt();
+        for (int i = 0; i < count; i++) {
+            md.addExcludeRule(readExcludeRule(decoder));
+        }
+    }
+
+    private DefaultExcludeRule readExcludeRule(Decoder decoder) throws IOException {
+        ArtifactId artifactId = readArtifactId(decoder);
+        PatternMatcher matcher = readMatcher(decoder);
+        DefaultExcludeRule excludeRule = new DefaultExcludeRule(artifactId, matcher, readMap(decoder));
+        for (String configuration : readStrings(decoder)) {
+            excludeRule.addConfiguration(configuration);
+        }
+        return excludeRule;
+    }
+
+    private void writeRule(Encoder encoder, ArtifactId artifactId, PatternMatcher matcher, Map<?, ?> extraAttributes, String[] configurations) throws IOException {
+        encoder.writeString(artifactId.getModuleId().getOrganisation());
+        encoder.writeString(artifactId.getModuleId().getName());
+        encoder.writeString(artifactId.getName());
+        encoder.writeString(artifactId.getType());
+        encoder.writeString(artifactId.getExt());
+        encoder.writeString(matcher.getName());
+        writeMap(encoder, extraAttributes);
+        writeStrings(encoder, configurations);
+    }
+
+    private ArtifactId readArtifactId(Decoder decoder) throws IOException {
+        String organisation = decoder.readString();
+        String module = decoder.readString();
+        String name = decoder.readString();
+        String type = decoder.readString();
+        String ext = decoder.readString();
+        return new ArtifactId(new ModuleId(organisation, module), name, type, ext);
+    }
+
+    private PatternMatcher readMatcher(Decoder decoder) throws IOException {
+        String matcherName = decoder.readString();
+        PatternMatcher matcher = resolverStrategy.getPatternMatcher(matcherName);
+        if (matcher == null) {
+            throw new IllegalArgumentException("unknown matcher " + matcherName);
+        }
+        return matcher;
+    }
+
+    private static void writeDetails(Encoder encoder, ModuleDescriptor md) throws IOException {
+        License[] licenses = md.getLicenses();
+        encoder.writeSmallInt(licenses.length);
+        for (License license : licenses) {
+            encoder.writeNullableString(license.getName());
+            encoder.writeNullableString(license.getUrl());
+        }
+        encoder.writeNullableString(md.getHomePage());
+        encoder.writeNullableString(md.getDescription());
+        Map<String, String> extraInfo = new LinkedHashMap<String, String>();
+        for (Object entry : md.getExtraInfo().entrySet()) {
+            Map.Entry<?, ?> extraInfoEntry = (Map.Entry<?, ?>) entry;
+            if (extraInfoEntry.getValue() != null && extraInfoEntry.getValue().toString().length() > 0) {
+                extraInfo.put(extraInfoEntry.getKey().toString(), extraInfoEntry.getValue().toString());
+            }
+        }
+        writeMap(encoder, extraInfo);
+    }
+
+    private static void writeMap(Encoder encoder, Map<?, ?> map) throws IOException {
+        if (map == null) {
+            encoder.writeSmallInt(0);
+            return;
+        }
+        encoder.writeSmallInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            encoder.writeString(entry.getKey().toString());
+            encoder.writeString(entry.getValue().toString());
+        }
+    }
+
+    private static Map<String, String> readMap(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        Map<String, String> map = new HashMap<String, String>();
+        for (int i = 0; i < count; i++) {
+            String key = decoder.readString();
+            map.put(key, decoder.readString());
+        }
+        return map;
+    }
+
+    private static void writeStrings(Encoder encoder, String[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (String value : values) {
+            encoder.writeString(value);
+        }
+    }
+
+    private static String[] readStrings(Decoder decoder) throws IOException {
+        String[] values = new String[decoder.readSmallInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decoder.readString();
+        }
+        return values;
+    }
+
+    private static URL readUrl(Decoder decoder) throws IOException {
+        String url = decoder.readNullableString();
+        return url == null ? null : new URL(url);
+    }
+
+    /**
+     * A module descriptor that decodes its licenses, description, home page and extra info on first access.
+     */
+    private static class CachedModuleDescriptor extends DefaultModuleDescriptor {
+        private byte[] details;
+
+        CachedModuleDescriptor() {
+            super(XmlModuleDescriptorParser.getInstance(), null);
+        }
+
+        private synchronized void loadDetails() {
+            if (details == null) {
+                return;
+            }
+            Decoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(details));
+            details = null;
+            try {
+                int licenses = decoder.readSmallInt();
+                for (int i = 0; i < licenses; i++) {
+                    String name = decoder.readNullableString();
+                    super.addLicense(new License(name, decoder.readNullableString()));
+                }
+                super.setHomePage(decoder.readNullableString());
+                super.setDescription(decoder.readNullableString());
+                for (Map.Entry<String, String> entry : readMap(decoder).entrySet()) {
+                    super.addExtraInfo(entry.getKey(), entry.getValue());
+                }
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        @Override
+        public License[] getLicenses() {
+            loadDetails();
+            return super.getLicenses();
+        }
+
+        @Override
+        public void addLicense(License license) {
+            loadDetails();
+            super.addLicense(license);
+        }
+
+        @Override
+        public String getHomePage() {
+            loadDetails();
+            return super.getHomePage();
+        }
+
+        @Override
+        public void setHomePage(String homePage) {
+            loadDetails();
+            super.setHomePage(homePage);
+        }
+
+        @Override
+        public String getDescription() {
+            loadDetails();
+            return super.getDescription();
+        }
+
+        @Override
+        public void setDescription(String description) {
+            loadDetails();
+            super.setDescription(description);
+        }
+
+        @Override
+        public Map getExtraInfo() {
+            loadDetails();
+            return super.getExtraInfo();
+        }
+
+        @Override
+        public void addExtraInfo(String infoKey, String value) {
+            loadDetails();
+            super.addExtraInfo(infoKey, value);
+        }
+    }
+}
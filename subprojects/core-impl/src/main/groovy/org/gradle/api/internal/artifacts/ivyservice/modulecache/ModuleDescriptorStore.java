@@ -25,35 +25,66 @@ import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.Descriptor
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser;
 import org.gradle.api.internal.filestore.PathKeyFileStore;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.local.LocallyAvailableResource;
+import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.util.Arrays;
 
+/**
+ * Stores each cached module descriptor as an ivy.xml file, along with a binary copy that is read in preference to parsing the ivy.xml. The binary copy
+ * records the SHA1 of the ivy.xml it was made from, and is ignored when it does not match the ivy.xml, for example because the ivy.xml has been replaced
+ * by a Gradle version that does not write the binary copy.
+ */
 public class ModuleDescriptorStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModuleDescriptorStore.class);
 
     public static final String FILE_PATH_PATTERN = "%s/%s/%s/%s/ivy.xml";
+    public static final String BINARY_FILE_PATH_PATTERN = "%s/%s/%s/%s/descriptor.bin";
     private final IvyXmlModuleDescriptorParser descriptorParser;
     private final PathKeyFileStore metaDataStore;
     private final IvyModuleDescriptorWriter descriptorWriter;
+    private final ModuleDescriptorSerializer descriptorSerializer;
 
-    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser) {
+    public ModuleDescriptorStore(PathKeyFileStore metaDataStore, IvyModuleDescriptorWriter descriptorWriter, IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser,
+                                 ModuleDescriptorSerializer descriptorSerializer) {
         this.metaDataStore = metaDataStore;
         this.descriptorWriter = descriptorWriter;
         this.descriptorParser = ivyXmlModuleDescriptorParser;
+        this.descriptorSerializer = descriptorSerializer;
     }
 
-    public ModuleDescriptor getModuleDescriptor(ModuleVersionRepository repository, ModuleVersionIdentifier moduleVersionIdentifier) {
+    public ModuleDescriptor getModuleDescriptor(ModuleVersionRepository repository, ModuleVersionIdentifier moduleVersionIdentifier, BigInteger descriptorHash) {
         String filePath = getFilePath(repository, moduleVersionIdentifier);
         final LocallyAvailableResource resource = metaDataStore.get(filePath);
-        if (resource != null) {
-            return parseModuleDescriptorFile(resource.getFile());
+        if (resource == null) {
+            return null;
+        }
+        String binaryFilePath = getBinaryFilePath(repository, moduleVersionIdentifier);
+        LocallyAvailableResource binaryResource = metaDataStore.get(binaryFilePath);
+        if (binaryResource != null) {
+            ModuleDescriptor moduleDescriptor = readBinaryFile(binaryResource.getFile(), descriptorHash);
+            if (moduleDescriptor != null) {
+                return moduleDescriptor;
+            }
         }
-        return null;
+
+        // No usable binary copy, for example because the descriptor was cached by an earlier version - parse the ivy.xml and add the binary copy
+        ModuleDescriptor moduleDescriptor = parseModuleDescriptorFile(resource.getFile());
+        putBinaryFile(binaryFilePath, moduleDescriptor, resource.getSha1());
+        return moduleDescriptor;
     }
 
     public LocallyAvailableResource putModuleDescriptor(ModuleVersionRepository repository, final ModuleDescriptor moduleDescriptor) {
         String filePath = getFilePath(repository, moduleDescriptor.getModuleRevisionId());
-        return metaDataStore.add(filePath, new Action<File>() {
+        LocallyAvailableResource resource = metaDataStore.add(filePath, new Action<File>() {
             public void execute(File moduleDescriptorFile) {
                 try {
                     descriptorWriter.write(moduleDescriptor, moduleDescriptorFile);
@@ -62,6 +93,45 @@ public class ModuleDescriptorStore {
                 }
             }
         });
+        putBinaryFile(getBinaryFilePath(repository, moduleDescriptor.getModuleRevisionId()), moduleDescriptor, resource.getSha1());
+        return resource;
+    }
+
+    private ModuleDescriptor readBinaryFile(File binaryFile, BigInteger descriptorHash) {
+        try {
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(binaryFile));
+            try {
+                if (!Arrays.equals(decoder.readBinary(), descriptorHash.toByteArray())) {
+                    LOGGER.debug("Cached module descriptor {} does not match ivy.xml. Parsing ivy.xml instead.", binaryFile);
+                    return null;
+                }
+                return descriptorSerializer.read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read cached module descriptor %s. Parsing ivy.xml instead.", binaryFile), e);
+            return null;
+        }
+    }
+
+    private void putBinaryFile(String binaryFilePath, final ModuleDescriptor moduleDescriptor, final HashValue descriptorHash) {
+        metaDataStore.add(binaryFilePath, new Action<File>() {
+            public void execute(File binaryFile) {
+                try {
+                    binaryFile.getParentFile().mkdirs();
+                    KryoBackedEncoder encoder = new KryoBackedEncoder(new FileOutputStream(binaryFile));
+                    try {
+                        encoder.writeBinary(descriptorHash.asBigInteger().toByteArray());
+                        descriptorSerializer.write(encoder, moduleDescriptor);
+                    } finally {
+                        encoder.close();
+                    }
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        });
     }
 
     private ModuleDescriptor parseModuleDescriptorFile(File moduleDescriptorFile) {
@@ -76,4 +146,12 @@ public class ModuleDescriptorStore {
     private String getFilePath(ModuleVersionRepository repository, ModuleVersionIdentifier moduleVersionIdentifier) {
         return String.format(FILE_PATH_PATTERN, moduleVersionIdentifier.getGroup(), moduleVersionIdentifier.getName(), moduleVersionIdentifier.getVersion(), repository.getId());
     }
+
+    private String getBinaryFilePath(ModuleVersionRepository repository, ModuleRevisionId moduleRevisionId) {
+        return String.format(BINARY_FILE_PATH_PATTERN, moduleRevisionId.getOrganisation(), moduleRevisionId.getName(), moduleRevisionId.getRevision(), repository.getId());
+    }
+
+    private String getBinaryFilePath(ModuleVersionRepository repository, ModuleVersionIdentifier moduleVersionIdentifier) {
+        return String.format(BINARY_FILE_PATH_PATTERN, moduleVersionIdentifier.getGroup(), moduleVersionIdentifier.getName(), moduleVersionIdentifier.getVersion(), repository.getId());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.Ivy;
+import org.apache.ivy.core.IvyContext;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionIdResolveResult;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveResult;
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ProjectDependencyDescriptor;
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Resolves module meta-data on a bounded pool of threads, so that the meta-data of the dependencies of a configuration can be fetched from the
+ * repositories concurrently. Each fetch is run as a cache action of the {@link CacheLockingManager}, so that the cache files are only accessed by one
+ * thread at a time and the remote requests, which are run as long running operations, overlap. The traversal thread releases the cache while it waits
+ * for a prefetch to complete.
+ *
+ * <p>The meta-data of project dependencies is not prefetched, as it is taken from the project model.</p>
+ */
+public class ConcurrentModuleMetaDataPrefetcher implements ModuleMetaDataPrefetcher, Stoppable {
+    private final CacheLockingManager cacheLockingManager;
+    private final Ivy ivy;
+    private final int maxThreads;
+    private final StoppableExecutor executor;
+    private final Map<ModuleVersionIdentifier, FutureTask<ModuleVersionResolveResult>> pending = new HashMap<ModuleVersionIdentifier, FutureTask<ModuleVersionResolveResult>>();
+    private final Set<ModuleVersionIdentifier> seen = new HashSet<ModuleVersionIdentifier>();
+    private final Object lock = new Object();
+    private final LinkedList<FutureTask<ModuleVersionResolveResult>> queue = new LinkedList<FutureTask<ModuleVersionResolveResult>>();
+    private int workers;
+    private boolean stopped;
+
+    public ConcurrentModuleMetaDataPrefetcher(ExecutorFactory executorFactory, CacheLockingManager cacheLockingManager, Ivy ivy, int maxThreads) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.ivy = ivy;
+        this.maxThreads = maxThreads;
+        executor = executorFactory.create("Module meta-data prefetcher");
+    }
+
+    public void prefetch(DependencyMetaData dependency, final ModuleVersionIdResolveResult idResolveResult) {
+        if (dependency.getDescriptor() instanceof ProjectDependencyDescriptor) {
+            return;
+        }
+        final ModuleVersionIdentifier id = idResolveResult.getId();
+        if (!seen.add(id)) {
+            return;
+        }
+        FutureTask<ModuleVersionResolveResult> task = new FutureTask<ModuleVersionResolveResult>(new Callable<ModuleVersionResolveResult>() {
+            public ModuleVersionResolveResult call() {
+                return cacheLockingManager.useCache(String.format("Resolve %s", id), new Factory<ModuleVersionResolveResult>() {
+                    public ModuleVersionResolveResult create() {
+                        return idResolveResult.resolve();
+                    }
+                });
+            }
+        });
+        pending.put(id, task);
+        synchronized (lock) {
+            queue.add(task);
+            if (workers < maxThreads) {
+                workers++;
+                executor.execute(new Worker());
+            }
+        }
+    }
+
+    public ModuleVersionResolveResult resolve(ModuleVersionIdentifier id, ModuleVersionIdResolveResult idResolveResult) {
+        final FutureTask<ModuleVersionResolveResult> task = pending.remove(id);
+        if (task == null) {
+            return idResolveResult.resolve();
+        }
+
+        // Run the fetch in this thread if no worker has started it yet. Otherwise, release the cache while waiting for the worker to finish
+        task.run();
+        if (!task.isDone()) {
+            cacheLockingManager.longRunningOperation(String.format("Wait for meta-data of %s", id), new Runnable() {
+                public void run() {
+                    waitFor(task);
+                }
+            });
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private static void waitFor(FutureTask<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            // Reported when the result is used
+        }
+    }
+
+    /**
+     * Discards the fetches that have not started, and waits for those in progress to complete.
+     */
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            queue.clear();
+        }
+        pending.clear();
+        cacheLockingManager.longRunningOperation("Stop module meta-data prefetcher", new Runnable() {
+            public void run() {
+                executor.stop();
+            }
+        });
+    }
+
+    private class Worker implements Runnable {
+        public void run() {
+            IvyContext.pushNewContext().setIvy(ivy);
+            try {
+                while (true) {
+                    FutureTask<ModuleVersionResolveResult> task;
+                    synchronized (lock) {
+                        task = stopped ? null : queue.poll();
+                        if (task == null) {
+                            workers--;
+                            return;
+                        }
+                    }
+                    task.run();
+                }
+            } finally {
+                IvyContext.popContext();
+            }
+        }
+    }
+}
@@ -16,7 +16,9 @@
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
 
 import org.apache.ivy.Ivy;
+import org.apache.ivy.core.module.descriptor.DefaultDependencyDescriptor;
 import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
 import org.gradle.api.artifacts.ResolveException;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
@@ -25,6 +27,8 @@ import org.gradle.api.internal.artifacts.ResolverResults;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
 import org.gradle.api.internal.artifacts.ivyservice.*;
 import org.gradle.api.internal.artifacts.ivyservice.clientmodule.ClientModuleResolver;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ArtifactResolveException;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleVersionRepository;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.LazyDependencyToModuleResolver;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.LatestStrategy;
@@ -39,15 +43,35 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.Resolut
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
+import org.gradle.api.internal.artifacts.metadata.DefaultDependencyMetaData;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactMetaData;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.logging.ProgressLoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DefaultDependencyResolver implements ArtifactDependencyResolver {
+    /**
+     * The maximum number of threads used to fetch module meta-data ahead of the dependency graph traversal. Prefetching is disabled when 0.
+     */
+    public static final String PREFETCH_THREADS = "org.gradle.resolve.prefetchThreads";
+    /**
+     * The maximum number of threads used to download the artifacts of a configuration when its files are requested. Artifacts are downloaded one
+     * at a time when 0 or 1.
+     */
+    public static final String DOWNLOAD_THREADS = "org.gradle.resolve.downloadThreads";
+    /**
+     * When true, the results of resolving a configuration are cached between builds, and are reused when the inputs to the resolution have not changed.
+     * See {@link ResolvedConfigurationCache} for the configurations that can be cached.
+     */
+    public static final String CACHE_RESOLVED_CONFIGURATIONS = "org.gradle.resolve.cacheResolvedConfigurations";
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultDependencyResolver.class);
     private final LocalComponentFactory localComponentFactory;
     private final ResolvedArtifactFactory resolvedArtifactFactory;
@@ -58,10 +82,14 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
     private final ResolutionResultsStoreFactory storeFactory;
     private final VersionMatcher versionMatcher;
     private final LatestStrategy latestStrategy;
+    private final ExecutorFactory executorFactory;
+    private final ProgressLoggerFactory progressLoggerFactory;
+    private final ResolvedConfigurationCache resolvedConfigurationCache;
 
     public DefaultDependencyResolver(ResolveIvyFactory ivyFactory, LocalComponentFactory localComponentFactory, ResolvedArtifactFactory resolvedArtifactFactory,
                                      ProjectComponentRegistry projectComponentRegistry, CacheLockingManager cacheLockingManager, IvyContextManager ivyContextManager,
-                                     ResolutionResultsStoreFactory storeFactory, VersionMatcher versionMatcher, LatestStrategy latestStrategy) {
+                                     ResolutionResultsStoreFactory storeFactory, VersionMatcher versionMatcher, LatestStrategy latestStrategy,
+                                     ExecutorFactory executorFactory, ProgressLoggerFactory progressLoggerFactory, ResolvedConfigurationCache resolvedConfigurationCache) {
         this.ivyFactory = ivyFactory;
         this.localComponentFactory = localComponentFactory;
         this.resolvedArtifactFactory = resolvedArtifactFactory;
@@ -71,6 +99,9 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
         this.storeFactory = storeFactory;
         this.versionMatcher = versionMatcher;
         this.latestStrategy = latestStrategy;
+        this.executorFactory = executorFactory;
+        this.progressLoggerFactory = progressLoggerFactory;
+        this.resolvedConfigurationCache = resolvedConfigurationCache;
     }
 
     public ResolverResults resolve(final ConfigurationInternal configuration,
@@ -79,12 +110,32 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
         LOGGER.debug("Resolving {}", configuration);
         return ivyContextManager.withIvy(new Transformer<ResolverResults, Ivy>() {
             public ResolverResults transform(Ivy ivy) {
-                DependencyToModuleVersionResolver dependencyResolver = ivyFactory.create(configuration, repositories, metadataProcessor);
+                List<ConfiguredModuleVersionRepository> resolvers = ivyFactory.createResolvers(repositories);
+                DependencyToModuleVersionResolver dependencyResolver = ivyFactory.create(configuration, resolvers, metadataProcessor);
+
+                ResolvedConfigurationCache.Key cacheKey = null;
+                if (Boolean.getBoolean(CACHE_RESOLVED_CONFIGURATIONS)) {
+                    cacheKey = resolvedConfigurationCache.createKey(configuration, resolvers, metadataProcessor);
+                }
+                if (cacheKey != null) {
+                    byte[] results = resolvedConfigurationCache.get(cacheKey);
+                    if (results != null) {
+                        LOGGER.debug("Using cached results for {}", configuration);
+                        ResolverResults cachedResults = replayResults(configuration, cacheKey, results, dependencyResolver);
+                        if (cachedResults != null) {
+                            return cachedResults;
+                        }
+                    }
+                }
+                ResolutionResultsRecorder recorder = cacheKey == null ? null : new ResolutionResultsRecorder(cacheKey.getDependencies(), versionMatcher);
 
                 dependencyResolver = new ClientModuleResolver(dependencyResolver);
                 ProjectDependencyResolver projectDependencyResolver = new ProjectDependencyResolver(projectComponentRegistry, dependencyResolver, localComponentFactory);
                 dependencyResolver = projectDependencyResolver;
                 DependencyToModuleVersionIdResolver idResolver = new LazyDependencyToModuleResolver(dependencyResolver, versionMatcher);
+                if (recorder != null) {
+                    idResolver = recorder.record(idResolver);
+                }
                 idResolver = new VersionForcingDependencyToModuleResolver(idResolver, configuration.getResolutionStrategy().getDependencyResolveRule());
 
                 ModuleConflictResolver conflictResolver;
@@ -95,23 +146,120 @@ public class DefaultDependencyResolver implements ArtifactDependencyResolver {
                 }
                 conflictResolver = new VersionSelectionReasonResolver(conflictResolver);
 
-                DependencyGraphBuilder builder = new DependencyGraphBuilder(idResolver, projectDependencyResolver, conflictResolver, new DefaultDependencyToConfigurationResolver());
+                int prefetchThreads = Integer.getInteger(PREFETCH_THREADS, 0);
+                if (prefetchThreads <= 0) {
+                    DependencyGraphBuilder builder = new DependencyGraphBuilder(idResolver, projectDependencyResolver, conflictResolver, new DefaultDependencyToConfigurationResolver());
+                    return resolveGraph(configuration, builder, cacheKey, recorder);
+                }
+
+                ConcurrentModuleMetaDataPrefetcher prefetcher = new ConcurrentModuleMetaDataPrefetcher(executorFactory, cacheLockingManager, ivy, prefetchThreads);
+                try {
+                    DependencyGraphBuilder builder = new DependencyGraphBuilder(idResolver, projectDependencyResolver, conflictResolver, new DefaultDependencyToConfigurationResolver(), prefetcher);
+                    return resolveGraph(configuration, builder, cacheKey, recorder);
+                } finally {
+                    prefetcher.stop();
+                }
+            }
+        });
+    }
+
+    private ResolverResults resolveGraph(ConfigurationInternal configuration, DependencyGraphBuilder builder, ResolvedConfigurationCache.Key cacheKey, ResolutionResultsRecorder recorder) {
+        StoreSet stores = storeFactory.createStoreSet();
+        ResolutionResultBuilder newModelBuilder = createNewModelBuilder(stores);
+        DefaultResolvedConfigurationBuilder oldModelBuilder = createOldModelBuilder(stores);
+
+        if (recorder == null) {
+            builder.resolve(configuration, newModelBuilder, oldModelBuilder);
+        } else {
+            builder.resolve(configuration, recorder.record(newModelBuilder), recorder.record(oldModelBuilder));
+            byte[] results = recorder.getResults();
+            if (results != null) {
+                resolvedConfigurationCache.put(cacheKey, results);
+            }
+        }
+        return createResults(configuration, newModelBuilder, oldModelBuilder);
+    }
+
+    /**
+     * Builds the results of the given configuration from its cached results, or returns null if the cached results cannot be read.
+     */
+    private ResolverResults replayResults(ConfigurationInternal configuration, ResolvedConfigurationCache.Key cacheKey, byte[] results,
+                                          final DependencyToModuleVersionResolver dependencyResolver) {
+        StoreSet stores = storeFactory.createStoreSet();
+        ResolutionResultBuilder newModelBuilder = createNewModelBuilder(stores);
+        DefaultResolvedConfigurationBuilder oldModelBuilder = createOldModelBuilder(stores);
 
-                StoreSet stores = storeFactory.createStoreSet();
+        final Map<ModuleVersionIdentifier, ArtifactResolver> artifactResolvers = new HashMap<ModuleVersionIdentifier, ArtifactResolver>();
+        try {
+            ResolutionResultsRecorder.replay(results, cacheKey.getDependencies(), newModelBuilder, oldModelBuilder, new Transformer<ArtifactResolver, ModuleVersionIdentifier>() {
+                public ArtifactResolver transform(ModuleVersionIdentifier id) {
+                    ArtifactResolver artifactResolver = artifactResolvers.get(id);
+                    if (artifactResolver == null) {
+                        artifactResolver = new LazyArtifactResolver(id, dependencyResolver);
+                        artifactResolvers.put(id, artifactResolver);
+                    }
+                    return artifactResolver;
+                }
+            });
+        } catch (Exception e) {
+            // The entry is corrupt or was written by an incompatible version, so discard the partly built results and resolve the configuration
+            LOGGER.info(String.format("Could not use the cached results for %s. Resolving it again.", configuration), e);
+            return null;
+        }
+        return createResults(configuration, newModelBuilder, oldModelBuilder);
+    }
 
-                BinaryStore newModelStore = stores.nextBinaryStore();
-                Store<ResolvedComponentResult> newModelCache = stores.oldModelStore();
-                ResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, newModelCache);
+    private ResolutionResultBuilder createNewModelBuilder(StoreSet stores) {
+        BinaryStore newModelStore = stores.nextBinaryStore();
+        Store<ResolvedComponentResult> newModelCache = stores.oldModelStore();
+        return new StreamingResolutionResultBuilder(newModelStore, newModelCache);
+    }
 
-                BinaryStore oldModelStore = stores.nextBinaryStore();
-                Store<TransientConfigurationResults> oldModelCache = stores.newModelStore();
-                TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache);
-                DefaultResolvedConfigurationBuilder oldModelBuilder = new DefaultResolvedConfigurationBuilder(resolvedArtifactFactory, oldTransientModelBuilder);
+    private DefaultResolvedConfigurationBuilder createOldModelBuilder(StoreSet stores) {
+        BinaryStore oldModelStore = stores.nextBinaryStore();
+        Store<TransientConfigurationResults> oldModelCache = stores.newModelStore();
+        TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache);
+        return new DefaultResolvedConfigurationBuilder(resolvedArtifactFactory, oldTransientModelBuilder);
+    }
 
-                builder.resolve(configuration, newModelBuilder, oldModelBuilder);
-                DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, oldModelBuilder, cacheLockingManager);
-                return new ResolverResults(new DefaultResolvedConfiguration(result), newModelBuilder.complete());
+    private ResolverResults createResults(ConfigurationInternal configuration, ResolutionResultBuilder newModelBuilder, DefaultResolvedConfigurationBuilder oldModelBuilder) {
+        ParallelArtifactDownloader artifactDownloader = new ParallelArtifactDownloader(executorFactory, cacheLockingManager, progressLoggerFactory, Integer.getInteger(DOWNLOAD_THREADS, 0));
+        DefaultLenientConfiguration result = new DefaultLenientConfiguration(configuration, oldModelBuilder, cacheLockingManager, artifactDownloader);
+        return new ResolverResults(new DefaultResolvedConfiguration(result), newModelBuilder.complete());
+    }
+
+    /**
+     * Resolves the artifacts of a module version whose results were read from the cache. The meta-data of the module version is resolved when
+     * the first of its artifacts is resolved.
+     */
+    private static class LazyArtifactResolver implements ArtifactResolver {
+        private final ModuleVersionIdentifier id;
+        private final DependencyToModuleVersionResolver dependencyResolver;
+        private ArtifactResolver delegate;
+
+        public LazyArtifactResolver(ModuleVersionIdentifier id, DependencyToModuleVersionResolver dependencyResolver) {
+            this.id = id;
+            this.dependencyResolver = dependencyResolver;
+        }
+
+        public void resolve(ModuleVersionArtifactMetaData artifact, BuildableArtifactResolveResult result) {
+            ArtifactResolver artifactResolver;
+            try {
+                artifactResolver = getDelegate();
+            } catch (ModuleVersionResolveException e) {
+                result.failed(new ArtifactResolveException(artifact.getId(), e));
+                return;
             }
-        });
+            artifactResolver.resolve(artifact, result);
+        }
+
+        private synchronized ArtifactResolver getDelegate() throws ModuleVersionResolveException {
+            if (delegate == null) {
+                DefaultBuildableModuleVersionResolveResult moduleVersion = new DefaultBuildableModuleVersionResolveResult();
+                dependencyResolver.resolve(new DefaultDependencyMetaData(new DefaultDependencyDescriptor(IvyUtil.createModuleRevisionId(id), false)), moduleVersion);
+                delegate = moduleVersion.getArtifactResolver();
+            }
+            return delegate;
+        }
     }
 }
@@ -46,15 +46,25 @@ public class DependencyGraphBuilder {
     private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
     private final InternalConflictResolver conflictResolver;
     private final ModuleToModuleVersionResolver moduleResolver;
+    private final ModuleMetaDataPrefetcher prefetcher;
 
     public DependencyGraphBuilder(DependencyToModuleVersionIdResolver dependencyResolver,
                                   ModuleToModuleVersionResolver moduleResolver,
                                   ModuleConflictResolver conflictResolver,
                                   DependencyToConfigurationResolver dependencyToConfigurationResolver) {
+        this(dependencyResolver, moduleResolver, conflictResolver, dependencyToConfigurationResolver, new NoOpPrefetcher());
+    }
+
+    public DependencyGraphBuilder(DependencyToModuleVersionIdResolver dependencyResolver,
+                                  ModuleToModuleVersionResolver moduleResolver,
+                                  ModuleConflictResolver conflictResolver,
+                                  DependencyToConfigurationResolver dependencyToConfigurationResolver,
+                                  ModuleMetaDataPrefetcher prefetcher) {
         this.dependencyResolver = dependencyResolver;
         this.moduleResolver = moduleResolver;
         this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
         this.conflictResolver = new InternalConflictResolver(conflictResolver);
+        this.prefetcher = prefetcher;
     }
 
     public void resolve(ConfigurationInternal configuration,
@@ -63,7 +73,7 @@ public class DependencyGraphBuilder {
         DefaultBuildableModuleVersionResolveResult rootModule = new DefaultBuildableModuleVersionResolveResult();
         moduleResolver.resolve(configuration.getModule(), configuration.getAll(), rootModule);
 
-        ResolveState resolveState = new ResolveState(rootModule, configuration.getName(), dependencyResolver, dependencyToConfigurationResolver, oldModelBuilder);
+        ResolveState resolveState = new ResolveState(rootModule, configuration.getName(), dependencyResolver, dependencyToConfigurationResolver, prefetcher, oldModelBuilder);
         traverseGraph(resolveState);
 
         assembleResult(resolveState, oldModelBuilder, newModelBuilder);
@@ -87,6 +97,11 @@ public class DependencyGraphBuilder {
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
 
+                // Start fetching the meta-data of the target module versions, so that it is available when the edges are attached below
+                for (DependencyEdge dependency : dependencies) {
+                    dependency.prefetchMetaData();
+                }
+
                 for (DependencyEdge dependency : dependencies) {
                     LOGGER.debug("Visiting dependency {}", dependency);
 
@@ -300,6 +315,19 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Starts fetching the meta-data of the target module version, without adding it to the graph.
+         */
+        public void prefetchMetaData() {
+            if (targetModuleRevision != null) {
+                return;
+            }
+            ModuleVersionIdResolveResult idResolveResult = selector.resolveId();
+            if (idResolveResult.getFailure() == null) {
+                resolveState.prefetcher.prefetch(dependencyMetaData, idResolveResult);
+            }
+        }
+
         public boolean isTransitive() {
             return from.isTransitive() && dependencyMetaData.isTransitive();
         }
@@ -417,14 +445,16 @@ public class DependencyGraphBuilder {
         private final RootConfigurationNode root;
         private final DependencyToModuleVersionIdResolver resolver;
         private final DependencyToConfigurationResolver dependencyToConfigurationResolver;
+        private final ModuleMetaDataPrefetcher prefetcher;
         private final ResolvedConfigurationBuilder builder;
         private final Set<ConfigurationNode> queued = new HashSet<ConfigurationNode>();
         private final LinkedList<ConfigurationNode> queue = new LinkedList<ConfigurationNode>();
 
         public ResolveState(ModuleVersionResolveResult rootResult, String rootConfigurationName, DependencyToModuleVersionIdResolver resolver,
-                            DependencyToConfigurationResolver dependencyToConfigurationResolver, ResolvedConfigurationBuilder builder) {
+                            DependencyToConfigurationResolver dependencyToConfigurationResolver, ModuleMetaDataPrefetcher prefetcher, ResolvedConfigurationBuilder builder) {
             this.resolver = resolver;
             this.dependencyToConfigurationResolver = dependencyToConfigurationResolver;
+            this.prefetcher = prefetcher;
             this.builder = builder;
             ModuleVersionResolveState rootVersion = getRevision(rootResult.getId());
             rootVersion.setResolveResult(rootResult);
@@ -647,7 +677,7 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            resolveResult = idResolveResult.resolve();
+            resolveResult = resolveState.prefetcher.resolve(id, idResolveResult);
             if (resolveResult.getFailure() != null) {
                 failure = resolveResult.getFailure();
                 return null;
@@ -933,7 +963,7 @@ public class DependencyGraphBuilder {
                 return null;
             }
 
-            idResolveResult = resolver.resolve(dependencyMetaData);
+            resolveId();
             if (idResolveResult.getFailure() != null) {
                 failure = idResolveResult.getFailure();
                 return null;
@@ -948,6 +978,16 @@ public class DependencyGraphBuilder {
             return targetModuleRevision;
         }
 
+        /**
+         * Resolves the id of the module version for this selector, without adding the module version to the graph.
+         */
+        public ModuleVersionIdResolveResult resolveId() {
+            if (idResolveResult == null) {
+                idResolveResult = resolver.resolve(dependencyMetaData);
+            }
+            return idResolveResult;
+        }
+
         public void restart(ModuleVersionResolveState moduleRevision) {
             this.targetModuleRevision = moduleRevision;
             this.targetModule = moduleRevision.module;
@@ -973,4 +1013,13 @@ public class DependencyGraphBuilder {
             return resolver.select(candidates);
         }
     }
-}
\ No newline at end of file
+
+    private static class NoOpPrefetcher implements ModuleMetaDataPrefetcher {
+        public void prefetch(DependencyMetaData dependency, ModuleVersionIdResolveResult idResolveResult) {
+        }
+
+        public ModuleVersionResolveResult resolve(ModuleVersionIdentifier id, ModuleVersionIdResolveResult idResolveResult) {
+            return idResolveResult.resolve();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionIdResolveResult;
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveResult;
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
+
+/**
+ * Resolves the meta-data of module versions ahead of their use by the dependency graph traversal.
+ */
+public interface ModuleMetaDataPrefetcher {
+    /**
+     * Starts resolving the meta-data of the module version that the given dependency has been resolved to, if not already started. Does not block.
+     */
+    void prefetch(DependencyMetaData dependency, ModuleVersionIdResolveResult idResolveResult);
+
+    /**
+     * Returns the meta-data of the given module version, waiting for its prefetch to complete if one has been started.
+     */
+    ModuleVersionResolveResult resolve(ModuleVersionIdentifier id, ModuleVersionIdResolveResult idResolveResult);
+}
@@ -0,0 +1,480 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.apache.ivy.core.module.descriptor.Artifact;
+import org.apache.ivy.core.module.descriptor.DefaultArtifact;
+import org.apache.ivy.core.module.id.ModuleRevisionId;
+import org.gradle.api.Transformer;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.ResolvedArtifact;
+import org.gradle.api.artifacts.UnresolvedDependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.internal.artifacts.ModuleVersionIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier;
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.*;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionMatcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.*;
+import org.gradle.api.internal.artifacts.metadata.DefaultModuleVersionArtifactMetaData;
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData;
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactMetaData;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.serialize.Decoder;
+import org.gradle.messaging.serialize.Encoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * Records the results that the dependency graph builder passes to the result builders, so that the same results can be built again later without
+ * resolving the dependency graph. Also watches the resolution for anything that means the results cannot be reused, such as a failure, a dynamic
+ * version or a changing module.
+ */
+public class ResolutionResultsRecorder {
+    private static final byte ROOT = 1;
+    private static final byte MODULE = 2;
+    private static final byte DEPENDENCIES = 3;
+    private static final byte RESOLVED_DEPENDENCY = 4;
+    private static final byte ARTIFACT = 5;
+    private static final byte CHILD = 6;
+    private static final byte PARENT_SPECIFIC_ARTIFACTS = 7;
+    private static final byte FIRST_LEVEL_DEPENDENCY = 8;
+    private static final byte DONE = 9;
+    private static final byte END = 10;
+
+    private final List<ModuleDependency> dependencies;
+    private final VersionMatcher versionMatcher;
+    private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    private final KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+    private final ResultsSerializer serializer = new ResultsSerializer();
+    private final Map<ResolvedArtifact, Integer> artifacts = new IdentityHashMap<ResolvedArtifact, Integer>();
+    private volatile boolean cacheable = true;
+    private byte[] results;
+
+    /**
+     * @param dependencies The module dependencies of the configuration. First level dependencies are recorded by their position in this list.
+     */
+    public ResolutionResultsRecorder(List<ModuleDependency> dependencies, VersionMatcher versionMatcher) {
+        this.dependencies = dependencies;
+        this.versionMatcher = versionMatcher;
+    }
+
+    /**
+     * Returns the recorded results, or null if the results cannot be reused.
+     */
+    public byte[] getResults() {
+        if (!cacheable) {
+            return null;
+        }
+        if (results == null) {
+            try {
+                encoder.writeByte(END);
+                encoder.flush();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            results = outputStream.toByteArray();
+        }
+        return results;
+    }
+
+    public ResolutionResultBuilder record(ResolutionResultBuilder builder) {
+        return new RecordingResolutionResultBuilder(builder);
+    }
+
+    public ResolvedConfigurationBuilder record(ResolvedConfigurationBuilder builder) {
+        return new RecordingResolvedConfigurationBuilder(builder);
+    }
+
+    /**
+     * Decorates the given resolver to detect dependencies on dynamic versions and changing modules.
+     */
+    public DependencyToModuleVersionIdResolver record(DependencyToModuleVersionIdResolver resolver) {
+        return new ChangingModuleDetectingResolver(resolver);
+    }
+
+    /**
+     * Passes the given recorded results to the given result builders.
+     *
+     * @param artifactResolvers Provides the artifact resolver to use for the artifacts of each module version.
+     */
+    public static void replay(byte[] results, List<ModuleDependency> dependencies, ResolutionResultBuilder newModelBuilder, ResolvedConfigurationBuilder oldModelBuilder,
+                              Transformer<ArtifactResolver, ModuleVersionIdentifier> artifactResolvers) {
+        ResultsSerializer serializer = new ResultsSerializer();
+        Map<ComponentSelector, ModuleVersionResolveException> failures = Collections.emptyMap();
+        List<ResolvedArtifact> artifacts = new ArrayList<ResolvedArtifact>();
+        Decoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(results));
+        try {
+            while (true) {
+                byte type = decoder.readByte();
+                switch (type) {
+                    case ROOT:
+                        ModuleVersionIdentifier root = serializer.moduleVersionIdentifierSerializer.read(decoder);
+                        newModelBuilder.start(root, serializer.componentIdentifierSerializer.read(decoder));
+                        break;
+                    case MODULE:
+                        newModelBuilder.resolvedModuleVersion(serializer.moduleVersionSelectionSerializer.read(decoder));
+                        break;
+                    case DEPENDENCIES:
+                        ModuleVersionIdentifier from = serializer.moduleVersionIdentifierSerializer.read(decoder);
+                        int count = decoder.readSmallInt();
+                        List<InternalDependencyResult> dependencyResults = new ArrayList<InternalDependencyResult>(count);
+                        for (int i = 0; i < count; i++) {
+                            dependencyResults.add(serializer.internalDependencyResultSerializer.read(decoder, failures));
+                        }
+                        newModelBuilder.resolvedConfiguration(from, dependencyResults);
+                        break;
+                    case RESOLVED_DEPENDENCY:
+                        oldModelBuilder.newResolvedDependency(serializer.configurationIdSerializer.read(decoder));
+                        break;
+                    case ARTIFACT:
+                        ResolvedConfigurationIdentifier owner = serializer.configurationIdSerializer.read(decoder);
+                        ModuleVersionArtifactMetaData artifact = serializer.readArtifact(decoder);
+                        artifacts.add(oldModelBuilder.newArtifact(owner, artifact, artifactResolvers.transform(artifact.getModuleVersion())));
+                        break;
+                    case CHILD:
+                        ResolvedConfigurationIdentifier parent = serializer.configurationIdSerializer.read(decoder);
+                        oldModelBuilder.addChild(parent, serializer.configurationIdSerializer.read(decoder));
+                        break;
+                    case PARENT_SPECIFIC_ARTIFACTS:
+                        ResolvedConfigurationIdentifier child = serializer.configurationIdSerializer.read(decoder);
+                        parent = serializer.configurationIdSerializer.read(decoder);
+                        count = decoder.readSmallInt();
+                        Set<ResolvedArtifact> parentSpecificArtifacts = new LinkedHashSet<ResolvedArtifact>();
+                        for (int i = 0; i < count; i++) {
+                            parentSpecificArtifacts.add(artifacts.get(decoder.readSmallInt()));
+                        }
+                        oldModelBuilder.addParentSpecificArtifacts(child, parent, parentSpecificArtifacts);
+                        break;
+                    case FIRST_LEVEL_DEPENDENCY:
+                        ModuleDependency moduleDependency = dependencies.get(decoder.readSmallInt());
+                        oldModelBuilder.addFirstLevelDependency(moduleDependency, serializer.configurationIdSerializer.read(decoder));
+                        break;
+                    case DONE:
+                        oldModelBuilder.done(serializer.configurationIdSerializer.read(decoder));
+                        break;
+                    case END:
+                        return;
+                    default:
+                        throw new IOException(String.format("Unexpected value type %s read from the recorded results.", type));
+                }
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void notCacheable() {
+        cacheable = false;
+    }
+
+    private void write(WriteAction action) {
+        if (!cacheable) {
+            return;
+        }
+        try {
+            action.write(encoder);
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private interface WriteAction {
+        void write(Encoder encoder) throws Exception;
+    }
+
+    private static class ResultsSerializer {
+        final ModuleVersionIdentifierSerializer moduleVersionIdentifierSerializer = new ModuleVersionIdentifierSerializer();
+        final ComponentIdentifierSerializer componentIdentifierSerializer = new ComponentIdentifierSerializer();
+        final ModuleVersionSelectionSerializer moduleVersionSelectionSerializer = new ModuleVersionSelectionSerializer();
+        final InternalDependencyResultSerializer internalDependencyResultSerializer = new InternalDependencyResultSerializer();
+        final ResolvedConfigurationIdentifierSerializer configurationIdSerializer = new ResolvedConfigurationIdentifierSerializer();
+
+        void writeArtifact(Encoder encoder, ModuleVersionArtifactMetaData artifactMetaData) throws IOException {
+            moduleVersionIdentifierSerializer.write(encoder, artifactMetaData.getModuleVersion());
+            Artifact artifact = artifactMetaData.getArtifact();
+            ModuleRevisionId moduleRevisionId = artifact.getModuleRevisionId();
+            encoder.writeNullableString(moduleRevisionId.getOrganisation());
+            encoder.writeString(moduleRevisionId.getName());
+            encoder.writeNullableString(moduleRevisionId.getBranch());
+            encoder.writeNullableString(moduleRevisionId.getRevision());
+            writeMap(encoder, moduleRevisionId.getQualifiedExtraAttributes());
+            encoder.writeString(artifact.getName());
+            encoder.writeString(artifact.getType());
+            encoder.writeString(artifact.getExt());
+            encoder.writeNullableString(artifact.getUrl() == null ? null : artifact.getUrl().toString());
+            writeMap(encoder, artifact.getQualifiedExtraAttributes());
+            Date publicationDate = artifact.getPublicationDate();
+            encoder.writeBoolean(publicationDate != null);
+            if (publicationDate != null) {
+                encoder.writeLong(publicationDate.getTime());
+            }
+        }
+
+        ModuleVersionArtifactMetaData readArtifact(Decoder decoder) throws IOException {
+            ModuleVersionIdentifier moduleVersion = moduleVersionIdentifierSerializer.read(decoder);
+            String organisation = decoder.readNullableString();
+            String module = decoder.readString();
+            String branch = decoder.readNullableString();
+            String revision = decoder.readNullableString();
+            ModuleRevisionId moduleRevisionId = ModuleRevisionId.newInstance(organisation, module, branch, revision, readMap(decoder));
+            String name = decoder.readString();
+            String type = decoder.readString();
+            String ext = decoder.readString();
+            String url = decoder.readNullableString();
+            Map<String, String> extraAttributes = readMap(decoder);
+            Date publicationDate = decoder.readBoolean() ? new Date(decoder.readLong()) : null;
+            Artifact artifact = new DefaultArtifact(moduleRevisionId, publicationDate, name, type, ext, url == null ? null : new URL(url), extraAttributes);
+            return new DefaultModuleVersionArtifactMetaData(moduleVersion, artifact);
+        }
+
+        private static void writeMap(Encoder encoder, Map<?, ?> map) throws IOException {
+            if (map == null) {
+                encoder.writeSmallInt(0);
+                return;
+            }
+            encoder.writeSmallInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                encoder.writeString(entry.getKey().toString());
+                encoder.writeString(entry.getValue().toString());
+            }
+        }
+
+        private static Map<String, String> readMap(Decoder decoder) throws IOException {
+            int count = decoder.readSmallInt();
+            Map<String, String> map = new HashMap<String, String>();
+            for (int i = 0; i < count; i++) {
+                String key = decoder.readString();
+                map.put(key, decoder.readString());
+            }
+            return map;
+        }
+    }
+
+    private class RecordingResolutionResultBuilder implements ResolutionResultBuilder {
+        private final ResolutionResultBuilder delegate;
+
+        public RecordingResolutionResultBuilder(ResolutionResultBuilder delegate) {
+            this.delegate = delegate;
+        }
+
+        public ResolutionResultBuilder start(final ModuleVersionIdentifier root, final ComponentIdentifier componentIdentifier) {
+            delegate.start(root, componentIdentifier);
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(ROOT);
+                    serializer.moduleVersionIdentifierSerializer.write(encoder, root);
+                    serializer.componentIdentifierSerializer.write(encoder, componentIdentifier);
+                }
+            });
+            return this;
+        }
+
+        public void resolvedModuleVersion(final ModuleVersionSelection moduleVersion) {
+            delegate.resolvedModuleVersion(moduleVersion);
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(MODULE);
+                    serializer.moduleVersionSelectionSerializer.write(encoder, moduleVersion);
+                }
+            });
+        }
+
+        public void resolvedConfiguration(final ModuleVersionIdentifier id, final Collection<? extends InternalDependencyResult> dependencies) {
+            delegate.resolvedConfiguration(id, dependencies);
+            for (InternalDependencyResult dependency : dependencies) {
+                if (dependency.getFailure() != null) {
+                    notCacheable();
+                }
+            }
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(DEPENDENCIES);
+                    serializer.moduleVersionIdentifierSerializer.write(encoder, id);
+                    encoder.writeSmallInt(dependencies.size());
+                    for (InternalDependencyResult dependency : dependencies) {
+                        serializer.internalDependencyResultSerializer.write(encoder, dependency);
+                    }
+                }
+            });
+        }
+
+        public ResolutionResult complete() {
+            return delegate.complete();
+        }
+    }
+
+    private class RecordingResolvedConfigurationBuilder implements ResolvedConfigurationBuilder {
+        private final ResolvedConfigurationBuilder delegate;
+
+        public RecordingResolvedConfigurationBuilder(ResolvedConfigurationBuilder delegate) {
+            this.delegate = delegate;
+        }
+
+        public void addFirstLevelDependency(ModuleDependency moduleDependency, final ResolvedConfigurationIdentifier dependency) {
+            delegate.addFirstLevelDependency(moduleDependency, dependency);
+            final int index = indexOf(moduleDependency);
+            if (index < 0) {
+                notCacheable();
+                return;
+            }
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(FIRST_LEVEL_DEPENDENCY);
+                    encoder.writeSmallInt(index);
+                    serializer.configurationIdSerializer.write(encoder, dependency);
+                }
+            });
+        }
+
+        private int indexOf(ModuleDependency moduleDependency) {
+            for (int i = 0; i < dependencies.size(); i++) {
+                if (dependencies.get(i) == moduleDependency) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public void addUnresolvedDependency(UnresolvedDependency unresolvedDependency) {
+            delegate.addUnresolvedDependency(unresolvedDependency);
+            notCacheable();
+        }
+
+        public void addChild(final ResolvedConfigurationIdentifier parent, final ResolvedConfigurationIdentifier child) {
+            delegate.addChild(parent, child);
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(CHILD);
+                    serializer.configurationIdSerializer.write(encoder, parent);
+                    serializer.configurationIdSerializer.write(encoder, child);
+                }
+            });
+        }
+
+        public void done(final ResolvedConfigurationIdentifier root) {
+            delegate.done(root);
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(DONE);
+                    serializer.configurationIdSerializer.write(encoder, root);
+                }
+            });
+        }
+
+        public void addParentSpecificArtifacts(final ResolvedConfigurationIdentifier child, final ResolvedConfigurationIdentifier parent, Set<ResolvedArtifact> artifacts) {
+            delegate.addParentSpecificArtifacts(child, parent, artifacts);
+            final List<Integer> indices = new ArrayList<Integer>(artifacts.size());
+            for (ResolvedArtifact artifact : artifacts) {
+                Integer index = ResolutionResultsRecorder.this.artifacts.get(artifact);
+                if (index == null) {
+                    notCacheable();
+                    return;
+                }
+                indices.add(index);
+            }
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(PARENT_SPECIFIC_ARTIFACTS);
+                    serializer.configurationIdSerializer.write(encoder, child);
+                    serializer.configurationIdSerializer.write(encoder, parent);
+                    encoder.writeSmallInt(indices.size());
+                    for (Integer index : indices) {
+                        encoder.writeSmallInt(index);
+                    }
+                }
+            });
+        }
+
+        public void newResolvedDependency(final ResolvedConfigurationIdentifier id) {
+            delegate.newResolvedDependency(id);
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(RESOLVED_DEPENDENCY);
+                    serializer.configurationIdSerializer.write(encoder, id);
+                }
+            });
+        }
+
+        public ResolvedArtifact newArtifact(final ResolvedConfigurationIdentifier owner, final ModuleVersionArtifactMetaData artifact, ArtifactResolver artifactResolver) {
+            ResolvedArtifact resolvedArtifact = delegate.newArtifact(owner, artifact, artifactResolver);
+            artifacts.put(resolvedArtifact, artifacts.size());
+            write(new WriteAction() {
+                public void write(Encoder encoder) throws Exception {
+                    encoder.writeByte(ARTIFACT);
+                    serializer.configurationIdSerializer.write(encoder, owner);
+                    serializer.writeArtifact(encoder, artifact);
+                }
+            });
+            return resolvedArtifact;
+        }
+    }
+
+    private class ChangingModuleDetectingResolver implements DependencyToModuleVersionIdResolver {
+        private final DependencyToModuleVersionIdResolver delegate;
+
+        public ChangingModuleDetectingResolver(DependencyToModuleVersionIdResolver delegate) {
+            this.delegate = delegate;
+        }
+
+        public ModuleVersionIdResolveResult resolve(DependencyMetaData dependency) {
+            String version = dependency.getRequested().getVersion();
+            if (dependency.isChanging() || version == null || versionMatcher.isDynamic(version)) {
+                notCacheable();
+            }
+            return new ChangingModuleDetectingResult(delegate.resolve(dependency));
+        }
+    }
+
+    private class ChangingModuleDetectingResult implements ModuleVersionIdResolveResult {
+        private final ModuleVersionIdResolveResult delegate;
+
+        public ChangingModuleDetectingResult(ModuleVersionIdResolveResult delegate) {
+            this.delegate = delegate;
+        }
+
+        public ModuleVersionResolveException getFailure() {
+            return delegate.getFailure();
+        }
+
+        public ModuleVersionIdentifier getId() throws ModuleVersionResolveException {
+            return delegate.getId();
+        }
+
+        public ModuleVersionResolveResult resolve() throws ModuleVersionResolveException {
+            ModuleVersionResolveResult result = delegate.resolve();
+            if (result.getFailure() != null || result.getMetaData().isChanging()) {
+                notCacheable();
+            }
+            return result;
+        }
+
+        public ComponentSelectionReason getSelectionReason() {
+            return delegate.getSelectionReason();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine;
+
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.Module;
+import org.gradle.api.artifacts.ModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.internal.artifacts.ModuleMetadataProcessor;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleVersionRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionMatcher;
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.StrictConflictResolution;
+import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.messaging.serialize.BaseSerializerFactory;
+import org.gradle.messaging.serialize.Decoder;
+import org.gradle.messaging.serialize.Encoder;
+import org.gradle.messaging.serialize.Serializer;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.BuildCommencedTimeProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A persistent cache of the results of resolving a configuration, keyed by a fingerprint of the inputs to the resolution. A configuration can be
+ * cached when it contains only external module dependencies on static versions, which are resolved from remote repositories without any dependency
+ * resolve rules or component meta-data rules.
+ *
+ * <p>The meta-data of such module versions is cached without expiry, so the result of resolving the configuration can only change when the
+ * dependency cache is refreshed, or when a module that was missing from an earlier repository is looked up again. An entry is therefore ignored when
+ * the dependencies are being refreshed, and once it is older than the period for which missing modules are cached.</p>
+ */
+public class ResolvedConfigurationCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final long MAX_AGE_MILLIS = 24L * 60 * 60 * 1000;
+    private final CacheLockingManager cacheLockingManager;
+    private final VersionMatcher versionMatcher;
+    private final BuildCommencedTimeProvider timeProvider;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, CachedResults> cache;
+
+    public ResolvedConfigurationCache(CacheLockingManager cacheLockingManager, VersionMatcher versionMatcher, BuildCommencedTimeProvider timeProvider,
+                                      boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.versionMatcher = versionMatcher;
+        this.timeProvider = timeProvider;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private PersistentIndexedCache<String, CachedResults> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolved-configurations", BaseSerializerFactory.STRING_SERIALIZER, new CachedResultsSerializer());
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the key for the results of resolving the given configuration using the given repository resolvers, or null if the results cannot be
+     * cached.
+     */
+    public Key createKey(ConfigurationInternal configuration, List<? extends ConfiguredModuleVersionRepository> resolvers, ModuleMetadataProcessor metadataProcessor) {
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (resolutionStrategy.hasDependencyResolveRules() || metadataProcessor.hasRules()) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+            encoder.writeSmallInt(FORMAT_VERSION);
+            encoder.writeString(configuration.getPath());
+            Module module = configuration.getModule();
+            encoder.writeNullableString(module.getGroup());
+            encoder.writeString(module.getName());
+            encoder.writeNullableString(module.getVersion());
+            encoder.writeString(module.getStatus());
+
+            List<ModuleDependency> dependencies = new ArrayList<ModuleDependency>();
+            Set<Configuration> hierarchy = configuration.getHierarchy();
+            encoder.writeSmallInt(hierarchy.size());
+            for (Configuration element : hierarchy) {
+                encoder.writeString(element.getName());
+                encoder.writeBoolean(element.isTransitive());
+                writeExcludeRules(encoder, element.getExcludeRules());
+                for (Dependency dependency : element.getDependencies()) {
+                    if (dependency instanceof ProjectDependency || dependency instanceof ClientModule) {
+                        return null;
+                    }
+                    if (!(dependency instanceof ModuleDependency)) {
+                        // Self resolving dependencies are not part of the dependency graph
+                        continue;
+                    }
+                    if (!(dependency instanceof ExternalModuleDependency) || !writeDependency(encoder, (ExternalModuleDependency) dependency)) {
+                        return null;
+                    }
+                    dependencies.add((ModuleDependency) dependency);
+                }
+                encoder.writeBoolean(false);
+            }
+
+            Set<ModuleVersionSelector> forcedModules = resolutionStrategy.getForcedModules();
+            encoder.writeSmallInt(forcedModules.size());
+            for (ModuleVersionSelector forcedModule : forcedModules) {
+                encoder.writeNullableString(forcedModule.getGroup());
+                encoder.writeString(forcedModule.getName());
+                encoder.writeNullableString(forcedModule.getVersion());
+            }
+            encoder.writeBoolean(resolutionStrategy.getConflictResolution() instanceof StrictConflictResolution);
+
+            encoder.writeSmallInt(resolvers.size());
+            for (ConfiguredModuleVersionRepository moduleVersionRepository : resolvers) {
+                if (!(moduleVersionRepository instanceof ExternalResourceResolver) || moduleVersionRepository.isLocal()) {
+                    // The meta-data of modules in local repositories is not cached, so may change at any time
+                    return null;
+                }
+                encoder.writeString(moduleVersionRepository.getId());
+            }
+            encoder.flush();
+            return new Key(HashUtil.sha1(outputStream.toByteArray()).asHexString(), dependencies);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private boolean writeDependency(Encoder encoder, ExternalModuleDependency dependency) throws IOException {
+        if (dependency.getVersion() == null || versionMatcher.isDynamic(dependency.getVersion()) || dependency.isChanging()) {
+            return false;
+        }
+        encoder.writeBoolean(true);
+        encoder.writeNullableString(dependency.getGroup());
+        encoder.writeString(dependency.getName());
+        encoder.writeString(dependency.getVersion());
+        encoder.writeNullableString(dependency.getConfiguration());
+        encoder.writeBoolean(dependency.isTransitive());
+        encoder.writeBoolean(dependency.isForce());
+        Set<DependencyArtifact> artifacts = dependency.getArtifacts();
+        encoder.writeSmallInt(artifacts.size());
+        for (DependencyArtifact artifact : artifacts) {
+            encoder.writeString(artifact.getName());
+            encoder.writeNullableString(artifact.getType());
+            encoder.writeNullableString(artifact.getExtension());
+            encoder.writeNullableString(artifact.getClassifier());
+            encoder.writeNullableString(artifact.getUrl());
+        }
+        writeExcludeRules(encoder, dependency.getExcludeRules());
+        return true;
+    }
+
+    private static void writeExcludeRules(Encoder encoder, Set<ExcludeRule> excludeRules) throws IOException {
+        encoder.writeSmallInt(excludeRules.size());
+        for (ExcludeRule excludeRule : excludeRules) {
+            encoder.writeNullableString(excludeRule.getGroup());
+            encoder.writeNullableString(excludeRule.getModule());
+        }
+    }
+
+    /**
+     * Returns the cached results for the given key, or null if there are no usable results.
+     */
+    public byte[] get(Key key) {
+        if (refreshDependencies) {
+            return null;
+        }
+        CachedResults results = getCache().get(key.hash);
+        if (results == null || timeProvider.getCurrentTime() - results.createTimestamp > MAX_AGE_MILLIS) {
+            return null;
+        }
+        return results.results;
+    }
+
+    public void put(Key key, byte[] results) {
+        getCache().put(key.hash, new CachedResults(results, timeProvider.getCurrentTime()));
+    }
+
+    public static class Key {
+        private final String hash;
+        private final List<ModuleDependency> dependencies;
+
+        private Key(String hash, List<ModuleDependency> dependencies) {
+            this.hash = hash;
+            this.dependencies = dependencies;
+        }
+
+        /**
+         * Returns the module dependencies of the configuration, in the order that they contribute to the key.
+         */
+        public List<ModuleDependency> getDependencies() {
+            return dependencies;
+        }
+
+        @Override
+        public String toString() {
+            return hash;
+        }
+    }
+
+    private static class CachedResults {
+        private final byte[] results;
+        private final long createTimestamp;
+
+        private CachedResults(byte[] results, long createTimestamp) {
+            this.results = results;
+            this.createTimestamp = createTimestamp;
+        }
+    }
+
+    private static class CachedResultsSerializer implements Serializer<CachedResults> {
+        public void write(Encoder encoder, CachedResults value) throws Exception {
+            encoder.writeLong(value.createTimestamp);
+            encoder.writeBinary(value.results);
+        }
+
+        public CachedResults read(Decoder decoder) throws Exception {
+            long createTimestamp = decoder.readLong();
+            return new CachedResults(decoder.readBinary(), createTimestamp);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.impl.client.*;
 import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 import org.gradle.api.UncheckedIOException;
 import org.slf4j.Logger;
@@ -37,7 +38,13 @@ public class HttpClientHelper {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpClientHelper.class);
     private final HttpClient client;
-    private final BasicHttpContext httpContext = new BasicHttpContext();
+    // Requests may be made from several threads at once. Each thread uses its own context, so that redirect and authentication state is not shared
+    private final ThreadLocal<HttpContext> httpContext = new ThreadLocal<HttpContext>() {
+        @Override
+        protected HttpContext initialValue() {
+            return new BasicHttpContext();
+        }
+    };
 
     public HttpClientHelper(HttpSettings settings) {
         alwaysUseKeepAliveConnections();
@@ -105,10 +112,11 @@ public class HttpClientHelper {
 
     public HttpResponse performHttpRequest(HttpRequestBase request) throws IOException {
         // Without this, HTTP Client prohibits multiple redirects to the same location within the same context
-        httpContext.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
+        HttpContext context = httpContext.get();
+        context.removeAttribute(DefaultRedirectStrategy.REDIRECT_LOCATIONS);
 
         LOGGER.debug("Performing HTTP {}: {}", request.getMethod(), request.getURI());
-        return client.execute(request, httpContext);
+        return client.execute(request, context);
     }
 
     private HttpResponse processResponse(String source, String method, HttpResponse response) {
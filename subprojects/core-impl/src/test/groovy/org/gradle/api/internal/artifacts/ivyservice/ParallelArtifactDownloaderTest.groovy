@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ArtifactResolveException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.logging.ProgressLogger
+import org.gradle.logging.ProgressLoggerFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArraySet
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class ParallelArtifactDownloaderTest extends Specification {
+    final CacheLockingManager lockingManager = Mock()
+    final ProgressLogger progressLogger = Mock()
+    final ProgressLoggerFactory progressLoggerFactory = Stub() {
+        newOperation(_ as Class) >> progressLogger
+    }
+    final executorFactory = new DefaultExecutorFactory()
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolves the files of the artifacts concurrently while the cache is released"() {
+        def downloader = new ParallelArtifactDownloader(executorFactory, lockingManager, progressLoggerFactory, 3)
+        def started = new CountDownLatch(3)
+        def threads = new CopyOnWriteArraySet<Thread>()
+        def artifacts = (1..3).collect { index ->
+            Stub(ResolvedArtifact) {
+                getFile() >> {
+                    threads << Thread.currentThread()
+                    started.countDown()
+                    assert started.await(20, TimeUnit.SECONDS)
+                    return new File("artifact${index}.jar")
+                }
+            }
+        }
+
+        when:
+        downloader.download("config", artifacts)
+
+        then:
+        threads.size() == 3
+        1 * lockingManager.longRunningOperation("Download artifacts for config", _ as Runnable) >> { String name, Runnable action -> action.run() }
+
+        and:
+        1 * progressLogger.setDescription("Download artifacts for config")
+        1 * progressLogger.started()
+        1 * progressLogger.progress("3/3 artifacts")
+        1 * progressLogger.completed()
+    }
+
+    def "ignores failure to resolve the file of an artifact"() {
+        def downloader = new ParallelArtifactDownloader(executorFactory, lockingManager, progressLoggerFactory, 2)
+        def broken = Stub(ResolvedArtifact) {
+            getFile() >> { throw new ArtifactResolveException("broken") }
+        }
+        def ok = Mock(ResolvedArtifact)
+
+        when:
+        downloader.download("config", [broken, ok])
+
+        then:
+        1 * ok.getFile() >> new File("ok.jar")
+        1 * lockingManager.longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+
+    def "does nothing when limited to a single thread"() {
+        def downloader = new ParallelArtifactDownloader(executorFactory, lockingManager, progressLoggerFactory, 1)
+        def artifact = Mock(ResolvedArtifact)
+
+        when:
+        downloader.download("config", [artifact, artifact])
+
+        then:
+        0 * artifact._
+        0 * lockingManager._
+        0 * progressLogger._
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve
+
+import org.gradle.api.internal.artifacts.ivyservice.BuildableArtifactResolveResult
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionArtifactMetaData
+import spock.lang.Specification
+
+import java.util.concurrent.Semaphore
+
+class ConcurrencyLimitingModuleVersionRepositoryTest extends Specification {
+    final target = Mock(ModuleVersionRepository)
+    final permits = new Semaphore(2)
+    final repository = new ConcurrencyLimitingModuleVersionRepository(target, permits)
+
+    def "holds a permit while resolving an artifact"() {
+        def artifact = Stub(ModuleVersionArtifactMetaData)
+        def result = Stub(BuildableArtifactResolveResult)
+        def moduleSource = Stub(ModuleSource)
+
+        when:
+        repository.resolve(artifact, result, moduleSource)
+
+        then:
+        1 * target.resolve(artifact, result, moduleSource) >> { assert permits.availablePermits() == 1 }
+
+        and:
+        permits.availablePermits() == 2
+    }
+
+    def "holds a permit while fetching meta-data"() {
+        def dependency = Stub(DependencyMetaData)
+        def result = Stub(BuildableModuleVersionMetaDataResolveResult)
+
+        when:
+        repository.getDependency(dependency, result)
+
+        then:
+        1 * target.getDependency(dependency, result) >> { assert permits.availablePermits() == 1 }
+
+        and:
+        permits.availablePermits() == 2
+    }
+
+    def "releases permit when listing versions fails"() {
+        def dependency = Stub(DependencyMetaData)
+        def result = Stub(BuildableModuleVersionSelectionResolveResult)
+        def failure = new RuntimeException("broken")
+
+        when:
+        repository.listModuleVersions(dependency, result)
+
+        then:
+        1 * target.listModuleVersions(dependency, result) >> { throw failure }
+
+        and:
+        RuntimeException e = thrown()
+        e == failure
+        permits.availablePermits() == 2
+    }
+}
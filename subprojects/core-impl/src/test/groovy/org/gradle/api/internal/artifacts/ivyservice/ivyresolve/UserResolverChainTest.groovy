@@ -23,13 +23,19 @@ import org.gradle.api.artifacts.ModuleVersionIdentifier
 import org.gradle.api.artifacts.ModuleVersionSelector
 import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.BuildableModuleVersionResolveResult
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.LatestStrategy
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionMatcher
 import org.gradle.api.internal.artifacts.metadata.DependencyMetaData
 import org.gradle.api.internal.artifacts.metadata.MutableModuleVersionMetaData
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import spock.lang.Ignore
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
 class UserResolverChainTest extends Specification {
     final metaData = metaData("1.2")
     final dependencyId = Stub(ModuleVersionSelector)
@@ -45,6 +51,11 @@ class UserResolverChainTest extends Specification {
     final moduleSource = Mock(ModuleSource)
 
     final UserResolverChain resolver = new UserResolverChain(matcher, latestStrategy)
+    final executorFactory = new DefaultExecutorFactory()
+    final cacheLockingManager = Stub(CacheLockingManager) {
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+        longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
 
     ModuleVersionIdentifier moduleVersionIdentifier(ModuleDescriptor moduleDescriptor) {
         def moduleRevId = moduleDescriptor.moduleRevisionId
@@ -59,6 +70,10 @@ class UserResolverChainTest extends Specification {
         _ * dependency.descriptor >> dependencyDescriptor
     }
 
+    def cleanup() {
+        executorFactory.stop()
+    }
+
     def "uses local dependency when available"() {
         given:
         def repo = Mock(LocalAwareModuleVersionRepository)
@@ -571,6 +586,144 @@ class UserResolverChainTest extends Specification {
         0 * result._
     }
 
+    def "queries remote repositories concurrently and uses the first repository that contains a static version"() {
+        given:
+        def started = new CountDownLatch(2)
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        resolver.add(repo1)
+        resolver.add(repo2)
+        resolver.probeConcurrently(executorFactory.create("probes"), cacheLockingManager)
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo2.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            started.countDown()
+            assert started.await(20, TimeUnit.SECONDS)
+            result.resolved(metaData, moduleSource)
+        }
+        1 * repo2.getDependency(dependency, _) >> { dep, result ->
+            started.countDown()
+            result.resolved(metaData("1.2"), Mock(ModuleSource))
+        }
+        1 * result.resolved(_, _) >> { metaData, source ->
+            assert metaData == this.metaData
+            assert source.delegate == repo1
+            assert source.moduleSource == moduleSource
+        }
+
+        and:
+        _ * repo1.name >> "repo"
+        _ * repo2.name >> "repo"
+        _ * repo1.id >> "repo1"
+        _ * repo2.id >> "repo2"
+        0 * repo1._
+        0 * repo2._
+        0 * result._
+    }
+
+    def "waits for the queries that have started before returning when queried concurrently"() {
+        given:
+        def repo2Started = new CountDownLatch(1)
+        def repo2Finished = new AtomicBoolean()
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        resolver.add(repo1)
+        resolver.add(repo2)
+        resolver.probeConcurrently(executorFactory.create("probes"), cacheLockingManager)
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo2.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            assert repo2Started.await(20, TimeUnit.SECONDS)
+            result.resolved(metaData, moduleSource)
+        }
+        1 * repo2.getDependency(dependency, _) >> { dep, result ->
+            repo2Started.countDown()
+            Thread.sleep(200)
+            repo2Finished.set(true)
+            result.resolved(metaData("1.2"), Mock(ModuleSource))
+        }
+        1 * result.resolved(_, _) >> { metaData, source ->
+            assert source.delegate == repo1
+        }
+
+        and:
+        repo2Finished.get()
+        _ * repo1.name >> "repo"
+        _ * repo2.name >> "repo"
+        _ * repo1.id >> "repo1"
+        _ * repo2.id >> "repo2"
+        0 * result._
+    }
+
+    def "uses remote dependency from later repository when missing from or failed in earlier repositories and queried concurrently"() {
+        given:
+        def repo1 = Mock(LocalAwareModuleVersionRepository)
+        def repo2 = Mock(LocalAwareModuleVersionRepository)
+        def repo3 = Mock(LocalAwareModuleVersionRepository)
+        resolver.add(repo1)
+        resolver.add(repo2)
+        resolver.add(repo3)
+        resolver.probeConcurrently(executorFactory.create("probes"), cacheLockingManager)
+
+        when:
+        resolver.resolve(dependency, result)
+
+        then:
+        1 * repo1.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo2.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo3.getLocalDependency(dependency, _) >> { dep, result ->
+            result.probablyMissing()
+        }
+        1 * repo1.getDependency(dependency, _) >> { dep, result ->
+            result.missing()
+        }
+        1 * repo2.getDependency(dependency, _) >> { dep, result ->
+            throw new RuntimeException("broken")
+        }
+        1 * repo3.getDependency(dependency, _) >> { dep, result ->
+            result.resolved(metaData, moduleSource)
+        }
+        1 * result.resolved(_, _) >> { metaData, source ->
+            assert metaData == this.metaData
+            assert source.delegate == repo3
+            assert source.moduleSource == moduleSource
+        }
+
+        and:
+        _ * repo1.name >> "repo"
+        _ * repo2.name >> "repo"
+        _ * repo3.name >> "repo"
+        _ * repo1.id >> "repo1"
+        _ * repo2.id >> "repo2"
+        _ * repo3.id >> "repo3"
+        0 * repo1._
+        0 * repo2._
+        0 * repo3._
+        0 * result._
+    }
+
     def descriptor(String version) {
         def descriptor = Stub(ModuleDescriptor)
         descriptor.resolvedModuleRevisionId >> ModuleRevisionId.newInstance("org", "module", version)
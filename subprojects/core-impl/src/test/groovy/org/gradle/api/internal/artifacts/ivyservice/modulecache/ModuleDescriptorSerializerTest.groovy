@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.apache.ivy.core.module.descriptor.ModuleDescriptor
+import org.apache.ivy.plugins.matcher.ExactPatternMatcher
+import org.apache.ivy.plugins.matcher.GlobPatternMatcher
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.messaging.serialize.SerializerSpec
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+
+class ModuleDescriptorSerializerTest extends SerializerSpec {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider()
+    final resolverStrategy = Stub(ResolverStrategy) {
+        getPatternMatcher("exact") >> ExactPatternMatcher.INSTANCE
+        getPatternMatcher("glob") >> GlobPatternMatcher.INSTANCE
+    }
+    final serializer = new ModuleDescriptorSerializer(resolverStrategy)
+
+    def "serializes the content of a module descriptor that is written to ivy.xml"() {
+        given:
+        def descriptor = parse """
+<ivy-module version="2.0" xmlns:e="http://ant.apache.org/ivy/extra">
+    <info organisation="myorg" module="mymodule" revision="1.2" status="release" publication="20140101120000" e:buildNumber="12">
+        <license name="Apache" url="http://www.apache.org/licenses/LICENSE-2.0"/>
+        <description homepage="http://myorg.org/mymodule">The module</description>
+    </info>
+    <configurations>
+        <conf name="compile" description="compile classpath"/>
+        <conf name="runtime" extends="compile"/>
+        <conf name="internal" visibility="private" transitive="false" deprecated="do not use"/>
+    </configurations>
+    <publications>
+        <artifact name="mymodule" type="jar" ext="jar" conf="compile,runtime"/>
+        <artifact name="mymodule" type="source" ext="jar" conf="internal" e:classifier="sources"/>
+    </publications>
+    <dependencies>
+        <dependency org="otherorg" name="lib" rev="2.0" revConstraint="2.+" conf="compile->default;runtime->runtime,extra" force="true" changing="true">
+            <artifact name="lib" type="jar" ext="jar" conf="compile" e:classifier="jdk15"/>
+            <include name="lib-*" type="jar" ext="jar" matcher="glob" conf="runtime"/>
+            <exclude org="unwanted" module="*" name="*" type="*" ext="*" matcher="glob"/>
+        </dependency>
+        <dependency org="otherorg" name="util" branch="stable" rev="1.0" conf="runtime->default" transitive="false"/>
+        <exclude org="excluded" module="module" artifact="*" type="*" ext="*" conf="runtime" matcher="exact"/>
+    </dependencies>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(descriptor, serializer)
+
+        then:
+        ivyXml(result) == ivyXml(descriptor)
+        result.licenses*.name == ["Apache"]
+        result.homePage == "http://myorg.org/mymodule"
+        result.description == "The module"
+        result.dependencies[0].getDependencyConfigurations("runtime") == ["runtime", "extra"] as String[]
+    }
+
+    def "serializes a default module descriptor"() {
+        given:
+        def descriptor = parse """
+<ivy-module version="2.0">
+    <info organisation="myorg" module="mymodule" revision="1.2" default="true"/>
+</ivy-module>
+"""
+
+        when:
+        def result = serialize(descriptor, serializer)
+
+        then:
+        result.default
+        ivyXml(result) == ivyXml(descriptor)
+    }
+
+    private ModuleDescriptor parse(String text) {
+        def file = temporaryFolder.file("ivy.xml")
+        file.text = text
+        return new IvyXmlModuleDescriptorParser(resolverStrategy).parseMetaData(new CachedModuleDescriptorParseContext(), file, false).descriptor
+    }
+
+    private String ivyXml(ModuleDescriptor descriptor) {
+        def file = temporaryFolder.file("written-ivy.xml")
+        new IvyXmlModuleDescriptorWriter().write(descriptor, file)
+        return file.text
+    }
+}
@@ -16,13 +16,17 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.modulecache
 
+import org.apache.ivy.core.module.descriptor.DefaultModuleDescriptor
 import org.apache.ivy.core.module.descriptor.ModuleDescriptor
 import org.apache.ivy.core.module.id.ModuleRevisionId
 import org.gradle.api.artifacts.ModuleVersionIdentifier
 import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleVersionResolver
 import org.gradle.api.internal.artifacts.ivyservice.IvyModuleDescriptorWriter
+import org.gradle.api.internal.artifacts.ivyservice.IvyXmlModuleDescriptorWriter
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ModuleVersionRepository
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.IvyXmlModuleDescriptorParser
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.ResolverStrategy
+import org.gradle.api.internal.artifacts.metadata.MutableModuleVersionMetaData
 import org.gradle.api.internal.filestore.PathKeyFileStore
 import org.gradle.internal.resource.local.LocallyAvailableResource
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -42,9 +46,10 @@ class ModuleDescriptorStoreTest extends Specification {
     IvyXmlModuleDescriptorParser ivyXmlModuleDescriptorParser = Mock()
     ModuleVersionIdentifier moduleVersionIdentifier = Mock()
     def resolver = Mock(DependencyToModuleVersionResolver)
+    def descriptorHash = new BigInteger("1234")
 
     def setup() {
-        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser);
+        store = new ModuleDescriptorStore(pathKeyFileStore, ivyModuleDescriptorWriter, ivyXmlModuleDescriptorParser, new ModuleDescriptorSerializer(Stub(ResolverStrategy)));
         _ * repository.getId() >> "repositoryId"
         _ * moduleVersionIdentifier.group >> "org.test"
         _ * moduleVersionIdentifier.name >> "testArtifact"
@@ -56,12 +61,12 @@ class ModuleDescriptorStoreTest extends Specification {
         when:
         pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
         then:
-        null == store.getModuleDescriptor(repository, moduleVersionIdentifier)
+        null == store.getModuleDescriptor(repository, moduleVersionIdentifier, descriptorHash)
     }
 
     def "getModuleDescriptorFile uses PathKeyFileStore to get file"() {
         when:
-        store.getModuleDescriptor(repository, moduleVersionIdentifier);
+        store.getModuleDescriptor(repository, moduleVersionIdentifier, descriptorHash);
         then:
         1 * pathKeyFileStore.get("org.test/testArtifact/1.0/repositoryId/ivy.xml") >> null
     }
@@ -80,4 +85,39 @@ class ModuleDescriptorStoreTest extends Specification {
         };
         1 * ivyModuleDescriptorWriter.write(moduleDescriptor, descriptorFile)
     }
-}
\ No newline at end of file
+
+    def "reads descriptor from binary copy written alongside ivy.xml"() {
+        setup:
+        def fileStore = new PathKeyFileStore(temporaryFolder.createDir("metadata"))
+        def realStore = new ModuleDescriptorStore(fileStore, new IvyXmlModuleDescriptorWriter(), ivyXmlModuleDescriptorParser, new ModuleDescriptorSerializer(Stub(ResolverStrategy)))
+        def descriptor = DefaultModuleDescriptor.newDefaultInstance(ModuleRevisionId.newInstance("org.test", "testArtifact", "1.0"))
+
+        when:
+        def resource = realStore.putModuleDescriptor(repository, descriptor)
+        def cached = realStore.getModuleDescriptor(repository, moduleVersionIdentifier, resource.sha1.asBigInteger())
+
+        then:
+        fileStore.get("org.test/testArtifact/1.0/repositoryId/descriptor.bin") != null
+        cached.moduleRevisionId == descriptor.moduleRevisionId
+        cached.configurationsNames == descriptor.configurationsNames
+        0 * ivyXmlModuleDescriptorParser._
+    }
+
+    def "parses ivy.xml when binary copy does not match it"() {
+        setup:
+        def fileStore = new PathKeyFileStore(temporaryFolder.createDir("metadata"))
+        def realStore = new ModuleDescriptorStore(fileStore, new IvyXmlModuleDescriptorWriter(), ivyXmlModuleDescriptorParser, new ModuleDescriptorSerializer(Stub(ResolverStrategy)))
+        def descriptor = DefaultModuleDescriptor.newDefaultInstance(ModuleRevisionId.newInstance("org.test", "testArtifact", "1.0"))
+        def metaData = Stub(MutableModuleVersionMetaData) {
+            getDescriptor() >> descriptor
+        }
+
+        when:
+        realStore.putModuleDescriptor(repository, descriptor)
+        def cached = realStore.getModuleDescriptor(repository, moduleVersionIdentifier, descriptorHash)
+
+        then:
+        cached == descriptor
+        1 * ivyXmlModuleDescriptorParser.parseMetaData(_, { it.name == "ivy.xml" }, false) >> metaData
+    }
+}
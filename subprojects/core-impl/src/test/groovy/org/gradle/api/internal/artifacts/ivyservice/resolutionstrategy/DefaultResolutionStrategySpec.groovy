@@ -129,6 +129,23 @@ public class DefaultResolutionStrategySpec extends Specification {
         0 * details._
     }
 
+    def "knows whether user specified resolve rules have been added"() {
+        expect:
+        !strategy.hasDependencyResolveRules()
+
+        when:
+        strategy.force 'org:foo:2.0'
+
+        then:
+        !strategy.hasDependencyResolveRules()
+
+        when:
+        strategy.eachDependency({ it.useVersion("1.0") } as Action)
+
+        then:
+        strategy.hasDependencyResolveRules()
+    }
+
     def "copied instance does not share state"() {
         when:
         def copy = strategy.copy()
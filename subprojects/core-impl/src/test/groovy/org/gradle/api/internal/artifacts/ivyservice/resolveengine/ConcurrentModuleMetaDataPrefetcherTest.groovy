@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.apache.ivy.core.module.descriptor.DependencyDescriptor
+import org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionIdResolveResult
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveResult
+import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.dependencies.ProjectDependencyDescriptor
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData
+import org.gradle.internal.Factory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class ConcurrentModuleMetaDataPrefetcherTest extends Specification {
+    final cacheLockingManager = Mock(CacheLockingManager)
+    final executorFactory = new DefaultExecutorFactory()
+    final resolvingThreads = new CopyOnWriteArrayList<Thread>()
+    final prefetcher = new ConcurrentModuleMetaDataPrefetcher(executorFactory, cacheLockingManager, null, 2)
+
+    def setup() {
+        _ * cacheLockingManager.useCache(_, _ as Factory) >> { String name, Factory factory -> factory.create() }
+        _ * cacheLockingManager.longRunningOperation(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "resolves meta-data in the calling thread when it has not been prefetched"() {
+        def id = DefaultModuleVersionIdentifier.newId("group", "module", "1.0")
+        def result = Stub(ModuleVersionResolveResult)
+        def idResolveResult = idResult(id, result)
+
+        when:
+        def resolved = prefetcher.resolve(id, idResolveResult)
+
+        then:
+        resolved == result
+        resolvingThreads == [Thread.currentThread()]
+    }
+
+    def "resolves meta-data of prefetched module version once in a cache action"() {
+        def id = DefaultModuleVersionIdentifier.newId("group", "module", "1.0")
+        def result = Stub(ModuleVersionResolveResult)
+        def idResolveResult = idResult(id, result)
+
+        when:
+        prefetcher.prefetch(dependency(), idResolveResult)
+        prefetcher.prefetch(dependency(), idResult(id, Stub(ModuleVersionResolveResult)))
+        def resolved = prefetcher.resolve(id, idResolveResult)
+
+        then:
+        resolved == result
+        resolvingThreads.size() == 1
+        1 * cacheLockingManager.useCache("Resolve group:module:1.0", _ as Factory) >> { String name, Factory factory -> factory.create() }
+    }
+
+    def "prefetches meta-data of many module versions"() {
+        def ids = (1..20).collect { DefaultModuleVersionIdentifier.newId("group", "module$it", "1.0") }
+        def results = ids.collect { Stub(ModuleVersionResolveResult) }
+        def idResolveResults = (0..19).collect { idResult(ids[it], results[it]) }
+
+        when:
+        idResolveResults.each { prefetcher.prefetch(dependency(), it) }
+        def resolved = (0..19).collect { prefetcher.resolve(ids[it], idResolveResults[it]) }
+        prefetcher.stop()
+
+        then:
+        resolved == results
+        resolvingThreads.size() == 20
+    }
+
+    def "does not prefetch meta-data of project dependencies"() {
+        def id = DefaultModuleVersionIdentifier.newId("group", "project", "1.0")
+        def result = Stub(ModuleVersionResolveResult)
+        def idResolveResult = idResult(id, result)
+        def projectDependency = Stub(DependencyMetaData) {
+            getDescriptor() >> Stub(ProjectDependencyDescriptor)
+        }
+
+        when:
+        prefetcher.prefetch(projectDependency, idResolveResult)
+        prefetcher.stop()
+
+        then:
+        resolvingThreads.empty
+
+        when:
+        def resolved = prefetcher.resolve(id, idResolveResult)
+
+        then:
+        resolved == result
+        resolvingThreads == [Thread.currentThread()]
+    }
+
+    def "stop discards prefetches that have not started"() {
+        def prefetcher = new ConcurrentModuleMetaDataPrefetcher(executorFactory, cacheLockingManager, null, 0)
+        def id = DefaultModuleVersionIdentifier.newId("group", "module", "1.0")
+
+        when:
+        prefetcher.prefetch(dependency(), idResult(id, Stub(ModuleVersionResolveResult)))
+        prefetcher.stop()
+
+        then:
+        resolvingThreads.empty
+    }
+
+    private DependencyMetaData dependency() {
+        return Stub(DependencyMetaData) {
+            getDescriptor() >> Stub(DependencyDescriptor)
+        }
+    }
+
+    private ModuleVersionIdResolveResult idResult(def id, ModuleVersionResolveResult result) {
+        return Stub(ModuleVersionIdResolveResult) {
+            getId() >> id
+            resolve() >> {
+                resolvingThreads << Thread.currentThread()
+                return result
+            }
+        }
+    }
+}
@@ -85,10 +85,14 @@ class DependencyGraphBuilderTest extends Specification {
     }
 
     private DefaultLenientConfiguration resolve() {
+        return resolve(builder)
+    }
+
+    private DefaultLenientConfiguration resolve(DependencyGraphBuilder builder) {
         def results = new DefaultResolvedConfigurationBuilder(Stub(ResolvedArtifactFactory),
                 new TransientConfigurationResultsBuilder(new DummyBinaryStore(), new DummyStore()))
         builder.resolve(configuration, resultBuilder, results)
-        new DefaultLenientConfiguration(configuration, results, Stub(CacheLockingManager))
+        new DefaultLenientConfiguration(configuration, results, Stub(CacheLockingManager), Stub(ParallelArtifactDownloader))
     }
 
     def "correctly notifies the resolution result builder"() {
@@ -848,6 +852,35 @@ class DependencyGraphBuilderTest extends Specification {
         modules(result) == ids(forced, b)
     }
 
+    def "prefetches meta-data of the dependencies of a configuration before traversing them"() {
+        given:
+        ModuleMetaDataPrefetcher prefetcher = Mock()
+        def builder = new DependencyGraphBuilder(dependencyResolver, moduleResolver, conflictResolver, dependencyToConfigurationResolver, prefetcher)
+        def a = revision("a")
+        def b = revision("b")
+        def aIdResult = selectorResolvesTo(dependsOn(root.descriptor, a.descriptor.moduleRevisionId), a.id)
+        def bIdResult = selectorResolvesTo(dependsOn(root.descriptor, b.descriptor.moduleRevisionId), b.id)
+        def aResult = resolvedTo(a)
+        def bResult = resolvedTo(b)
+
+        when:
+        def result = resolve(builder)
+        result.rethrowFailure()
+
+        then:
+        1 * prefetcher.prefetch({ it.requested.name == 'a' }, aIdResult)
+        1 * prefetcher.prefetch({ it.requested.name == 'b' }, bIdResult)
+
+        then:
+        1 * prefetcher.resolve(a.id, aIdResult) >> aResult
+        1 * prefetcher.resolve(b.id, bIdResult) >> bResult
+        0 * aIdResult.resolve()
+        0 * bIdResult.resolve()
+
+        and:
+        modules(result) == ids(a, b)
+    }
+
     def revision(String name, String revision = '1.0') {
         DefaultModuleDescriptor descriptor = new DefaultModuleDescriptor(new ModuleRevisionId(new ModuleId("group", name), revision), "release", new Date())
         ModuleVersionMetaData metaData = new ModuleDescriptorAdapter(descriptor)
@@ -871,6 +904,13 @@ class DependencyGraphBuilderTest extends Specification {
         _ * resolveResult.metaData >> to
     }
 
+    def resolvedTo(ModuleVersionMetaData to) {
+        ModuleVersionResolveResult resolveResult = Mock()
+        _ * resolveResult.id >> to.id
+        _ * resolveResult.metaData >> to
+        return resolveResult
+    }
+
     def doesNotResolve(Map<String, ?> args = [:], ModuleVersionMetaData from, ModuleVersionMetaData to) {
         def descriptor = dependsOn(args, from.descriptor, to.descriptor.moduleRevisionId)
         ModuleVersionIdResolveResult result = Mock()
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.apache.ivy.core.module.descriptor.DefaultArtifact
+import org.apache.ivy.core.module.id.ModuleRevisionId
+import org.gradle.api.Transformer
+import org.gradle.api.artifacts.ModuleDependency
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.artifacts.UnresolvedDependency
+import org.gradle.api.internal.artifacts.ResolvedConfigurationIdentifier
+import org.gradle.api.internal.artifacts.component.DefaultModuleComponentIdentifier
+import org.gradle.api.internal.artifacts.component.DefaultModuleComponentSelector
+import org.gradle.api.internal.artifacts.ivyservice.ArtifactResolver
+import org.gradle.api.internal.artifacts.ivyservice.DependencyToModuleVersionIdResolver
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionIdResolveResult
+import org.gradle.api.internal.artifacts.ivyservice.ModuleVersionResolveResult
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionMatcher
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.ResolvedConfigurationBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultInternalDependencyResult
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DefaultModuleVersionSelection
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyBinaryStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.DummyStore
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultBuilder
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder
+import org.gradle.api.internal.artifacts.metadata.DefaultModuleVersionArtifactMetaData
+import org.gradle.api.internal.artifacts.metadata.DependencyMetaData
+import org.gradle.api.internal.artifacts.metadata.ModuleVersionMetaData
+import spock.lang.Specification
+
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
+import static org.gradle.api.internal.artifacts.DefaultModuleVersionSelector.newSelector
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ResolutionResultPrinter.printGraph
+import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.VersionSelectionReasons.REQUESTED
+
+class ResolutionResultsRecorderTest extends Specification {
+    def dependency = Stub(ModuleDependency)
+    def versionMatcher = Stub(VersionMatcher)
+    def recorder = new ResolutionResultsRecorder([Stub(ModuleDependency), dependency], versionMatcher)
+    def root = new ResolvedConfigurationIdentifier(newId("org", "root", "1.0"), "compile")
+    def child = new ResolvedConfigurationIdentifier(newId("org", "dep", "2.0"), "default")
+
+    def "replays recorded results"() {
+        given:
+        def oldModelDelegate = Stub(ResolvedConfigurationBuilder)
+        def artifact = new DefaultModuleVersionArtifactMetaData(newId("org", "dep", "2.0"),
+                new DefaultArtifact(ModuleRevisionId.newInstance("org", "dep", "2.0"), new Date(), "dep", "jar", "jar", ["m:classifier": "sources"]))
+        def artifactResolver = Stub(ArtifactResolver)
+        def replayedArtifact = Stub(ResolvedArtifact)
+        oldModelDelegate.newArtifact(child, artifact, _) >> Stub(ResolvedArtifact)
+
+        def newModel = recorder.record(new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore()))
+        def oldModel = recorder.record(oldModelDelegate)
+        newModel.start(newId("org", "root", "1.0"), new DefaultModuleComponentIdentifier("org", "root", "1.0"))
+        newModel.resolvedModuleVersion(new DefaultModuleVersionSelection(newId("org", "dep", "2.0"), REQUESTED, new DefaultModuleComponentIdentifier("org", "dep", "2.0")))
+        newModel.resolvedConfiguration(newId("org", "root", "1.0"), [
+                new DefaultInternalDependencyResult(DefaultModuleComponentSelector.newSelector("org", "dep", "2.0"), newId("org", "dep", "2.0"), REQUESTED, null)
+        ])
+        oldModel.newResolvedDependency(root)
+        oldModel.newResolvedDependency(child)
+        def created = oldModel.newArtifact(child, artifact, Stub(ArtifactResolver))
+        oldModel.addChild(root, child)
+        oldModel.addParentSpecificArtifacts(child, root, [created] as Set)
+        oldModel.addFirstLevelDependency(dependency, child)
+        oldModel.done(root)
+        def results = recorder.results
+
+        def replayedNewModel = new StreamingResolutionResultBuilder(new DummyBinaryStore(), new DummyStore())
+        def replayedOldModel = Mock(ResolvedConfigurationBuilder)
+
+        when:
+        ResolutionResultsRecorder.replay(results, [Stub(ModuleDependency), dependency], replayedNewModel, replayedOldModel, { artifactResolver } as Transformer)
+
+        then:
+        1 * replayedOldModel.newResolvedDependency(root)
+
+        then:
+        1 * replayedOldModel.newResolvedDependency(child)
+
+        then:
+        1 * replayedOldModel.newArtifact(child, { it.id == artifact.id && it.artifact.getExtraAttribute("classifier") == "sources" }, artifactResolver) >> replayedArtifact
+
+        then:
+        1 * replayedOldModel.addChild(root, child)
+
+        then:
+        1 * replayedOldModel.addParentSpecificArtifacts(child, root, [replayedArtifact] as Set)
+
+        then:
+        1 * replayedOldModel.addFirstLevelDependency(dependency, child)
+
+        then:
+        1 * replayedOldModel.done(root)
+        0 * replayedOldModel._
+
+        and:
+        printGraph(replayedNewModel.complete().root) == """org:root:1.0
+  org:dep:2.0 [root]
+"""
+    }
+
+    def "fails to replay results that cannot be read"() {
+        when:
+        ResolutionResultsRecorder.replay(results as byte[], [dependency], Stub(ResolutionResultBuilder), Stub(ResolvedConfigurationBuilder), Stub(Transformer))
+
+        then:
+        thrown(Exception)
+
+        where:
+        results << [[99], [8, 5], []]
+    }
+
+    def "results are not reused when a dependency cannot be resolved"() {
+        given:
+        def oldModel = recorder.record(Stub(ResolvedConfigurationBuilder))
+        oldModel.newResolvedDependency(root)
+
+        when:
+        oldModel.addUnresolvedDependency(Stub(UnresolvedDependency))
+        oldModel.done(root)
+
+        then:
+        recorder.results == null
+    }
+
+    def "results are not reused when a first level dependency is not known"() {
+        given:
+        def oldModel = recorder.record(Stub(ResolvedConfigurationBuilder))
+
+        when:
+        oldModel.addFirstLevelDependency(Stub(ModuleDependency), child)
+
+        then:
+        recorder.results == null
+    }
+
+    def "results are not reused when a dependency is on a dynamic version"() {
+        given:
+        def resolver = recorder.record(Stub(DependencyToModuleVersionIdResolver))
+        versionMatcher.isDynamic("1.+") >> true
+
+        when:
+        resolver.resolve(dependency("1.+"))
+
+        then:
+        recorder.results == null
+    }
+
+    def "results are not reused when a dependency resolves to a changing module"() {
+        given:
+        def delegate = Stub(DependencyToModuleVersionIdResolver)
+        def idResult = Stub(ModuleVersionIdResolveResult)
+        def moduleResult = Stub(ModuleVersionResolveResult)
+        def metaData = Stub(ModuleVersionMetaData)
+        def resolver = recorder.record(delegate)
+        delegate.resolve(_) >> idResult
+        idResult.resolve() >> moduleResult
+        moduleResult.failure >> null
+        moduleResult.metaData >> metaData
+        metaData.changing >> true
+
+        when:
+        def result = resolver.resolve(dependency("1.0"))
+
+        then:
+        recorder.results != null
+
+        when:
+        result.resolve()
+
+        then:
+        recorder.results == null
+    }
+
+    private DependencyMetaData dependency(String version) {
+        def dependency = Stub(DependencyMetaData)
+        dependency.requested >> newSelector("org", "dep", version)
+        return dependency
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine
+
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.internal.artifacts.DefaultModule
+import org.gradle.api.internal.artifacts.ModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionMatcher
+import org.gradle.api.internal.artifacts.repositories.resolver.ExternalResourceResolver
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.util.BuildCommencedTimeProvider
+import spock.lang.Specification
+
+class ResolvedConfigurationCacheTest extends Specification {
+    def cacheLockingManager = Stub(CacheLockingManager)
+    def versionMatcher = Stub(VersionMatcher)
+    def timeProvider = Stub(BuildCommencedTimeProvider)
+    def configuration = Stub(ConfigurationInternal)
+    def resolutionStrategy = Stub(ResolutionStrategyInternal)
+    def metadataProcessor = Stub(ModuleMetadataProcessor)
+    def resolver = Stub(ExternalResourceResolver)
+    def entries = [:]
+    def dependencies = []
+    def cache = new ResolvedConfigurationCache(cacheLockingManager, versionMatcher, timeProvider, false)
+
+    def setup() {
+        def persistentCache = Stub(PersistentIndexedCache)
+        persistentCache.get(_) >> { String key -> entries[key] }
+        persistentCache.put(_, _) >> { String key, value -> entries[key] = value }
+        cacheLockingManager.createCache("resolved-configurations", _, _) >> persistentCache
+
+        def dependencySet = Stub(DependencySet)
+        dependencySet.iterator() >> { dependencies.iterator() }
+        configuration.path >> ":compile"
+        configuration.name >> "compile"
+        configuration.transitive >> true
+        configuration.module >> new DefaultModule("org", "project", "1.0")
+        configuration.hierarchy >> ([configuration] as Set)
+        configuration.excludeRules >> ([] as Set)
+        configuration.dependencies >> dependencySet
+        configuration.resolutionStrategy >> resolutionStrategy
+        resolutionStrategy.forcedModules >> ([] as Set)
+        resolver.id >> "repo"
+        versionMatcher.isDynamic(_) >> { String version -> version.endsWith("+") }
+    }
+
+    def "creates same key for same inputs"() {
+        given:
+        def dependency = new DefaultExternalModuleDependency("org", "dep", "1.0")
+        dependencies << dependency
+
+        when:
+        def key = cache.createKey(configuration, [resolver], metadataProcessor)
+
+        then:
+        key != null
+        key.dependencies == [dependency]
+        key.toString() == cache.createKey(configuration, [resolver], metadataProcessor).toString()
+    }
+
+    def "creates different key when a dependency changes"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        def key = cache.createKey(configuration, [resolver], metadataProcessor)
+
+        when:
+        dependencies[0] = new DefaultExternalModuleDependency("org", "dep", "1.1")
+
+        then:
+        cache.createKey(configuration, [resolver], metadataProcessor).toString() != key.toString()
+    }
+
+    def "does not create key for a dynamic version or changing module"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+
+        expect:
+        cache.createKey(configuration, [resolver], metadataProcessor) != null
+
+        when:
+        dependencies[0] = dependency
+
+        then:
+        cache.createKey(configuration, [resolver], metadataProcessor) == null
+
+        where:
+        dependency << [
+                new DefaultExternalModuleDependency("org", "dep", "1.+"),
+                new DefaultExternalModuleDependency("org", "dep", "1.0").setChanging(true)
+        ]
+    }
+
+    def "does not create key for a project dependency"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        dependencies << Stub(ProjectDependency)
+
+        expect:
+        cache.createKey(configuration, [resolver], metadataProcessor) == null
+    }
+
+    def "does not create key when dependency resolve rules or component meta-data rules are used"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+
+        when:
+        resolutionStrategy.hasDependencyResolveRules() >> true
+
+        then:
+        cache.createKey(configuration, [resolver], metadataProcessor) == null
+
+        when:
+        metadataProcessor.hasRules() >> true
+
+        then:
+        cache.createKey(configuration, [resolver], metadataProcessor) == null
+    }
+
+    def "does not create key when a repository is local"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        resolver.local >> true
+
+        expect:
+        cache.createKey(configuration, [resolver], metadataProcessor) == null
+    }
+
+    def "ignores self resolving dependencies"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        def key = cache.createKey(configuration, [resolver], metadataProcessor)
+
+        when:
+        dependencies << Stub(Dependency)
+
+        then:
+        cache.createKey(configuration, [resolver], metadataProcessor).toString() == key.toString()
+    }
+
+    def "returns cached results until they expire"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        def key = cache.createKey(configuration, [resolver], metadataProcessor)
+        def results = [1, 2, 3] as byte[]
+        timeProvider.currentTime >>> [1000, 2000, 1000 + 24 * 60 * 60 * 1000 + 1]
+
+        expect:
+        cache.get(key) == null
+
+        when:
+        cache.put(key, results)
+
+        then:
+        cache.get(key) == results
+        cache.get(key) == null
+    }
+
+    def "does not return cached results when refreshing dependencies"() {
+        given:
+        dependencies << new DefaultExternalModuleDependency("org", "dep", "1.0")
+        def key = cache.createKey(configuration, [resolver], metadataProcessor)
+        cache.put(key, [1, 2, 3] as byte[])
+
+        expect:
+        new ResolvedConfigurationCache(cacheLockingManager, versionMatcher, timeProvider, true).get(key) == null
+    }
+}
@@ -52,9 +52,11 @@ import org.junit.runner.RunWith;
 
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -76,7 +78,8 @@ public class WorkerProcessIntegrationTest {
     private final CacheRepository cacheRepository = new DefaultCacheRepository(scopeMapping, CacheUsage.ON, factory);
     private final ModuleRegistry moduleRegistry = new DefaultModuleRegistry();
     private final ClassPathRegistry classPathRegistry = new DefaultClassPathRegistry(new DefaultClassPathProvider(moduleRegistry), new WorkerProcessClassPathProvider(cacheRepository, moduleRegistry));
-    private final DefaultWorkerProcessFactory workerFactory = new DefaultWorkerProcessFactory(LogLevel.INFO, server, classPathRegistry, TestFiles.resolver(tmpDir.getTestDirectory()), new LongIdGenerator());
+    private final WorkerProcessPool processPool = new WorkerProcessPool();
+    private final DefaultWorkerProcessFactory workerFactory = new DefaultWorkerProcessFactory(LogLevel.INFO, server, classPathRegistry, TestFiles.resolver(tmpDir.getTestDirectory()), new LongIdGenerator(), processPool);
     private final ListenerBroadcast<TestListenerInterface> broadcast = new ListenerBroadcast<TestListenerInterface>(TestListenerInterface.class);
     private final RemoteExceptionListener exceptionListener = new RemoteExceptionListener(broadcast.getSource());
 
@@ -87,6 +90,7 @@ public class WorkerProcessIntegrationTest {
 
     @After
     public void tearDown() {
+        processPool.stop();
         messagingServices.stop();
     }
 
@@ -169,6 +173,34 @@ public class WorkerProcessIntegrationTest {
         execute(worker(Actions.doNothing()).jvmArgs("--broken").expectStartFailure());
     }
 
+    @Test
+    public void reusableWorkerProcessRunsNextWorkerInSameProcess() throws Throwable {
+        final List<String> processNames = new CopyOnWriteArrayList<String>();
+        broadcast.add(new TestListenerInterface() {
+            public void send(String message, int count) {
+                processNames.add(message);
+            }
+        });
+        context.checking(new Expectations() {{
+            exactly(2).of(listenerMock).send(with(any(String.class)), with(equal(0)));
+        }});
+
+        ChildProcess first = worker(new ProcessNameRemoteProcess()).reusable();
+        first.start();
+        first.waitForStop();
+        assertThat(processPool.getIdleCount(), equalTo(1));
+
+        ChildProcess second = worker(new ProcessNameRemoteProcess()).reusable();
+        second.start();
+        second.waitForStop();
+        assertThat(processPool.getIdleCount(), equalTo(1));
+
+        messagingServices.stop();
+        exceptionListener.rethrow();
+        assertThat(processNames.size(), equalTo(2));
+        assertThat(processNames.get(1), equalTo(processNames.get(0)));
+    }
+
     private ChildProcess worker(Action<? super WorkerProcessContext> action) {
         return new ChildProcess(action);
     }
@@ -187,6 +219,7 @@ public class WorkerProcessIntegrationTest {
     private class ChildProcess {
         private boolean stopFails;
         private boolean startFails;
+        private boolean reusable;
         private WorkerProcess proc;
         private Action<? super WorkerProcessContext> action;
         private List<String> jvmArgs = Collections.emptyList();
@@ -206,6 +239,11 @@ public class WorkerProcessIntegrationTest {
             return this;
         }
 
+        ChildProcess reusable() {
+            reusable = true;
+            return this;
+        }
+
         public void start() {
             WorkerProcessBuilder builder = workerFactory.create();
             builder.applicationClasspath(classPathRegistry.getClassPath("ANT").getAsFiles());
@@ -213,6 +251,7 @@ public class WorkerProcessIntegrationTest {
             builder.getJavaCommand().systemProperty("test.system.property", "value");
             builder.getJavaCommand().environment("TEST_ENV_VAR", "value");
             builder.worker(action);
+            builder.setReusable(reusable);
 
             builder.getJavaCommand().jvmArgs(jvmArgs);
 
@@ -314,6 +353,14 @@ public class WorkerProcessIntegrationTest {
         }
     }
 
+    public static class ProcessNameRemoteProcess implements Action<WorkerProcessContext>, Serializable {
+        public void execute(WorkerProcessContext workerProcessContext) {
+            TestListenerInterface sender = workerProcessContext.getServerConnection().addOutgoing(TestListenerInterface.class);
+            workerProcessContext.getServerConnection().connect();
+            sender.send(ManagementFactory.getRuntimeMXBean().getName(), 0);
+        }
+    }
+
     public static class NoCleanUpRemoteProcess implements Action<WorkerProcessContext>, Serializable {
         public void execute(WorkerProcessContext workerProcessContext) {
             final Lock lock = new ReentrantLock();
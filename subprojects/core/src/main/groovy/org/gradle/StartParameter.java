@@ -77,6 +77,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private boolean recompileScripts;
     private int parallelThreadCount;
     private boolean configureOnDemand;
+    private boolean fastFileHashing;
 
     /**
      * Sets the project's cache location. Set to null to use the default location.
@@ -159,6 +160,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         p.refreshDependencies = refreshDependencies;
         p.parallelThreadCount = parallelThreadCount;
         p.configureOnDemand = configureOnDemand;
+        p.fastFileHashing = fastFileHashing;
         return p;
     }
 
@@ -665,6 +667,7 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", refreshDependencies=" + refreshDependencies
                 + ", parallelThreadCount=" + parallelThreadCount
                 + ", configureOnDemand=" + configureOnDemand
+                + ", fastFileHashing=" + fastFileHashing
                 + '}';
     }
 
@@ -679,4 +682,22 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     public void setConfigureOnDemand(boolean configureOnDemand) {
         this.configureOnDemand = configureOnDemand;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns true if task input and output files should be fingerprinted using a fast, non-cryptographic hash rather than MD5.
+     */
+    @Incubating
+    public boolean isFastFileHashing() {
+        return fastFileHashing;
+    }
+
+    /**
+     * Specifies whether task input and output files should be fingerprinted using a fast, non-cryptographic hash rather than MD5.
+     *
+     * @see #isFastFileHashing()
+     */
+    @Incubating
+    public void setFastFileHashing(boolean fastFileHashing) {
+        this.fastFileHashing = fastFileHashing;
+    }
+}
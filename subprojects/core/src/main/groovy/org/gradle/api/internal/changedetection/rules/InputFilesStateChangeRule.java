@@ -20,6 +20,7 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.ChangeListener;
 
 import java.util.Collections;
@@ -35,6 +36,11 @@ class InputFilesStateChangeRule {
         return new TaskStateChanges() {
 
             public Iterator<TaskStateChange> iterator() {
+                HashValue previousFingerprint = previousExecution.getInputFilesFingerprint();
+                if (previousFingerprint != null && previousFingerprint.equals(inputFilesSnapshot.getFingerprint())) {
+                    // Nothing has changed, so there is no need to load the previous snapshot and compare each file
+                    return Collections.<TaskStateChange>emptyList().iterator();
+                }
                 if (previousExecution.getInputFilesSnapshot() == null) {
                     return Collections.<TaskStateChange>singleton(new DescriptiveChange("Input file history is not available.")).iterator();
                 }
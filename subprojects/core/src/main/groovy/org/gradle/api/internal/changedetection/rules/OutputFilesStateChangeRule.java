@@ -20,6 +20,7 @@ import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.ChangeListener;
 
 import java.util.Collections;
@@ -36,6 +37,11 @@ class OutputFilesStateChangeRule {
         return new TaskStateChanges() {
 
             public Iterator<TaskStateChange> iterator() {
+                HashValue previousFingerprint = previousExecution.getOutputFilesFingerprint();
+                if (previousFingerprint != null && previousFingerprint.equals(outputFilesBefore.getFingerprint())) {
+                    // Nothing has changed, so there is no need to load the previous snapshot and compare each file
+                    return Collections.<TaskStateChange>emptyList().iterator();
+                }
                 if (previousExecution.getOutputFilesSnapshot() == null) {
                     return Collections.<TaskStateChange>singleton(new DescriptiveChange("Output file history is not available.")).iterator();
                 }
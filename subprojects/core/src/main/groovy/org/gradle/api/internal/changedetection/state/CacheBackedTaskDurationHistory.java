@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
+import org.gradle.execution.taskgraph.TaskDurationStatistics;
+import org.gradle.internal.Factory;
+import org.gradle.messaging.serialize.Decoder;
+import org.gradle.messaging.serialize.Encoder;
+import org.gradle.messaging.serialize.Serializer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the durations of the most recent executions of each task in the task history cache. The task history cache is opened when a duration is
+ * first read or recorded, as this history is created before the root project that the cache belongs to is known.
+ */
+public class CacheBackedTaskDurationHistory implements TaskDurationHistory {
+    private final Factory<? extends TaskArtifactStateCacheAccess> cacheAccessFactory;
+    private TaskArtifactStateCacheAccess cacheAccess;
+    private PersistentIndexedCache<String, TaskDurationStatistics> durations;
+
+    public CacheBackedTaskDurationHistory(Factory<? extends TaskArtifactStateCacheAccess> cacheAccessFactory) {
+        this.cacheAccessFactory = cacheAccessFactory;
+    }
+
+    private synchronized TaskArtifactStateCacheAccess getCacheAccess() {
+        if (cacheAccess == null) {
+            cacheAccess = cacheAccessFactory.create();
+            durations = cacheAccess.createCache("taskDurations", String.class, new StatisticsSerializer());
+        }
+        return cacheAccess;
+    }
+
+    public TaskDurationStatistics getStatistics(final String taskPath) {
+        return getCacheAccess().useCache("Load task durations", new Factory<TaskDurationStatistics>() {
+            public TaskDurationStatistics create() {
+                return durations.get(taskPath);
+            }
+        });
+    }
+
+    public Map<String, TaskDurationStatistics> getStatistics(final Collection<String> taskPaths) {
+        return getCacheAccess().useCache("Load task durations", new Factory<Map<String, TaskDurationStatistics>>() {
+            public Map<String, TaskDurationStatistics> create() {
+                Map<String, TaskDurationStatistics> statistics = new HashMap<String, TaskDurationStatistics>();
+                for (String taskPath : taskPaths) {
+                    TaskDurationStatistics taskStatistics = durations.get(taskPath);
+                    if (taskStatistics != null) {
+                        statistics.put(taskPath, taskStatistics);
+                    }
+                }
+                return statistics;
+            }
+        });
+    }
+
+    public void recordDuration(final String taskPath, final long durationMillis) {
+        getCacheAccess().useCache("Store task duration", new Runnable() {
+            public void run() {
+                TaskDurationStatistics statistics = durations.get(taskPath);
+                durations.put(taskPath, statistics == null ? new TaskDurationStatistics(durationMillis) : statistics.add(durationMillis));
+            }
+        });
+    }
+
+    private static class StatisticsSerializer implements Serializer<TaskDurationStatistics> {
+        public TaskDurationStatistics read(Decoder decoder) throws Exception {
+            long[] samples = new long[decoder.readSmallInt()];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = decoder.readSmallLong();
+            }
+            return new TaskDurationStatistics(samples);
+        }
+
+        public void write(Encoder encoder, TaskDurationStatistics value) throws Exception {
+            long[] samples = value.getSamples();
+            encoder.writeSmallInt(samples.length);
+            for (long sample : samples) {
+                encoder.writeSmallLong(sample);
+            }
+        }
+    }
+}
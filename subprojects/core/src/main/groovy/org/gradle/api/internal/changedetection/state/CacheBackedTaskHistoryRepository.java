@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.messaging.serialize.Decoder;
 import org.gradle.messaging.serialize.DefaultSerializer;
 import org.gradle.messaging.serialize.Encoder;
@@ -136,12 +137,13 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
     private static class TaskHistorySerializer implements Serializer<TaskHistory> {
 
-        private ClassLoader classLoader;
+        // The task history cache can be used by several threads at once, so each thread reads with its own task's ClassLoader
+        private final ThreadLocal<ClassLoader> classLoader = new ThreadLocal<ClassLoader>();
 
         public TaskHistory read(Decoder decoder) throws Exception {
             byte executions = decoder.readByte();
             TaskHistory history = new TaskHistory();
-            LazyTaskExecution.TaskHistorySerializer executionSerializer = new LazyTaskExecution.TaskHistorySerializer(classLoader);
+            LazyTaskExecution.TaskHistorySerializer executionSerializer = new LazyTaskExecution.TaskHistorySerializer(classLoader.get());
             for (int i = 0; i < executions; i++) {
                 LazyTaskExecution exec = executionSerializer.read(decoder);
                 history.configurations.add(exec);
@@ -152,18 +154,18 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void write(Encoder encoder, TaskHistory value) throws Exception {
             int size = value.configurations.size();
             encoder.writeByte((byte) size);
-            LazyTaskExecution.TaskHistorySerializer executionSerializer = new LazyTaskExecution.TaskHistorySerializer(classLoader);
+            LazyTaskExecution.TaskHistorySerializer executionSerializer = new LazyTaskExecution.TaskHistorySerializer(classLoader.get());
             for (LazyTaskExecution execution : value.configurations) {
                 executionSerializer.write(encoder, execution);
             }
         }
 
         public ClassLoader getClassLoader() {
-            return classLoader;
+            return classLoader.get();
         }
 
         public void setClassLoader(ClassLoader classLoader) {
-            this.classLoader = classLoader;
+            this.classLoader.set(classLoader);
         }
     }
 
@@ -187,6 +189,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
     private static class LazyTaskExecution extends TaskExecution {
         private Long inputFilesSnapshotId;
         private Long outputFilesSnapshotId;
+        private HashValue inputFilesFingerprint;
+        private HashValue outputFilesFingerprint;
         private transient FileSnapshotRepository snapshotRepository;
         private transient FileCollectionSnapshot inputFilesSnapshot;
         private transient FileCollectionSnapshot outputFilesSnapshot;
@@ -208,6 +212,12 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void setInputFilesSnapshot(FileCollectionSnapshot inputFilesSnapshot) {
             this.inputFilesSnapshot = inputFilesSnapshot;
             this.inputFilesSnapshotId = null;
+            this.inputFilesFingerprint = inputFilesSnapshot == null ? null : inputFilesSnapshot.getFingerprint();
+        }
+
+        @Override
+        public HashValue getInputFilesFingerprint() {
+            return inputFilesFingerprint;
         }
 
         @Override
@@ -226,6 +236,12 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         public void setOutputFilesSnapshot(FileCollectionSnapshot outputFilesSnapshot) {
             this.outputFilesSnapshot = outputFilesSnapshot;
             outputFilesSnapshotId = null;
+            outputFilesFingerprint = outputFilesSnapshot == null ? null : outputFilesSnapshot.getFingerprint();
+        }
+
+        @Override
+        public HashValue getOutputFilesFingerprint() {
+            return outputFilesFingerprint;
         }
 
         static class TaskHistorySerializer implements Serializer<LazyTaskExecution> {
@@ -239,6 +255,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 LazyTaskExecution execution = new LazyTaskExecution();
                 execution.inputFilesSnapshotId = decoder.readLong();
                 execution.outputFilesSnapshotId = decoder.readLong();
+                execution.inputFilesFingerprint = readFingerprint(decoder);
+                execution.outputFilesFingerprint = readFingerprint(decoder);
                 execution.setTaskClass(decoder.readString());
                 int outputFiles = decoder.readInt();
                 Set<String> files = new HashSet<String>();
@@ -261,6 +279,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             public void write(Encoder encoder, LazyTaskExecution execution) throws Exception {
                 encoder.writeLong(execution.inputFilesSnapshotId);
                 encoder.writeLong(execution.outputFilesSnapshotId);
+                writeFingerprint(encoder, execution.inputFilesFingerprint);
+                writeFingerprint(encoder, execution.outputFilesFingerprint);
                 encoder.writeString(execution.getTaskClass());
                 encoder.writeInt(execution.getOutputFiles().size());
                 for (String outputFile : execution.getOutputFiles()) {
@@ -274,6 +294,22 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     defaultSerializer.write(encoder, execution.getInputProperties());
                 }
             }
+
+            private HashValue readFingerprint(Decoder decoder) throws Exception {
+                if (decoder.readBoolean()) {
+                    return new HashValue(decoder.readBinary());
+                }
+                return null;
+            }
+
+            private void writeFingerprint(Encoder encoder, HashValue fingerprint) throws Exception {
+                if (fingerprint == null) {
+                    encoder.writeBoolean(false);
+                } else {
+                    encoder.writeBoolean(true);
+                    encoder.writeBinary(fingerprint.asByteArray());
+                }
+            }
         }
     }
 }
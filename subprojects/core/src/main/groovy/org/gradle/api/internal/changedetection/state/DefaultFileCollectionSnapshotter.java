@@ -19,11 +19,13 @@ package org.gradle.api.internal.changedetection.state;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.internal.hash.Hasher;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.ChangeListener;
 import org.gradle.util.NoOpChangeListener;
 
 import java.io.File;
 import java.math.BigInteger;
+import java.nio.CharBuffer;
 import java.util.*;
 
 public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshotter {
@@ -96,55 +98,143 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
         }
     }
 
+    /**
+     * A compact snapshot of a collection of files. The entries are sorted by path, and the paths are stored in a single character array, with each path
+     * sharing a prefix with the previous path. Every {@link #RESTART_INTERVAL}th path is stored in full, to allow lookups by path. The file hashes
+     * are stored in a single byte array, with the offset of each entry's hash, and the type of each entry is stored in a pair of bitmaps. Hashes can
+     * differ in length, as {@link HashValue#asByteArray()} drops leading zero bytes.
+     *
+     * <p>Because the entries are sorted, two snapshots can be compared with a single pass over both snapshots.</p>
+     */
     static class FileCollectionSnapshotImpl implements FileCollectionSnapshot {
-        final Map<String, FileSnapshot> snapshots;
+        static final int RESTART_INTERVAL = 16;
+        private final int size;
+        private final char[] pathChars;
+        private final int[] suffixOffsets;
+        private final int[] prefixLengths;
+        private final BitSet directories;
+        private final BitSet missingFiles;
+        private final int[] hashOffsets;
+        private final byte[] hashes;
+        private HashValue fingerprint;
 
         public FileCollectionSnapshotImpl(Map<String, FileSnapshot> snapshots) {
-            this.snapshots = snapshots;
+            this(Builder.of(snapshots));
+        }
+
+        private FileCollectionSnapshotImpl(Builder builder) {
+            size = builder.size;
+            pathChars = copyOf(builder.pathChars, builder.pathCharsLength);
+            suffixOffsets = copyOf(builder.suffixOffsets, size + 1);
+            suffixOffsets[size] = builder.pathCharsLength;
+            prefixLengths = copyOf(builder.prefixLengths, size);
+            directories = builder.directories;
+            missingFiles = builder.missingFiles;
+            hashOffsets = copyOf(builder.hashOffsets, size + 1);
+            hashOffsets[size] = builder.hashesLength;
+            hashes = copyOf(builder.hashes, 0, builder.hashesLength);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns an estimate of the number of bytes of heap used by this snapshot.
+         */
+        long getEstimatedSize() {
+            return 128 + pathChars.length * 2L + (suffixOffsets.length + prefixLengths.length + hashOffsets.length) * 4L + hashes.length + size / 4;
+        }
+
+        Cursor cursor() {
+            return new Cursor(0);
+        }
+
+        /**
+         * Returns the snapshot for the given path, or null if this snapshot does not contain the path.
+         */
+        public FileSnapshot get(String path) {
+            if (size == 0) {
+                return null;
+            }
+            // Find the last full path which is less than or equal to the given path, then scan forwards
+            int low = 0;
+            int high = (size - 1) / RESTART_INTERVAL;
+            int restart = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int index = mid * RESTART_INTERVAL;
+                String restartPath = new String(pathChars, suffixOffsets[index], suffixOffsets[index + 1] - suffixOffsets[index]);
+                if (restartPath.compareTo(path) <= 0) {
+                    restart = index;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (restart < 0) {
+                return null;
+            }
+            Cursor cursor = new Cursor(restart);
+            for (int i = 0; i < RESTART_INTERVAL && cursor.next(); i++) {
+                int diff = cursor.compareTo(path);
+                if (diff == 0) {
+                    return cursor.getSnapshot();
+                }
+                if (diff > 0) {
+                    break;
+                }
+            }
+            return null;
         }
 
         public FileCollection getFiles() {
             List<File> files = new ArrayList<File>();
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                if (entry.getValue() instanceof FileHashSnapshot) {
-                    files.add(new File(entry.getKey()));
+            Cursor cursor = new Cursor(0);
+            while (cursor.next()) {
+                if (cursor.isFile()) {
+                    files.add(new File(cursor.getPath()));
                 }
             }
             return new SimpleFileCollection(files);
         }
 
+        public HashValue getFingerprint() {
+            if (fingerprint == null) {
+                FingerprintBuilder builder = new FingerprintBuilder();
+                builder.putLong(size);
+                Cursor cursor = new Cursor(0);
+                while (cursor.next()) {
+                    byte kind = cursor.getKind();
+                    builder.putString(CharBuffer.wrap(cursor.path, 0, cursor.pathLength));
+                    builder.putByte(kind);
+                    if (kind == Builder.FILE) {
+                        builder.putBytes(hashes, cursor.getHashOffset(), cursor.getHashLength());
+                    }
+                }
+                fingerprint = builder.build();
+            }
+            return fingerprint;
+        }
+
         public ChangeIterator<String> iterateChangesSince(FileCollectionSnapshot oldSnapshot) {
             FileCollectionSnapshotImpl other = (FileCollectionSnapshotImpl) oldSnapshot;
-            final Map<String, FileSnapshot> otherSnapshots = new HashMap<String, FileSnapshot>(other.snapshots);
-            final Iterator<String> currentFiles = snapshots.keySet().iterator();
+            final MergeJoin join = new MergeJoin(new Cursor(0), other.new Cursor(0));
 
             return new ChangeIterator<String>() {
-                private Iterator<String> removedFiles;
-
                 public boolean next(ChangeListener<String> listener) {
-                    while (currentFiles.hasNext()) {
-                        String currentFile = currentFiles.next();
-                        FileSnapshot otherFile = otherSnapshots.remove(currentFile);
-
-                        if (otherFile == null) {
-                            listener.added(currentFile);
+                    while (join.next()) {
+                        if (join.isAdded()) {
+                            listener.added(join.current.getPath());
+                            return true;
+                        } else if (join.isRemoved()) {
+                            listener.removed(join.previous.getPath());
                             return true;
-                        } else if (!snapshots.get(currentFile).isUpToDate(otherFile)) {
-                            listener.changed(currentFile);
+                        } else if (join.isChanged()) {
+                            listener.changed(join.current.getPath());
                             return true;
                         }
                     }
-
-                    // Create a single iterator to use for all of the removed files
-                    if (removedFiles == null) {
-                        removedFiles = otherSnapshots.keySet().iterator();
-                    }
-
-                    if (removedFiles.hasNext()) {
-                        listener.removed(removedFiles.next());
-                        return true;
-                    }
-
                     return false;
                 }
             };
@@ -159,28 +249,350 @@ public class DefaultFileCollectionSnapshotter implements FileCollectionSnapshott
 
                 public FileCollectionSnapshot applyTo(FileCollectionSnapshot snapshot, final ChangeListener<Merge> listener) {
                     FileCollectionSnapshotImpl target = (FileCollectionSnapshotImpl) snapshot;
-                    final Map<String, FileSnapshot> newSnapshots = new HashMap<String, FileSnapshot>(target.snapshots);
-                    diff(snapshots, other.snapshots, new MapMergeChangeListener<String, FileSnapshot>(listener, newSnapshots));
-                    return new FileCollectionSnapshotImpl(newSnapshots);
+                    MergeJoin join = new MergeJoin(new Cursor(0), other.new Cursor(0));
+                    Cursor targetCursor = target.new Cursor(0);
+                    boolean hasTarget = targetCursor.next();
+                    Builder builder = new Builder();
+                    while (join.next()) {
+                        Cursor changed;
+                        if (join.isAdded() || join.isChanged()) {
+                            changed = join.current;
+                        } else if (join.isRemoved()) {
+                            changed = join.previous;
+                        } else {
+                            continue;
+                        }
+
+                        // Copy across the unchanged target entries which sort before this change
+                        while (hasTarget && targetCursor.compareTo(changed) < 0) {
+                            builder.add(targetCursor);
+                            hasTarget = targetCursor.next();
+                        }
+                        boolean replacesTarget = hasTarget && targetCursor.compareTo(changed) == 0;
+
+                        MapMergeChangeListener.DefaultMerge merge = new MapMergeChangeListener.DefaultMerge();
+                        if (join.isAdded()) {
+                            listener.added(merge);
+                        } else if (join.isChanged()) {
+                            listener.changed(merge);
+                        } else {
+                            listener.removed(merge);
+                        }
+
+                        if (merge.isIgnore()) {
+                            continue;
+                        }
+                        if (!join.isRemoved()) {
+                            builder.add(changed);
+                        }
+                        if (replacesTarget) {
+                            hasTarget = targetCursor.next();
+                        }
+                    }
+                    while (hasTarget) {
+                        builder.add(targetCursor);
+                        hasTarget = targetCursor.next();
+                    }
+                    return new FileCollectionSnapshotImpl(builder);
                 }
             };
         }
 
-        private void diff(Map<String, FileSnapshot> snapshots, Map<String, FileSnapshot> oldSnapshots,
-                          ChangeListener<Map.Entry<String, FileSnapshot>> listener) {
-            Map<String, FileSnapshot> otherSnapshots = new HashMap<String, FileSnapshot>(oldSnapshots);
-            for (Map.Entry<String, FileSnapshot> entry : snapshots.entrySet()) {
-                FileSnapshot otherFile = otherSnapshots.remove(entry.getKey());
-                if (otherFile == null) {
-                    listener.added(entry);
-                } else if (!entry.getValue().isUpToDate(otherFile)) {
-                    listener.changed(entry);
+        /**
+         * Walks two snapshots in path order, matching up the entries with the same path.
+         */
+        private static class MergeJoin {
+            final Cursor current;
+            final Cursor previous;
+            private boolean hasCurrent;
+            private boolean hasPrevious;
+            private boolean advanceCurrent = true;
+            private boolean advancePrevious = true;
+            private int diff;
+
+            MergeJoin(Cursor current, Cursor previous) {
+                this.current = current;
+                this.previous = previous;
+            }
+
+            boolean next() {
+                if (advanceCurrent) {
+                    hasCurrent = current.next();
+                }
+                if (advancePrevious) {
+                    hasPrevious = previous.next();
+                }
+                if (!hasCurrent && !hasPrevious) {
+                    advanceCurrent = false;
+                    advancePrevious = false;
+                    return false;
+                }
+                diff = !hasCurrent ? 1 : !hasPrevious ? -1 : current.compareTo(previous);
+                advanceCurrent = diff <= 0;
+                advancePrevious = diff >= 0;
+                return true;
+            }
+
+            boolean isAdded() {
+                return diff < 0;
+            }
+
+            boolean isRemoved() {
+                return diff > 0;
+            }
+
+            boolean isChanged() {
+                return diff == 0 && !current.isUpToDate(previous);
+            }
+        }
+
+        /**
+         * Iterates over the entries of this snapshot in path order, reconstructing each path from the previous one.
+         */
+        class Cursor {
+            private int index;
+            private char[] path = new char[128];
+            private int pathLength;
+
+            Cursor(int start) {
+                index = start - 1;
+            }
+
+            boolean next() {
+                if (index + 1 >= size) {
+                    index = size;
+                    return false;
+                }
+                index++;
+                int prefix = prefixLengths[index];
+                int suffixStart = suffixOffsets[index];
+                int suffixLength = suffixOffsets[index + 1] - suffixStart;
+                if (path.length < prefix + suffixLength) {
+                    path = copyOf(path, Math.max(path.length * 2, prefix + suffixLength));
+                }
+                System.arraycopy(pathChars, suffixStart, path, prefix, suffixLength);
+                pathLength = prefix + suffixLength;
+                return true;
+            }
+
+            String getPath() {
+                return new String(path, 0, pathLength);
+            }
+
+            boolean isFile() {
+                return !directories.get(index) && !missingFiles.get(index);
+            }
+
+            byte getKind() {
+                if (directories.get(index)) {
+                    return Builder.DIR;
+                }
+                if (missingFiles.get(index)) {
+                    return Builder.MISSING;
+                }
+                return Builder.FILE;
+            }
+
+            int getHashOffset() {
+                return hashOffsets[index];
+            }
+
+            int getHashLength() {
+                return hashOffsets[index + 1] - hashOffsets[index];
+            }
+
+            byte[] getHash() {
+                return copyOf(hashes, getHashOffset(), getHashLength());
+            }
+
+            FileSnapshot getSnapshot() {
+                switch (getKind()) {
+                    case Builder.DIR:
+                        return new DirSnapshot();
+                    case Builder.MISSING:
+                        return new MissingFileSnapshot();
+                    default:
+                        return new FileHashSnapshot(getHash());
+                }
+            }
+
+            boolean isUpToDate(Cursor other) {
+                byte kind = getKind();
+                if (kind != other.getKind()) {
+                    return false;
+                }
+                if (kind != Builder.FILE) {
+                    return true;
+                }
+                FileCollectionSnapshotImpl otherSnapshot = other.getSnapshotImpl();
+                int hashLength = getHashLength();
+                if (hashLength != other.getHashLength()) {
+                    return false;
+                }
+                int offset = getHashOffset();
+                int otherOffset = other.getHashOffset();
+                for (int i = 0; i < hashLength; i++) {
+                    if (hashes[offset + i] != otherSnapshot.hashes[otherOffset + i]) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+
+            int compareTo(Cursor other) {
+                int length = Math.min(pathLength, other.pathLength);
+                for (int i = 0; i < length; i++) {
+                    if (path[i] != other.path[i]) {
+                        return path[i] - other.path[i];
+                    }
+                }
+                return pathLength - other.pathLength;
+            }
+
+            int compareTo(String other) {
+                int length = Math.min(pathLength, other.length());
+                for (int i = 0; i < length; i++) {
+                    if (path[i] != other.charAt(i)) {
+                        return path[i] - other.charAt(i);
+                    }
+                }
+                return pathLength - other.length();
+            }
+
+            private FileCollectionSnapshotImpl getSnapshotImpl() {
+                return FileCollectionSnapshotImpl.this;
+            }
+        }
+
+        /**
+         * Builds a snapshot from entries added in path order.
+         */
+        static class Builder {
+            static final byte DIR = 1;
+            static final byte MISSING = 2;
+            static final byte FILE = 3;
+            private int size;
+            private char[] pathChars = new char[1024];
+            private int pathCharsLength;
+            private int[] suffixOffsets = new int[16];
+            private int[] prefixLengths = new int[16];
+            private final BitSet directories = new BitSet();
+            private final BitSet missingFiles = new BitSet();
+            private int[] hashOffsets = new int[16];
+            private byte[] hashes = new byte[256];
+            private int hashesLength;
+            private char[] previousPath = new char[128];
+            private int previousPathLength;
+
+            static Builder of(Map<String, FileSnapshot> snapshots) {
+                String[] paths = snapshots.keySet().toArray(new String[snapshots.size()]);
+                Arrays.sort(paths);
+                Builder builder = new Builder();
+                for (String path : paths) {
+                    builder.add(path, snapshots.get(path));
                 }
+                return builder;
             }
-            for (Map.Entry<String, FileSnapshot> entry : otherSnapshots.entrySet()) {
-                listener.removed(entry);
+
+            void add(String path, FileSnapshot snapshot) {
+                if (snapshot instanceof DirSnapshot) {
+                    add(path.toCharArray(), path.length(), DIR, null, 0, 0);
+                } else if (snapshot instanceof MissingFileSnapshot) {
+                    add(path.toCharArray(), path.length(), MISSING, null, 0, 0);
+                } else {
+                    byte[] hash = ((FileHashSnapshot) snapshot).hash;
+                    add(path.toCharArray(), path.length(), FILE, hash, 0, hash.length);
+                }
+            }
+
+            void add(Cursor cursor) {
+                FileCollectionSnapshotImpl source = cursor.getSnapshotImpl();
+                byte kind = cursor.getKind();
+                add(cursor.path, cursor.pathLength, kind, source.hashes, cursor.getHashOffset(), cursor.getHashLength());
+            }
+
+            private void add(char[] path, int pathLength, byte kind, byte[] hash, int hashOffset, int hashLength) {
+                int index = size;
+                if (index > 0 && !isAfterPrevious(path, pathLength)) {
+                    throw new IllegalArgumentException(String.format("Snapshot entry '%s' added out of order.", new String(path, 0, pathLength)));
+                }
+                int prefix = 0;
+                if (index % RESTART_INTERVAL != 0) {
+                    int maxPrefix = Math.min(pathLength, previousPathLength);
+                    while (prefix < maxPrefix && path[prefix] == previousPath[prefix]) {
+                        prefix++;
+                    }
+                }
+
+                if (index == suffixOffsets.length) {
+                    suffixOffsets = copyOf(suffixOffsets, index * 2);
+                    prefixLengths = copyOf(prefixLengths, index * 2);
+                    hashOffsets = copyOf(hashOffsets, index * 2);
+                }
+                int suffixLength = pathLength - prefix;
+                if (pathCharsLength + suffixLength > pathChars.length) {
+                    pathChars = copyOf(pathChars, Math.max(pathChars.length * 2, pathCharsLength + suffixLength));
+                }
+                System.arraycopy(path, prefix, pathChars, pathCharsLength, suffixLength);
+                suffixOffsets[index] = pathCharsLength;
+                prefixLengths[index] = prefix;
+                pathCharsLength += suffixLength;
+
+                hashOffsets[index] = hashesLength;
+                if (kind == DIR) {
+                    directories.set(index);
+                } else if (kind == MISSING) {
+                    missingFiles.set(index);
+                } else {
+                    addHash(hash, hashOffset, hashLength);
+                }
+
+                if (previousPath.length < pathLength) {
+                    previousPath = new char[Math.max(previousPath.length * 2, pathLength)];
+                }
+                System.arraycopy(path, 0, previousPath, 0, pathLength);
+                previousPathLength = pathLength;
+                size++;
+            }
+
+            private void addHash(byte[] hash, int hashOffset, int length) {
+                int required = hashesLength + length;
+                if (required > hashes.length) {
+                    hashes = copyOf(hashes, 0, Math.max(hashes.length * 2, required));
+                }
+                System.arraycopy(hash, hashOffset, hashes, hashesLength, length);
+                hashesLength = required;
+            }
+
+            private boolean isAfterPrevious(char[] path, int pathLength) {
+                int length = Math.min(pathLength, previousPathLength);
+                for (int i = 0; i < length; i++) {
+                    if (path[i] != previousPath[i]) {
+                        return path[i] > previousPath[i];
+                    }
+                }
+                return pathLength > previousPathLength;
             }
         }
+    }
+
+    // Arrays.copyOf() is not available on Java 5
+
+    private static char[] copyOf(char[] chars, int length) {
+        char[] copy = new char[length];
+        System.arraycopy(chars, 0, copy, 0, Math.min(chars.length, length));
+        return copy;
+    }
+
+    private static int[] copyOf(int[] values, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(values, 0, copy, 0, Math.min(values.length, length));
+        return copy;
+    }
 
+    private static byte[] copyOf(byte[] bytes, int offset, int length) {
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, offset, copy, 0, Math.min(bytes.length - offset, length));
+        return copy;
     }
 }
@@ -20,13 +20,13 @@ import org.gradle.messaging.serialize.Decoder;
 import org.gradle.messaging.serialize.Encoder;
 import org.gradle.messaging.serialize.Serializer;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnapshot> {
     public FileCollectionSnapshot read(Decoder decoder) throws Exception {
-        Map<String, DefaultFileCollectionSnapshotter.FileSnapshot> snapshots = new HashMap<String, DefaultFileCollectionSnapshotter.FileSnapshot>();
-        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl snapshot = new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
+        // Entries are written in path order, so keep them in that order to make building the snapshot cheaper
+        Map<String, DefaultFileCollectionSnapshotter.FileSnapshot> snapshots = new LinkedHashMap<String, DefaultFileCollectionSnapshotter.FileSnapshot>();
         int snapshotsCount = decoder.readInt();
         for (int i = 0; i < snapshotsCount; i++) {
             String key = decoder.readString();
@@ -44,22 +44,19 @@ class DefaultFileSnapshotterSerializer implements Serializer<FileCollectionSnaps
                 throw new RuntimeException("Unable to read serialized file collection snapshot. Unrecognized value found in the data stream.");
             }
         }
-        return snapshot;
+        return new DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl(snapshots);
     }
 
     public void write(Encoder encoder, FileCollectionSnapshot value) throws Exception {
         DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl cached = (DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) value;
-        encoder.writeInt(cached.snapshots.size());
-        for (String key : cached.snapshots.keySet()) {
-            encoder.writeString(key);
-            DefaultFileCollectionSnapshotter.FileSnapshot fileSnapshot = cached.snapshots.get(key);
-            if (fileSnapshot instanceof DefaultFileCollectionSnapshotter.DirSnapshot) {
-                encoder.writeByte((byte) 1);
-            } else if (fileSnapshot instanceof DefaultFileCollectionSnapshotter.MissingFileSnapshot) {
-                encoder.writeByte((byte) 2);
-            } else if (fileSnapshot instanceof DefaultFileCollectionSnapshotter.FileHashSnapshot) {
-                encoder.writeByte((byte) 3);
-                byte[] hash = ((DefaultFileCollectionSnapshotter.FileHashSnapshot) fileSnapshot).hash;
+        encoder.writeInt(cached.size());
+        DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl.Cursor cursor = cached.cursor();
+        while (cursor.next()) {
+            encoder.writeString(cursor.getPath());
+            byte kind = cursor.getKind();
+            encoder.writeByte(kind);
+            if (kind == 3) {
+                byte[] hash = cursor.getHash();
                 encoder.writeByte((byte) hash.length);
                 encoder.writeBytes(hash);
             }
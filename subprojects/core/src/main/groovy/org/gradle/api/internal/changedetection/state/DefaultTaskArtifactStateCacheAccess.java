@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.collect.ImmutableSet;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.PersistentCache;
@@ -25,18 +26,27 @@ import org.gradle.cache.internal.FileLockManager;
 import org.gradle.internal.Factory;
 import org.gradle.messaging.serialize.Serializer;
 
+import java.util.Set;
+
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
 public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCacheAccess {
+    /**
+     * The system property that stores the caches whose entries are replaced on every build in append-only logs, rather than B-trees.
+     */
+    public static final String LOG_STRUCTURED_PROPERTY = "org.gradle.taskArtifactCache.logStructured";
+    private static final Set<String> LOG_STRUCTURED_CACHES = ImmutableSet.of("taskArtifacts", "fileSnapshots");
     private final CacheDecorator inMemoryDecorator;
     private final PersistentCache cache;
+    private final boolean logStructured;
 
     public DefaultTaskArtifactStateCacheAccess(Gradle gradle, CacheRepository cacheRepository, CacheDecorator decorator) {
         this.inMemoryDecorator = decorator;
+        this.logStructured = Boolean.getBoolean(LOG_STRUCTURED_PROPERTY);
         cache = cacheRepository
                 .cache(gradle, "taskArtifacts")
                 .withDisplayName("task history cache")
-                .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                .withLockOptions(mode(FileLockManager.LockMode.None).allowConcurrentUse()) // Lock on demand, shared by the threads of a parallel build
                 .open();
     }
 
@@ -47,6 +57,9 @@ public class DefaultTaskArtifactStateCacheAccess implements TaskArtifactStateCac
     public <K, V> PersistentIndexedCache<K, V> createCache(final String cacheName, final Class<K> keyType, final Serializer<V> valueSerializer) {
         PersistentIndexedCacheParameters<K, V> parameters = new PersistentIndexedCacheParameters<K, V>(cacheName, keyType, valueSerializer)
                 .cacheDecorator(inMemoryDecorator);
+        if (logStructured && LOG_STRUCTURED_CACHES.contains(cacheName)) {
+            parameters.logStructured();
+        }
         return cache.createCache(parameters);
     }
 
@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.ChangeListener;
 
 /**
@@ -30,6 +31,11 @@ public interface FileCollectionSnapshot {
 
     FileCollection getFiles();
 
+    /**
+     * Returns a hash of the paths and contents of the files in this snapshot. Two snapshots with the same fingerprint contain the same files.
+     */
+    HashValue getFingerprint();
+
     public interface Diff {
         /**
          * Applies this diff to the given snapshot. Adds any added or changed files in this diff to the given snapshot.
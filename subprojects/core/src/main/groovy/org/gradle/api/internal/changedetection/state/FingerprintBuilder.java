@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Calculates the fingerprint of a snapshot. Each value is written with its length, so that the sequence of values can be recovered from the bytes
+ * that are digested.
+ */
+class FingerprintBuilder {
+    private final MessageDigest digest;
+    private byte[] buffer = new byte[256];
+
+    FingerprintBuilder() {
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    FingerprintBuilder putByte(byte value) {
+        digest.update(value);
+        return this;
+    }
+
+    FingerprintBuilder putLong(long value) {
+        for (int i = 0; i < 8; i++) {
+            buffer[i] = (byte) (value >>> (56 - i * 8));
+        }
+        digest.update(buffer, 0, 8);
+        return this;
+    }
+
+    FingerprintBuilder putBytes(byte[] bytes, int offset, int length) {
+        putLong(length);
+        digest.update(bytes, offset, length);
+        return this;
+    }
+
+    FingerprintBuilder putString(CharSequence value) {
+        int length = value.length();
+        putLong(length);
+        if (buffer.length < length * 2) {
+            buffer = new byte[Math.max(buffer.length * 2, length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            buffer[i * 2] = (byte) (ch >>> 8);
+            buffer[i * 2 + 1] = (byte) ch;
+        }
+        digest.update(buffer, 0, length * 2);
+        return this;
+    }
+
+    HashValue build() {
+        return new HashValue(digest.digest());
+    }
+}
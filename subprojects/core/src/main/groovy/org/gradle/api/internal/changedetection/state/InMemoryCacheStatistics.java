@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+/**
+ * Usage statistics for one of the caches held by {@link InMemoryTaskArtifactCache}. Sizes are estimates of the number of bytes of heap used.
+ */
+public class InMemoryCacheStatistics {
+    private final String cacheId;
+    private final long entryCount;
+    private final long estimatedSize;
+    private final long maxSize;
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public InMemoryCacheStatistics(String cacheId, long entryCount, long estimatedSize, long maxSize, long hitCount, long missCount, long evictionCount) {
+        this.cacheId = cacheId;
+        this.entryCount = entryCount;
+        this.estimatedSize = estimatedSize;
+        this.maxSize = maxSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public String getCacheId() {
+        return cacheId;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the statistics for the activity since the given statistics were taken. The entry count and sizes are not changed.
+     */
+    public InMemoryCacheStatistics since(InMemoryCacheStatistics previous) {
+        return new InMemoryCacheStatistics(cacheId, entryCount, estimatedSize, maxSize,
+                hitCount - previous.hitCount, missCount - previous.missCount, evictionCount - previous.evictionCount);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Entries{%s}, Size{%s/%s bytes}, Hits{%s}, Misses{%s}, Evictions{%s}", entryCount, estimatedSize, maxSize, hitCount, missCount, evictionCount);
+    }
+}
@@ -18,6 +18,9 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import org.gradle.api.internal.hash.CachingHasher;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.cache.internal.CacheDecorator;
@@ -25,37 +28,69 @@ import org.gradle.cache.internal.FileLock;
 import org.gradle.cache.internal.MultiProcessSafePersistentIndexedCache;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Keeps the contents of the task artifact caches in memory, for use in a long running process. The memory used by the caches is limited to a fraction
+ * of the maximum heap, which is divided between the caches. The size of each entry is estimated, rather than measured.
+ */
 public class InMemoryTaskArtifactCache implements CacheDecorator {
+    public static final String HEAP_FRACTION_PROPERTY = "org.gradle.taskArtifactCache.heapFraction";
+    private static final double DEFAULT_HEAP_FRACTION = 0.1;
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
 
-    private static final Map<String, Integer> CACHE_CAPS = new HashMap<String, Integer>();
+    private static final Map<String, Integer> CACHE_SHARES = new HashMap<String, Integer>();
 
     static {
-        //it's the simplest implementation, not very nice
-        //at very least, the max size should be provided at creation, by the creator of the cache
-        //however, max size is a bit awkward in general and we should look into other options,
-        //like using the Weighter and relate the cache size to the available heap, etc.
-        CACHE_CAPS.put("fileSnapshots", 10000);
-        CACHE_CAPS.put("taskArtifacts", 2000);
-        CACHE_CAPS.put("outputFileStates", 3000);
-        CACHE_CAPS.put("fileHashes", 140000);
-
-        //In general, the in-memory cache must be capped at some level, otherwise it is reduces performance in truly gigantic builds
+        // The percentage of the memory budget that each cache may use. Only one of the file hash caches is used by a build.
+        // A child build (for example buildSrc) gets its own set of caches, each with the same limit.
+        CACHE_SHARES.put("fileSnapshots", 40);
+        CACHE_SHARES.put("taskArtifacts", 15);
+        CACHE_SHARES.put("outputFileStates", 9);
+        CACHE_SHARES.put("taskDurations", 1);
+        CACHE_SHARES.put("fileHashes", 35);
+        CACHE_SHARES.put("fileHashesMurmur3", 35);
     }
 
     private final Object lock = new Object();
-    private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
+    private final long maxHeapUsage;
+    private final Cache<String, CacheData> cache = CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SHARES.size() * 2) //X2 to factor in a child build (for example buildSrc)
             .build();
 
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
 
+    public InMemoryTaskArtifactCache() {
+        this((long) (Runtime.getRuntime().maxMemory() * heapFraction()));
+    }
+
+    InMemoryTaskArtifactCache(long maxHeapUsage) {
+        this.maxHeapUsage = maxHeapUsage;
+    }
+
+    private static double heapFraction() {
+        String value = System.getProperty(HEAP_FRACTION_PROPERTY);
+        if (value == null) {
+            return DEFAULT_HEAP_FRACTION;
+        }
+        try {
+            double fraction = Double.parseDouble(value);
+            if (fraction >= 0 && fraction < 1) {
+                return fraction;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through
+        }
+        LOG.warn("Ignoring invalid value '{}' for system property '{}'. Expected a fraction between 0 and 1.", value, HEAP_FRACTION_PROPERTY);
+        return DEFAULT_HEAP_FRACTION;
+    }
+
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> decorate(final String cacheId, String cacheName, final MultiProcessSafePersistentIndexedCache<K, V> original) {
-        final Cache<Object, Object> data = loadData(cacheId, cacheName);
+        final Cache<Object, Object> data = loadData(cacheId, cacheName).data;
 
         return new MultiProcessSafePersistentIndexedCache<K, V>() {
             public void close() {
@@ -107,19 +142,90 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         };
     }
 
-    private Cache<Object, Object> loadData(String cacheId, String cacheName) {
-        Cache<Object, Object> theData;
+    /**
+     * Returns the current statistics for each of the caches.
+     */
+    public List<InMemoryCacheStatistics> getStatistics() {
+        List<InMemoryCacheStatistics> statistics = new ArrayList<InMemoryCacheStatistics>();
+        for (CacheData cacheData : cache.asMap().values()) {
+            statistics.add(cacheData.getStatistics());
+        }
+        return statistics;
+    }
+
+    private CacheData loadData(String cacheId, String cacheName) {
+        CacheData theData;
         synchronized (lock) {
             theData = this.cache.getIfPresent(cacheId);
             if (theData != null) {
-                LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
+                if (LOG.isInfoEnabled()) {
+                    LOG.info("In-memory cache of {}: {}", cacheId, theData.getStatistics());
+                }
             } else {
-                Integer maxSize = CACHE_CAPS.get(cacheName);
-                assert maxSize != null : "Unknown cache.";
-                theData = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+                Integer share = CACHE_SHARES.get(cacheName);
+                assert share != null : "Unknown cache.";
+                theData = new CacheData(cacheId, maxHeapUsage * share / 100);
                 this.cache.put(cacheId, theData);
             }
         }
         return theData;
     }
+
+    private static class CacheData {
+        final String cacheId;
+        final long maxWeight;
+        final Cache<Object, Object> data;
+
+        CacheData(String cacheId, long maxWeight) {
+            this.cacheId = cacheId;
+            this.maxWeight = maxWeight;
+            this.data = CacheBuilder.newBuilder().maximumWeight(maxWeight).weigher(new EntrySizeWeigher()).recordStats().build();
+        }
+
+        InMemoryCacheStatistics getStatistics() {
+            long size = 0;
+            for (Map.Entry<Object, Object> entry : data.asMap().entrySet()) {
+                size += EntrySizeWeigher.estimateSize(entry.getKey()) + EntrySizeWeigher.estimateSize(entry.getValue());
+            }
+            CacheStats stats = data.stats();
+            return new InMemoryCacheStatistics(cacheId, data.size(), size, maxWeight, stats.hitCount(), stats.missCount(), stats.evictionCount());
+        }
+    }
+
+    /**
+     * Estimates the number of bytes of heap used by a cache entry. Covers the keys and values used by the task artifact caches.
+     */
+    private static class EntrySizeWeigher implements Weigher<Object, Object> {
+        private static final int DEFAULT_SIZE = 1024;
+
+        public int weigh(Object key, Object value) {
+            return (int) Math.min(Integer.MAX_VALUE, estimateSize(key) + estimateSize(value));
+        }
+
+        static long estimateSize(Object value) {
+            if (value == NULL) {
+                return 0;
+            }
+            if (value instanceof String) {
+                return 40 + 2 * ((String) value).length();
+            }
+            if (value instanceof Long) {
+                return 16;
+            }
+            if (value instanceof File) {
+                return 16 + estimateSize(((File) value).getPath());
+            }
+            if (value instanceof CachingHasher.FileInfo) {
+                return 64;
+            }
+            if (value instanceof DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) {
+                return ((DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl) value).getEstimatedSize();
+            }
+            if (value instanceof OutputFilesCollectionSnapshotter.OutputFilesSnapshot) {
+                OutputFilesCollectionSnapshotter.OutputFilesSnapshot snapshot = (OutputFilesCollectionSnapshotter.OutputFilesSnapshot) value;
+                return 150 * snapshot.rootFileIds.size() + estimateSize(snapshot.filesSnapshot);
+            }
+            return DEFAULT_SIZE;
+        }
+    }
 }
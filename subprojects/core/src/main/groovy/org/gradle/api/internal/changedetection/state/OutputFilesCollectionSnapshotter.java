@@ -18,6 +18,7 @@ package org.gradle.api.internal.changedetection.state;
 
 import org.gradle.api.file.FileCollection;
 import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.messaging.serialize.LongSerializer;
 import org.gradle.util.ChangeListener;
@@ -84,6 +85,7 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
     static class OutputFilesSnapshot implements FileCollectionSnapshot {
         final Map<String, Long> rootFileIds;
         final FileCollectionSnapshot filesSnapshot;
+        private HashValue fingerprint;
 
         public OutputFilesSnapshot(Map<String, Long> rootFileIds, FileCollectionSnapshot filesSnapshot) {
             this.rootFileIds = rootFileIds;
@@ -94,6 +96,30 @@ public class OutputFilesCollectionSnapshotter implements FileCollectionSnapshott
             return filesSnapshot.getFiles();
         }
 
+        public HashValue getFingerprint() {
+            if (fingerprint == null) {
+                fingerprint = calculateFingerprint();
+            }
+            return fingerprint;
+        }
+
+        private HashValue calculateFingerprint() {
+            FingerprintBuilder builder = new FingerprintBuilder();
+            builder.putLong(rootFileIds.size());
+            for (Map.Entry<String, Long> entry : new TreeMap<String, Long>(rootFileIds).entrySet()) {
+                builder.putString(entry.getKey());
+                if (entry.getValue() == null) {
+                    builder.putByte((byte) 0);
+                } else {
+                    builder.putByte((byte) 1);
+                    builder.putLong(entry.getValue());
+                }
+            }
+            byte[] files = filesSnapshot.getFingerprint().asByteArray();
+            builder.putBytes(files, 0, files.length);
+            return builder.build();
+        }
+
         public Diff changesSince(final FileCollectionSnapshot oldSnapshot) {
             OutputFilesSnapshot other = (OutputFilesSnapshot) oldSnapshot;
             return new OutputFilesDiff(rootFileIds, other.rootFileIds, filesSnapshot.changesSince(other.filesSnapshot));
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.hash.CachingHasher;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A {@link FileCollectionSnapshotter} which walks the file tree and hashes the files that have changed since they were last hashed using a bounded pool
+ * of worker threads. The pool is shared by all snapshots and is stopped along with this snapshotter. The file hash cache is only accessed from the calling
+ * thread, and is read and written in batches.
+ */
+public class ParallelFileCollectionSnapshotter extends DefaultFileCollectionSnapshotter implements Stoppable {
+    static final int BATCH_SIZE = 500;
+    private final CachingHasher hasher;
+    private final TaskArtifactStateCacheAccess cacheAccess;
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkers;
+    private final BlockingQueue<PendingFile> pending = new LinkedBlockingQueue<PendingFile>();
+    private final Object lock = new Object();
+    private StoppableExecutor executor;
+    private int workers;
+
+    public ParallelFileCollectionSnapshotter(CachingHasher hasher, TaskArtifactStateCacheAccess cacheAccess, ExecutorFactory executorFactory, int maxWorkers) {
+        super(hasher, cacheAccess);
+        if (maxWorkers < 1) {
+            throw new IllegalArgumentException("Not a valid number of hash workers: " + maxWorkers);
+        }
+        this.hasher = hasher;
+        this.cacheAccess = cacheAccess;
+        this.executorFactory = executorFactory;
+        this.maxWorkers = maxWorkers;
+    }
+
+    @Override
+    public FileCollectionSnapshot snapshot(FileCollection sourceFiles) {
+        SnapshotBuilder builder = new SnapshotBuilder();
+        try {
+            builder.visit(sourceFiles);
+            builder.finish();
+        } finally {
+            // Discard any remaining work, in case of failure
+            builder.cancelled = true;
+        }
+        return new FileCollectionSnapshotImpl(builder.snapshots);
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (lock) {
+            executor = this.executor;
+            this.executor = null;
+            for (int i = 0; i < workers; i++) {
+                pending.add(PendingFile.END);
+            }
+            workers = 0;
+        }
+        if (executor != null) {
+            executor.stop();
+        }
+    }
+
+    private void startWorker(int outstanding) {
+        synchronized (lock) {
+            if (workers < maxWorkers && workers < outstanding) {
+                if (executor == null) {
+                    executor = executorFactory.create("File hasher");
+                }
+                workers++;
+                executor.execute(new HashWorker());
+            }
+        }
+    }
+
+    private void workerInterrupted(InterruptedException e) {
+        synchronized (lock) {
+            if (executor == null) {
+                // Stopped
+                return;
+            }
+            workers--;
+            if (workers > 0) {
+                return;
+            }
+            // No workers are left to hash the waiting files, so fail them rather than leave their snapshots waiting forever
+            List<PendingFile> files = new ArrayList<PendingFile>();
+            pending.drainTo(files);
+            for (PendingFile file : files) {
+                if (file != PendingFile.END) {
+                    file.failure = e;
+                    file.builder.hashed.add(file);
+                }
+            }
+        }
+    }
+
+    private class SnapshotBuilder {
+        private final Map<String, FileSnapshot> snapshots = new HashMap<String, FileSnapshot>();
+        private final BlockingQueue<PendingFile> hashed = new LinkedBlockingQueue<PendingFile>();
+        private List<File> batch = new ArrayList<File>(BATCH_SIZE);
+        private int outstanding;
+        private volatile boolean cancelled;
+
+        void visit(FileCollection sourceFiles) {
+            sourceFiles.getAsFileTree().visit(new EmptyFileVisitor() {
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    batch.add(fileDetails.getFile());
+                    if (batch.size() >= BATCH_SIZE) {
+                        processBatch();
+                    }
+                }
+            });
+        }
+
+        void finish() {
+            processBatch();
+            while (outstanding > 0) {
+                final List<PendingFile> results = new ArrayList<PendingFile>();
+                results.add(take());
+                hashed.drainTo(results);
+                cacheAccess.useCache("Create file snapshot", new Runnable() {
+                    public void run() {
+                        storeResults(results);
+                    }
+                });
+            }
+        }
+
+        private void processBatch() {
+            final List<File> files = batch;
+            batch = new ArrayList<File>(BATCH_SIZE);
+            final List<PendingFile> results = new ArrayList<PendingFile>();
+            hashed.drainTo(results);
+            if (files.isEmpty() && results.isEmpty()) {
+                return;
+            }
+            cacheAccess.useCache("Create file snapshot", new Runnable() {
+                public void run() {
+                    storeResults(results);
+                    for (File file : files) {
+                        String path = file.getAbsolutePath();
+                        if (snapshots.containsKey(path)) {
+                            continue;
+                        }
+                        if (file.isFile()) {
+                            long length = file.length();
+                            long timestamp = file.lastModified();
+                            byte[] hash = hasher.getCachedHash(file, length, timestamp);
+                            if (hash != null) {
+                                snapshots.put(path, new FileHashSnapshot(hash));
+                            } else {
+                                // Reserve the slot, so that duplicates are hashed only once
+                                snapshots.put(path, null);
+                                submit(new PendingFile(SnapshotBuilder.this, file, length, timestamp));
+                            }
+                        } else if (file.isDirectory()) {
+                            snapshots.put(path, new DirSnapshot());
+                        } else {
+                            snapshots.put(path, new MissingFileSnapshot());
+                        }
+                    }
+                }
+            });
+        }
+
+        private void submit(PendingFile file) {
+            outstanding++;
+            pending.add(file);
+            startWorker(outstanding);
+        }
+
+        private void storeResults(List<PendingFile> results) {
+            for (PendingFile result : results) {
+                outstanding--;
+                if (result.failure != null) {
+                    throw UncheckedException.throwAsUncheckedException(result.failure);
+                }
+                hasher.cacheHash(result.file, result.hash, result.length, result.timestamp);
+                snapshots.put(result.file.getAbsolutePath(), new FileHashSnapshot(result.hash));
+            }
+        }
+
+        private PendingFile take() {
+            try {
+                return hashed.take();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private class HashWorker implements Runnable {
+        public void run() {
+            while (true) {
+                PendingFile file;
+                try {
+                    file = pending.take();
+                } catch (InterruptedException e) {
+                    workerInterrupted(e);
+                    return;
+                }
+                if (file == PendingFile.END) {
+                    return;
+                }
+                if (file.builder.cancelled) {
+                    continue;
+                }
+                try {
+                    file.hash = hasher.hashUncached(file.file);
+                } catch (Throwable t) {
+                    file.failure = t;
+                }
+                file.builder.hashed.add(file);
+            }
+        }
+    }
+
+    private static class PendingFile {
+        static final PendingFile END = new PendingFile(null, null, 0, 0);
+        final SnapshotBuilder builder;
+        final File file;
+        final long length;
+        final long timestamp;
+        volatile byte[] hash;
+        volatile Throwable failure;
+
+        PendingFile(SnapshotBuilder builder, File file, long length, long timestamp) {
+            this.builder = builder;
+            this.file = file;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+    }
+}
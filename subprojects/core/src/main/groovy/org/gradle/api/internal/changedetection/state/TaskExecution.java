@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.changedetection.state;
 
+import org.gradle.internal.hash.HashValue;
+
 import java.util.Map;
 import java.util.Set;
 
@@ -57,10 +59,24 @@ public abstract class TaskExecution {
 
     public abstract void setOutputFilesSnapshot(FileCollectionSnapshot outputFilesSnapshot);
 
+    /**
+     * Returns the fingerprint of the output files snapshot, without loading the snapshot.
+     *
+     * @return May return null.
+     */
+    public abstract HashValue getOutputFilesFingerprint();
+
     /**
      * @return May return null.
      */
     public abstract FileCollectionSnapshot getInputFilesSnapshot();
 
     public abstract void setInputFilesSnapshot(FileCollectionSnapshot inputFilesSnapshot);
+
+    /**
+     * Returns the fingerprint of the input files snapshot, without loading the snapshot.
+     *
+     * @return May return null.
+     */
+    public abstract HashValue getInputFilesFingerprint();
 }
@@ -29,8 +29,15 @@ public class CachingHasher implements Hasher {
     private final Hasher hasher;
 
     public CachingHasher(Hasher hasher, PersistentStore store) {
+        this(hasher, store, "fileHashes");
+    }
+
+    /**
+     * Creates a hasher which stores its hashes in the given cache. Hashers using different hash functions must use different caches.
+     */
+    public CachingHasher(Hasher hasher, PersistentStore store, String cacheName) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", File.class, new FileInfoSerializer());
+        this.cache = store.createCache(cacheName, File.class, new FileInfoSerializer());
     }
 
     public byte[] hash(File file) {
@@ -47,6 +54,32 @@ public class CachingHasher implements Hasher {
         return hash;
     }
 
+    /**
+     * Returns the cached hash of the given file, or null when the file has not been hashed with the given length and timestamp.
+     * Must be called while holding the cache lock.
+     */
+    public byte[] getCachedHash(File file, long length, long timestamp) {
+        FileInfo info = cache.get(file);
+        if (info != null && length == info.length && timestamp == info.timestamp) {
+            return info.hash;
+        }
+        return null;
+    }
+
+    /**
+     * Hashes the given file without consulting the cache. Can be called from any thread.
+     */
+    public byte[] hashUncached(File file) {
+        return hasher.hash(file);
+    }
+
+    /**
+     * Records the hash of the given file. Must be called while holding the cache lock.
+     */
+    public void cacheHash(File file, byte[] hash, long length, long timestamp) {
+        cache.put(file, new FileInfo(hash, length, timestamp));
+    }
+
     public static class FileInfo implements Serializable {
         private final byte[] hash;
         private final long timestamp;
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.hash;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A {@link Hasher} which uses the 128 bit x64 variant of MurmurHash3. This is much cheaper to calculate than MD5, but is not a cryptographic hash,
+ * so should only be used to detect changes to files. Large files are memory mapped, except on Windows where a mapped file cannot be deleted
+ * until the mapping is garbage collected.
+ *
+ * <p>Produces the same hash as Guava's {@code Hashing.murmur3_128()}.</p>
+ */
+public class Murmur3Hasher implements Hasher {
+    static final long MAP_THRESHOLD = 1024 * 1024;
+    static final int MAX_REGION_SIZE = 64 * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+    private final boolean useMappedReads;
+
+    public Murmur3Hasher() {
+        this(!OperatingSystem.current().isWindows());
+    }
+
+    Murmur3Hasher(boolean useMappedReads) {
+        this.useMappedReads = useMappedReads;
+    }
+
+    public byte[] hash(File file) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                FileChannel channel = randomAccessFile.getChannel();
+                State state = new State();
+                long length = channel.size();
+                if (useMappedReads && length >= MAP_THRESHOLD) {
+                    for (long position = 0; position < length; position += MAX_REGION_SIZE) {
+                        long regionSize = Math.min(MAX_REGION_SIZE, length - position);
+                        state.update(channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize));
+                    }
+                } else {
+                    ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                    while (channel.read(buffer) >= 0) {
+                        buffer.flip();
+                        state.update(buffer);
+                        buffer.clear();
+                    }
+                }
+                return state.finish();
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static byte[] hash(byte[] bytes) {
+        State state = new State();
+        state.update(ByteBuffer.wrap(bytes));
+        return state.finish();
+    }
+
+    private static class State {
+        private final ByteBuffer tail = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        private long h1;
+        private long h2;
+        private long length;
+
+        /**
+         * Consumes the remaining content of the given buffer. Bytes that do not make up a complete 16 byte block are kept until the next call.
+         */
+        void update(ByteBuffer buffer) {
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (tail.position() > 0) {
+                while (tail.hasRemaining() && buffer.hasRemaining()) {
+                    tail.put(buffer.get());
+                }
+                if (tail.hasRemaining()) {
+                    return;
+                }
+                tail.flip();
+                mix(tail.getLong(), tail.getLong());
+                tail.clear();
+            }
+            while (buffer.remaining() >= 16) {
+                mix(buffer.getLong(), buffer.getLong());
+            }
+            while (buffer.hasRemaining()) {
+                tail.put(buffer.get());
+            }
+        }
+
+        private void mix(long k1, long k2) {
+            length += 16;
+
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            h1 ^= k1;
+
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            h2 ^= k2;
+
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        byte[] finish() {
+            int remaining = tail.position();
+            length += remaining;
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = remaining - 1; i >= 0; i--) {
+                long value = tail.get(i) & 0xffL;
+                if (i >= 8) {
+                    k2 |= value << ((i - 8) * 8);
+                } else {
+                    k1 |= value << (i * 8);
+                }
+            }
+            if (remaining > 8) {
+                k2 *= C2;
+                k2 = Long.rotateLeft(k2, 33);
+                k2 *= C1;
+                h2 ^= k2;
+            }
+            if (remaining > 0) {
+                k1 *= C1;
+                k1 = Long.rotateLeft(k1, 31);
+                k1 *= C2;
+                h1 ^= k1;
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+
+            return ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN).putLong(h1).putLong(h2).array();
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class PersistentIndexedCacheParameters<K, V> {
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private CacheDecorator cacheDecorator;
+    private boolean logStructured;
 
     public PersistentIndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
         this.cacheName = cacheName;
@@ -63,4 +64,16 @@ public class PersistentIndexedCacheParameters<K, V> {
         this.cacheDecorator = cacheDecorator;
         return this;
     }
+
+    public boolean isLogStructured() {
+        return logStructured;
+    }
+
+    /**
+     * Stores the entries of the cache in an append-only log, rather than a B-tree. This suits caches whose entries are frequently replaced.
+     */
+    public PersistentIndexedCacheParameters<K, V> logStructured() {
+        this.logStructured = true;
+        return this;
+    }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import org.gradle.api.logging.Logging;
 import org.gradle.cache.CacheOpenException;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.logstructured.LogStructuredPersistentIndexedCache;
 import org.gradle.cache.internal.cacheops.CacheAccessOperationsStack;
 import org.gradle.cache.internal.filelock.LockOptions;
 import org.gradle.internal.Factories;
@@ -32,13 +33,23 @@ import org.gradle.messaging.serialize.Serializer;
 import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static org.gradle.cache.internal.FileLockManager.LockMode.Exclusive;
 import static org.gradle.cache.internal.FileLockManager.LockMode.Shared;
 
+/**
+ * Coordinates access to a cache by the threads of this process and by other processes.
+ *
+ * <p>By default, a single thread at a time may use the cache. When the lock options allow concurrent use, any number of threads may use the cache at the
+ * same time. The file lock is then held while any thread is using the cache, and the reads and writes of the cache files are coordinated using a read-write
+ * lock. Each indexed cache serializes access to its own file.</p>
+ */
 @ThreadSafe
 public class DefaultCacheAccess implements CacheCoordinator {
 
@@ -53,7 +64,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private final Set<MultiProcessSafePersistentIndexedCache> caches = new HashSet<MultiProcessSafePersistentIndexedCache>();
     private final Lock lock = new ReentrantLock();
     private final Condition condition = lock.newCondition();
-    private Thread owner;
+    private final ReadWriteLock fileAccessLock = new ReentrantReadWriteLock();
+    private final Set<Thread> concurrentOwners = new CopyOnWriteArraySet<Thread>();
+    private volatile Thread owner;
     private LockOptions lockOptions;
     private FileLock fileLock;
     private FileLock.State stateAtOpen;
@@ -152,7 +165,13 @@ public class DefaultCacheAccess implements CacheCoordinator {
         lock.lock();
         try {
             // Take ownership
-            if (owner == null) {
+            if (isConcurrent()) {
+                concurrentOwners.remove(Thread.currentThread());
+                if (lockOptions.getMode() != Shared && !concurrentOwners.isEmpty()) {
+                    throw new IllegalStateException(String.format("Cannot close %s as it is currently being used by another thread.", cacheDisplayName));
+                }
+                concurrentOwners.add(Thread.currentThread());
+            } else if (owner == null) {
                 owner = Thread.currentThread();
             } else if (lockOptions.getMode() != Shared && owner != Thread.currentThread()) {
                 // TODO:ADAM - The check for shared mode is a work around. Owner should release the lock
@@ -167,6 +186,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
         } finally {
             lockOptions = null;
             owner = null;
+            concurrentOwners.clear();
             lock.unlock();
         }
     }
@@ -179,6 +199,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
         if (lockOptions != null && lockOptions.getMode() == FileLockManager.LockMode.Shared) {
             throw new UnsupportedOperationException("Not implemented yet.");
         }
+        if (isConcurrent()) {
+            return useCacheConcurrently(operationDisplayName, factory);
+        }
 
         takeOwnership(operationDisplayName);
         boolean wasStarted = false;
@@ -201,9 +224,79 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
     }
 
+    private <T> T useCacheConcurrently(String operationDisplayName, Factory<? extends T> factory) {
+        lock.lock();
+        try {
+            takeOwnership(operationDisplayName);
+            boolean started = false;
+            try {
+                onStartWork();
+                started = true;
+            } finally {
+                if (!started) {
+                    releaseOwnership();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            return factory.create();
+        } finally {
+            lock.lock();
+            try {
+                try {
+                    // The last thread to finish using the cache finishes the unit of work
+                    if (concurrentOwners.size() == 1 && !isInCacheActionAfterThisOne()) {
+                        onEndWork();
+                    }
+                } finally {
+                    releaseOwnership();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean isInCacheActionAfterThisOne() {
+        String operationDisplayName = operations.getDescription();
+        operations.popCacheAction();
+        try {
+            return operations.isInCacheAction();
+        } finally {
+            operations.pushCacheAction(operationDisplayName);
+        }
+    }
+
+    private boolean isConcurrent() {
+        return lockOptions != null && lockOptions.isAllowConcurrentUse();
+    }
+
+    private boolean isOwner(Thread thread) {
+        return owner == thread || concurrentOwners.contains(thread);
+    }
+
+    private boolean hasOwner() {
+        return owner != null || !concurrentOwners.isEmpty();
+    }
+
     private void takeOwnership(String operationDisplayName) {
         lock.lock();
         try {
+            if (isConcurrent()) {
+                // Once another process has asked for the lock, don't let new threads in until the threads using the cache have finished and released it
+                while (contended && !concurrentOwners.isEmpty() && !concurrentOwners.contains(Thread.currentThread())) {
+                    try {
+                        condition.await();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                }
+                concurrentOwners.add(Thread.currentThread());
+                operations.pushCacheAction(operationDisplayName);
+                return;
+            }
             while (owner != null && owner != Thread.currentThread()) {
                 try {
                     condition.await();
@@ -223,7 +316,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
         try {
             operations.popCacheAction();
             if (!operations.isInCacheAction()) {
-                owner = null;
+                if (owner == Thread.currentThread()) {
+                    owner = null;
+                }
+                concurrentOwners.remove(Thread.currentThread());
                 condition.signalAll();
             }
         } finally {
@@ -249,8 +345,13 @@ public class DefaultCacheAccess implements CacheCoordinator {
             }
             if (operations.isInCacheAction()) {
                 checkThreadIsOwner();
-                wasEnded = onEndWork();
-                owner = null;
+                if (isConcurrent()) {
+                    wasEnded = concurrentOwners.size() == 1 && onEndWork();
+                    concurrentOwners.remove(Thread.currentThread());
+                } else {
+                    wasEnded = onEndWork();
+                    owner = null;
+                }
                 condition.signalAll();
             } else {
                 wasEnded = false;
@@ -267,9 +368,14 @@ public class DefaultCacheAccess implements CacheCoordinator {
         try {
             operations.popLongRunningOperation();
             if (operations.isInCacheAction()) {
-                restoreOwner();
-                if (wasEnded) {
+                if (isConcurrent()) {
+                    concurrentOwners.add(Thread.currentThread());
                     onStartWork();
+                } else {
+                    restoreOwner();
+                    if (wasEnded) {
+                        onStartWork();
+                    }
                 }
             }
         } finally {
@@ -280,7 +386,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
     private void checkThreadIsOwner() {
         lock.lock();
         try {
-            if (owner != Thread.currentThread()) {
+            if (!isOwner(Thread.currentThread())) {
                 throw new IllegalStateException(String.format("Cannot start long running operation, as the %s has not been locked.", cacheDisplayName));
             }
         } finally {
@@ -309,9 +415,12 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     public <K, V> MultiProcessSafePersistentIndexedCache<K, V> newCache(final PersistentIndexedCacheParameters<K, V> parameters) {
-        final File cacheFile = new File(baseDir, parameters.getCacheName() + ".bin");
-        Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<BTreePersistentIndexedCache<K, V>>() {
-            public BTreePersistentIndexedCache<K, V> create() {
+        final File cacheFile = new File(baseDir, parameters.getCacheName() + (parameters.isLogStructured() ? ".log" : ".bin"));
+        Factory<CloseablePersistentIndexedCache<K, V>> indexedCacheFactory = new Factory<CloseablePersistentIndexedCache<K, V>>() {
+            public CloseablePersistentIndexedCache<K, V> create() {
+                if (parameters.isLogStructured()) {
+                    return doCreateLogStructuredCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                }
                 return doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
             }
         };
@@ -336,6 +445,10 @@ public class DefaultCacheAccess implements CacheCoordinator {
         return new BTreePersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
     }
 
+    <K, V> LogStructuredPersistentIndexedCache<K, V> doCreateLogStructuredCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new LogStructuredPersistentIndexedCache<K, V>(cacheFile, keySerializer, valueSerializer);
+    }
+
     private boolean onStartWork() {
         if (fileLock != null) {
             return false;
@@ -369,13 +482,9 @@ public class DefaultCacheAccess implements CacheCoordinator {
     }
 
     private FileLock getLock() {
-        lock.lock();
-        try {
-            if (Thread.currentThread() != owner) {
-                throw new IllegalStateException(String.format("The %s has not been locked for this thread. File lock: %s, owner: %s", cacheDisplayName, fileLock != null, owner));
-            }
-        } finally {
-            lock.unlock();
+        // Don't take the lock here, as an indexed cache may call this while holding its own lock
+        if (!isOwner(Thread.currentThread())) {
+            throw new IllegalStateException(String.format("The %s has not been locked for this thread. File lock: %s, owner: %s", cacheDisplayName, fileLock != null, owner));
         }
         return fileLock;
     }
@@ -387,15 +496,33 @@ public class DefaultCacheAccess implements CacheCoordinator {
         }
 
         public <T> T readFile(Factory<? extends T> action) throws LockTimeoutException {
-            return getLock().readFile(action);
+            FileLock fileLock = getLock();
+            fileAccessLock.readLock().lock();
+            try {
+                return fileLock.readFile(action);
+            } finally {
+                fileAccessLock.readLock().unlock();
+            }
         }
 
         public void updateFile(Runnable action) throws LockTimeoutException {
-            getLock().updateFile(action);
+            FileLock fileLock = getLock();
+            fileAccessLock.writeLock().lock();
+            try {
+                fileLock.updateFile(action);
+            } finally {
+                fileAccessLock.writeLock().unlock();
+            }
         }
 
         public void writeFile(Runnable action) throws LockTimeoutException {
-            getLock().writeFile(action);
+            FileLock fileLock = getLock();
+            fileAccessLock.writeLock().lock();
+            try {
+                fileLock.writeFile(action);
+            } finally {
+                fileAccessLock.writeLock().unlock();
+            }
         }
     }
 
@@ -409,7 +536,7 @@ public class DefaultCacheAccess implements CacheCoordinator {
                         //the lock may have been closed
                         return;
                     }
-                    if (owner != null) {
+                    if (hasOwner()) {
                         contended = true;
                         return;
                     }
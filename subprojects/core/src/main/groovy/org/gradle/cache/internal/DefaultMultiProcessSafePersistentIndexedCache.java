@@ -16,21 +16,28 @@
 package org.gradle.cache.internal;
 
 import org.gradle.cache.PersistentIndexedCache;
-import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 import org.gradle.internal.Factory;
 
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Controls access to the backing cache, so that separate caches can be used by separate threads at the same time. Any number of threads can read
+ * from the cache at the same time, while changes are made by one thread at a time.
+ */
 public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements MultiProcessSafePersistentIndexedCache<K, V> {
     private final FileAccess fileAccess;
-    private final Factory<BTreePersistentIndexedCache<K, V>> factory;
-    private BTreePersistentIndexedCache<K, V> cache;
+    private final Factory<? extends CloseablePersistentIndexedCache<K, V>> factory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private CloseablePersistentIndexedCache<K, V> cache;
 
-    public DefaultMultiProcessSafePersistentIndexedCache(Factory<BTreePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
+    public DefaultMultiProcessSafePersistentIndexedCache(Factory<? extends CloseablePersistentIndexedCache<K, V>> factory, FileAccess fileAccess) {
         this.factory = factory;
         this.fileAccess = fileAccess;
     }
 
     public V get(final K key) {
-        final PersistentIndexedCache<K, V> cache = getCache();
+        final PersistentIndexedCache<K, V> cache = lockForRead();
         try {
             return fileAccess.readFile(new Factory<V>() {
                 public V create() {
@@ -39,29 +46,41 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
             });
         } catch (FileIntegrityViolationException e) {
             return null;
+        } finally {
+            lock.readLock().unlock();
         }
     }
 
     public void put(final K key, final V value) {
-        final PersistentIndexedCache<K, V> cache = getCache();
-        // Use writeFile because the cache can internally recover from datafile
-        // corruption, so we don't care at this level if it's corrupt
-        fileAccess.writeFile(new Runnable() {
-            public void run() {
-                cache.put(key, value);
-            }
-        });
+        lock.writeLock().lock();
+        try {
+            final PersistentIndexedCache<K, V> cache = getCache();
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.put(key, value);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void remove(final K key) {
-        final PersistentIndexedCache<K, V> cache = getCache();
-        // Use writeFile because the cache can internally recover from datafile
-        // corruption, so we don't care at this level if it's corrupt
-        fileAccess.writeFile(new Runnable() {
-            public void run() {
-                cache.remove(key);
-            }
-        });
+        lock.writeLock().lock();
+        try {
+            final PersistentIndexedCache<K, V> cache = getCache();
+            // Use writeFile because the cache can internally recover from datafile
+            // corruption, so we don't care at this level if it's corrupt
+            fileAccess.writeFile(new Runnable() {
+                public void run() {
+                    cache.remove(key);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public void onStartWork(String operationDisplayName, FileLock.State currentCacheState) {
@@ -71,19 +90,47 @@ public class DefaultMultiProcessSafePersistentIndexedCache<K, V> implements Mult
     }
 
     public void close() {
-        if (cache != null) {
-            try {
-                fileAccess.writeFile(new Runnable() {
-                    public void run() {
-                        cache.close();
-                    }
-                });
-            } finally {
-                cache = null;
+        lock.writeLock().lock();
+        try {
+            if (cache != null) {
+                try {
+                    fileAccess.writeFile(new Runnable() {
+                        public void run() {
+                            cache.close();
+                        }
+                    });
+                } finally {
+                    cache = null;
+                }
             }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Acquires the read lock, opening the cache first if required. The caller must release the read lock.
+     */
+    private PersistentIndexedCache<K, V> lockForRead() {
+        lock.readLock().lock();
+        if (cache != null) {
+            return cache;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            PersistentIndexedCache<K, V> cache = getCache();
+            // Downgrade to the read lock
+            lock.readLock().lock();
+            return cache;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
+    /**
+     * Returns the cache, opening it if required. The caller must hold the write lock.
+     */
     private PersistentIndexedCache<K, V> getCache() {
         if (cache == null) {
             // Use writeFile because the cache can internally recover from datafile
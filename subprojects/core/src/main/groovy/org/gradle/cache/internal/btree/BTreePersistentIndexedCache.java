@@ -16,7 +16,8 @@
 package org.gradle.cache.internal.btree;
 
 import org.gradle.api.UncheckedIOException;
-import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.internal.CloseablePersistentIndexedCache;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.messaging.serialize.Serializer;
 import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
 import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
@@ -33,7 +34,7 @@ import java.util.*;
 // todo - handle hash collisions (properly, this time)
 // todo - don't store null links to child blocks in leaf index blocks
 // todo - align block boundaries
-// todo - thread safety control
+// todo - allow concurrent reads (all calls are synchronized, as lookups update the block cache)
 // todo - remove the check-sum from each block
 // todo - merge small values into a single data block
 // todo - discard when file corrupt
@@ -41,7 +42,12 @@ import java.util.*;
 // todo - free list leaks disk space
 // todo - merge adjacent free blocks
 // todo - use more efficient lookup for free block with nearest size
-public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache<K, V> {
+public class BTreePersistentIndexedCache<K, V> implements CloseablePersistentIndexedCache<K, V> {
+    /**
+     * The system property that enables reading cache files through memory mapped regions. Memory mapping is never used on Windows, where a mapped file
+     * cannot be truncated or deleted until the mapping is garbage collected.
+     */
+    public static final String MEMORY_MAPPED_PROPERTY = "org.gradle.cache.memoryMapped";
     private static final Logger LOGGER = LoggerFactory.getLogger(BTreePersistentIndexedCache.class);
     private final File cacheFile;
     private final Serializer<K> keySerializer;
@@ -57,12 +63,18 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, isMemoryMappingEnabled());
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, boolean memoryMapped) {
         this.cacheFile = cacheFile;
         this.keySerializer = keySerializer;
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
+        FileBackedBlockStore fileStore = new FileBackedBlockStore(cacheFile, memoryMapped ? FileBackedBlockStore.MAPPED_REGION_SIZE : 0);
+        BlockStore cachingStore = new CachingBlockStore(fileStore, IndexBlock.class, FreeListBlockStore.FreeListBlock.class);
         store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -71,6 +83,10 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
+    private static boolean isMemoryMappingEnabled() {
+        return Boolean.getBoolean(MEMORY_MAPPED_PROPERTY) && !OperatingSystem.current().isWindows();
+    }
+
     @Override
     public String toString() {
         return String.format("cache %s (%s)", cacheFile.getName(), cacheFile);
@@ -113,7 +129,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         header = store.readFirst(HeaderBlock.class);
     }
 
-    public V get(K key) {
+    public synchronized V get(K key) {
         try {
             try {
                 DataBlock block = header.getRoot().get(key);
@@ -130,7 +146,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
-    public void put(K key, V value) {
+    public synchronized void put(K key, V value) {
         try {
             MessageDigestStream digestStream = new MessageDigestStream();
             KryoBackedEncoder encoder = new KryoBackedEncoder(digestStream);
@@ -157,7 +173,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
-    public void remove(K key) {
+    public synchronized void remove(K key) {
         try {
             Lookup lookup = header.getRoot().find(key);
             if (lookup.entry == null) {
@@ -180,7 +196,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         return block;
     }
 
-    public void reset() {
+    public synchronized void reset() {
         close();
         try {
             open();
@@ -189,7 +205,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
-    public void close() {
+    public synchronized void close() {
         LOGGER.debug("Closing {}", this);
         try {
             store.close();
@@ -198,7 +214,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         }
     }
 
-    public boolean isOpen() {
+    public synchronized boolean isOpen() {
         return store.isOpen();
     }
 
@@ -209,7 +225,7 @@ public class BTreePersistentIndexedCache<K, V> implements PersistentIndexedCache
         doOpen();
     }
 
-    public void verify() {
+    public synchronized void verify() {
         try {
             doVerify();
         } catch (Exception e) {
@@ -22,14 +22,30 @@ import org.gradle.internal.io.RandomAccessFileOutputStream;
 import java.io.*;
 import java.util.zip.CRC32;
 
+/**
+ * Stores blocks in a file. Blocks are written using a {@link RandomAccessFile}. Blocks are read either using the {@link RandomAccessFile}, or, when
+ * memory mapping is enabled, from memory mapped regions of the file, so that a read of a block that is in the page cache does not require a system call.
+ */
 public class FileBackedBlockStore implements BlockStore {
+    static final int MAPPED_REGION_SIZE = 4 * 1024 * 1024;
     private RandomAccessFile file;
     private final File cacheFile;
+    private final int mappedRegionSize;
+    private MappedFileRegions mappedRegions;
+    private long fileLength;
     private long nextBlock;
     private Factory factory;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, 0);
+    }
+
+    /**
+     * Creates a store that reads blocks from memory mapped regions of the given size, or using the file when the size is 0.
+     */
+    public FileBackedBlockStore(File cacheFile, int mappedRegionSize) {
         this.cacheFile = cacheFile;
+        this.mappedRegionSize = mappedRegionSize;
     }
 
     @Override
@@ -42,8 +58,12 @@ public class FileBackedBlockStore implements BlockStore {
         try {
             cacheFile.getParentFile().mkdirs();
             file = new RandomAccessFile(cacheFile, "rw");
-            nextBlock = file.length();
-            if (file.length() == 0) {
+            if (mappedRegionSize > 0) {
+                mappedRegions = new MappedFileRegions(file.getChannel(), mappedRegionSize);
+            }
+            fileLength = file.length();
+            nextBlock = fileLength;
+            if (fileLength == 0) {
                 runnable.run();
             }
         } catch (IOException e) {
@@ -53,6 +73,7 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void close() {
         try {
+            mappedRegions = null;
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -61,10 +82,14 @@ public class FileBackedBlockStore implements BlockStore {
 
     public void clear() {
         try {
+            if (mappedRegions != null) {
+                mappedRegions.release();
+            }
             file.setLength(0);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        fileLength = 0;
         nextBlock = 0;
     }
 
@@ -193,21 +218,27 @@ public class FileBackedBlockStore implements BlockStore {
             outputStream.close();
 
             // Pad
-            if (file.length() < finalSize) {
+            if (fileLength < finalSize) {
                 file.setLength(finalSize);
+                fileLength = finalSize;
             }
         }
 
         public void read() throws Exception {
             long pos = getPos().getPos();
             assert pos >= 0;
-            if (pos + HEADER_SIZE >= file.length()) {
+            if (pos + HEADER_SIZE >= fileLength) {
                 throw blockCorruptedException();
             }
-            file.seek(pos);
 
-            Crc32InputStream checkSumInputStream = new Crc32InputStream(new BufferedInputStream(
-                    new RandomAccessFileInputStream(file)));
+            InputStream blockInputStream;
+            if (mappedRegions != null) {
+                blockInputStream = mappedRegions.openStream(pos, fileLength);
+            } else {
+                file.seek(pos);
+                blockInputStream = new BufferedInputStream(new RandomAccessFileInputStream(file));
+            }
+            Crc32InputStream checkSumInputStream = new Crc32InputStream(blockInputStream);
             DataInputStream inputStream = new DataInputStream(checkSumInputStream);
 
             BlockPayload payload = getPayload();
@@ -224,7 +255,7 @@ public class FileBackedBlockStore implements BlockStore {
 
             // Read body
             payloadSize = inputStream.readInt();
-            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > file.length()) {
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > fileLength) {
                 throw blockCorruptedException();
             }
             payload.read(inputStream);
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides read access to a file through read-only memory mapped regions of a fixed size. A region is mapped when it is first read, and is mapped
+ * again when the file has grown past the end of the region since it was mapped. Writes to the file are made through the channel, and are visible
+ * through the mapped regions.
+ */
+class MappedFileRegions {
+    private final FileChannel channel;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+
+    MappedFileRegions(FileChannel channel, int regionSize) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * Discards the mapped regions. Must be called before the file is truncated.
+     */
+    void release() {
+        regions.clear();
+    }
+
+    /**
+     * Returns a stream that reads the file from the given position, up to the given length of the file.
+     */
+    InputStream openStream(long pos, long fileLength) {
+        return new RegionInputStream(pos, fileLength);
+    }
+
+    private MappedByteBuffer region(int index, long fileLength) throws IOException {
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        long start = (long) index * regionSize;
+        long available = Math.min(regionSize, fileLength - start);
+        if (region == null || region.capacity() < available) {
+            region = channel.map(FileChannel.MapMode.READ_ONLY, start, available);
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    private class RegionInputStream extends InputStream {
+        private final long fileLength;
+        private long pos;
+        private ByteBuffer current;
+
+        RegionInputStream(long pos, long fileLength) {
+            this.pos = pos;
+            this.fileLength = fileLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextRegion()) {
+                return -1;
+            }
+            return current.get() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextRegion()) {
+                return -1;
+            }
+            int count = Math.min(length, current.remaining());
+            current.get(bytes, offset, count);
+            return count;
+        }
+
+        /**
+         * Moves to the next region when the current region has been read. Returns false at the end of the file.
+         */
+        private boolean nextRegion() throws IOException {
+            if (current != null && current.hasRemaining()) {
+                return true;
+            }
+            if (pos >= fileLength) {
+                return false;
+            }
+            int index = (int) (pos / regionSize);
+            long regionStart = (long) index * regionSize;
+            // Use a duplicate, as the position of the region is shared by the readers of the region
+            current = region(index, fileLength).duplicate();
+            current.limit((int) Math.min(current.capacity(), fileLength - regionStart));
+            current.position((int) (pos - regionStart));
+            pos = regionStart + current.limit();
+            return current.hasRemaining();
+        }
+    }
+}
@@ -23,6 +23,11 @@ public interface LockOptions {
 
     boolean isUseCrossVersionImplementation();
 
+    /**
+     * Returns true when more than one thread may use the cache at the same time. Access to each indexed cache is still serialized.
+     */
+    boolean isAllowConcurrentUse();
+
     /**
      * Creates a copy of these options with the given mode.
      */
@@ -21,14 +21,16 @@ public class LockOptionsBuilder implements LockOptions {
 
     private FileLockManager.LockMode mode;
     private boolean crossVersion;
+    private boolean concurrent;
 
-    private LockOptionsBuilder(FileLockManager.LockMode mode, boolean crossVersion) {
+    private LockOptionsBuilder(FileLockManager.LockMode mode, boolean crossVersion, boolean concurrent) {
         this.mode = mode;
         this.crossVersion = crossVersion;
+        this.concurrent = concurrent;
     }
 
     public static LockOptionsBuilder mode(FileLockManager.LockMode lockMode) {
-        return new LockOptionsBuilder(lockMode, false);
+        return new LockOptionsBuilder(lockMode, false, false);
     }
 
     public LockOptionsBuilder useCrossVersionImplementation() {
@@ -36,6 +38,11 @@ public class LockOptionsBuilder implements LockOptions {
         return this;
     }
 
+    public LockOptionsBuilder allowConcurrentUse() {
+        concurrent = true;
+        return this;
+    }
+
     public FileLockManager.LockMode getMode() {
         return mode;
     }
@@ -44,13 +51,17 @@ public class LockOptionsBuilder implements LockOptions {
         return crossVersion;
     }
 
+    public boolean isAllowConcurrentUse() {
+        return concurrent;
+    }
+
     public LockOptions withMode(FileLockManager.LockMode mode) {
-        return new LockOptionsBuilder(mode, crossVersion);
+        return new LockOptionsBuilder(mode, crossVersion, concurrent);
     }
 
     @Override
     public String toString() {
-        return mode + " (simple=" + crossVersion + ")";
+        return mode + " (simple=" + crossVersion + ", concurrent=" + concurrent + ")";
     }
 
     @Override
@@ -67,6 +78,9 @@ public class LockOptionsBuilder implements LockOptions {
         if (crossVersion != that.crossVersion) {
             return false;
         }
+        if (concurrent != that.concurrent) {
+            return false;
+        }
         if (mode != that.mode) {
             return false;
         }
@@ -78,6 +92,7 @@ public class LockOptionsBuilder implements LockOptions {
     public int hashCode() {
         int result = mode.hashCode();
         result = 31 * result + (crossVersion ? 1 : 0);
+        result = 31 * result + (concurrent ? 1 : 0);
         return result;
     }
 }
@@ -0,0 +1,459 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.logstructured;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.cache.internal.CloseablePersistentIndexedCache;
+import org.gradle.internal.io.RandomAccessFileInputStream;
+import org.gradle.messaging.serialize.Serializer;
+import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent indexed cache that appends each change to a log file. An index of the entries is held in memory, and is rebuilt by reading the log when
+ * the cache is opened. A change that was only partly written, for example because the process was killed, is discarded from the end of the log along
+ * with anything that follows it. An entry that turns out to be corrupt when it is read is discarded. When the cache is opened or closed, the log is
+ * compacted if most of it is made up of replaced or removed entries.
+ *
+ * <p>Several threads can call {@link #get(Object)} at the same time. Values are read with positional reads, and a corrupt entry found by a read is only
+ * dropped from the index, so reads never change the file. Any other call must not run at the same time as another call.</p>
+ */
+public class LogStructuredPersistentIndexedCache<K, V> implements CloseablePersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredPersistentIndexedCache.class);
+    private static final int MAGIC = 0x474c4f47;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int RECORD_TAIL_SIZE = 8;
+    private static final int REMOVED = -1;
+    static final long MIN_COMPACTION_SIZE = 1024 * 1024;
+
+    private final File logFile;
+    private final File compactedFile;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final long minCompactionSize;
+    private final Map<RecordKey, Record> index = new ConcurrentHashMap<RecordKey, Record>();
+    private RandomAccessFile file;
+    private long end;
+    private long garbageSize;
+    private volatile boolean truncated;
+
+    public LogStructuredPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        this(logFile, keySerializer, valueSerializer, MIN_COMPACTION_SIZE);
+    }
+
+    LogStructuredPersistentIndexedCache(File logFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, long minCompactionSize) {
+        this.logFile = logFile;
+        this.compactedFile = new File(logFile.getParentFile(), logFile.getName() + ".tmp");
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.minCompactionSize = minCompactionSize;
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not open %s.", this), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache %s (%s)", logFile.getName(), logFile);
+    }
+
+    private void open() throws IOException {
+        LOGGER.debug("Opening {}", this);
+        logFile.getParentFile().mkdirs();
+        finishCompaction();
+        readLogFile();
+        if (shouldCompact()) {
+            // Don't replay all of the replaced and removed entries again next time the cache is opened
+            compact();
+            readLogFile();
+        }
+    }
+
+    /**
+     * Completes a compaction that was interrupted after the old log was deleted, or discards one that was interrupted before the compacted log was
+     * completely written.
+     */
+    private void finishCompaction() throws IOException {
+        if (!compactedFile.exists()) {
+            return;
+        }
+        if (logFile.exists()) {
+            if (!compactedFile.delete()) {
+                throw new IOException(String.format("Could not delete incomplete compacted log %s.", compactedFile));
+            }
+        } else if (!compactedFile.renameTo(logFile)) {
+            throw new IOException(String.format("Could not replace %s with compacted log %s.", logFile, compactedFile));
+        }
+    }
+
+    private void readLogFile() throws IOException {
+        file = new RandomAccessFile(logFile, "rw");
+        index.clear();
+        garbageSize = 0;
+        truncated = false;
+        if (!hasValidHeader()) {
+            if (file.length() > 0) {
+                LOGGER.warn(String.format("%s is corrupt. Discarding.", this));
+            }
+            file.setLength(0);
+            file.writeInt(MAGIC);
+            file.writeInt(VERSION);
+            end = FILE_HEADER_SIZE;
+            return;
+        }
+        readLog();
+    }
+
+    private boolean hasValidHeader() throws IOException {
+        if (file.length() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        file.seek(0);
+        return file.readInt() == MAGIC && file.readInt() == VERSION;
+    }
+
+    private void readLog() throws IOException {
+        long length = file.length();
+        long pos = FILE_HEADER_SIZE;
+        file.seek(pos);
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new RandomAccessFileInputStream(file), 64 * 1024));
+        CRC32 checksum = new CRC32();
+        while (pos < length) {
+            Record record = readRecord(inputStream, pos, length, checksum);
+            if (record == null) {
+                LOGGER.warn(String.format("%s contains an incomplete or corrupt entry at offset %s. Discarding it and the entries that follow it.", this, pos));
+                file.setLength(pos);
+                break;
+            }
+            if (record.valueLength == REMOVED) {
+                Record previous = index.remove(record.key);
+                garbageSize += record.getSize() + (previous == null ? 0 : previous.getSize());
+            } else {
+                Record previous = index.put(record.key, record);
+                garbageSize += previous == null ? 0 : previous.getSize();
+            }
+            pos += record.getSize();
+        }
+        end = pos;
+    }
+
+    /**
+     * Reads the record at the given position, or returns null if the record is incomplete or corrupt.
+     */
+    private Record readRecord(DataInputStream inputStream, long pos, long length, CRC32 checksum) throws IOException {
+        if (pos + RECORD_HEADER_SIZE + RECORD_TAIL_SIZE > length) {
+            return null;
+        }
+        int keyLength = inputStream.readInt();
+        int valueLength = inputStream.readInt();
+        if (keyLength < 0 || valueLength < REMOVED) {
+            return null;
+        }
+        Record record = new Record(pos, keyLength, valueLength);
+        if (pos + record.getSize() > length) {
+            return null;
+        }
+        byte[] key = new byte[keyLength];
+        inputStream.readFully(key);
+        checksum.reset();
+        updateChecksum(checksum, keyLength, valueLength);
+        checksum.update(key);
+        long remaining = Math.max(valueLength, 0);
+        byte[] buffer = new byte[(int) Math.min(remaining, 8192)];
+        while (remaining > 0) {
+            int count = (int) Math.min(remaining, buffer.length);
+            inputStream.readFully(buffer, 0, count);
+            checksum.update(buffer, 0, count);
+            remaining -= count;
+        }
+        if (inputStream.readLong() != checksum.getValue()) {
+            return null;
+        }
+        record.key = new RecordKey(key);
+        return record;
+    }
+
+    public V get(K key) {
+        try {
+            RecordKey recordKey = new RecordKey(serialize(keySerializer, key));
+            Record record = index.get(recordKey);
+            if (record == null) {
+                return null;
+            }
+            byte[] value = readValue(record);
+            if (value == null) {
+                LOGGER.warn(String.format("%s contains an incomplete or corrupt entry at offset %s. Discarding it.", this, record.pos));
+                if (file.length() < end) {
+                    // The log has been truncated. Other threads may be reading it, so leave discarding the incomplete entries to the next change
+                    truncated = true;
+                }
+                discard(recordKey, record);
+                return null;
+            }
+            KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(value));
+            return valueSerializer.read(decoder);
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not read entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    private synchronized void discard(RecordKey recordKey, Record record) {
+        if (index.get(recordKey) == record) {
+            index.remove(recordKey);
+            garbageSize += record.getSize();
+        }
+    }
+
+    /**
+     * Reads the value of the given record, or returns null if the record is no longer complete or does not match its checksum.
+     */
+    private byte[] readValue(Record record) throws IOException {
+        if (record.pos + record.getSize() > file.length()) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) record.getSize());
+        FileChannel channel = file.getChannel();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, record.pos + buffer.position()) < 0) {
+                return null;
+            }
+        }
+        DataInputStream inputStream = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        if (inputStream.readInt() != record.keyLength || inputStream.readInt() != record.valueLength) {
+            return null;
+        }
+        byte[] key = new byte[record.keyLength];
+        inputStream.readFully(key);
+        byte[] value = new byte[record.valueLength];
+        inputStream.readFully(value);
+        CRC32 checksum = new CRC32();
+        updateChecksum(checksum, record.keyLength, record.valueLength);
+        checksum.update(key);
+        checksum.update(value);
+        if (inputStream.readLong() != checksum.getValue() || !Arrays.equals(key, record.key.bytes)) {
+            return null;
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        try {
+            discardTruncatedEntries();
+            append(new RecordKey(serialize(keySerializer, key)), serialize(valueSerializer, value));
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
+        }
+    }
+
+    public void remove(K key) {
+        try {
+            discardTruncatedEntries();
+            RecordKey recordKey = new RecordKey(serialize(keySerializer, key));
+            if (index.containsKey(recordKey)) {
+                append(recordKey, null);
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
+        }
+    }
+
+    /**
+     * Reads the log again if a read found that it has been truncated, to discard the incomplete entries at the end before the log is changed.
+     */
+    private void discardTruncatedEntries() throws IOException {
+        if (truncated) {
+            file.close();
+            readLogFile();
+        }
+    }
+
+    private void append(RecordKey key, byte[] value) throws IOException {
+        int valueLength = value == null ? REMOVED : value.length;
+        Record record = new Record(end, key.bytes.length, valueLength);
+        record.key = key;
+
+        CRC32 checksum = new CRC32();
+        updateChecksum(checksum, key.bytes.length, valueLength);
+        checksum.update(key.bytes);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) record.getSize());
+        DataOutputStream outputStream = new DataOutputStream(buffer);
+        outputStream.writeInt(key.bytes.length);
+        outputStream.writeInt(valueLength);
+        outputStream.write(key.bytes);
+        if (value != null) {
+            outputStream.write(value);
+            checksum.update(value);
+        }
+        outputStream.writeLong(checksum.getValue());
+        outputStream.flush();
+
+        file.seek(end);
+        file.write(buffer.toByteArray());
+        end += record.getSize();
+
+        Record previous = value == null ? index.remove(key) : index.put(key, record);
+        if (previous != null) {
+            garbageSize += previous.getSize();
+        }
+        if (value == null) {
+            garbageSize += record.getSize();
+        }
+    }
+
+    public void reset() {
+        close();
+        try {
+            open();
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() {
+        LOGGER.debug("Closing {}", this);
+        try {
+            try {
+                discardTruncatedEntries();
+                if (shouldCompact()) {
+                    compact();
+                }
+            } finally {
+                file.close();
+                file = null;
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not close %s.", this), e);
+        }
+    }
+
+    private boolean shouldCompact() {
+        return garbageSize >= minCompactionSize && garbageSize * 2 > end;
+    }
+
+    /**
+     * Copies the current entries to a new log, and replaces the log with it. The new log is completely written before the old log is replaced, so that
+     * {@link #finishCompaction()} can complete the replacement if the process stops part way through.
+     */
+    private void compact() throws IOException {
+        LOGGER.debug("Compacting {}. {} of {} bytes are unused.", new Object[]{this, garbageSize, end});
+        FileOutputStream fileOutputStream = new FileOutputStream(compactedFile);
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream, 64 * 1024));
+        boolean written = false;
+        try {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            byte[] buffer = new byte[8192];
+            for (Record record : index.values()) {
+                file.seek(record.pos);
+                long remaining = record.getSize();
+                while (remaining > 0) {
+                    int count = (int) Math.min(remaining, buffer.length);
+                    file.readFully(buffer, 0, count);
+                    outputStream.write(buffer, 0, count);
+                    remaining -= count;
+                }
+            }
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+            outputStream.close();
+            written = true;
+        } finally {
+            if (!written) {
+                outputStream.close();
+                compactedFile.delete();
+            }
+        }
+        file.close();
+        // Replacing the existing file is atomic on most platforms. Where it is not supported, delete the old log first
+        if (!compactedFile.renameTo(logFile) && (!logFile.delete() || !compactedFile.renameTo(logFile))) {
+            throw new IOException(String.format("Could not replace %s with compacted log %s.", logFile, compactedFile));
+        }
+    }
+
+    private static void updateChecksum(CRC32 checksum, int keyLength, int valueLength) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            checksum.update(keyLength >>> shift);
+        }
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            checksum.update(valueLength >>> shift);
+        }
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, value);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static class Record {
+        final long pos;
+        final int keyLength;
+        final int valueLength;
+        RecordKey key;
+
+        Record(long pos, int keyLength, int valueLength) {
+            this.pos = pos;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+
+        long getSize() {
+            return (long) RECORD_HEADER_SIZE + keyLength + Math.max(valueLength, 0) + RECORD_TAIL_SIZE;
+        }
+    }
+
+    private static class RecordKey {
+        final byte[] bytes;
+        final int hashCode;
+
+        RecordKey(byte[] bytes) {
+            this.bytes = bytes;
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            return Arrays.equals(bytes, ((RecordKey) obj).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -26,6 +26,11 @@ import static org.gradle.util.Clock.prettyTime;
 abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
     private static final Logger LOGGER = Logging.getLogger(AbstractTaskPlanExecutor.class);
     private final Object lock = new Object();
+    private final TaskDurationHistory durationHistory;
+
+    protected AbstractTaskPlanExecutor(TaskDurationHistory durationHistory) {
+        this.durationHistory = durationHistory;
+    }
 
     protected Runnable taskWorker(TaskExecutionPlan taskExecutionPlan, TaskExecutionListener taskListener) {
         return new TaskExecutorWorker(taskExecutionPlan, taskListener);
@@ -51,6 +56,7 @@ abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
                 processTask(task);
                 long taskDuration = System.currentTimeMillis() - startTask;
                 busy += taskDuration;
+                recordDuration(task, taskDuration);
                 LOGGER.info("{} ({}) completed. Took {}.", taskPath, Thread.currentThread(), prettyTime(taskDuration));
             }
             long total = System.currentTimeMillis() - start;
@@ -58,6 +64,19 @@ abstract class AbstractTaskPlanExecutor implements TaskPlanExecutor {
             LOGGER.debug("Task worker [{}] finished, busy: {}, idle: {}", Thread.currentThread(), prettyTime(busy), prettyTime(total - busy));
         }
 
+        private void recordDuration(TaskInfo taskInfo, long taskDuration) {
+            // Only the durations of tasks that did their work are useful to estimate how long the task will take next time
+            if (taskInfo.isFailed() || taskInfo.getTask().getState().getSkipped()) {
+                return;
+            }
+            try {
+                durationHistory.recordDuration(taskInfo.getTask().getPath(), taskDuration);
+            } catch (Throwable e) {
+                // The duration is only used to order and report on later builds, so don't stop executing tasks
+                LOGGER.warn(String.format("Could not record the duration of %s.", taskInfo.getTask()), e);
+            }
+        }
+
         protected void processTask(TaskInfo taskInfo) {
             try {
                 executeTask(taskInfo);
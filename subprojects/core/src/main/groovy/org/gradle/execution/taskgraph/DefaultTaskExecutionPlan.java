@@ -16,6 +16,9 @@
 
 package org.gradle.execution.taskgraph;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimap;
 import org.gradle.api.CircularReferenceException;
 import org.gradle.api.Task;
 import org.gradle.api.Transformer;
@@ -55,6 +58,7 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
 
     private TaskFailureHandler failureHandler = new RethrowingFailureHandler();
     private final List<String> runningProjects = new ArrayList<String>();
+    private final Map<TaskInfo, Long> criticalPathCosts = new HashMap<TaskInfo, Long>();
 
     public void addToTaskGraph(Collection<? extends Task> tasks) {
         List<TaskInfo> queue = new ArrayList<TaskInfo>();
@@ -358,6 +362,7 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
             executionPlan.clear();
             failures.clear();
             runningProjects.clear();
+            criticalPathCosts.clear();
         } finally {
             lock.unlock();
         }
@@ -384,8 +389,13 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
                 for (TaskInfo taskInfo : executionPlan.values()) {
                     allTasksComplete = allTasksComplete && taskInfo.isComplete();
                     if (taskInfo.isReady() && taskInfo.allDependenciesComplete() && !runningProjects.contains(taskInfo.getTask().getProject().getPath())) {
-                        nextMatching = taskInfo;
-                        break;
+                        if (criticalPathCosts.isEmpty()) {
+                            nextMatching = taskInfo;
+                            break;
+                        }
+                        if (nextMatching == null || criticalPathCost(taskInfo) > criticalPathCost(nextMatching)) {
+                            nextMatching = taskInfo;
+                        }
                     }
                 }
                 if (allTasksComplete) {
@@ -413,6 +423,63 @@ class DefaultTaskExecutionPlan implements TaskExecutionPlan {
         }
     }
 
+    public void prioritizeCriticalPath(TaskDurationHistory durationHistory) {
+        lock.lock();
+        try {
+            criticalPathCosts.clear();
+            List<String> taskPaths = new ArrayList<String>(executionPlan.size());
+            for (TaskInfo taskInfo : executionPlan.values()) {
+                taskPaths.add(taskInfo.getTask().getPath());
+            }
+            Map<String, TaskDurationStatistics> previousDurations = durationHistory.getStatistics(taskPaths);
+            Map<TaskInfo, Long> durations = new HashMap<TaskInfo, Long>();
+            long totalDuration = 0;
+            for (TaskInfo taskInfo : executionPlan.values()) {
+                TaskDurationStatistics statistics = previousDurations.get(taskInfo.getTask().getPath());
+                if (statistics != null) {
+                    long duration = statistics.getAverageDuration();
+                    durations.put(taskInfo, duration);
+                    totalDuration += duration;
+                }
+            }
+            if (durations.isEmpty()) {
+                // Nothing is known about the tasks, so keep to the order of the plan
+                return;
+            }
+            long unknownDuration = totalDuration / durations.size();
+
+            Multimap<TaskInfo, TaskInfo> mustRunAfterPredecessors = HashMultimap.create();
+            for (TaskInfo taskInfo : executionPlan.values()) {
+                for (TaskInfo mustRunAfter : taskInfo.getMustSuccessors()) {
+                    mustRunAfterPredecessors.put(mustRunAfter, taskInfo);
+                }
+            }
+
+            // The plan is ordered so that each task comes after the tasks that it waits for. Visit it in reverse, so that the cost of each task
+            // that waits for a given task is known when the cost of that task is calculated.
+            List<TaskInfo> tasks = new ArrayList<TaskInfo>(executionPlan.values());
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                TaskInfo taskInfo = tasks.get(i);
+                long longestWaitingPath = 0;
+                for (TaskInfo waiting : Iterables.concat(taskInfo.getDependencyPredecessors(), taskInfo.getFinalizers(), mustRunAfterPredecessors.get(taskInfo))) {
+                    longestWaitingPath = Math.max(longestWaitingPath, criticalPathCost(waiting));
+                }
+                Long duration = durations.get(taskInfo);
+                criticalPathCosts.put(taskInfo, (duration == null ? unknownDuration : duration) + longestWaitingPath);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the estimated time to execute the given task and the longest chain of tasks that wait for it.
+     */
+    private long criticalPathCost(TaskInfo taskInfo) {
+        Long cost = criticalPathCosts.get(taskInfo);
+        return cost == null ? 0 : cost;
+    }
+
     public void taskComplete(TaskInfo taskInfo) {
         lock.lock();
         try {
@@ -19,6 +19,10 @@ package org.gradle.execution.taskgraph;
 import org.gradle.api.execution.TaskExecutionListener;
 
 class DefaultTaskPlanExecutor extends AbstractTaskPlanExecutor {
+    public DefaultTaskPlanExecutor(TaskDurationHistory durationHistory) {
+        super(durationHistory);
+    }
+
     public void process(final TaskExecutionPlan taskExecutionPlan, final TaskExecutionListener taskListener) {
         taskWorker(taskExecutionPlan, taskListener).run();
         taskExecutionPlan.awaitCompletion();
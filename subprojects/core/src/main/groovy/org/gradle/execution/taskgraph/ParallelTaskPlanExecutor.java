@@ -34,9 +34,12 @@ class ParallelTaskPlanExecutor extends AbstractTaskPlanExecutor {
     private static final Logger LOGGER = Logging.getLogger(ParallelTaskPlanExecutor.class);
     private final int executorCount;
     private final ExecutorFactory executorFactory;
+    private final TaskDurationHistory durationHistory;
 
-    public ParallelTaskPlanExecutor(int numberOfParallelExecutors, ExecutorFactory executorFactory) {
+    public ParallelTaskPlanExecutor(int numberOfParallelExecutors, ExecutorFactory executorFactory, TaskDurationHistory durationHistory) {
+        super(durationHistory);
         this.executorFactory = executorFactory;
+        this.durationHistory = durationHistory;
         if (numberOfParallelExecutors < 1) {
             throw new IllegalArgumentException("Not a valid number of parallel executors: " + numberOfParallelExecutors);
         }
@@ -45,6 +48,8 @@ class ParallelTaskPlanExecutor extends AbstractTaskPlanExecutor {
     }
 
     public void process(final TaskExecutionPlan taskExecutionPlan, final TaskExecutionListener taskListener) {
+        // Start the tasks on the longest chains first, so that the build is not left waiting on a single long chain at the end
+        taskExecutionPlan.prioritizeCriticalPath(durationHistory);
         StoppableExecutor executor = executorFactory.create("Task worker");
         try {
             startAdditionalWorkers(taskExecutionPlan, taskListener, executor);
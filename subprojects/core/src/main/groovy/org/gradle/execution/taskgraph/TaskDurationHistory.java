@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import org.gradle.api.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The durations of the tasks executed by previous builds. Used to decide the order in which to execute tasks, and to report how long tasks usually take.
+ */
+public interface TaskDurationHistory {
+    /**
+     * Returns the durations of the most recent executions of the given task that did work, or null if the task has not done work before.
+     */
+    @Nullable
+    TaskDurationStatistics getStatistics(String taskPath);
+
+    /**
+     * Returns the durations of the most recent executions of the given tasks that did work, keyed by task path. Tasks that have not done work before
+     * are left out.
+     */
+    Map<String, TaskDurationStatistics> getStatistics(Collection<String> taskPaths);
+
+    /**
+     * Records the time in milliseconds that the given task took to do its work.
+     */
+    void recordDuration(String taskPath, long durationMillis);
+}
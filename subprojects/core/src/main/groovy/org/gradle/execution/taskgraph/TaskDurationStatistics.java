@@ -0,0 +1,98 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph;
+
+import java.util.Arrays;
+
+/**
+ * The durations of the most recent executions of a task that did work, in milliseconds. Immutable.
+ */
+public class TaskDurationStatistics {
+    /**
+     * The maximum number of durations that are kept for a task.
+     */
+    public static final int MAX_SAMPLES = 20;
+
+    private final long[] samples;
+
+    /**
+     * Creates statistics from the given durations, ordered from oldest to most recent. At most {@link #MAX_SAMPLES} durations may be given.
+     */
+    public TaskDurationStatistics(long... samples) {
+        if (samples.length == 0 || samples.length > MAX_SAMPLES) {
+            throw new IllegalArgumentException(String.format("Expected between 1 and %s durations, got %s.", MAX_SAMPLES, samples.length));
+        }
+        this.samples = samples.clone();
+    }
+
+    /**
+     * Returns new statistics that include the given duration, and drop the oldest duration when the maximum number of durations is reached.
+     */
+    public TaskDurationStatistics add(long durationMillis) {
+        int keep = Math.min(samples.length, MAX_SAMPLES - 1);
+        long[] newSamples = new long[keep + 1];
+        System.arraycopy(samples, samples.length - keep, newSamples, 0, keep);
+        newSamples[keep] = durationMillis;
+        return new TaskDurationStatistics(newSamples);
+    }
+
+    /**
+     * Returns the durations, ordered from oldest to most recent.
+     */
+    public long[] getSamples() {
+        return samples.clone();
+    }
+
+    public int getSampleCount() {
+        return samples.length;
+    }
+
+    public long getLastDuration() {
+        return samples[samples.length - 1];
+    }
+
+    /**
+     * Returns the average of the kept durations.
+     */
+    public long getAverageDuration() {
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        return total / samples.length;
+    }
+
+    /**
+     * Returns the smallest of the kept durations that is greater than or equal to the given percentage of the kept durations.
+     *
+     * @param percentile a value between 1 and 100.
+     */
+    public long getPercentile(int percentile) {
+        if (percentile < 1 || percentile > 100) {
+            throw new IllegalArgumentException(String.format("Not a valid percentile: %s", percentile));
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int rank = (percentile * sorted.length + 99) / 100;
+        return sorted[rank - 1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{samples: %s, average: %sms, median: %sms, 90th percentile: %sms}", samples.length, getAverageDuration(), getPercentile(50), getPercentile(90));
+    }
+}
@@ -47,4 +47,10 @@ public interface TaskExecutionPlan {
      * @return The task, or null if no matching tasks remain.
      */
     TaskInfo getTaskToExecute();
+
+    /**
+     * Changes the order in which ready-to-execute tasks are provided, so that the task with the longest chain of tasks that depend on it is provided first.
+     * The length of a chain is estimated from the average durations of the tasks in previous builds.
+     */
+    void prioritizeCriticalPath(TaskDurationHistory durationHistory);
 }
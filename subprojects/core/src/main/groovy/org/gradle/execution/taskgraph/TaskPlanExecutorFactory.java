@@ -22,17 +22,19 @@ import org.gradle.internal.concurrent.ExecutorFactory;
 public class TaskPlanExecutorFactory implements Factory<TaskPlanExecutor> {
     private final int parallelThreads;
     private final ExecutorFactory executorFactory;
+    private final TaskDurationHistory durationHistory;
 
-    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory) {
+    public TaskPlanExecutorFactory(int parallelThreads, ExecutorFactory executorFactory, TaskDurationHistory durationHistory) {
         this.parallelThreads = parallelThreads;
         this.executorFactory = executorFactory;
+        this.durationHistory = durationHistory;
     }
 
     public TaskPlanExecutor create() {
         if (executeProjectsInParallel()) {
-            return new ParallelTaskPlanExecutor(numberOfParallelThreads(), executorFactory);
+            return new ParallelTaskPlanExecutor(numberOfParallelThreads(), executorFactory, durationHistory);
         }
-        return new DefaultTaskPlanExecutor();
+        return new DefaultTaskPlanExecutor(durationHistory);
     }
 
     private boolean executeProjectsInParallel() {
@@ -67,9 +67,8 @@ import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.plugin.internal.PluginResolverFactory;
 import org.gradle.process.internal.DefaultWorkerProcessFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.process.internal.WorkerProcessPool;
 import org.gradle.process.internal.child.WorkerProcessClassPathProvider;
-import org.gradle.profile.ProfileEventAdapter;
-import org.gradle.profile.ProfileListener;
 import org.gradle.util.GradleVersion;
 
 /**
@@ -252,13 +251,14 @@ public class BuildScopeServices extends DefaultServiceRegistry {
     }
 
     protected Factory<WorkerProcessBuilder> createWorkerProcessFactory(StartParameter startParameter, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
-                                                                       FileResolver fileResolver) {
+                                                                       FileResolver fileResolver, WorkerProcessPool workerProcessPool) {
         return new DefaultWorkerProcessFactory(
                 startParameter.getLogLevel(),
                 messagingServer,
                 classPathRegistry,
                 fileResolver,
-                new LongIdGenerator());
+                new LongIdGenerator(),
+                workerProcessPool);
     }
 
     protected BuildConfigurer createBuildConfigurer() {
@@ -269,10 +269,6 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         return new DefaultProjectAccessListener();
     }
 
-    protected ProfileEventAdapter createProfileEventAdapter() {
-        return new ProfileEventAdapter(get(BuildRequestMetaData.class), get(TimeProvider.class), get(ListenerManager.class).getBroadcaster(ProfileListener.class));
-    }
-
     protected PluginRegistry createPluginRegistry() {
         return new DefaultPluginRegistry(get(ClassLoaderRegistry.class).getPluginsClassLoader(), new DependencyInjectingInstantiator(this));
     }
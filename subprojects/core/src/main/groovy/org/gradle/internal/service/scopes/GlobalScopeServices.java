@@ -49,6 +49,7 @@ import org.gradle.listener.ListenerManager;
 import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.messaging.remote.internal.MessagingServices;
 import org.gradle.messaging.remote.internal.inet.InetAddressFactory;
+import org.gradle.process.internal.WorkerProcessPool;
 
 import java.util.List;
 
@@ -157,6 +158,10 @@ public class GlobalScopeServices {
         return new InMemoryTaskArtifactCache();
     }
 
+    WorkerProcessPool createWorkerProcessPool() {
+        return new WorkerProcessPool();
+    }
+
     DefaultFileLockContentionHandler createFileLockContentionHandler(ExecutorFactory executorFactory, MessagingServices messagingServices) {
         return new DefaultFileLockContentionHandler(
                 executorFactory,
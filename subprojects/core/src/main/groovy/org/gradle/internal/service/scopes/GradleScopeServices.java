@@ -19,6 +19,7 @@ import org.gradle.StartParameter;
 import org.gradle.api.internal.DependencyInjectingInstantiator;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.internal.plugins.DefaultPluginContainer;
 import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -28,11 +29,16 @@ import org.gradle.execution.*;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
+import org.gradle.initialization.BuildRequestMetaData;
+import org.gradle.internal.TimeProvider;
 import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.listener.ListenerManager;
+import org.gradle.profile.ProfileEventAdapter;
+import org.gradle.profile.ProfileListener;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -91,6 +97,11 @@ public class GradleScopeServices extends DefaultServiceRegistry {
         return new DefaultTaskGraphExecuter(listenerManager, taskPlanExecutor);
     }
 
+    ProfileEventAdapter createProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ListenerManager listenerManager,
+                                                  InMemoryTaskArtifactCache taskArtifactCache, TaskDurationHistory durationHistory) {
+        return new ProfileEventAdapter(buildMetaData, timeProvider, listenerManager.getBroadcaster(ProfileListener.class), taskArtifactCache, durationHistory);
+    }
+
     ServiceRegistryFactory createServiceRegistryFactory(final ServiceRegistry services) {
         return new ServiceRegistryFactory() {
             public ServiceRegistry createFor(Object domainObject) {
@@ -23,17 +23,21 @@ import org.gradle.api.internal.changedetection.changes.ShortCircuitTaskArtifactS
 import org.gradle.api.internal.changedetection.state.*;
 import org.gradle.api.internal.hash.CachingHasher;
 import org.gradle.api.internal.hash.DefaultHasher;
+import org.gradle.api.internal.hash.Murmur3Hasher;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheDecorator;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
+import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.environment.GradleBuildEnvironment;
 import org.gradle.internal.id.RandomLongIdGenerator;
 import org.gradle.internal.reflect.Instantiator;
+import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.listener.ListenerManager;
 
 public class TaskExecutionServices {
@@ -60,12 +64,21 @@ public class TaskExecutionServices {
         return new DefaultTaskArtifactStateCacheAccess(gradle, cacheRepository, decorator);
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter) {
-        FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(
-                new CachingHasher(
-                        new DefaultHasher(),
-                        cacheAccess), cacheAccess);
+    FileCollectionSnapshotter createFileCollectionSnapshotter(TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, ExecutorFactory executorFactory) {
+        CachingHasher hasher;
+        if (startParameter.isFastFileHashing()) {
+            hasher = new CachingHasher(new Murmur3Hasher(), cacheAccess, "fileHashesMurmur3");
+        } else {
+            hasher = new CachingHasher(new DefaultHasher(), cacheAccess);
+        }
+        if (startParameter.getParallelThreadCount() != 0) {
+            int hashWorkers = startParameter.getParallelThreadCount() < 0 ? Runtime.getRuntime().availableProcessors() : startParameter.getParallelThreadCount();
+            return new ParallelFileCollectionSnapshotter(hasher, cacheAccess, executorFactory, hashWorkers);
+        }
+        return new DefaultFileCollectionSnapshotter(hasher, cacheAccess);
+    }
 
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileCollectionSnapshotter fileCollectionSnapshotter) {
         FileCollectionSnapshotter outputFilesSnapshotter = new OutputFilesCollectionSnapshotter(fileCollectionSnapshotter, new RandomLongIdGenerator(), cacheAccess);
 
         TaskHistoryRepository taskHistoryRepository = new CacheBackedTaskHistoryRepository(cacheAccess,
@@ -84,7 +97,16 @@ public class TaskExecutionServices {
         );
     }
 
-    TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory) {
-        return new TaskPlanExecutorFactory(startParameter.getParallelThreadCount(), executorFactory).create();
+    TaskDurationHistory createTaskDurationHistory(final ServiceRegistry services) {
+        // The task graph executer uses the history and is created with the Gradle instance, before the task history cache can be opened
+        return new CacheBackedTaskDurationHistory(new Factory<TaskArtifactStateCacheAccess>() {
+            public TaskArtifactStateCacheAccess create() {
+                return services.get(TaskArtifactStateCacheAccess.class);
+            }
+        });
+    }
+
+    TaskPlanExecutor createTaskExecutorFactory(StartParameter startParameter, ExecutorFactory executorFactory, TaskDurationHistory durationHistory) {
+        return new TaskPlanExecutorFactory(startParameter.getParallelThreadCount(), executorFactory, durationHistory).create();
     }
 }
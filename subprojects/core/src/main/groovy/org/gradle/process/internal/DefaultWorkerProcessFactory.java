@@ -30,6 +30,7 @@ import org.gradle.messaging.remote.ObjectConnection;
 import org.gradle.process.internal.child.ApplicationClassesInIsolatedClassLoaderWorkerFactory;
 import org.gradle.process.internal.child.ApplicationClassesInSystemClassLoaderWorkerFactory;
 import org.gradle.process.internal.child.EncodedStream;
+import org.gradle.process.internal.child.ReusableWorkerFactory;
 import org.gradle.process.internal.child.WorkerFactory;
 import org.gradle.util.GUtil;
 import org.slf4j.Logger;
@@ -49,15 +50,23 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
     private final ClassPathRegistry classPathRegistry;
     private final FileResolver resolver;
     private final IdGenerator<?> idGenerator;
+    private final WorkerProcessPool processPool;
 
     public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server,
                                        ClassPathRegistry classPathRegistry, FileResolver resolver,
                                        IdGenerator<?> idGenerator) {
+        this(workerLogLevel, server, classPathRegistry, resolver, idGenerator, new WorkerProcessPool());
+    }
+
+    public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server,
+                                       ClassPathRegistry classPathRegistry, FileResolver resolver,
+                                       IdGenerator<?> idGenerator, WorkerProcessPool processPool) {
         this.workerLogLevel = workerLogLevel;
         this.server = server;
         this.classPathRegistry = classPathRegistry;
         this.resolver = resolver;
         this.idGenerator = idGenerator;
+        this.processPool = processPool;
     }
 
     public WorkerProcessBuilder create() {
@@ -75,6 +84,9 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
             if (getWorker() == null) {
                 throw new IllegalStateException("No worker action specified for this worker process.");
             }
+            if (isReusable()) {
+                return buildReusable();
+            }
 
             final DefaultWorkerProcess workerProcess = new DefaultWorkerProcess(120, TimeUnit.SECONDS);
             ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
@@ -114,6 +126,35 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
             return workerProcess;
         }
 
+        private WorkerProcess buildReusable() {
+            final ReusableWorkerProcess workerProcess = new ReusableWorkerProcess(processPool, getJavaCommand(), 120, TimeUnit.SECONDS);
+            ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
+                public void execute(ObjectConnection connection) {
+                    workerProcess.onConnect(connection);
+                }
+            });
+            workerProcess.startAccepting(acceptor);
+            Address localAddress = acceptor.getAddress();
+
+            List<URL> implementationClassPath = ClasspathUtil.getClasspath(getWorker().getClass().getClassLoader());
+            Object id = idGenerator.generateId();
+            String displayName = String.format("Gradle Worker %s", id);
+            WorkerFactory workerFactory = new ReusableWorkerFactory(id, displayName, this, implementationClassPath, localAddress,
+                    classPathRegistry);
+
+            LOGGER.debug("Creating reusable {}", displayName);
+            LOGGER.debug("Using application classpath {}", getApplicationClasspath());
+            LOGGER.debug("Using implementation classpath {}", implementationClassPath);
+
+            // The worker is sent to the process when it starts, as the process may already be running
+            JavaExecHandleBuilder javaCommand = getJavaCommand();
+            workerFactory.prepareJavaCommand(javaCommand);
+            javaCommand.setDisplayName(String.format("Gradle Reusable Worker Process %s", id));
+            workerProcess.setWorker(workerFactory.create());
+
+            return workerProcess;
+        }
+
         private void attachStdInContent(WorkerFactory workerFactory, JavaExecHandleBuilder javaCommand) {
             ByteArrayOutputStream bytes = new ByteArrayOutputStream();
             OutputStream encoded = new EncodedStream.EncodedOutput(bytes);
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.remote.ConnectionAcceptor;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.DelegatingObjectConnection;
+import org.gradle.process.internal.child.WorkerCompletionListener;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A worker which runs in a process taken from a {@link WorkerProcessPool}. A new process is started when the pool has no idle process for the worker's
+ * Java command. Once the worker action has completed, the process is returned to the pool rather than stopped.
+ */
+public class ReusableWorkerProcess implements WorkerProcess {
+    private final static Logger LOGGER = Logging.getLogger(ReusableWorkerProcess.class);
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final WorkerProcessPool pool;
+    private final JavaExecHandleBuilder javaCommand;
+    private final long connectTimeout;
+    private final ExecHandleListener processListener = new ExecHandleListener() {
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+            onProcessStop(execResult);
+        }
+    };
+    private final WorkerCompletionListener completionListener = new WorkerCompletionListener() {
+        public void workerCompleted() {
+            onWorkerCompleted();
+        }
+    };
+    private Callable<?> worker;
+    private WorkerProcessPool.PooledProcess process;
+    private ObjectConnection connection;
+    private ConnectionAcceptor acceptor;
+    private boolean running;
+    private boolean completed;
+    private ExecResult processResult;
+
+    public ReusableWorkerProcess(WorkerProcessPool pool, JavaExecHandleBuilder javaCommand, int connectTimeoutValue, TimeUnit connectTimeoutUnits) {
+        this.pool = pool;
+        this.javaCommand = javaCommand;
+        connectTimeout = connectTimeoutUnits.toMillis(connectTimeoutValue);
+    }
+
+    public void setWorker(Callable<?> worker) {
+        this.worker = worker;
+    }
+
+    public void startAccepting(ConnectionAcceptor acceptor) {
+        lock.lock();
+        try {
+            this.acceptor = acceptor;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onConnect(ObjectConnection connection) {
+        ConnectionAcceptor stoppable;
+
+        lock.lock();
+        try {
+            LOGGER.debug("Received connection {} from {}", connection, process);
+            this.connection = new DelegatingObjectConnection(connection) {
+                @Override
+                public void connect() {
+                    // Added last, so that the method parameters of the owner's types are deserialized using the owner's ClassLoader
+                    getDelegate().addIncoming(WorkerCompletionListener.class, completionListener);
+                    super.connect();
+                }
+            };
+            condition.signalAll();
+            stoppable = acceptor;
+        } finally {
+            lock.unlock();
+        }
+
+        stoppable.requestStop();
+    }
+
+    private void onWorkerCompleted() {
+        lock.lock();
+        try {
+            completed = true;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onProcessStop(ExecResult execResult) {
+        lock.lock();
+        try {
+            processResult = execResult;
+            running = false;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ReusableWorkerProcess{"
+                + "running=" + running
+                + ", process=" + process
+                + '}';
+    }
+
+    public ObjectConnection getConnection() {
+        return connection;
+    }
+
+    public void start() {
+        try {
+            doStart();
+        } catch (Throwable t) {
+            cleanup();
+            if (process != null && process.isAlive()) {
+                // Don't reuse a process that is in an unknown state
+                process.getExecHandle().abort();
+            }
+            throw UncheckedException.throwAsUncheckedException(t);
+        }
+    }
+
+    private void doStart() {
+        String key = WorkerProcessPool.keyOf(javaCommand);
+        WorkerProcessPool.PooledProcess pooledProcess = pool.acquire(key);
+        if (pooledProcess == null) {
+            pooledProcess = pool.start(key, javaCommand, processListener);
+            LOGGER.debug("Started reusable worker process {}", pooledProcess);
+        } else {
+            pooledProcess.getExecHandle().addListener(processListener);
+            LOGGER.debug("Reusing worker process {}", pooledProcess);
+        }
+        process = pooledProcess;
+
+        lock.lock();
+        try {
+            // The listener is attached before this point, so it is notified if the process stops from now on
+            running = processResult == null && process.isAlive();
+            if (!running) {
+                if (processResult != null) {
+                    processResult.rethrowFailure().assertNormalExitValue();
+                }
+                throw new ExecException(String.format("%s stopped before it could run the worker.", process));
+            }
+        } finally {
+            lock.unlock();
+        }
+        process.execute(worker);
+
+        Date connectExpiry = new Date(System.currentTimeMillis() + connectTimeout);
+        lock.lock();
+        try {
+            while (connection == null && running) {
+                try {
+                    if (!condition.awaitUntil(connectExpiry)) {
+                        throw new ExecException(String.format("Timeout after waiting %.1f seconds for %s (running: %s) to connect.", ((double) connectTimeout) / 1000, process, running));
+                    }
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (connection == null) {
+                processResult.rethrowFailure().assertNormalExitValue();
+                throw new ExecException(String.format("Never received a connection from %s.", process));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ExecResult waitForStop() {
+        try {
+            ExecResult result = waitForCompletion();
+            if (result != null) {
+                return result.rethrowFailure().assertNormalExitValue();
+            }
+        } finally {
+            cleanup();
+        }
+        pool.release(process);
+        return new CompletedWorkerResult();
+    }
+
+    /**
+     * Waits until the worker action has completed or the process has stopped. Returns the result of the process if it stopped first.
+     */
+    private ExecResult waitForCompletion() {
+        lock.lock();
+        try {
+            while (!completed && running) {
+                try {
+                    condition.await();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            return completed ? null : processResult;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cleanup() {
+        CompositeStoppable stoppable;
+        lock.lock();
+        try {
+            stoppable = CompositeStoppable.stoppable(acceptor, connection);
+        } finally {
+            this.connection = null;
+            this.acceptor = null;
+            lock.unlock();
+        }
+        stoppable.stop();
+        if (process != null) {
+            process.getExecHandle().removeListener(processListener);
+        }
+    }
+
+    private static class CompletedWorkerResult implements ExecResult {
+        public int getExitValue() {
+            return 0;
+        }
+
+        public ExecResult assertNormalExitValue() throws ExecException {
+            return this;
+        }
+
+        public ExecResult rethrowFailure() throws ExecException {
+            return this;
+        }
+    }
+}
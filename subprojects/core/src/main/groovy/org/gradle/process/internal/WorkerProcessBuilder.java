@@ -42,6 +42,7 @@ public abstract class WorkerProcessBuilder {
     private Action<? super WorkerProcessContext> action;
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private boolean loadApplicationInSystemClassLoader;
+    private boolean reusable;
 
     public WorkerProcessBuilder(FileResolver fileResolver) {
         javaCommand = new JavaExecHandleBuilder(fileResolver);
@@ -99,5 +100,17 @@ public abstract class WorkerProcessBuilder {
         this.loadApplicationInSystemClassLoader = loadApplicationInSystemClassLoader;
     }
 
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    /**
+     * Specifies whether the worker may run in a process that has run other workers, and whose process may then be used for later workers with the same
+     * configuration. The application classes of a reusable worker are always loaded in an isolated ClassLoader.
+     */
+    public void setReusable(boolean reusable) {
+        this.reusable = reusable;
+    }
+
     public abstract WorkerProcess build();
 }
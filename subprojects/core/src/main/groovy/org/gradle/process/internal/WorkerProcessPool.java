@@ -0,0 +1,269 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.EncodedStream;
+import org.gradle.util.GUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The idle reusable worker processes, shared by all builds in a given process. A reusable worker process is returned to the pool when its worker has
+ * completed, and is then used for the next worker with the same configuration instead of starting a new process.
+ *
+ * <p>A process is only used for workers with the same working directory, environment and Java command line, which includes the JVM, the JVM arguments
+ * and the system classpath of the process. The application classpath is not part of the command line, as the application classes of each worker are
+ * loaded in a new isolated ClassLoader.</p>
+ */
+public class WorkerProcessPool implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerProcessPool.class);
+    static final int MAX_IDLE_PROCESSES = 8;
+    private final Object lock = new Object();
+    private final LinkedList<PooledProcess> idleProcesses = new LinkedList<PooledProcess>();
+    private boolean stopped;
+
+    /**
+     * Returns the key of the processes that can be used for a worker with the given Java command.
+     */
+    static String keyOf(JavaExecHandleBuilder javaCommand) {
+        return String.format("%s%n%s%n%s", javaCommand.getWorkingDir(), javaCommand.getCommandLine(), new TreeMap<String, Object>(javaCommand.getEnvironment()));
+    }
+
+    /**
+     * Removes an idle process with the given key from the pool, or returns null if there is none.
+     */
+    PooledProcess acquire(String key) {
+        synchronized (lock) {
+            Iterator<PooledProcess> iterator = idleProcesses.iterator();
+            while (iterator.hasNext()) {
+                PooledProcess process = iterator.next();
+                if (!process.isAlive()) {
+                    iterator.remove();
+                } else if (process.getKey().equals(key)) {
+                    iterator.remove();
+                    return process;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Starts a new process with the given key and Java command. The given listener is attached before the process is started. The process is added to
+     * the pool when it is released.
+     */
+    PooledProcess start(String key, JavaExecHandleBuilder javaCommand, ExecHandleListener listener) {
+        WorkerInput input = new WorkerInput();
+        javaCommand.setStandardInput(input);
+        PooledProcess process = new PooledProcess(key, javaCommand.build(), input);
+        process.getExecHandle().addListener(listener);
+        process.getExecHandle().start();
+        return process;
+    }
+
+    /**
+     * Returns a process whose worker has completed to the pool. Stops the least recently used idle process when there are too many idle processes.
+     */
+    void release(PooledProcess process) {
+        List<PooledProcess> evicted = new ArrayList<PooledProcess>();
+        synchronized (lock) {
+            if (stopped) {
+                evicted.add(process);
+            } else if (process.isAlive()) {
+                idleProcesses.addLast(process);
+                while (idleProcesses.size() > MAX_IDLE_PROCESSES) {
+                    evicted.add(idleProcesses.removeFirst());
+                }
+            }
+        }
+        CompositeStoppable.stoppable(evicted).stop();
+    }
+
+    int getIdleCount() {
+        synchronized (lock) {
+            return idleProcesses.size();
+        }
+    }
+
+    public void stop() {
+        List<PooledProcess> processes;
+        synchronized (lock) {
+            stopped = true;
+            processes = new ArrayList<PooledProcess>(idleProcesses);
+            idleProcesses.clear();
+        }
+        CompositeStoppable.stoppable(processes).stop();
+    }
+
+    /**
+     * A reusable worker process, which reads the workers to run from its standard input.
+     */
+    static class PooledProcess implements Stoppable {
+        private final String key;
+        private final ExecHandle execHandle;
+        private final WorkerInput input;
+
+        PooledProcess(String key, ExecHandle execHandle, WorkerInput input) {
+            this.key = key;
+            this.execHandle = execHandle;
+            this.input = input;
+            execHandle.addListener(new ExecHandleListener() {
+                public void executionStarted(ExecHandle execHandle) {
+                }
+
+                public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                    PooledProcess.this.input.close();
+                }
+            });
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        ExecHandle getExecHandle() {
+            return execHandle;
+        }
+
+        boolean isAlive() {
+            return execHandle.getState() == ExecHandleState.STARTED;
+        }
+
+        /**
+         * Sends the given worker to the process. The process runs the worker once it has finished running the previous worker.
+         */
+        void execute(Callable<?> worker) {
+            byte[] serializedWorker = GUtil.serialize(worker);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                DataOutputStream outstr = new DataOutputStream(new EncodedStream.EncodedOutput(bytes));
+                outstr.writeInt(serializedWorker.length);
+                outstr.write(serializedWorker);
+                outstr.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            input.write(bytes.toByteArray());
+        }
+
+        /**
+         * Closes the standard input of the process, which causes the process to exit, and waits for it to do so.
+         */
+        public void stop() {
+            LOGGER.debug("Stopping reusable worker process {}.", execHandle);
+            input.close();
+            execHandle.waitForFinish();
+        }
+
+        @Override
+        public String toString() {
+            return execHandle.toString();
+        }
+    }
+
+    /**
+     * The standard input of a reusable worker process. Reads block until the next worker is written, or the input is closed.
+     */
+    static class WorkerInput extends InputStream {
+        private final Lock lock = new ReentrantLock();
+        private final Condition condition = lock.newCondition();
+        private final LinkedList<byte[]> chunks = new LinkedList<byte[]>();
+        private int offset;
+        private boolean closed;
+
+        void write(byte[] bytes) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                chunks.add(bytes);
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int count = read(buffer, 0, 1);
+            return count < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            lock.lock();
+            try {
+                while (chunks.isEmpty() && !closed) {
+                    try {
+                        condition.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                if (chunks.isEmpty()) {
+                    return -1;
+                }
+                byte[] chunk = chunks.getFirst();
+                int count = Math.min(len, chunk.length - offset);
+                System.arraycopy(chunk, offset, buffer, off, count);
+                offset += count;
+                if (offset == chunk.length) {
+                    chunks.removeFirst();
+                    offset = 0;
+                }
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.messaging.serialize.kryo.StatefulSerializer;
+
+/**
+ * An {@link ObjectConnection} which forwards to another connection. Subclasses can override {@link #connect()} to add their own incoming or outgoing
+ * types once the types of the connection's owner have been added.
+ */
+public class DelegatingObjectConnection implements ObjectConnection {
+    private final ObjectConnection delegate;
+
+    public DelegatingObjectConnection(ObjectConnection delegate) {
+        this.delegate = delegate;
+    }
+
+    protected ObjectConnection getDelegate() {
+        return delegate;
+    }
+
+    public <T> T addOutgoing(Class<T> type) {
+        return delegate.addOutgoing(type);
+    }
+
+    public <T> void addIncoming(Class<T> type, T instance) {
+        delegate.addIncoming(type, instance);
+    }
+
+    public void useParameterSerializer(StatefulSerializer<Object[]> serializer) {
+        delegate.useParameterSerializer(serializer);
+    }
+
+    public void useDefaultSerialization(ClassLoader methodParamClassLoader) {
+        delegate.useDefaultSerialization(methodParamClassLoader);
+    }
+
+    public void connect() {
+        delegate.connect();
+    }
+
+    public void requestStop() {
+        delegate.requestStop();
+    }
+
+    public void stop() {
+        delegate.stop();
+    }
+}
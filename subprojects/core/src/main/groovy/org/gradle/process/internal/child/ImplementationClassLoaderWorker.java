@@ -82,7 +82,12 @@ public class ImplementationClassLoaderWorker implements Action<WorkerContext>, S
         } catch (Exception e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        action.execute(workerContext);
+        try {
+            action.execute(workerContext);
+        } finally {
+            // Restore the process' logging, as a reusable worker process may run further workers
+            loggingManager.stop();
+        }
     }
 
     LoggingManagerInternal createLoggingManager() {
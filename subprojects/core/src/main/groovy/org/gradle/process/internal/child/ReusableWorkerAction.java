@@ -0,0 +1,71 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Action;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Executes the action of a worker which runs in a reusable worker process. Notifies the server process once the action has completed, so that the
+ * server process can hand the worker process to another worker.</p>
+ *
+ * <p>It is instantiated in the implementation ClassLoader and called from {@link ActionExecutionWorker}.</p>
+ */
+public class ReusableWorkerAction implements Action<WorkerProcessContext>, Serializable {
+    private final Action<? super WorkerProcessContext> action;
+
+    public ReusableWorkerAction(Action<? super WorkerProcessContext> action) {
+        this.action = action;
+    }
+
+    public void execute(final WorkerProcessContext workerProcessContext) {
+        final AtomicReference<WorkerCompletionListener> completionListener = new AtomicReference<WorkerCompletionListener>();
+        final ObjectConnection serverConnection = new DelegatingObjectConnection(workerProcessContext.getServerConnection()) {
+            @Override
+            public void connect() {
+                completionListener.set(getDelegate().addOutgoing(WorkerCompletionListener.class));
+                super.connect();
+            }
+        };
+
+        action.execute(new WorkerProcessContext() {
+            public Object getWorkerId() {
+                return workerProcessContext.getWorkerId();
+            }
+
+            public String getDisplayName() {
+                return workerProcessContext.getDisplayName();
+            }
+
+            public ObjectConnection getServerConnection() {
+                return serverConnection;
+            }
+
+            public ClassLoader getApplicationClassLoader() {
+                return workerProcessContext.getApplicationClassLoader();
+            }
+        });
+
+        if (completionListener.get() != null) {
+            completionListener.get().workerCompleted();
+        }
+    }
+}
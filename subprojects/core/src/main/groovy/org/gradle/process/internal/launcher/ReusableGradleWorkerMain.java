@@ -0,0 +1,58 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.launcher;
+
+import org.gradle.process.internal.child.EncodedStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.ObjectInputStream;
+import java.util.concurrent.Callable;
+
+/**
+ * The main entry point for a reusable worker process. Reads serialized Callables from stdin, and executes them one after the other until stdin is
+ * closed. Each Callable is preceded by its length.
+ */
+public class ReusableGradleWorkerMain {
+    public void run() throws Exception {
+        DataInputStream instr = new DataInputStream(new EncodedStream.EncodedInput(System.in));
+        while (true) {
+            int length;
+            try {
+                length = instr.readInt();
+            } catch (EOFException e) {
+                // No more workers
+                return;
+            }
+            byte[] serializedWorker = new byte[length];
+            instr.readFully(serializedWorker);
+            Callable<?> worker = (Callable<?>) new ObjectInputStream(new ByteArrayInputStream(serializedWorker)).readObject();
+            worker.call();
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            new ReusableGradleWorkerMain().run();
+            System.exit(0);
+        } catch (Throwable throwable) {
+            throwable.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+}
@@ -16,11 +16,13 @@
 package org.gradle.profile;
 
 import org.gradle.StartParameter;
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
 import org.gradle.util.CollectionUtils;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +48,7 @@ public class BuildProfile {
 
     private final Map<String, ProjectProfile> projects = new LinkedHashMap<String, ProjectProfile>();
     private final Map<String, ContinuousOperation> dependencySets = new LinkedHashMap<String, ContinuousOperation>();
+    private List<InMemoryCacheStatistics> taskArtifactCacheStatistics = Collections.emptyList();
     private long profilingStarted;
     private long buildStarted;
     private long settingsEvaluated;
@@ -228,6 +231,17 @@ public class BuildProfile {
         return String.format("Started on: %s", DATE_FORMAT.format(buildStarted));
     }
 
+    /**
+     * Get the usage of the in-memory task artifact caches during this build. Empty when the caches are not kept in memory.
+     */
+    public List<InMemoryCacheStatistics> getTaskArtifactCacheStatistics() {
+        return taskArtifactCacheStatistics;
+    }
+
+    public void setTaskArtifactCacheStatistics(List<InMemoryCacheStatistics> taskArtifactCacheStatistics) {
+        this.taskArtifactCacheStatistics = taskArtifactCacheStatistics;
+    }
+
     public StartParameter getStartParameter() {
         return startParameter;
     }
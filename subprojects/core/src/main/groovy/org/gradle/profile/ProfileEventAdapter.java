@@ -23,13 +23,21 @@ import org.gradle.api.ProjectState;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.DependencyResolutionListener;
 import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
+import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
 import org.gradle.api.execution.TaskExecutionListener;
 import org.gradle.api.initialization.Settings;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.api.tasks.TaskState;
+import org.gradle.execution.taskgraph.TaskDurationHistory;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.TimeProvider;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Adapts various events to build a {@link BuildProfile} model, and then notifies a {@link ReportGeneratingProfileListener} when the model is ready.
  */
@@ -37,12 +45,18 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     private final BuildRequestMetaData buildMetaData;
     private final TimeProvider timeProvider;
     private final ProfileListener listener;
+    private final InMemoryTaskArtifactCache taskArtifactCache;
+    private final TaskDurationHistory durationHistory;
     private BuildProfile buildProfile;
+    private Map<String, InMemoryCacheStatistics> cacheStatisticsAtStart;
 
-    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener) {
+    public ProfileEventAdapter(BuildRequestMetaData buildMetaData, TimeProvider timeProvider, ProfileListener listener, InMemoryTaskArtifactCache taskArtifactCache,
+                               TaskDurationHistory durationHistory) {
         this.buildMetaData = buildMetaData;
         this.timeProvider = timeProvider;
         this.listener = listener;
+        this.taskArtifactCache = taskArtifactCache;
+        this.durationHistory = durationHistory;
     }
 
     // BuildListener
@@ -51,6 +65,13 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         buildProfile = new BuildProfile(gradle.getStartParameter());
         buildProfile.setBuildStarted(now);
         buildProfile.setProfilingStarted(buildMetaData.getBuildTimeClock().getStartTime());
+        if (gradle.getStartParameter().isProfile()) {
+            // Collecting the statistics visits every cache entry, so only do this when a profile report is requested
+            cacheStatisticsAtStart = new HashMap<String, InMemoryCacheStatistics>();
+            for (InMemoryCacheStatistics statistics : taskArtifactCache.getStatistics()) {
+                cacheStatisticsAtStart.put(statistics.getCacheId(), statistics);
+            }
+        }
     }
 
     public void settingsEvaluated(Settings settings) {
@@ -66,13 +87,26 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
     public void buildFinished(BuildResult result) {
         buildProfile.setBuildFinished(timeProvider.getCurrentTime());
         buildProfile.setSuccessful(result.getFailure() == null);
+        if (cacheStatisticsAtStart != null) {
+            buildProfile.setTaskArtifactCacheStatistics(cacheStatisticsSinceStart());
+        }
         try {
             listener.buildFinished(buildProfile);
         } finally {
             buildProfile = null;
+            cacheStatisticsAtStart = null;
         }
     }
 
+    private List<InMemoryCacheStatistics> cacheStatisticsSinceStart() {
+        List<InMemoryCacheStatistics> result = new ArrayList<InMemoryCacheStatistics>();
+        for (InMemoryCacheStatistics statistics : taskArtifactCache.getStatistics()) {
+            InMemoryCacheStatistics atStart = cacheStatisticsAtStart.get(statistics.getCacheId());
+            result.add(atStart == null ? statistics : statistics.since(atStart));
+        }
+        return result;
+    }
+
     // ProjectEvaluationListener
     public void beforeEvaluate(Project project) {
         long now = timeProvider.getCurrentTime();
@@ -100,6 +134,10 @@ public class ProfileEventAdapter implements BuildListener, ProjectEvaluationList
         TaskExecution taskExecution = projectProfile.getTaskProfile(task.getPath());
         taskExecution.setFinish(now);
         taskExecution.completed(state);
+        if (project.getGradle().getStartParameter().isProfile()) {
+            // The duration of this execution has not been recorded yet
+            taskExecution.setPreviousDurations(durationHistory.getStatistics(task.getPath()));
+        }
     }
 
     // DependencyResolutionListener
@@ -15,7 +15,9 @@
  */
 package org.gradle.profile;
 
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics;
 import org.gradle.api.internal.html.SimpleHtmlWriter;
+import org.gradle.execution.taskgraph.TaskDurationStatistics;
 import org.gradle.reporting.DurationFormatter;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -23,6 +25,7 @@ import org.gradle.reporting.TabbedPageRenderer;
 
 import java.io.File;
 import java.io.IOException;
+import java.math.BigDecimal;
 
 public class ProfileReportRenderer {
     public void writeTo(BuildProfile buildProfile, File file) {
@@ -66,8 +69,11 @@ public class ProfileReportRenderer {
                             .startElement("li").startElement("a").attribute("href", "#tab0").characters("Summary").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab1").characters("Configuration").endElement().endElement()
                             .startElement("li").startElement("a").attribute("href", "#tab2").characters("Dependency Resolution").endElement().endElement()
-                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement()
-                        .endElement();
+                            .startElement("li").startElement("a").attribute("href", "#tab3").characters("Task Execution").endElement().endElement();
+                            if (!model.getTaskArtifactCacheStatistics().isEmpty()) {
+                                htmlWriter.startElement("li").startElement("a").attribute("href", "#tab4").characters("Task Artifact Caches").endElement().endElement();
+                            }
+                        htmlWriter.endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab0");
                             htmlWriter.startElement("h2").characters("Summary").endElement();
                             htmlWriter.startElement("table");
@@ -147,34 +153,107 @@ public class ProfileReportRenderer {
                             htmlWriter.endElement()
                         .endElement();
                         htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab3");
+                            boolean hasPreviousDurations = hasPreviousDurations(model);
                             htmlWriter.startElement("h2").characters("Task Execution").endElement()
                             .startElement("table")
                                 .startElement("thead")
                                     .startElement("tr")
                                         .startElement("th").characters("Task").endElement()
-                                        .startElement("th").attribute("class", "numeric").characters("Duration").endElement()
-                                        .startElement("th").characters("Result").endElement()
+                                        .startElement("th").attribute("class", "numeric").characters("Duration").endElement();
+                                        if (hasPreviousDurations) {
+                                            htmlWriter.startElement("th").attribute("class", "numeric").characters("Previous Average").endElement()
+                                            .startElement("th").attribute("class", "numeric").characters("Previous 90th Percentile").endElement();
+                                        }
+                                        htmlWriter.startElement("th").characters("Result").endElement()
                                     .endElement()
                                 .endElement();
                                 for (ProjectProfile project : model.getProjects()) {
                                    htmlWriter.startElement("tr")
                                         .startElement("td").characters(project.getPath()).endElement()
-                                        .startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(project.getElapsedTime())).endElement()
-                                        .startElement("td").characters("(total)").endElement()
+                                        .startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(project.getElapsedTime())).endElement();
+                                        if (hasPreviousDurations) {
+                                            htmlWriter.startElement("td").characters("").endElement()
+                                            .startElement("td").characters("").endElement();
+                                        }
+                                        htmlWriter.startElement("td").characters("(total)").endElement()
                                     .endElement();
                                     for (TaskExecution taskExecution : project.getTasks()) {
                                         htmlWriter.startElement("tr")
                                             .startElement("td").attribute("class", "indentPath").characters(taskExecution.getPath()).endElement()
-                                            .startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(taskExecution.getElapsedTime())).endElement()
-                                            .startElement("td").characters(taskExecution.getStatus()).endElement()
+                                            .startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(taskExecution.getElapsedTime())).endElement();
+                                            if (hasPreviousDurations) {
+                                                renderPreviousDurations(taskExecution.getPreviousDurations(), htmlWriter);
+                                            }
+                                            htmlWriter.startElement("td").characters(taskExecution.getStatus()).endElement()
                                         .endElement();
                                     }
                                 }
                             htmlWriter.endElement()
+                        .endElement();
+                        if (!model.getTaskArtifactCacheStatistics().isEmpty()) {
+                            renderCacheStatistics(model, htmlWriter);
+                        }
+                    htmlWriter.endElement();
+                }
+            };
+        }
+
+        private void renderCacheStatistics(BuildProfile model, SimpleHtmlWriter htmlWriter) throws IOException {
+            htmlWriter.startElement("div").attribute("class", "tab").attribute("id", "tab4");
+                htmlWriter.startElement("h2").characters("Task Artifact Caches").endElement()
+                .startElement("table")
+                    .startElement("thead")
+                        .startElement("tr")
+                            .startElement("th").characters("Cache").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Hits").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Misses").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Evictions").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Entries").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Estimated Size").endElement()
+                            .startElement("th").attribute("class", "numeric").characters("Size Limit").endElement()
                         .endElement()
                     .endElement();
+                    for (InMemoryCacheStatistics statistics : model.getTaskArtifactCacheStatistics()) {
+                        htmlWriter.startElement("tr")
+                            .startElement("td").characters(statistics.getCacheId()).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getHitCount())).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getMissCount())).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getEvictionCount())).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(String.valueOf(statistics.getEntryCount())).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(formatSize(statistics.getEstimatedSize())).endElement()
+                            .startElement("td").attribute("class", "numeric").characters(formatSize(statistics.getMaxSize())).endElement()
+                        .endElement();
+                    }
+                htmlWriter.endElement()
+            .endElement();
+        }
+
+        private static boolean hasPreviousDurations(BuildProfile model) {
+            for (ProjectProfile project : model.getProjects()) {
+                for (TaskExecution taskExecution : project.getTasks()) {
+                    if (taskExecution.getPreviousDurations() != null) {
+                        return true;
+                    }
                 }
-            };
+            }
+            return false;
+        }
+
+        private void renderPreviousDurations(TaskDurationStatistics previousDurations, SimpleHtmlWriter htmlWriter) throws IOException {
+            if (previousDurations == null) {
+                htmlWriter.startElement("td").characters("").endElement()
+                .startElement("td").characters("").endElement();
+                return;
+            }
+            htmlWriter.startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(previousDurations.getAverageDuration())).endElement()
+            .startElement("td").attribute("class", "numeric").characters(DURATION_FORMAT.format(previousDurations.getPercentile(90))).endElement();
+        }
+
+        private static String formatSize(long bytes) {
+            if (bytes < 1024 * 1024) {
+                return BigDecimal.valueOf(bytes).divide(BigDecimal.valueOf(1024), 1, BigDecimal.ROUND_HALF_UP) + " KB";
+            }
+            return BigDecimal.valueOf(bytes).divide(BigDecimal.valueOf(1024 * 1024), 1, BigDecimal.ROUND_HALF_UP) + " MB";
         }
     }
 }
@@ -15,7 +15,9 @@
  */
 package org.gradle.profile;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.tasks.TaskState;
+import org.gradle.execution.taskgraph.TaskDurationStatistics;
 
 /**
  * Container for task profiling information.
@@ -27,6 +29,7 @@ public class TaskExecution extends ContinuousOperation {
 
     private final String path;
     private TaskState state;
+    private TaskDurationStatistics previousDurations;
 
     public TaskExecution(String taskPath) {
         super(taskPath);
@@ -52,4 +55,17 @@ public class TaskExecution extends ContinuousOperation {
         this.state = state;
         return this;
     }
+
+    /**
+     * Returns the durations of the task in previous builds, or null if these are not known.
+     */
+    @Nullable
+    public TaskDurationStatistics getPreviousDurations() {
+        return previousDurations;
+    }
+
+    public TaskExecution setPreviousDurations(TaskDurationStatistics previousDurations) {
+        this.previousDurations = previousDurations;
+        return this;
+    }
 }
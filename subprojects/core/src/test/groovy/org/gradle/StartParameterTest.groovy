@@ -49,6 +49,7 @@ class StartParameterTest extends Specification {
         parameter.refreshDependencies = true
         parameter.recompileScripts = true
         parameter.configureOnDemand = true
+        parameter.fastFileHashing = true
 
         when:
         def newInstance = parameter.newInstance()
@@ -244,6 +245,7 @@ class StartParameterTest extends Specification {
         parameter.logLevel = LogLevel.DEBUG
         parameter.colorOutput = false
         parameter.configureOnDemand = true
+        parameter.fastFileHashing = true
 
         // Non-copied
         parameter.currentDir = new File("other")
@@ -266,6 +268,7 @@ class StartParameterTest extends Specification {
         newParameter != parameter
 
         newParameter.configureOnDemand == parameter.configureOnDemand
+        newParameter.fastFileHashing == parameter.fastFileHashing
         newParameter.gradleUserHomeDir == parameter.gradleUserHomeDir
         newParameter.cacheUsage == parameter.cacheUsage
         newParameter.logLevel == parameter.logLevel
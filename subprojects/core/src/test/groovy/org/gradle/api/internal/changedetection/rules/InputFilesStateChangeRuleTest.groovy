@@ -21,12 +21,14 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.TaskExecution
 import org.gradle.api.internal.file.collections.SimpleFileCollection
 import org.gradle.api.tasks.TaskInputs
+import org.gradle.internal.hash.HashValue
 import org.gradle.util.ChangeListener
 import spock.lang.Specification
 
 public class InputFilesStateChangeRuleTest extends Specification {
     def inputSnapshot = Mock(FileCollectionSnapshot)
     def previousInputSnapshot = Mock(FileCollectionSnapshot)
+    HashValue previousFingerprint
     FileCollectionSnapshot.ChangeIterator<String> changeIterator = Mock()
 
     TaskStateChanges createStateChanges() {
@@ -42,6 +44,7 @@ public class InputFilesStateChangeRuleTest extends Specification {
 
         def previousExecution = Stub(TaskExecution) {
             getInputFilesSnapshot() >> previousInputSnapshot
+            getInputFilesFingerprint() >> previousFingerprint
         }
         return InputFilesStateChangeRule.create(task, previousExecution, Mock(TaskExecution), snapshotter)
     }
@@ -75,4 +78,30 @@ public class InputFilesStateChangeRuleTest extends Specification {
         and:
         messages == ["Input file one has been added.", "Input file two has been removed.", "Input file three has changed."]
     }
+
+    def "does not compare files when fingerprint has not changed since previous input snapshot"() {
+        given:
+        previousFingerprint = new HashValue("1234")
+
+        when:
+        def changes = createStateChanges().iterator().collect { it }
+
+        then:
+        1 * inputSnapshot.getFingerprint() >> new HashValue("1234")
+        0 * inputSnapshot.iterateChangesSince(_)
+        changes.empty
+    }
+
+    def "compares files when fingerprint has changed since previous input snapshot"() {
+        given:
+        previousFingerprint = new HashValue("1234")
+
+        when:
+        def changes = createStateChanges().iterator().collect { it }
+
+        then:
+        1 * inputSnapshot.getFingerprint() >> new HashValue("5678")
+        1 * inputSnapshot.iterateChangesSince(previousInputSnapshot) >> Stub(FileCollectionSnapshot.ChangeIterator)
+        changes.empty
+    }
 }
@@ -22,12 +22,14 @@ import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter
 import org.gradle.api.internal.changedetection.state.TaskExecution
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.internal.hash.HashValue
 import org.gradle.util.ChangeListener
 import spock.lang.Specification;
 
 public class OutputFilesStateChangeRuleTest extends Specification {
     def outputSnapshot = Mock(FileCollectionSnapshot)
     def previousOutputSnapshot = Mock(FileCollectionSnapshot)
+    HashValue previousFingerprint
 
     TaskStateChanges createStateChanges() {
         def taskOutputs = Stub(TaskOutputsInternal) {
@@ -42,6 +44,7 @@ public class OutputFilesStateChangeRuleTest extends Specification {
 
         def previousExecution = Stub(TaskExecution) {
             getOutputFilesSnapshot() >> previousOutputSnapshot
+            getOutputFilesFingerprint() >> previousFingerprint
         }
         return OutputFilesStateChangeRule.create(task, previousExecution, Mock(TaskExecution), snapshotter)
     }
@@ -79,4 +82,30 @@ public class OutputFilesStateChangeRuleTest extends Specification {
         and:
         messages == ["Output file one has been added.", "Output file two has been removed.", "Output file three has changed."]
     }
+
+    def "does not compare files when fingerprint has not changed since previous output snapshot"() {
+        given:
+        previousFingerprint = new HashValue("1234")
+
+        when:
+        def changes = createStateChanges().iterator().collect { it }
+
+        then:
+        1 * outputSnapshot.getFingerprint() >> new HashValue("1234")
+        0 * outputSnapshot.iterateChangesSince(_)
+        changes.empty
+    }
+
+    def "compares files when fingerprint has changed since previous output snapshot"() {
+        given:
+        previousFingerprint = new HashValue("1234")
+
+        when:
+        def changes = createStateChanges().iterator().collect { it }
+
+        then:
+        1 * outputSnapshot.getFingerprint() >> new HashValue("5678")
+        1 * outputSnapshot.iterateChangesSince(previousOutputSnapshot) >> Stub(FileCollectionSnapshot.ChangeIterator)
+        changes.empty
+    }
 }
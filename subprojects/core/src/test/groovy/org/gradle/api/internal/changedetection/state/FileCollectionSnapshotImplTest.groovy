@@ -0,0 +1,145 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.DirSnapshot
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.FileHashSnapshot
+import org.gradle.api.internal.changedetection.state.DefaultFileCollectionSnapshotter.MissingFileSnapshot
+import org.gradle.internal.hash.HashUtil
+import org.gradle.util.ChangeListener
+import spock.lang.Specification
+
+class FileCollectionSnapshotImplTest extends Specification {
+    def listener = Mock(ChangeListener)
+
+    def "can look up entries by path"() {
+        given:
+        def entries = [:]
+        (0..100).each { entries["/some/dir/sub$it/file.txt".toString()] = new FileHashSnapshot([it, 1, 2] as byte[]) }
+        entries["/some/dir"] = new DirSnapshot()
+        entries["/other"] = new MissingFileSnapshot()
+
+        when:
+        def snapshot = new FileCollectionSnapshotImpl(entries)
+
+        then:
+        snapshot.size() == 103
+        entries.every { path, entry -> entry.isUpToDate(snapshot.get(path)) }
+        snapshot.get("/some/dir") instanceof DirSnapshot
+        snapshot.get("/other") instanceof MissingFileSnapshot
+        snapshot.get("/some/dir/sub5/file.txt").hash == [5, 1, 2] as byte[]
+        snapshot.get("/some/dir/sub5") == null
+        snapshot.get("/") == null
+        snapshot.get("/zzz") == null
+    }
+
+    def "empty snapshot contains no entries"() {
+        def snapshot = new FileCollectionSnapshotImpl([:])
+
+        expect:
+        snapshot.size() == 0
+        snapshot.get("/some/file") == null
+        snapshot.files.files.empty
+    }
+
+    def "reports changes in path order"() {
+        given:
+        def previous = new FileCollectionSnapshotImpl(["/a": new DirSnapshot(), "/b": file(1), "/c": file(2), "/e": file(3)])
+        def current = new FileCollectionSnapshotImpl(["/b": file(1), "/c": file(4), "/d": new MissingFileSnapshot(), "/e": new DirSnapshot()])
+
+        when:
+        def iterator = current.iterateChangesSince(previous)
+        while (iterator.next(listener)) {}
+
+        then:
+        1 * listener.removed("/a")
+
+        then:
+        1 * listener.changed("/c")
+
+        then:
+        1 * listener.added("/d")
+
+        then:
+        1 * listener.changed("/e")
+        0 * listener._
+    }
+
+    def "applies diff to target snapshot"() {
+        given:
+        def previous = new FileCollectionSnapshotImpl(["/a": file(1), "/b": file(2)])
+        def current = new FileCollectionSnapshotImpl(["/b": file(3), "/c": file(4)])
+        def target = new FileCollectionSnapshotImpl(["/a": file(1), "/b": file(2), "/z": new DirSnapshot()])
+
+        when:
+        FileCollectionSnapshotImpl result = current.changesSince(previous).applyTo(target)
+
+        then:
+        result.size() == 3
+        result.get("/a") == null
+        result.get("/b").hash == [3] as byte[]
+        result.get("/c").hash == [4] as byte[]
+        result.get("/z") instanceof DirSnapshot
+    }
+
+    def "snapshots with same entries have same fingerprint"() {
+        given:
+        def snapshot = new FileCollectionSnapshotImpl(["/a": file(1), "/b": new DirSnapshot(), "/c": new MissingFileSnapshot()])
+
+        expect:
+        snapshot.fingerprint == new FileCollectionSnapshotImpl(["/c": new MissingFileSnapshot(), "/b": new DirSnapshot(), "/a": file(1)]).fingerprint
+        snapshot.fingerprint != new FileCollectionSnapshotImpl(["/a": file(2), "/b": new DirSnapshot(), "/c": new MissingFileSnapshot()]).fingerprint
+        snapshot.fingerprint != new FileCollectionSnapshotImpl(["/a": file(1), "/b": new MissingFileSnapshot(), "/c": new MissingFileSnapshot()]).fingerprint
+        snapshot.fingerprint != new FileCollectionSnapshotImpl(["/a": file(1), "/b": new DirSnapshot()]).fingerprint
+        snapshot.fingerprint != new FileCollectionSnapshotImpl(["/a": file(1), "/bc": new MissingFileSnapshot()]).fingerprint
+        new FileCollectionSnapshotImpl([:]).fingerprint == new FileCollectionSnapshotImpl([:]).fingerprint
+    }
+
+    def "can contain MD5 hashes of different lengths"() {
+        given:
+        def shortHash = HashUtil.createHash("168", "MD5").asByteArray()
+        def longHash = HashUtil.createHash("6", "MD5").asByteArray()
+        def fullHash = HashUtil.createHash("0", "MD5").asByteArray()
+
+        expect:
+        [shortHash, longHash, fullHash]*.length == [15, 16, 17]
+
+        when:
+        def snapshot = new FileCollectionSnapshotImpl(["/a": new FileHashSnapshot(shortHash), "/b": new FileHashSnapshot(longHash), "/c": new DirSnapshot(), "/d": new FileHashSnapshot(fullHash)])
+        def copy = new FileCollectionSnapshotImpl(["/a": new FileHashSnapshot(shortHash), "/b": new FileHashSnapshot(longHash), "/c": new DirSnapshot(), "/d": new FileHashSnapshot(fullHash)])
+        def changed = new FileCollectionSnapshotImpl(["/a": new FileHashSnapshot(longHash), "/b": new FileHashSnapshot(longHash), "/c": new DirSnapshot(), "/d": new FileHashSnapshot(fullHash)])
+
+        then:
+        snapshot.get("/a").hash == shortHash
+        snapshot.get("/b").hash == longHash
+        snapshot.get("/d").hash == fullHash
+        snapshot.fingerprint == copy.fingerprint
+        snapshot.fingerprint != changed.fingerprint
+
+        when:
+        def iterator = changed.iterateChangesSince(snapshot)
+        while (iterator.next(listener)) {}
+
+        then:
+        1 * listener.changed("/a")
+        0 * listener._
+    }
+
+    private static FileHashSnapshot file(int hash) {
+        return new FileHashSnapshot([hash] as byte[])
+    }
+}
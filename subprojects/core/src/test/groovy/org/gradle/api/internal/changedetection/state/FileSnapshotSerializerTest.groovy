@@ -28,8 +28,8 @@ class FileSnapshotSerializerTest extends SerializerSpec {
         DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl out = serialize(snapshot, new FileSnapshotSerializer())
 
         then:
-        out.snapshots.size() == 1
-        out.snapshots['hey'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
+        out.size() == 1
+        out.get('hey') instanceof DefaultFileCollectionSnapshotter.DirSnapshot
     }
 
     def "handles output snapshots"() {
@@ -39,7 +39,7 @@ class FileSnapshotSerializerTest extends SerializerSpec {
         then:
         out.rootFileIds == ["foo": 1L, "bar": 2L]
         DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl filesSnapshot = out.filesSnapshot
-        filesSnapshot.snapshots.size() == 1
-        filesSnapshot.snapshots['hey'] instanceof DefaultFileCollectionSnapshotter.DirSnapshot
+        filesSnapshot.size() == 1
+        filesSnapshot.get('hey') instanceof DefaultFileCollectionSnapshotter.DirSnapshot
     }
 }
@@ -133,4 +133,58 @@ class InMemoryTaskArtifactCacheTest extends Specification {
         0 * target._
     }
 
+    def "records cache statistics"() {
+        given:
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+
+        when:
+        cache.get("key")
+        cache.get("key")
+        cache.get("other")
+
+        then:
+        2 * target.get(_) >> "result"
+
+        and:
+        def statistics = cacheFactory.statistics.find { it.cacheId == "path/fileSnapshots.bin" }
+        statistics.hitCount == 1
+        statistics.missCount == 2
+        statistics.evictionCount == 0
+        statistics.entryCount == 2
+        statistics.estimatedSize > 0
+    }
+
+    def "evicts entries when cache reaches its share of the memory budget"() {
+        given:
+        def cacheFactory = new InMemoryTaskArtifactCache(10000)
+        def cache = cacheFactory.decorate("path/fileSnapshots.bin", "fileSnapshots", target)
+
+        when:
+        100.times { cache.put("key$it".toString(), "value$it".toString()) }
+
+        then:
+        def statistics = cacheFactory.statistics.first()
+        statistics.maxSize == 4000
+        statistics.evictionCount > 0
+        statistics.entryCount < 100
+        statistics.estimatedSize <= statistics.maxSize
+    }
+
+    def "statistics since a previous snapshot include only the activity since then"() {
+        given:
+        def previous = new InMemoryCacheStatistics("cache", 10, 100, 1000, 5, 6, 7)
+        def current = new InMemoryCacheStatistics("cache", 12, 120, 1000, 8, 10, 7)
+
+        when:
+        def result = current.since(previous)
+
+        then:
+        result.cacheId == "cache"
+        result.entryCount == 12
+        result.estimatedSize == 120
+        result.maxSize == 1000
+        result.hitCount == 3
+        result.missCount == 4
+        result.evictionCount == 0
+    }
 }
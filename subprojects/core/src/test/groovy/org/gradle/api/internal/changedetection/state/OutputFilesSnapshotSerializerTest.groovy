@@ -30,7 +30,7 @@ class OutputFilesSnapshotSerializerTest extends SerializerSpec {
         OutputFilesCollectionSnapshotter.OutputFilesSnapshot out = serialize(outputSnapshot, serializer)
 
         then:
-        ((DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl)out.filesSnapshot).snapshots.size() == 1
+        ((DefaultFileCollectionSnapshotter.FileCollectionSnapshotImpl)out.filesSnapshot).size() == 1
         out.rootFileIds == ['x': 14L]
     }
 }
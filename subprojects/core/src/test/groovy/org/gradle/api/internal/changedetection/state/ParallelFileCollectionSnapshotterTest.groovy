@@ -0,0 +1,179 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.file.FileCollection
+import org.gradle.api.file.FileTree
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.hash.CachingHasher
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.UncheckedException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.StoppableExecutor
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.ChangeListener
+import org.junit.Rule
+import spock.lang.Specification
+
+class ParallelFileCollectionSnapshotterTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def executorFactory = new DefaultExecutorFactory()
+    def cacheAccess = Stub(TaskArtifactStateCacheAccess)
+    def cachedHashes = [:]
+    def delegate = Spy(DefaultHasher)
+    def listener = Mock(ChangeListener)
+    CachingHasher hasher
+    ParallelFileCollectionSnapshotter snapshotter
+
+    def setup() {
+        def cache = Stub(PersistentIndexedCache) {
+            get(_) >> { File file -> cachedHashes[file] }
+            put(_, _) >> { File file, value -> cachedHashes[file] = value }
+        }
+        cacheAccess.createCache("fileHashes", File, _) >> cache
+        cacheAccess.useCache(_, _) >> { args -> args[1].run() }
+        hasher = new CachingHasher(delegate, cacheAccess)
+        snapshotter = new ParallelFileCollectionSnapshotter(hasher, cacheAccess, executorFactory, 4)
+    }
+
+    def cleanup() {
+        snapshotter.stop()
+        executorFactory.stop()
+    }
+
+    def "snapshot contains same entries as serial snapshot"() {
+        given:
+        def files = (1..(ParallelFileCollectionSnapshotter.BATCH_SIZE * 2 + 10)).collect { tmpDir.createFile("file$it").write("content $it") }
+        def dir = tmpDir.createDir("dir")
+        def missing = tmpDir.file("missing")
+        def all = files + [dir, missing]
+
+        when:
+        def parallel = snapshotter.snapshot(fileTree(all))
+        def serial = new DefaultFileCollectionSnapshotter(new DefaultHasher(), cacheAccess).snapshot(fileTree(all))
+
+        then:
+        parallel.size() == serial.size()
+        all.every { file -> parallel.get(file.path).isUpToDate(serial.get(file.path)) }
+        parallel.files.files == files as Set
+    }
+
+    def "writes hashes to cache and does not rehash unchanged files"() {
+        given:
+        TestFile file1 = tmpDir.createFile("file1").write("content")
+        TestFile file2 = tmpDir.createFile("file2").write("other")
+
+        when:
+        def snapshot = snapshotter.snapshot(fileTree([file1, file2]))
+
+        then:
+        cachedHashes.keySet() == [file1, file2] as Set
+
+        when:
+        file2.write("changed")
+        file2.setLastModified(file2.lastModified() - 10000)
+        snapshotter.snapshot(fileTree([file1, file2])).iterateChangesSince(snapshot).next(listener)
+
+        then:
+        1 * delegate.hash(file2)
+        0 * delegate.hash(file1)
+        1 * listener.changed(file2.path)
+    }
+
+    def "hashes duplicate files once"() {
+        given:
+        TestFile file = tmpDir.createFile("file").write("content")
+
+        when:
+        def snapshot = snapshotter.snapshot(fileTree([file, file]))
+
+        then:
+        1 * delegate.hash(file)
+        snapshot.size() == 1
+    }
+
+    def "propagates failure to hash file"() {
+        given:
+        TestFile file = tmpDir.createFile("file").write("content")
+        def failure = new RuntimeException("broken")
+
+        when:
+        snapshotter.snapshot(fileTree([file]))
+
+        then:
+        1 * delegate.hash(file) >> { throw failure }
+        def e = thrown(RuntimeException)
+        e.is(failure)
+    }
+
+    def "uses one pool of hash workers for all snapshots"() {
+        given:
+        def factory = Mock(ExecutorFactory)
+        def executor = executorFactory.create("test")
+        snapshotter = new ParallelFileCollectionSnapshotter(hasher, cacheAccess, factory, 4)
+        TestFile file1 = tmpDir.createFile("file1").write("content")
+        TestFile file2 = tmpDir.createFile("file2").write("other")
+
+        when:
+        snapshotter.snapshot(fileTree([file1]))
+        snapshotter.snapshot(fileTree([file2]))
+        snapshotter.stop()
+
+        then:
+        1 * factory.create("File hasher") >> executor
+        cachedHashes.keySet() == [file1, file2] as Set
+    }
+
+    def "fails snapshot when the hash workers are interrupted"() {
+        given:
+        def executor = Stub(StoppableExecutor) {
+            execute(_) >> { Runnable worker ->
+                Thread.currentThread().interrupt()
+                worker.run()
+            }
+        }
+        def factory = Stub(ExecutorFactory) {
+            create(_) >> executor
+        }
+        snapshotter = new ParallelFileCollectionSnapshotter(hasher, cacheAccess, factory, 4)
+        TestFile file = tmpDir.createFile("file").write("content")
+
+        when:
+        snapshotter.snapshot(fileTree([file]))
+
+        then:
+        UncheckedException e = thrown()
+        e.cause instanceof InterruptedException
+    }
+
+    private FileCollection fileTree(List<File> files) {
+        FileTree tree = Stub(FileTree)
+        tree.asFileTree >> tree
+        tree.visit(_ as FileVisitor) >> { FileVisitor visitor ->
+            files.each { file ->
+                visitor.visitFile(Stub(FileVisitDetails) { getFile() >> file })
+            }
+            tree
+        }
+        tree.files >> (files as Set)
+        return tree
+    }
+}
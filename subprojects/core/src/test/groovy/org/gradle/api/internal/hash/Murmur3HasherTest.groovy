@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.hash
+
+import com.google.common.hash.Hashing
+import org.gradle.api.UncheckedIOException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class Murmur3HasherTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Unroll
+    def "produces same hash as guava for #length bytes using mapped reads: #mapped"() {
+        given:
+        def bytes = new byte[length]
+        new Random(length).nextBytes(bytes)
+        def file = tmpDir.file("content.bin")
+        file.bytes = bytes
+
+        expect:
+        new Murmur3Hasher(mapped).hash(file) == Hashing.murmur3_128().hashBytes(bytes).asBytes()
+        Murmur3Hasher.hash(bytes) == Hashing.murmur3_128().hashBytes(bytes).asBytes()
+
+        where:
+        length                                   | mapped
+        0                                        | false
+        1                                        | false
+        15                                       | false
+        16                                       | false
+        17                                       | false
+        64 * 1024 + 5                            | false
+        Murmur3Hasher.MAP_THRESHOLD + 3          | false
+        Murmur3Hasher.MAP_THRESHOLD              | true
+        Murmur3Hasher.MAP_THRESHOLD * 3 + 11     | true
+    }
+
+    def "hash changes when content changes"() {
+        given:
+        def file = tmpDir.file("content.txt")
+        file.text = "content"
+        def hasher = new Murmur3Hasher()
+
+        when:
+        def original = hasher.hash(file)
+        file.text = "other"
+
+        then:
+        hasher.hash(file) != original
+        hasher.hash(file).length == 16
+    }
+
+    def "fails when file does not exist"() {
+        when:
+        new Murmur3Hasher().hash(tmpDir.file("missing"))
+
+        then:
+        thrown(UncheckedIOException)
+    }
+}
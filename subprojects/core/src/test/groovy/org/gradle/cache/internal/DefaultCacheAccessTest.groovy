@@ -444,6 +444,108 @@ class DefaultCacheAccessTest extends ConcurrentSpec {
         0 * lockManager._
     }
 
+    def "multiple threads can use cache at the same time when concurrent use is allowed"() {
+        when:
+        access.open(mode(None).allowConcurrentUse())
+        async {
+            start {
+                access.useCache("first operation") {
+                    instant.firstStarted
+                    thread.blockUntil.secondStarted
+                    access.fileAccess.updateFile {}
+                }
+            }
+            start {
+                thread.blockUntil.firstStarted
+                access.useCache("second operation") {
+                    instant.secondStarted
+                    access.fileAccess.updateFile {}
+                }
+            }
+        }
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).allowConcurrentUse(), "<display-name>", "first operation") >> lock
+        2 * lock.updateFile(_)
+        0 * lock.close()
+
+        and:
+        !access.owner
+    }
+
+    def "last thread to finish using cache closes the lock when contended"() {
+        def contendedAction
+        def closed = false
+
+        when:
+        access.open(mode(None).allowConcurrentUse())
+        async {
+            start {
+                access.useCache("first operation") {
+                    instant.firstStarted
+                    thread.blockUntil.contended
+                }
+                instant.firstFinished
+            }
+            start {
+                thread.blockUntil.firstStarted
+                access.useCache("second operation") {
+                    contendedAction.run()
+                    instant.contended
+                    thread.blockUntil.firstFinished
+                    assert !closed
+                }
+            }
+        }
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).allowConcurrentUse(), "<display-name>", "first operation") >> lock
+        1 * lockManager.allowContention(lock, _) >> { FileLock l, Runnable r -> contendedAction = r }
+        1 * lock.close() >> { closed = true }
+
+        and:
+        closed
+        !access.owner
+    }
+
+    def "new threads wait for the lock to be released when contended"() {
+        def lock2 = Mock(FileLock)
+        def contendedAction
+        def closed = false
+
+        when:
+        access.open(mode(None).allowConcurrentUse())
+        async {
+            start {
+                access.useCache("first operation") {
+                    contendedAction.run()
+                    instant.contended
+                    thread.block()
+                    assert !closed
+                }
+            }
+            start {
+                thread.blockUntil.contended
+                access.useCache("second operation") {
+                    instant.secondStarted
+                    assert closed
+                }
+            }
+        }
+
+        then:
+        1 * lockManager.lock(lockFile, mode(Exclusive).allowConcurrentUse(), "<display-name>", "first operation") >> lock
+        1 * lockManager.allowContention(lock, _) >> { FileLock l, Runnable r -> contendedAction = r }
+        1 * lock.close() >> { closed = true }
+
+        and:
+        1 * lockManager.lock(lockFile, mode(Exclusive).allowConcurrentUse(), "<display-name>", "second operation") >> lock2
+        1 * lockManager.allowContention(lock2, _)
+
+        and:
+        !access.owner
+    }
+
     def "can create new cache"() {
         when:
         def cache = access.newCache(new PersistentIndexedCacheParameters('cache', String.class, Integer.class))
@@ -17,9 +17,9 @@ package org.gradle.cache.internal
 
 import org.gradle.internal.Factory
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
-import spock.lang.Specification
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
-class MultiProcessSafePersistentIndexedCacheTest extends Specification {
+class MultiProcessSafePersistentIndexedCacheTest extends ConcurrentSpec {
     final FileAccess fileAccess = Mock()
     final Factory<BTreePersistentIndexedCache<String, String>> factory = Mock()
     final cache = new DefaultMultiProcessSafePersistentIndexedCache<String, String>(factory, fileAccess)
@@ -50,6 +50,67 @@ class MultiProcessSafePersistentIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "multiple threads can get entries from cache at the same time"() {
+        given:
+        cacheOpened()
+
+        when:
+        async {
+            start {
+                assert cache.get("first") == "first"
+            }
+            start {
+                assert cache.get("second") == "second"
+            }
+        }
+
+        then:
+        2 * fileAccess.readFile(!null) >> { Factory action -> action.create() }
+        1 * backingCache.get("first") >> {
+            instant.firstStarted
+            thread.blockUntil.secondStarted
+            "first"
+        }
+        1 * backingCache.get("second") >> {
+            instant.secondStarted
+            thread.blockUntil.firstStarted
+            "second"
+        }
+        0 * _._
+    }
+
+    def "put waits until entries have been read from cache"() {
+        given:
+        cacheOpened()
+
+        when:
+        async {
+            start {
+                cache.get("key")
+            }
+            start {
+                thread.blockUntil.getStarted
+                cache.put("key", "value")
+                instant.putFinished
+            }
+        }
+
+        then:
+        1 * fileAccess.readFile(!null) >> { Factory action -> action.create() }
+        1 * backingCache.get("key") >> {
+            instant.getStarted
+            thread.block()
+            instant.getFinished
+            "result"
+        }
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.put("key", "value")
+        0 * _._
+
+        and:
+        instant.putFinished > instant.getFinished
+    }
+
     def "holds write lock while putting entry into cache"() {
         given:
         cacheOpened()
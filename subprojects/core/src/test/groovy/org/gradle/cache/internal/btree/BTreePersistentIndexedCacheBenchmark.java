@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree;
+
+import org.gradle.messaging.serialize.Decoder;
+import org.gradle.messaging.serialize.DefaultSerializer;
+import org.gradle.messaging.serialize.Encoder;
+import org.gradle.messaging.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the lookup performance of a file hash cache read using {@link java.io.RandomAccessFile} with one read through memory mapped regions.
+ * The cache has the same shape as the {@code fileHashes} cache. This is not run as part of the tests.
+ *
+ * <p>Usage: {@code BTreePersistentIndexedCacheBenchmark [entries] [rounds]}</p>
+ */
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final Serializer<File> KEY_SERIALIZER = new DefaultSerializer<File>();
+    private static final Serializer<byte[][]> VALUE_SERIALIZER = new FileInfoSerializer();
+
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        File cacheFile = File.createTempFile("fileHashes", ".bin");
+        try {
+            List<File> keys = new ArrayList<File>(entries);
+            for (int i = 0; i < entries; i++) {
+                keys.add(new File(String.format("/some/project/module%d/src/main/java/org/gradle/Type%d.java", i % 100, i)));
+            }
+            populate(cacheFile, keys);
+            System.out.println(String.format("Cache file %s contains %d entries (%d bytes)", cacheFile, entries, cacheFile.length()));
+
+            Collections.shuffle(keys, new Random(1));
+            for (int round = 0; round < rounds; round++) {
+                long fileBacked = lookup(cacheFile, keys, false);
+                long mapped = lookup(cacheFile, keys, true);
+                System.out.println(String.format("Round %d: file backed %d ms, memory mapped %d ms", round + 1, fileBacked, mapped));
+            }
+        } finally {
+            cacheFile.delete();
+        }
+    }
+
+    private static void populate(File cacheFile, List<File> keys) {
+        BTreePersistentIndexedCache<File, byte[][]> cache = open(cacheFile, false);
+        try {
+            Random random = new Random(0);
+            for (File key : keys) {
+                byte[] hash = new byte[16];
+                random.nextBytes(hash);
+                cache.put(key, new byte[][]{hash, new byte[16]});
+            }
+        } finally {
+            cache.close();
+        }
+    }
+
+    private static long lookup(File cacheFile, List<File> keys, boolean memoryMapped) {
+        long start = System.nanoTime();
+        BTreePersistentIndexedCache<File, byte[][]> cache = open(cacheFile, memoryMapped);
+        try {
+            for (File key : keys) {
+                if (cache.get(key) == null) {
+                    throw new IllegalStateException(String.format("No entry found for %s.", key));
+                }
+            }
+        } finally {
+            cache.close();
+        }
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static BTreePersistentIndexedCache<File, byte[][]> open(File cacheFile, boolean memoryMapped) {
+        return new BTreePersistentIndexedCache<File, byte[][]>(cacheFile, KEY_SERIALIZER, VALUE_SERIALIZER, (short) 512, 512, memoryMapped);
+    }
+
+    /**
+     * Writes the same number of bytes as the serializer used for the entries of the {@code fileHashes} cache.
+     */
+    private static class FileInfoSerializer implements Serializer<byte[][]> {
+        public byte[][] read(Decoder decoder) throws Exception {
+            byte[] hash = decoder.readBinary();
+            byte[] timestampAndLength = new byte[16];
+            decoder.readBytes(timestampAndLength);
+            return new byte[][]{hash, timestampAndLength};
+        }
+
+        public void write(Encoder encoder, byte[][] value) throws Exception {
+            encoder.writeBinary(value[0]);
+            encoder.writeBytes(value[1]);
+        }
+    }
+}
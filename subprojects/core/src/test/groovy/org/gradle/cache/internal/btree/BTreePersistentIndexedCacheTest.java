@@ -161,6 +161,25 @@ public class BTreePersistentIndexedCacheTest {
         assertThat(cacheFile.length(), lessThan((long) (1.4 * 1.4 * len)));
     }
 
+    @Test
+    public void readsSameEntriesThroughMemoryMappedRegions() {
+        List<Integer> values = new ArrayList<Integer>();
+        for (int i = 0; i < 2000; i++) {
+            values.add(i);
+        }
+        checkAdds(values);
+        cache.close();
+
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, true);
+        Collections.shuffle(values, new Random(1));
+        for (Integer value : values) {
+            assertThat(cache.get(String.format("key_%d", value)), equalTo(value));
+        }
+
+        checkAdds(2000, 2001, 2002);
+        cache.verify();
+    }
+
     @Test
     public void persistsRemovalOfEntries() {
         checkAddsAndRemoves(1, 2, 3, 4, 5);
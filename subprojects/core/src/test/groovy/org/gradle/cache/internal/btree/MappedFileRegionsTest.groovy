@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.btree
+
+import org.gradle.messaging.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(TestPrecondition.NOT_WINDOWS)
+class MappedFileRegionsTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def file = tmpDir.file("file.bin")
+    RandomAccessFile randomAccessFile
+
+    def cleanup() {
+        randomAccessFile?.close()
+    }
+
+    def "reads content that spans multiple regions"() {
+        given:
+        def bytes = (0..99).collect { it as byte } as byte[]
+        file.bytes = bytes
+        def regions = open(16)
+
+        expect:
+        readAll(regions.openStream(0, 100)) == bytes
+        readAll(regions.openStream(30, 100)) == bytes[30..99] as byte[]
+        regions.openStream(95, 100).read() == 95
+        regions.openStream(100, 100).read() == -1
+    }
+
+    def "reads content written after region was mapped"() {
+        given:
+        randomAccessFile = new RandomAccessFile(file, "rw")
+        randomAccessFile.write([1, 2, 3] as byte[])
+        def regions = new MappedFileRegions(randomAccessFile.channel, 16)
+
+        expect:
+        readAll(regions.openStream(0, 3)) == [1, 2, 3] as byte[]
+
+        when:
+        randomAccessFile.seek(1)
+        randomAccessFile.write([4, 5, 6, 7] as byte[])
+
+        then:
+        readAll(regions.openStream(0, 5)) == [1, 4, 5, 6, 7] as byte[]
+    }
+
+    def "cache persists entries when memory mapped"() {
+        given:
+        def cacheFile = tmpDir.file("cache.bin")
+        def cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), (short) 4, 100, true)
+
+        when:
+        (0..999).each { cache.put("key_$it".toString(), it) }
+        cache.reset()
+
+        then:
+        (0..999).every { cache.get("key_$it".toString()) == it }
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    private MappedFileRegions open(int regionSize) {
+        randomAccessFile = new RandomAccessFile(file, "r")
+        return new MappedFileRegions(randomAccessFile.channel, regionSize)
+    }
+
+    private static byte[] readAll(InputStream inputStream) {
+        def outputStream = new ByteArrayOutputStream()
+        def buffer = new byte[7]
+        int count
+        while ((count = inputStream.read(buffer)) >= 0) {
+            outputStream.write(buffer, 0, count)
+        }
+        return outputStream.toByteArray()
+    }
+}
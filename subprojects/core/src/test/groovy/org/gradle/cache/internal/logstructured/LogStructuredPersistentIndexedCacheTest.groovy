@@ -0,0 +1,317 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.cache.internal.logstructured
+
+import org.gradle.messaging.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+import org.junit.Rule
+
+class LogStructuredPersistentIndexedCacheTest extends ConcurrentSpec {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    TestFile logFile = tmpDir.file("cache.log")
+    LogStructuredPersistentIndexedCache<String, Integer> cache
+
+    def cleanup() {
+        cache?.close()
+    }
+
+    def "get returns null when entry does not exist"() {
+        when:
+        cache = open()
+
+        then:
+        cache.get("unknown") == null
+    }
+
+    def "persists added, replaced and removed entries"() {
+        given:
+        cache = open()
+
+        when:
+        (1..10).each { cache.put("key_$it".toString(), it) }
+        cache.put("key_2", 12)
+        cache.remove("key_3")
+        cache.remove("unknown")
+
+        then:
+        checkEntries()
+
+        when:
+        cache.reset()
+
+        then:
+        checkEntries()
+    }
+
+    def "appends changes to the end of the log"() {
+        given:
+        cache = open()
+        cache.put("key", 1)
+        def length = logFile.length()
+
+        when:
+        cache.put("key", 2)
+
+        then:
+        logFile.length() > length
+        cache.get("key") == 2
+    }
+
+    def "discards incomplete entry at the end of the log"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        cache.put("key_2", 2)
+        def length = logFile.length()
+        cache.put("key_3", 3)
+        cache.close()
+
+        when:
+        truncate(logFile.length() - 3)
+        cache = open()
+
+        then:
+        cache.get("key_1") == 1
+        cache.get("key_2") == 2
+        cache.get("key_3") == null
+        logFile.length() == length
+
+        when:
+        cache.put("key_4", 4)
+        cache.reset()
+
+        then:
+        cache.get("key_2") == 2
+        cache.get("key_4") == 4
+    }
+
+    def "discards entry that does not match its checksum and the entries that follow it"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        def length = logFile.length()
+        cache.put("key_2", 2)
+        cache.put("key_3", 3)
+        cache.close()
+
+        when:
+        def bytes = logFile.bytes
+        int index = (int) length + 10
+        bytes[index] = (byte) (bytes[index] ^ 0xff)
+        logFile.bytes = bytes
+        cache = open()
+
+        then:
+        cache.get("key_1") == 1
+        cache.get("key_2") == null
+        cache.get("key_3") == null
+        logFile.length() == length
+    }
+
+    def "discards log with unknown format"() {
+        given:
+        logFile.text = "not a log"
+
+        when:
+        cache = open()
+        cache.put("key", 1)
+        cache.reset()
+
+        then:
+        cache.get("key") == 1
+    }
+
+    def "compacts log on close when most entries have been replaced"() {
+        given:
+        cache = open()
+        (1..5).each { cache.put("key_$it".toString(), it) }
+        def length = logFile.length()
+        10.times { (1..5).each { cache.put("key_$it".toString(), it * 10) } }
+        cache.remove("key_5")
+
+        when:
+        cache.close()
+        cache = open()
+
+        then:
+        logFile.length() < length
+        (1..4).every { cache.get("key_$it".toString()) == it * 10 }
+        cache.get("key_5") == null
+        !new File(logFile.path + ".tmp").exists()
+    }
+
+    def "does not compact log when few entries have been replaced"() {
+        given:
+        cache = open()
+        (1..5).each { cache.put("key_$it".toString(), it) }
+        cache.put("key_1", 10)
+        def length = logFile.length()
+
+        when:
+        cache.close()
+        cache = open()
+
+        then:
+        logFile.length() == length
+        cache.get("key_1") == 10
+    }
+
+    def "discards entry that is found to be corrupt when it is read"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        def length = logFile.length()
+        cache.put("key_2", 2)
+
+        when:
+        def file = new RandomAccessFile(logFile, "rw")
+        try {
+            file.seek(length + 10)
+            int b = file.read()
+            file.seek(length + 10)
+            file.write(b ^ 0xff)
+        } finally {
+            file.close()
+        }
+
+        then:
+        cache.get("key_2") == null
+        cache.get("key_1") == 1
+
+        when:
+        cache.put("key_2", 12)
+
+        then:
+        cache.get("key_2") == 12
+    }
+
+    def "discards entry that has been truncated since the cache was opened"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        def length = logFile.length()
+        cache.put("key_2", 2)
+
+        when:
+        truncate(length + 4)
+
+        then:
+        cache.get("key_2") == null
+        cache.get("key_1") == 1
+        logFile.length() == length + 4
+
+        when:
+        cache.put("key_3", 3)
+
+        then:
+        cache.get("key_2") == null
+
+        when:
+        cache.reset()
+
+        then:
+        cache.get("key_1") == 1
+        cache.get("key_3") == 3
+    }
+
+    def "multiple threads can get entries at the same time"() {
+        given:
+        cache = open()
+        (1..100).each { cache.put("key_$it".toString(), it) }
+
+        expect:
+        async {
+            4.times {
+                start {
+                    (1..100).each { assert cache.get("key_$it".toString()) == it }
+                }
+            }
+        }
+    }
+
+    def "compacts log on open when most entries have been replaced"() {
+        given:
+        cache = open(Long.MAX_VALUE)
+        (1..5).each { cache.put("key_$it".toString(), it) }
+        def length = logFile.length()
+        10.times { (1..5).each { cache.put("key_$it".toString(), it * 10) } }
+        cache.close()
+
+        when:
+        cache = open()
+
+        then:
+        logFile.length() == length
+        (1..5).every { cache.get("key_$it".toString()) == it * 10 }
+    }
+
+    def "completes compaction that was interrupted after the old log was deleted"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        cache.put("key_2", 2)
+        cache.close()
+        def compactedFile = new TestFile(logFile.path + ".tmp")
+        logFile.renameTo(compactedFile)
+
+        when:
+        cache = open()
+
+        then:
+        cache.get("key_1") == 1
+        cache.get("key_2") == 2
+        logFile.exists()
+        !compactedFile.exists()
+    }
+
+    def "discards compacted log that was not completely written"() {
+        given:
+        cache = open()
+        cache.put("key_1", 1)
+        cache.close()
+        def compactedFile = new TestFile(logFile.path + ".tmp")
+        compactedFile.text = "partial"
+
+        when:
+        cache = open()
+
+        then:
+        cache.get("key_1") == 1
+        !compactedFile.exists()
+    }
+
+    private void checkEntries() {
+        assert cache.get("key_1") == 1
+        assert cache.get("key_2") == 12
+        assert cache.get("key_3") == null
+        assert (4..10).every { cache.get("key_$it".toString()) == it }
+    }
+
+    private void truncate(long length) {
+        def file = new RandomAccessFile(logFile, "rw")
+        try {
+            file.setLength(length)
+        } finally {
+            file.close()
+        }
+    }
+
+    private LogStructuredPersistentIndexedCache<String, Integer> open(long minCompactionSize = 0) {
+        return new LogStructuredPersistentIndexedCache<String, Integer>(logFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), minCompactionSize)
+    }
+}
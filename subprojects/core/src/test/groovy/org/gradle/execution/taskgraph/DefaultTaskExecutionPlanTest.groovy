@@ -734,6 +734,80 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         t3.task.project != t4.task.project
     }
 
+    def "executes ready tasks in plan order when no durations are known"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        addToGraphAndPopulate([a, c])
+
+        when:
+        executionPlan.prioritizeCriticalPath(durations([:]))
+
+        then:
+        executedTasks == [a, b, c]
+    }
+
+    def "executes ready task with the longest chain of waiting tasks first"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", dependsOn: [b])
+        addToGraphAndPopulate([a, c])
+
+        when:
+        executionPlan.prioritizeCriticalPath(durations(":a": 8, ":b": 5, ":c": 10))
+
+        then:
+        executedTasks == [b, c, a]
+    }
+
+    def "estimates duration of task with unknown duration as the average of the known durations"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c")
+        addToGraphAndPopulate([a, b, c])
+
+        when:
+        executionPlan.prioritizeCriticalPath(durations(":b": 3, ":c": 9))
+
+        then:
+        executedTasks == [c, a, b]
+    }
+
+    def "includes #orderingRule tasks in the chain of waiting tasks"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        Task c = task("c", (orderingRule): [a])
+        addToGraphAndPopulate([a, b, c])
+
+        when:
+        executionPlan.prioritizeCriticalPath(durations(":a": 1, ":b": 5, ":c": 10))
+
+        then:
+        executedTasks == [a, c, b]
+
+        where:
+        orderingRule << ['dependsOn', 'mustRunAfter']
+    }
+
+    def "clear discards task priorities"() {
+        given:
+        Task a = task("a")
+        Task b = task("b")
+        addToGraphAndPopulate([a, b])
+        executionPlan.prioritizeCriticalPath(durations(":a": 1, ":b": 5))
+
+        when:
+        executionPlan.clear()
+        addToGraphAndPopulate([a, b])
+
+        then:
+        executedTasks == [a, b]
+    }
+
     void executes(Task... expectedTasks) {
         assert executionPlan.tasks == expectedTasks as List
         assert expectedTasks == expectedTasks as List
@@ -749,6 +823,14 @@ public class DefaultTaskExecutionPlanTest extends Specification {
         return tasks
     }
 
+    private TaskDurationHistory durations(Map<String, Long> durations) {
+        Stub(TaskDurationHistory) {
+            getStatistics(_ as Collection) >> { Collection<String> paths ->
+                paths.findAll { durations[it] != null }.collectEntries { [it, new TaskDurationStatistics(durations[it] as long)] }
+            }
+        }
+    }
+
     private TaskDependency taskDependencyResolvingTo(TaskInternal task, List<Task> tasks) {
         Mock(TaskDependency) {
             getDependencies(task) >> tasks
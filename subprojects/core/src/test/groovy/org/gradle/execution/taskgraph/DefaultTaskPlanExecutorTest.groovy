@@ -18,16 +18,19 @@ package org.gradle.execution.taskgraph
 
 import org.gradle.api.execution.TaskExecutionListener
 import org.gradle.api.internal.TaskInternal
+import org.gradle.api.tasks.TaskState
 import spock.lang.Specification
 
 class DefaultTaskPlanExecutorTest extends Specification {
     def taskPlan = Mock(TaskExecutionPlan)
     def executionListener = Mock(TaskExecutionListener)
-    def executor = new DefaultTaskPlanExecutor()
+    def durationHistory = Mock(TaskDurationHistory)
+    def executor = new DefaultTaskPlanExecutor(durationHistory)
 
     def "executes tasks until no further tasks remain"() {
         def task = Mock(TaskInternal)
         def taskInfo = new TaskInfo(task)
+        task.state >> Stub(TaskState)
 
         when:
         executor.process(taskPlan, executionListener)
@@ -42,6 +45,57 @@ class DefaultTaskPlanExecutorTest extends Specification {
         1 * taskPlan.awaitCompletion()
     }
 
+    def "records duration of task that did its work"() {
+        def task = Mock(TaskInternal)
+        def taskInfo = new TaskInfo(task)
+        task.path >> ":task"
+        task.state >> Stub(TaskState)
+
+        when:
+        executor.process(taskPlan, executionListener)
+
+        then:
+        1 * taskPlan.taskToExecute >> taskInfo
+        1 * taskPlan.taskToExecute >> null
+        1 * durationHistory.recordDuration(":task", { it >= 0 })
+    }
+
+    def "continues executing tasks when duration cannot be recorded"() {
+        def task1 = Mock(TaskInternal)
+        def task2 = Mock(TaskInternal)
+        def taskInfo1 = new TaskInfo(task1)
+        def taskInfo2 = new TaskInfo(task2)
+        task1.path >> ":task1"
+        task1.state >> Stub(TaskState)
+        task2.state >> Stub(TaskState)
+
+        when:
+        executor.process(taskPlan, executionListener)
+
+        then:
+        1 * taskPlan.taskToExecute >> taskInfo1
+        1 * durationHistory.recordDuration(":task1", _) >> { throw new RuntimeException("broken") }
+        1 * taskPlan.taskToExecute >> taskInfo2
+        1 * task2.executeWithoutThrowingTaskFailure()
+        1 * taskPlan.taskToExecute >> null
+    }
+
+    def "does not record duration of task that was skipped"() {
+        def task = Mock(TaskInternal)
+        def taskInfo = new TaskInfo(task)
+        task.state >> Stub(TaskState) {
+            getSkipped() >> true
+        }
+
+        when:
+        executor.process(taskPlan, executionListener)
+
+        then:
+        1 * taskPlan.taskToExecute >> taskInfo
+        1 * taskPlan.taskToExecute >> null
+        0 * durationHistory._
+    }
+
     def "rethrows task execution failure"() {
         def failure = new RuntimeException()
 
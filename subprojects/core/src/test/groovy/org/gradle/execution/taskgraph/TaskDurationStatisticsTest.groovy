@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.taskgraph
+
+import spock.lang.Specification
+
+class TaskDurationStatisticsTest extends Specification {
+    def "calculates statistics from durations"() {
+        when:
+        def statistics = new TaskDurationStatistics(40, 10, 30, 20)
+
+        then:
+        statistics.sampleCount == 4
+        statistics.lastDuration == 20
+        statistics.averageDuration == 25
+        statistics.getPercentile(1) == 10
+        statistics.getPercentile(25) == 10
+        statistics.getPercentile(50) == 20
+        statistics.getPercentile(90) == 40
+        statistics.getPercentile(100) == 40
+    }
+
+    def "adding a duration does not change the original statistics"() {
+        given:
+        def statistics = new TaskDurationStatistics(10)
+
+        when:
+        def updated = statistics.add(30)
+
+        then:
+        updated.samples == [10, 30] as long[]
+        updated.lastDuration == 30
+        updated.averageDuration == 20
+        statistics.samples == [10] as long[]
+    }
+
+    def "discards the oldest duration when maximum number of durations is reached"() {
+        given:
+        def statistics = new TaskDurationStatistics(1)
+        (2..TaskDurationStatistics.MAX_SAMPLES).each { statistics = statistics.add(it) }
+
+        when:
+        def updated = statistics.add(100)
+
+        then:
+        statistics.sampleCount == TaskDurationStatistics.MAX_SAMPLES
+        updated.sampleCount == TaskDurationStatistics.MAX_SAMPLES
+        updated.samples.first() == 2
+        updated.lastDuration == 100
+    }
+
+    def "cannot create statistics from #durations.length durations"() {
+        when:
+        new TaskDurationStatistics(durations)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        durations << [new long[0], new long[TaskDurationStatistics.MAX_SAMPLES + 1]]
+    }
+
+    def "cannot get invalid percentile"() {
+        when:
+        new TaskDurationStatistics(10).getPercentile(percentile)
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        percentile << [0, 101]
+    }
+}
@@ -24,10 +24,11 @@ import spock.lang.Specification
 public class TaskPlanExecutorFactoryTest extends Specification {
     final TaskArtifactStateCacheAccess cache = Mock()
     final ExecutorFactory executorFactory = Mock()
+    final TaskDurationHistory durationHistory = Mock()
 
     def "creates a default executor"() {
         when:
-        def factory = new TaskPlanExecutorFactory(0, executorFactory)
+        def factory = new TaskPlanExecutorFactory(0, executorFactory, durationHistory)
 
         then:
         factory.create().class == DefaultTaskPlanExecutor
@@ -35,7 +36,7 @@ public class TaskPlanExecutorFactoryTest extends Specification {
 
     def "creates a parallel executor"() {
         when:
-        def factory = new TaskPlanExecutorFactory(parallelExecuterCount, executorFactory)
+        def factory = new TaskPlanExecutorFactory(parallelExecuterCount, executorFactory, durationHistory)
 
         then:
         factory.create().class == ParallelTaskPlanExecutor
@@ -45,7 +45,7 @@ import org.gradle.logging.ProgressLoggerFactory
 import org.gradle.messaging.remote.MessagingServer
 import org.gradle.process.internal.DefaultWorkerProcessFactory
 import org.gradle.process.internal.WorkerProcessBuilder
-import org.gradle.profile.ProfileEventAdapter
+import org.gradle.process.internal.WorkerProcessPool
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -210,6 +210,7 @@ public class BuildScopeServicesTest extends Specification {
     def providesAWorkerProcessFactory() {
         setup:
         expectParentServiceLocated(MessagingServer)
+        parent.get(WorkerProcessPool) >> new WorkerProcessPool()
         allowGetCoreImplClassLoader()
 
         expect:
@@ -255,16 +256,6 @@ public class BuildScopeServicesTest extends Specification {
         assertThat(registry.get(BuildLoader), sameInstance(registry.get(BuildLoader)))
     }
 
-    def providesAProfileEventAdapter() {
-        setup:
-        expectParentServiceLocated(BuildRequestMetaData)
-        expectListenerManagerCreated()
-
-        expect:
-        assertThat(registry.get(ProfileEventAdapter), instanceOf(ProfileEventAdapter))
-        assertThat(registry.get(ProfileEventAdapter), sameInstance(registry.get(ProfileEventAdapter)))
-    }
-
     def "provides a project registry"() {
         when:
         def projectRegistry = registry.get(ProjectRegistry)
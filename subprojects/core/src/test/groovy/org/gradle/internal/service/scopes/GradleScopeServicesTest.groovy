@@ -30,10 +30,13 @@ import org.gradle.execution.DefaultBuildExecuter
 import org.gradle.execution.TaskGraphExecuter
 import org.gradle.execution.TaskSelector
 import org.gradle.execution.taskgraph.DefaultTaskGraphExecuter
+import org.gradle.initialization.BuildRequestMetaData
+import org.gradle.internal.TimeProvider
 import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.environment.GradleBuildEnvironment
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.listener.ListenerManager
+import org.gradle.profile.ProfileEventAdapter
 import spock.lang.Specification
 
 import static org.hamcrest.Matchers.sameInstance
@@ -57,6 +60,8 @@ public class GradleScopeServicesTest extends Specification {
         parent.get(PluginRegistry) >> pluginRegistryParent
         parent.get(DependencyManagementServices) >> Stub(DependencyManagementServices)
         parent.get(ExecutorFactory) >> Stub(ExecutorFactory)
+        parent.get(BuildRequestMetaData) >> Stub(BuildRequestMetaData)
+        parent.get(TimeProvider) >> Stub(TimeProvider)
         gradle.getStartParameter() >> startParameter
         pluginRegistryParent.createChild(_, _) >> pluginRegistryChild
     }
@@ -141,6 +146,16 @@ public class GradleScopeServicesTest extends Specification {
         secondSelector sameInstance(selector)
     }
 
+    def "provides a profile event adapter"() {
+        when:
+        def adapter = registry.get(ProfileEventAdapter)
+        def secondAdapter = registry.get(ProfileEventAdapter)
+
+        then:
+        adapter instanceof ProfileEventAdapter
+        secondAdapter sameInstance(adapter)
+    }
+
     def "provides an option reader"() {
         when:
         def optionReader = registry.get(OptionReader)
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.process.internal.child.EncodedStream
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+
+class WorkerProcessPoolTest extends Specification {
+    final WorkerProcessPool pool = new WorkerProcessPool()
+
+    def "reuses idle process with the same key"() {
+        def process1 = process("a")
+        def process2 = process("b")
+
+        given:
+        pool.release(process1)
+        pool.release(process2)
+
+        expect:
+        pool.acquire("b") == process2
+        pool.acquire("b") == null
+        pool.acquire("a") == process1
+        pool.idleCount == 0
+    }
+
+    def "does not reuse process that has stopped"() {
+        def execHandle = Mock(ExecHandle)
+        def process = new WorkerProcessPool.PooledProcess("a", execHandle, new WorkerProcessPool.WorkerInput())
+        def state = ExecHandleState.STARTED
+        _ * execHandle.state >> { state }
+
+        given:
+        pool.release(process)
+        state = ExecHandleState.FAILED
+
+        expect:
+        pool.acquire("a") == null
+        pool.idleCount == 0
+
+        when:
+        pool.release(process)
+
+        then:
+        pool.idleCount == 0
+    }
+
+    def "stops least recently used process when there are too many idle processes"() {
+        def execHandle = Mock(ExecHandle)
+        def leastRecentlyUsed = new WorkerProcessPool.PooledProcess("a", execHandle, new WorkerProcessPool.WorkerInput())
+        _ * execHandle.state >> ExecHandleState.STARTED
+
+        given:
+        pool.release(leastRecentlyUsed)
+
+        when:
+        WorkerProcessPool.MAX_IDLE_PROCESSES.times { pool.release(process("b")) }
+
+        then:
+        1 * execHandle.waitForFinish()
+        pool.idleCount == WorkerProcessPool.MAX_IDLE_PROCESSES
+        pool.acquire("a") == null
+    }
+
+    def "stops idle processes and released processes when stopped"() {
+        def execHandle1 = Mock(ExecHandle)
+        def execHandle2 = Mock(ExecHandle)
+        def input = new WorkerProcessPool.WorkerInput()
+        def process1 = new WorkerProcessPool.PooledProcess("a", execHandle1, input)
+        def process2 = new WorkerProcessPool.PooledProcess("a", execHandle2, new WorkerProcessPool.WorkerInput())
+        _ * execHandle1.state >> ExecHandleState.STARTED
+        _ * execHandle2.state >> ExecHandleState.STARTED
+
+        given:
+        pool.release(process1)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * execHandle1.waitForFinish()
+        input.read() == -1
+
+        when:
+        pool.release(process2)
+
+        then:
+        1 * execHandle2.waitForFinish()
+        pool.idleCount == 0
+    }
+
+    def "sends workers to process standard input"() {
+        def input = new WorkerProcessPool.WorkerInput()
+        def process = new WorkerProcessPool.PooledProcess("a", Stub(ExecHandle), input)
+
+        when:
+        process.execute(new TestWorker("one"))
+        process.execute(new TestWorker("two"))
+        input.close()
+
+        then:
+        def instr = new DataInputStream(new EncodedStream.EncodedInput(input))
+        readWorker(instr).call() == "one"
+        readWorker(instr).call() == "two"
+        instr.read() == -1
+    }
+
+    def "uses same key for same command and different key for different working directory"() {
+        def command1 = new JavaExecHandleBuilder(TestFiles.resolver())
+        command1.main = "Main"
+        command1.jvmArgs = ["-Xmx64m"]
+        command1.workingDir = new File("a")
+        def command2 = new JavaExecHandleBuilder(TestFiles.resolver())
+        command2.main = "Main"
+        command2.jvmArgs = ["-Xmx64m"]
+        command2.workingDir = new File("a")
+        def command3 = new JavaExecHandleBuilder(TestFiles.resolver())
+        command3.main = "Main"
+        command3.jvmArgs = ["-Xmx64m"]
+        command3.workingDir = new File("b")
+
+        expect:
+        WorkerProcessPool.keyOf(command1) == WorkerProcessPool.keyOf(command2)
+        WorkerProcessPool.keyOf(command1) != WorkerProcessPool.keyOf(command3)
+    }
+
+    private WorkerProcessPool.PooledProcess process(String key) {
+        def execHandle = Stub(ExecHandle) {
+            getState() >> ExecHandleState.STARTED
+        }
+        return new WorkerProcessPool.PooledProcess(key, execHandle, new WorkerProcessPool.WorkerInput())
+    }
+
+    private static Callable<?> readWorker(DataInputStream instr) {
+        def bytes = new byte[instr.readInt()]
+        instr.readFully(bytes)
+        return new ObjectInputStream(new ByteArrayInputStream(bytes)).readObject() as Callable<?>
+    }
+
+    static class TestWorker implements Callable<String>, Serializable {
+        final String value
+
+        TestWorker(String value) {
+            this.value = value
+        }
+
+        String call() {
+            return value
+        }
+    }
+}
@@ -57,6 +57,8 @@ public class ImplementationClassLoaderWorkerTest {
             allowing(workerContext).getApplicationClassLoader();
             will(returnValue(applicationClassLoader));
             one(action).execute(workerContext);
+            one(loggingManager).stop();
+            will(returnValue(loggingManager));
         }});
 
 
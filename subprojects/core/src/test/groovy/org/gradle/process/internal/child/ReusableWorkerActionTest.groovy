@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child
+
+import org.gradle.api.Action
+import org.gradle.messaging.remote.ObjectConnection
+import org.gradle.process.internal.WorkerProcessContext
+import spock.lang.Specification
+
+class ReusableWorkerActionTest extends Specification {
+    final Action<WorkerProcessContext> action = Mock()
+    final WorkerProcessContext workerProcessContext = Mock()
+    final ObjectConnection connection = Mock()
+    final WorkerCompletionListener completionListener = Mock()
+    final ReusableWorkerAction worker = new ReusableWorkerAction(action)
+
+    def setup() {
+        _ * workerProcessContext.serverConnection >> connection
+    }
+
+    def "notifies server once the action has completed"() {
+        when:
+        worker.execute(workerProcessContext)
+
+        then:
+        1 * action.execute(_) >> { WorkerProcessContext context ->
+            context.serverConnection.addOutgoing(Runnable)
+            context.serverConnection.connect()
+        }
+        1 * connection.addOutgoing(Runnable)
+
+        then:
+        1 * connection.addOutgoing(WorkerCompletionListener) >> completionListener
+
+        then:
+        1 * connection.connect()
+
+        then:
+        1 * completionListener.workerCompleted()
+    }
+
+    def "does not notify server when the action fails"() {
+        def failure = new RuntimeException()
+
+        when:
+        worker.execute(workerProcessContext)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        1 * action.execute(_) >> { WorkerProcessContext context ->
+            context.serverConnection.connect()
+            throw failure
+        }
+        1 * connection.addOutgoing(WorkerCompletionListener) >> completionListener
+        0 * completionListener._
+    }
+}
@@ -17,7 +17,9 @@
 package org.gradle.profile
 
 import org.gradle.StartParameter
+import org.gradle.api.internal.changedetection.state.InMemoryCacheStatistics
 import org.gradle.api.tasks.TaskState
+import org.gradle.execution.taskgraph.TaskDurationStatistics
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -219,6 +221,59 @@ class ProfileReportRendererTest extends Specification {
 </div>"""))
     }
 
+    def "renders task artifact cache statistics when available"() {
+        def model = new BuildProfile(new StartParameter())
+        def file = temp.file("report.html")
+        model.taskArtifactCacheStatistics = [new InMemoryCacheStatistics("fileHashes.bin", 20, 2048, 3 * 1024 * 1024, 12, 8, 2)]
+
+        when:
+        new ProfileReportRenderer().writeTo(model, file)
+
+        then:
+        file.text.contains(toPlatformLineSeparators("""<li>
+<a href="#tab4">Task Artifact Caches</a>
+</li>"""))
+        file.text.contains(toPlatformLineSeparators("""<tr>
+<td>fileHashes.bin</td>
+<td class="numeric">12</td>
+<td class="numeric">8</td>
+<td class="numeric">2</td>
+<td class="numeric">20</td>
+<td class="numeric">2.0 KB</td>
+<td class="numeric">3.0 MB</td>
+</tr>"""))
+    }
+
+    def "renders durations of tasks in previous builds when available"() {
+        def model = new BuildProfile(new StartParameter())
+        def file = temp.file("report.html")
+        model.buildStarted = time(12, 20, 0)
+        model.buildFinished = time(12, 30, 0)
+        model.getProjectProfile("a").getTaskProfile("a:foo").completed(Stub(TaskState)).setStart(time(12, 25, 0)).setFinish(time(12, 26, 30))
+            .setPreviousDurations(new TaskDurationStatistics(60000, 120000, 90000))
+        model.getProjectProfile("a").getTaskProfile("a:bar").completed(Stub(TaskState)).setStart(time(12, 26, 30)).setFinish(time(12, 27, 0))
+
+        when:
+        new ProfileReportRenderer().writeTo(model, file)
+
+        then:
+        file.text.contains(toPlatformLineSeparators("""<th>Task</th>
+<th class="numeric">Duration</th>
+<th class="numeric">Previous Average</th>
+<th class="numeric">Previous 90th Percentile</th>
+<th>Result</th>"""))
+        file.text.contains(toPlatformLineSeparators("""<td class="indentPath">a:foo</td>
+<td class="numeric">1m30.00s</td>
+<td class="numeric">1m30.00s</td>
+<td class="numeric">2m0.00s</td>
+<td>Did No Work</td>"""))
+        file.text.contains(toPlatformLineSeparators("""<td class="indentPath">a:bar</td>
+<td class="numeric">30.000s</td>
+<td></td>
+<td></td>
+<td>Did No Work</td>"""))
+    }
+
     private long time(int hour, int mins, int secs, int ms = 0) {
         def cal = new GregorianCalendar(2010, 1, 5, hour, mins, secs)
         cal.add(Calendar.MILLISECOND, ms)
@@ -89,6 +89,10 @@ class ConcurrentTestUtil extends ExternalResource {
             StoppableExecutor create(String displayName) {
                 return new StoppableExecutorStub(ConcurrentTestUtil.this)
             }
+
+            StoppableExecutor create(String displayName, int fixedSize) {
+                return new StoppableExecutorStub(ConcurrentTestUtil.this)
+            }
         }
     }
 
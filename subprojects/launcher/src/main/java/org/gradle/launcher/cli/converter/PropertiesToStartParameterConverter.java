@@ -26,6 +26,7 @@ import static org.gradle.launcher.daemon.configuration.GradleProperties.isTrue;
 public class PropertiesToStartParameterConverter {
     public StartParameter convert(Map<String, String> properties, StartParameter startParameter) {
         startParameter.setConfigureOnDemand(isTrue(properties.get(GradleProperties.CONFIGURE_ON_DEMAND_PROPERTY)));
+        startParameter.setFastFileHashing(isTrue(properties.get(GradleProperties.FAST_FILE_HASHING_PROPERTY)));
 
         String parallel = properties.get(GradleProperties.PARALLEL_PROPERTY);
         if (isTrue(parallel)) {
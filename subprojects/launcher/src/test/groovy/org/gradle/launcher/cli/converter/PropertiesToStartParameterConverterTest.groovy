@@ -20,6 +20,7 @@ import org.gradle.StartParameter
 import spock.lang.Specification
 
 import static org.gradle.launcher.daemon.configuration.GradleProperties.CONFIGURE_ON_DEMAND_PROPERTY
+import static org.gradle.launcher.daemon.configuration.GradleProperties.FAST_FILE_HASHING_PROPERTY
 import static org.gradle.launcher.daemon.configuration.GradleProperties.PARALLEL_PROPERTY
 
 class PropertiesToStartParameterConverterTest extends Specification {
@@ -32,5 +33,7 @@ class PropertiesToStartParameterConverterTest extends Specification {
         converter.convert([(PARALLEL_PROPERTY): "false"], new StartParameter()).parallelThreadCount == 0
         converter.convert([(CONFIGURE_ON_DEMAND_PROPERTY): "TRUE"], new StartParameter()).configureOnDemand
         !converter.convert([(CONFIGURE_ON_DEMAND_PROPERTY): "xxx"], new StartParameter()).configureOnDemand
+        converter.convert([(FAST_FILE_HASHING_PROPERTY): "true"], new StartParameter()).fastFileHashing
+        !converter.convert([(FAST_FILE_HASHING_PROPERTY): "false"], new StartParameter()).fastFileHashing
     }
 }
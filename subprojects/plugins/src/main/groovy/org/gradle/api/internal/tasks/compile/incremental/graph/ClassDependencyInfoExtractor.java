@@ -24,20 +24,29 @@ import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenc
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 
 public class ClassDependencyInfoExtractor {
 
-    private File classesDir;
+    private List<File> classesDirs;
 
     public ClassDependencyInfoExtractor(File classesDir) {
-        this.classesDir = classesDir;
+        this(Collections.singletonList(classesDir));
+    }
+
+    public ClassDependencyInfoExtractor(List<File> classesDirs) {
+        this.classesDirs = classesDirs;
     }
 
     public ClassDependencyInfo extractInfo(String packagePrefix) {
         Map<String, ClassDependents> dependents = new HashMap<String, ClassDependents>();
+        for (File classesDir : classesDirs) {
+            extractInfo(classesDir, packagePrefix, dependents);
+        }
+        return new ClassDependencyInfo(dependents);
+    }
+
+    private void extractInfo(File classesDir, String packagePrefix, Map<String, ClassDependents> dependents) {
         Iterator output = FileUtils.iterateFiles(classesDir, new String[]{"class"}, true);
         ClassNameProvider nameProvider = new ClassNameProvider(classesDir);
         while (output.hasNext()) {
@@ -60,7 +69,6 @@ public class ClassDependencyInfoExtractor {
                 throw new RuntimeException("Problems extracting class dependency from " + classFile, e);
             }
         }
-        return new ClassDependencyInfo(dependents);
     }
 
     private ClassDependents getOrCreateDependentMapping(Map<String, ClassDependents> dependents, String dependency) {
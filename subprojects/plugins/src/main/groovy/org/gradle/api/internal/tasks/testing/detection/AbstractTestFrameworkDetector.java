@@ -30,6 +30,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor> implements TestFrameworkDetector {
     protected static final String TEST_CASE = "junit/framework/TestCase";
@@ -39,6 +40,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final ClassFileExtractionManager classFileExtractionManager;
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
+    private TestClassDetectionCache detectionCache;
     private final List<String> knownTestCaseClassNames;
 
     private File testClassesDirectory;
@@ -47,7 +49,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -78,7 +80,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -107,7 +109,18 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
+    public void setDetectionCache(TestClassDetectionCache detectionCache) {
+        this.detectionCache = detectionCache;
+    }
+
     protected TestClassVisitor classVisitor(final File testClassFile) {
+        if (detectionCache != null) {
+            TestClassDetectionCache.ClassDetails details = detectionCache.get(testClassFile);
+            if (details != null) {
+                return new CachedClassVisitor(this, details);
+            }
+        }
+
         final TestClassVisitor classVisitor = createClassVisitor();
 
         InputStream classStream = null;
@@ -121,6 +134,11 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
             IOUtils.closeQuietly(classStream);
         }
 
+        if (detectionCache != null) {
+            detectionCache.put(testClassFile, new TestClassDetectionCache.ClassDetails(classVisitor.getClassName(), classVisitor.getSuperClassName(),
+                    classVisitor.isAbstract(), classVisitor.isTest()));
+        }
+
         return classVisitor;
     }
 
@@ -153,7 +171,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
         if (isTest && !classVisitor.isAbstract() && !superClass) {
             String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            // Classes may be detected by several threads at once
+            synchronized (testClassProcessor) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
@@ -180,4 +201,32 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
 
         return isKnownTestCase;
     }
+
+    /**
+     * Provides the details of a class file that was parsed by a previous test run.
+     */
+    private static class CachedClassVisitor extends TestClassVisitor {
+        private final TestClassDetectionCache.ClassDetails details;
+
+        CachedClassVisitor(TestFrameworkDetector detector, TestClassDetectionCache.ClassDetails details) {
+            super(detector);
+            this.details = details;
+        }
+
+        public String getClassName() {
+            return details.getClassName();
+        }
+
+        public boolean isTest() {
+            return details.isTest();
+        }
+
+        public boolean isAbstract() {
+            return details.isAbstract();
+        }
+
+        public String getSuperClassName() {
+            return details.getSuperClassName();
+        }
+    }
 }
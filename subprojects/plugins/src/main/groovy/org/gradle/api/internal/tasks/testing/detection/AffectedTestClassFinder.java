@@ -0,0 +1,224 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.tasks.compile.incremental.graph.ClassDependencyInfo;
+import org.gradle.api.internal.tasks.compile.incremental.graph.ClassDependencyInfoExtractor;
+import org.gradle.internal.hash.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Finds the test classes that may be affected by the changes made to the test runtime classpath since the previous run of a test task, using the
+ * dependencies between the classes in the class directories of the classpath. A snapshot of the classpath is kept between runs. The hash of each
+ * file is remembered by path, length and last modified time, so that unchanged files are not read again.
+ *
+ * <p>All test classes are affected when there is no snapshot, when the other inputs of the task have changed, when a jar or a file other than a class
+ * file has changed, or when a changed class may affect any class, for example because it declares a constant.</p>
+ */
+public class AffectedTestClassFinder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AffectedTestClassFinder.class);
+    private static final int VERSION = 1;
+    private final File stateFile;
+    private final Map<String, FileSnapshot> previousFiles = new HashMap<String, FileSnapshot>();
+    private final Map<String, FileSnapshot> files = new LinkedHashMap<String, FileSnapshot>();
+    private String previousInputsHash;
+    private String inputsHash;
+
+    public AffectedTestClassFinder(File stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * Returns the names of the affected classes, or null when all test classes are affected. The snapshot of the previous run is discarded, so that
+     * all test classes are affected by the next run unless {@link #save()} is called.
+     *
+     * @param inputsHash a hash of the inputs of the task other than its classpath, or null when not known.
+     */
+    public Set<String> findAffectedClasses(List<File> classpath, String inputsHash) {
+        this.inputsHash = inputsHash;
+        load();
+        stateFile.delete();
+
+        List<File> classesDirs = new ArrayList<File>();
+        for (File file : classpath) {
+            if (file.isDirectory()) {
+                classesDirs.add(file);
+                snapshotDir(file, "");
+            } else if (file.isFile()) {
+                snapshotFile(file, null);
+            }
+        }
+
+        if (previousInputsHash == null) {
+            LOGGER.info("Running all test classes, as there is no snapshot of the previous run.");
+            return null;
+        }
+        if (inputsHash == null || !inputsHash.equals(previousInputsHash)) {
+            LOGGER.info("Running all test classes, as the inputs of the task have changed.");
+            return null;
+        }
+
+        Set<String> changedClasses = new HashSet<String>();
+        Set<String> paths = new HashSet<String>(files.keySet());
+        paths.addAll(previousFiles.keySet());
+        for (String path : paths) {
+            FileSnapshot current = files.get(path);
+            FileSnapshot previous = previousFiles.get(path);
+            if (current != null && previous != null && current.hash.equals(previous.hash)) {
+                continue;
+            }
+            String className = current != null ? current.className : previous.className;
+            if (className == null) {
+                LOGGER.info("Running all test classes, as {} has changed.", path);
+                return null;
+            }
+            changedClasses.add(className);
+        }
+        if (changedClasses.isEmpty()) {
+            return changedClasses;
+        }
+
+        ClassDependencyInfo dependencyInfo = new ClassDependencyInfoExtractor(classesDirs).extractInfo("");
+        Set<String> affected = new HashSet<String>();
+        for (String className : changedClasses) {
+            Set<String> dependents = dependencyInfo.getActualDependents(className);
+            if (dependents == null) {
+                LOGGER.info("Running all test classes, as a change to {} may affect any class.", className);
+                return null;
+            }
+            affected.add(className);
+            affected.addAll(dependents);
+        }
+        for (String className : new ArrayList<String>(affected)) {
+            int index = className.indexOf('$');
+            if (index > 0) {
+                affected.add(className.substring(0, index));
+            }
+        }
+        LOGGER.info("{} changed classes affect {} classes.", changedClasses.size(), affected.size());
+        return affected;
+    }
+
+    private void snapshotDir(File dir, String packagePrefix) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                snapshotDir(child, packagePrefix + child.getName() + ".");
+            } else if (child.getName().endsWith(".class")) {
+                String name = child.getName();
+                snapshotFile(child, packagePrefix + name.substring(0, name.length() - ".class".length()));
+            } else {
+                snapshotFile(child, null);
+            }
+        }
+    }
+
+    private void snapshotFile(File file, String className) {
+        String path = file.getAbsolutePath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+        FileSnapshot snapshot = previousFiles.get(path);
+        if (snapshot == null || snapshot.length != length || snapshot.lastModified != lastModified) {
+            snapshot = new FileSnapshot(className, length, lastModified, HashUtil.createHash(file, "MD5").asHexString());
+        }
+        files.put(path, snapshot);
+    }
+
+    private void load() {
+        if (!stateFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile)));
+            try {
+                if (inputStream.readInt() != VERSION) {
+                    return;
+                }
+                String inputsHash = inputStream.readUTF();
+                int fileCount = inputStream.readInt();
+                for (int i = 0; i < fileCount; i++) {
+                    String path = inputStream.readUTF();
+                    String className = inputStream.readBoolean() ? inputStream.readUTF() : null;
+                    previousFiles.put(path, new FileSnapshot(className, inputStream.readLong(), inputStream.readLong(), inputStream.readUTF()));
+                }
+                previousInputsHash = inputsHash;
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test selection state %s. Running all test classes.", stateFile), e);
+            previousFiles.clear();
+        }
+    }
+
+    /**
+     * Writes the snapshot taken by {@link #findAffectedClasses}, for the next run. Should only be called once the results of this run have been
+     * written, so that the test classes that fail in this run are run again by the next run.
+     */
+    public void save() {
+        if (inputsHash == null) {
+            return;
+        }
+        try {
+            stateFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeUTF(inputsHash);
+                outputStream.writeInt(files.size());
+                for (Map.Entry<String, FileSnapshot> entry : files.entrySet()) {
+                    FileSnapshot snapshot = entry.getValue();
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeBoolean(snapshot.className != null);
+                    if (snapshot.className != null) {
+                        outputStream.writeUTF(snapshot.className);
+                    }
+                    outputStream.writeLong(snapshot.length);
+                    outputStream.writeLong(snapshot.lastModified);
+                    outputStream.writeUTF(snapshot.hash);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            // Without the snapshot, the next run runs all test classes
+            LOGGER.debug(String.format("Could not write test selection state %s.", stateFile), e);
+            stateFile.delete();
+        }
+    }
+
+    private static class FileSnapshot {
+        final String className;
+        final long length;
+        final long lastModified;
+        final String hash;
+
+        FileSnapshot(String className, long length, long lastModified, String hash) {
+            this.className = className;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.api.GradleException;
 import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashUtil;
 import org.gradle.util.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,7 +30,8 @@ import java.io.IOException;
 import java.util.*;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. Extracted class files are kept in the temporary directory, in a directory for each
+ * version of each jar, so that later test runs can use them without extracting them again. Can be used by several threads at once.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
@@ -51,7 +53,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -67,13 +69,12 @@ public class ClassFileExtractionManager {
 
     /**
      * Retrieve the file that contains the extracted class file. <p/> This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * not extracted yet. The same class is only extracted once for each version of a jar.
      *
      * @param className Name of the class to extract.
      * @return File that contains the extracted class file.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized File getLibraryClassFile(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
         } else {
@@ -90,7 +91,6 @@ public class ClassFileExtractionManager {
     private boolean extractClassFile(final String className) {
         boolean classFileExtracted = false;
 
-        final File extractedClassFile = tempFile();
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
         final String classNamePackage = classNamePackage(className);
         final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
@@ -102,12 +102,23 @@ public class ClassFileExtractionManager {
 
             while (!classFileExtracted && packageJarFilesIt.hasNext()) {
                 final File jarFile = packageJarFilesIt.next();
+                final File extractedClassFile = extractedClassFile(jarFile, classFileName);
+
+                if (extractedClassFile.isFile()) {
+                    extractedJarClasses.put(className, extractedClassFile);
+                    return true;
+                }
 
                 try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
+                    final File tempFile = tempFile();
+                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, tempFile);
 
                     if (classFileExtracted) {
                         classFileSourceJar = jarFile;
+                        extractedClassFile.getParentFile().mkdirs();
+                        extractedJarClasses.put(className, tempFile.renameTo(extractedClassFile) ? extractedClassFile : tempFile);
+                    } else {
+                        tempFile.delete();
                     }
                 } catch (IOException e) {
                     throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
@@ -116,8 +127,6 @@ public class ClassFileExtractionManager {
 
             if (classFileExtracted) {
                 LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
-
-                extractedJarClasses.put(className, extractedClassFile);
             }
         } // super class not on the classpath - unable to scan parent class
 
@@ -134,6 +143,11 @@ public class ClassFileExtractionManager {
         }
     }
 
+    private File extractedClassFile(File jarFile, String classFileName) {
+        String jarVersion = HashUtil.createCompactMD5(jarFile.getAbsolutePath() + ":" + jarFile.length() + ":" + jarFile.lastModified());
+        return tempDirProvider.newTemporaryFile("jar-classes", jarVersion, classFileName);
+    }
+
     private File tempFile() {
         return tempDirProvider.createTemporaryFile("jar_extract_", "_tmp"); // Could throw UncheckedIOException
     }
@@ -23,22 +23,36 @@ import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
 import java.io.File;
+import java.util.concurrent.Semaphore;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
- * a detection or filename scan is performed to find test classes.
+ * a detection or filename scan is performed to find test classes. A detection scan can process
+ * several class files at once, and can use a cache of the details of previously parsed class files.
  */
 public class DefaultTestClassScanner implements Runnable {
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final TestClassDetectionCache detectionCache;
+    private final int maxThreads;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null, 1);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, TestClassDetectionCache detectionCache, int maxThreads) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.detectionCache = detectionCache;
+        this.maxThreads = maxThreads;
     }
 
     public void run() {
@@ -50,12 +64,49 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
+        if (detectionCache != null) {
+            detectionCache.load();
+        }
         testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
-            }
-        });
+        if (maxThreads > 1) {
+            parallelDetectionScan();
+        } else {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+        }
+        if (detectionCache != null) {
+            detectionCache.save();
+        }
+    }
+
+    /**
+     * Visits the class files on this thread, and passes them to the detector on at most {@link #maxThreads} other threads.
+     */
+    private void parallelDetectionScan() {
+        final StoppableExecutor executor = new DefaultExecutorFactory().create("test class detection");
+        final Semaphore pendingFiles = new Semaphore(maxThreads);
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File file = fileDetails.getFile();
+                    pendingFiles.acquireUninterruptibly();
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                testFrameworkDetector.processTestClass(file);
+                            } finally {
+                                pendingFiles.release();
+                            }
+                        }
+                    });
+                }
+            });
+        } finally {
+            executor.stop();
+        }
     }
 
     private void filenameScan() {
@@ -18,23 +18,48 @@ package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.file.FileTree;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
-import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
-import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
-import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
+import org.gradle.api.internal.tasks.testing.processors.*;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.io.File;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
+    /**
+     * The system property that enables balancing the test classes between forked test processes by their durations in the previous run.
+     */
+    public static final String BALANCE_FORKS_PROPERTY = "org.gradle.test.balanceForks";
+    /**
+     * The system property that enables reusing idle forked test processes from earlier test tasks, in this build or an earlier build in the same daemon.
+     */
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.test.reuseWorkers";
+    /**
+     * The system property that enables running the test classes that failed in the previous run, and those whose class file has changed since then,
+     * before the other test classes.
+     */
+    public static final String FAILED_FIRST_PROPERTY = "org.gradle.test.failedFirst";
+    /**
+     * The system property that enables skipping the remaining test classes once a test has failed.
+     */
+    public static final String FAIL_FAST_PROPERTY = "org.gradle.test.failFast";
+    /**
+     * The system property that enables running only the test classes that may be affected by the changes made since the previous run, and those that
+     * failed in the previous run.
+     */
+    public static final String SELECT_AFFECTED_PROPERTY = "org.gradle.test.selectAffected";
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
 
@@ -43,23 +68,87 @@ public class DefaultTestExecuter implements TestExecuter {
         this.actorFactor = actorFactor;
     }
 
-    public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
+    /**
+     * Returns true if the test classes of the given task are balanced between forked test processes by their durations in the previous run.
+     */
+    public static boolean isBalanceForks(Test testTask) {
+        return testTask.getMaxParallelForks() > 1 && Boolean.getBoolean(BALANCE_FORKS_PROPERTY);
+    }
+
+    /**
+     * Returns true if the given task may run its tests in reused forked test processes. Processes are not reused when the task restarts its processes
+     * after a number of test classes.
+     */
+    public static boolean isReuseWorkers(Test testTask) {
+        return testTask.getForkEvery() == 0 && Boolean.getBoolean(REUSE_WORKERS_PROPERTY);
+    }
+
+    /**
+     * Returns true if the test classes that failed in the previous run, and those that have changed since then, are run first.
+     */
+    public static boolean isFailedFirst() {
+        return Boolean.getBoolean(FAILED_FIRST_PROPERTY);
+    }
+
+    /**
+     * Returns true if the remaining test classes are skipped once a test has failed.
+     */
+    public static boolean isFailFast() {
+        return Boolean.getBoolean(FAIL_FAST_PROPERTY);
+    }
+
+    /**
+     * Returns true if only the test classes that may be affected by the changes made since the previous run, and those that failed, are run.
+     */
+    public static boolean isSelectAffected() {
+        return Boolean.getBoolean(SELECT_AFFECTED_PROPERTY);
+    }
+
+    public void execute(final Test testTask, TestResultProcessor testResultProcessor, final PreviousTestResults previousResults) {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
+        final boolean reuseWorkers = isReuseWorkers(testTask);
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                        testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+                        testTask.getClasspath(), testFramework.getWorkerConfigurationAction(), reuseWorkers);
             }
         };
-        Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
+        final Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
                 return new RestartEveryNTestClassProcessor(forkingProcessorFactory, testTask.getForkEvery());
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-                reforkingProcessorFactory, actorFactor);
+        final boolean failFast = isFailFast();
+        final AtomicBoolean failed = new AtomicBoolean();
+        Factory<TestClassProcessor> parallelProcessorFactory = new Factory<TestClassProcessor>() {
+            public TestClassProcessor create() {
+                TestClassProcessor processor;
+                if (isBalanceForks(testTask)) {
+                    processor = new BalancedParallelTestClassProcessor(testTask.getMaxParallelForks(),
+                            reforkingProcessorFactory, actorFactor, previousResults.getClassDurations());
+                } else {
+                    processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
+                            reforkingProcessorFactory, actorFactor);
+                }
+                if (failFast) {
+                    processor = new FailFastTestClassProcessor(processor, failed);
+                }
+                if (previousResults.getAffectedClasses() != null) {
+                    processor = new SelectingTestClassProcessor(processor, new AffectedTestClassSpec(previousResults));
+                }
+                return processor;
+            }
+        };
+
+        TestClassProcessor processor;
+        if (isFailedFirst()) {
+            // With fail-fast, the prioritized test classes complete before the others are dispatched, so that a failure among them skips the others
+            processor = new PrioritizedTestClassProcessor(parallelProcessorFactory, new FailedOrChangedTestClassSpec(testTask.getTestClassesDir(), previousResults), failFast);
+        } else {
+            processor = parallelProcessorFactory.create();
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -68,10 +157,54 @@ public class DefaultTestExecuter implements TestExecuter {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
+            TestClassDetectionCache detectionCache = new TestClassDetectionCache(new File(testTask.getTemporaryDir(), "testClassDetection.bin"), testFrameworkDetector.getClass().getName());
+            testFrameworkDetector.setDetectionCache(detectionCache);
+            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor, detectionCache, Runtime.getRuntime().availableProcessors());
         } else {
             detector = new DefaultTestClassScanner(testClassFiles, null, processor);
         }
         new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
     }
+
+    /**
+     * Selects the test classes that failed in the previous run, and those that may be affected by the changes made since the previous run.
+     */
+    private static class AffectedTestClassSpec implements Spec<TestClassRunInfo> {
+        private final PreviousTestResults previousResults;
+
+        AffectedTestClassSpec(PreviousTestResults previousResults) {
+            this.previousResults = previousResults;
+        }
+
+        public boolean isSatisfiedBy(TestClassRunInfo testClass) {
+            String className = testClass.getTestClassName();
+            if (previousResults.getFailedClasses().contains(className) || previousResults.getAffectedClasses().contains(className)) {
+                return true;
+            }
+            int index = className.indexOf('$');
+            return index > 0 && previousResults.getAffectedClasses().contains(className.substring(0, index));
+        }
+    }
+
+    /**
+     * Selects the test classes that failed in the previous run, and those whose class file has been written since the previous run.
+     */
+    private static class FailedOrChangedTestClassSpec implements Spec<TestClassRunInfo> {
+        private final File testClassesDir;
+        private final PreviousTestResults previousResults;
+
+        FailedOrChangedTestClassSpec(File testClassesDir, PreviousTestResults previousResults) {
+            this.testClassesDir = testClassesDir;
+            this.previousResults = previousResults;
+        }
+
+        public boolean isSatisfiedBy(TestClassRunInfo testClass) {
+            String className = testClass.getTestClassName();
+            if (previousResults.getFailedClasses().contains(className)) {
+                return true;
+            }
+            File classFile = new File(testClassesDir, className.replace('.', '/') + ".class");
+            return classFile.lastModified() > previousResults.getTimestamp();
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What is known about the test classes of a test task from the last time the task was executed.
+ */
+public class PreviousTestResults {
+    public static final PreviousTestResults NONE = new PreviousTestResults(Collections.<String, Long>emptyMap(), Collections.<String>emptySet(), 0, null);
+
+    private final Map<String, Long> classDurations;
+    private final Set<String> failedClasses;
+    private final long timestamp;
+    private final Set<String> affectedClasses;
+
+    /**
+     * @param classDurations the durations in milliseconds of the test classes, keyed by class name.
+     * @param failedClasses the names of the test classes that had a failed test.
+     * @param timestamp the time at which the results were written, or 0 when not known.
+     * @param affectedClasses the names of the classes that may be affected by the changes made since then, or null when not known.
+     */
+    public PreviousTestResults(Map<String, Long> classDurations, Set<String> failedClasses, long timestamp, Set<String> affectedClasses) {
+        this.classDurations = classDurations;
+        this.failedClasses = failedClasses;
+        this.timestamp = timestamp;
+        this.affectedClasses = affectedClasses;
+    }
+
+    /**
+     * Returns a copy of these results with the given affected classes.
+     */
+    public PreviousTestResults withAffectedClasses(Set<String> affectedClasses) {
+        return new PreviousTestResults(classDurations, failedClasses, timestamp, affectedClasses);
+    }
+
+    public Map<String, Long> getClassDurations() {
+        return classDurations;
+    }
+
+    public Set<String> getFailedClasses() {
+        return failedClasses;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the names of the classes that may be affected by the changes made since the previous run, or null when all classes may be affected.
+     */
+    public Set<String> getAffectedClasses() {
+        return affectedClasses;
+    }
+}
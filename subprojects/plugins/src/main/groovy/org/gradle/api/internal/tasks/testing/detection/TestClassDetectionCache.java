@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.internal.hash.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what was found when test class files were parsed, keyed by the MD5 hash of the class file, so that the next test run does not need to
+ * parse class files that have not changed. The hash of each file is remembered by path, length and last modified time, so that unchanged files are
+ * not read at all. Only the entries used by a run are kept for the next run.
+ *
+ * <p>Can be used by several threads at once.</p>
+ */
+public class TestClassDetectionCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassDetectionCache.class);
+    private static final int VERSION = 1;
+    private final File cacheFile;
+    private final String detectorType;
+    private final Map<String, FileHash> previousHashes = new HashMap<String, FileHash>();
+    private final Map<String, ClassDetails> previousClasses = new HashMap<String, ClassDetails>();
+    private final Map<String, FileHash> hashes = new ConcurrentHashMap<String, FileHash>();
+    private final Map<String, ClassDetails> classes = new ConcurrentHashMap<String, ClassDetails>();
+    private volatile boolean changed;
+
+    /**
+     * @param detectorType Identifies the detector whose results are cached. The cache is discarded when a different detector uses it.
+     */
+    public TestClassDetectionCache(File cacheFile, String detectorType) {
+        this.cacheFile = cacheFile;
+        this.detectorType = detectorType;
+    }
+
+    /**
+     * Returns the details of the given class file, or null when the file has not been parsed before.
+     */
+    public ClassDetails get(File classFile) {
+        String hash = hash(classFile);
+        ClassDetails details = classes.get(hash);
+        if (details == null) {
+            details = previousClasses.get(hash);
+            if (details != null) {
+                classes.put(hash, details);
+            }
+        }
+        return details;
+    }
+
+    public void put(File classFile, ClassDetails details) {
+        classes.put(hash(classFile), details);
+        changed = true;
+    }
+
+    private String hash(File classFile) {
+        String path = classFile.getAbsolutePath();
+        long length = classFile.length();
+        long lastModified = classFile.lastModified();
+        FileHash fileHash = hashes.get(path);
+        if (fileHash == null) {
+            fileHash = previousHashes.get(path);
+        }
+        if (fileHash == null || fileHash.length != length || fileHash.lastModified != lastModified) {
+            fileHash = new FileHash(length, lastModified, HashUtil.createHash(classFile, "MD5").asHexString());
+            changed = true;
+        }
+        hashes.put(path, fileHash);
+        return fileHash.hash;
+    }
+
+    /**
+     * Reads the entries kept by the previous run. Discards them when they cannot be read.
+     */
+    public void load() {
+        if (!cacheFile.isFile()) {
+            return;
+        }
+        try {
+            DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+            try {
+                if (inputStream.readInt() != VERSION || !inputStream.readUTF().equals(detectorType)) {
+                    return;
+                }
+                int hashCount = inputStream.readInt();
+                for (int i = 0; i < hashCount; i++) {
+                    String path = inputStream.readUTF();
+                    previousHashes.put(path, new FileHash(inputStream.readLong(), inputStream.readLong(), inputStream.readUTF()));
+                }
+                int classCount = inputStream.readInt();
+                for (int i = 0; i < classCount; i++) {
+                    String hash = inputStream.readUTF();
+                    String className = inputStream.readUTF();
+                    String superClassName = inputStream.readBoolean() ? inputStream.readUTF() : null;
+                    previousClasses.put(hash, new ClassDetails(className, superClassName, inputStream.readBoolean(), inputStream.readBoolean()));
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            LOGGER.debug(String.format("Could not read test class detection cache %s. Parsing all test class files.", cacheFile), e);
+            previousHashes.clear();
+            previousClasses.clear();
+        }
+    }
+
+    /**
+     * Writes the entries used by this run, if anything has changed since the previous run.
+     */
+    public void save() {
+        if (!changed && hashes.size() == previousHashes.size() && classes.size() == previousClasses.size()) {
+            return;
+        }
+        try {
+            cacheFile.getParentFile().mkdirs();
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+            try {
+                outputStream.writeInt(VERSION);
+                outputStream.writeUTF(detectorType);
+                outputStream.writeInt(hashes.size());
+                for (Map.Entry<String, FileHash> entry : hashes.entrySet()) {
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeLong(entry.getValue().length);
+                    outputStream.writeLong(entry.getValue().lastModified);
+                    outputStream.writeUTF(entry.getValue().hash);
+                }
+                outputStream.writeInt(classes.size());
+                for (Map.Entry<String, ClassDetails> entry : classes.entrySet()) {
+                    ClassDetails details = entry.getValue();
+                    outputStream.writeUTF(entry.getKey());
+                    outputStream.writeUTF(details.getClassName());
+                    outputStream.writeBoolean(details.getSuperClassName() != null);
+                    if (details.getSuperClassName() != null) {
+                        outputStream.writeUTF(details.getSuperClassName());
+                    }
+                    outputStream.writeBoolean(details.isAbstract());
+                    outputStream.writeBoolean(details.isTest());
+                }
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            // The cache only saves work, so carry on without it
+            LOGGER.debug(String.format("Could not write test class detection cache %s.", cacheFile), e);
+            cacheFile.delete();
+        }
+    }
+
+    private static class FileHash {
+        final long length;
+        final long lastModified;
+        final String hash;
+
+        FileHash(long length, long lastModified, String hash) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * What a {@link TestClassVisitor} found in a class file.
+     */
+    public static class ClassDetails {
+        private final String className;
+        private final String superClassName;
+        private final boolean isAbstract;
+        private final boolean test;
+
+        public ClassDetails(String className, String superClassName, boolean isAbstract, boolean test) {
+            this.className = className;
+            this.superClassName = superClassName;
+            this.isAbstract = isAbstract;
+            this.test = test;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        public boolean isAbstract() {
+            return isAbstract;
+        }
+
+        public boolean isTest() {
+            return test;
+        }
+    }
+}
@@ -20,5 +20,10 @@ import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.tasks.testing.Test;
 
 public interface TestExecuter {
-    void execute(Test testTask, TestResultProcessor testResultProcessor);
+    /**
+     * Executes the tests of the given task.
+     *
+     * @param previousResults what is known about the test classes from the last time the task was executed.
+     */
+    void execute(Test testTask, TestResultProcessor testResultProcessor, PreviousTestResults previousResults);
 }
@@ -28,4 +28,9 @@ public interface TestFrameworkDetector {
     void setTestClassesDirectory(File testClassesDir);
 
     void setTestClasspath(FileCollection classpath);
+
+    /**
+     * Sets the cache of class file details to use, or null to parse every class file.
+     */
+    void setDetectionCache(TestClassDetectionCache detectionCache);
 }
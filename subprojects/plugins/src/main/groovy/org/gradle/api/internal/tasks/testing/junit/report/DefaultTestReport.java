@@ -23,17 +23,31 @@ import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.util.Clock;
 
 import java.io.File;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Generates the HTML test report. The package and class pages are rendered concurrently.
+ */
 public class DefaultTestReport implements TestReporter {
     private final HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
+    private final int maxThreads;
 
     public DefaultTestReport() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    DefaultTestReport(int maxThreads) {
+        this.maxThreads = maxThreads;
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/report.js"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/base-style.css"));
         htmlRenderer.requireResource(getClass().getResource("/org/gradle/reporting/css3-pie-1.0beta3.htc"));
@@ -71,21 +85,77 @@ public class DefaultTestReport implements TestReporter {
         return model;
     }
 
-    private void generateFiles(AllTestResults model, TestResultsProvider resultsProvider, File reportDir) {
+    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, final File reportDir) {
         try {
             generatePage(model, new OverviewPageRenderer(), new File(reportDir, "index.html"));
+
+            Queue<Runnable> pages = new ConcurrentLinkedQueue<Runnable>();
             for (PackageTestResults packageResults : model.getPackages()) {
-                generatePage(packageResults, new PackagePageRenderer(), new File(reportDir, packageResults.getBaseUrl()));
+                pages.add(new PageGenerator<PackageTestResults>(packageResults, reportDir) {
+                    @Override
+                    protected PageRenderer<PackageTestResults> createRenderer() {
+                        return new PackagePageRenderer();
+                    }
+                });
                 for (ClassTestResults classResults : packageResults.getClasses()) {
-                    generatePage(classResults, new ClassPageRenderer(classResults.getId(), resultsProvider), new File(reportDir, classResults.getBaseUrl()));
+                    pages.add(new PageGenerator<ClassTestResults>(classResults, reportDir) {
+                        @Override
+                        protected PageRenderer<ClassTestResults> createRenderer() {
+                            return new ClassPageRenderer(getResults().getId(), resultsProvider);
+                        }
+                    });
                 }
             }
+            generatePages(pages);
         } catch (Exception e) {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
 
+    /**
+     * Runs the given page generators using at most {@link #maxThreads} threads.
+     */
+    private void generatePages(final Queue<Runnable> pages) {
+        StoppableExecutor executor = new DefaultExecutorFactory().create("test report generation");
+        int threads = Math.min(maxThreads, pages.size());
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    Runnable page;
+                    while ((page = pages.poll()) != null) {
+                        page.run();
+                    }
+                }
+            });
+        }
+        executor.stop();
+    }
+
     private <T extends CompositeTestResults> void generatePage(T model, PageRenderer<T> renderer, File outputFile) throws Exception {
         htmlRenderer.renderer(renderer).writeTo(model, outputFile);
     }
+
+    private abstract class PageGenerator<T extends CompositeTestResults> implements Runnable {
+        private final T results;
+        private final File reportDir;
+
+        protected PageGenerator(T results, File reportDir) {
+            this.results = results;
+            this.reportDir = reportDir;
+        }
+
+        protected T getResults() {
+            return results;
+        }
+
+        protected abstract PageRenderer<T> createRenderer();
+
+        public void run() {
+            try {
+                generatePage(results, createRenderer(), new File(reportDir, results.getBaseUrl()));
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
 }
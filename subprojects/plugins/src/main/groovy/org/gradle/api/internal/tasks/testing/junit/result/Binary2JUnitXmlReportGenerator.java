@@ -21,8 +21,10 @@ import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.util.Clock;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.util.Clock;
 
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -30,40 +32,80 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Generates a JUnit XML file for each test class. The files are written concurrently. To bound memory use, only a limited number of test classes are
+ * waiting to be written or being written at any time, and test output is streamed from the results to the files.
+ */
 public class Binary2JUnitXmlReportGenerator {
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
+    private final int maxThreads;
     JUnitXmlResultWriter saxWriter;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
 
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation) {
+        this(testResultsDir, testResultsProvider, outputAssociation, Runtime.getRuntime().availableProcessors());
+    }
+
+    Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, int maxThreads) {
         this.testResultsDir = testResultsDir;
         this.testResultsProvider = testResultsProvider;
+        this.maxThreads = maxThreads;
         this.saxWriter = new JUnitXmlResultWriter(getHostname(), testResultsProvider, outputAssociation);
     }
 
     public void generate() {
         Clock clock = new Clock();
-        testResultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult result) {
-                File file = new File(testResultsDir, getReportFileName(result));
-                OutputStream output = null;
-                try {
-                    output = new BufferedOutputStream(new FileOutputStream(file));
-                    saxWriter.write(result, output);
-                    output.close();
-                } catch (Exception e) {
-                    throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
-                } finally {
-                    IOUtils.closeQuietly(output);
+        final StoppableExecutor executor = new DefaultExecutorFactory().create("JUnit XML result generation");
+        final Semaphore pendingClasses = new Semaphore(maxThreads);
+        final AtomicBoolean failed = new AtomicBoolean();
+        try {
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(final TestClassResult result) {
+                    if (failed.get()) {
+                        return;
+                    }
+                    pendingClasses.acquireUninterruptibly();
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                if (!failed.get()) {
+                                    writeReport(result);
+                                }
+                            } catch (RuntimeException e) {
+                                failed.set(true);
+                                throw e;
+                            } finally {
+                                pendingClasses.release();
+                            }
+                        }
+                    });
                 }
-            }
-        });
+            });
+        } finally {
+            executor.stop();
+        }
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getTime(), testResultsDir);
     }
 
+    private void writeReport(TestClassResult result) {
+        File file = new File(testResultsDir, getReportFileName(result));
+        OutputStream output = null;
+        try {
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            saxWriter.write(result, output);
+            output.close();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
     private String getReportFileName(TestClassResult result) {
         return "TEST-" + FileUtils.toSafeFileName(result.getClassName()) + ".xml";
     }
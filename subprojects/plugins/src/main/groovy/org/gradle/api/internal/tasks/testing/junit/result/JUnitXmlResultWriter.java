@@ -22,8 +22,10 @@ import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.UncheckedException;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 
 public class JUnitXmlResultWriter {
 
@@ -42,7 +44,8 @@ public class JUnitXmlResultWriter {
         long classId = result.getId();
 
         try {
-            SimpleXmlWriter writer = new SimpleXmlWriter(output, "  ");
+            // The markup writer writes a character at a time, so buffer before encoding
+            SimpleXmlWriter writer = new SimpleXmlWriter(new BufferedWriter(new OutputStreamWriter(output, "UTF-8")), "  ", "UTF-8");
             writer.startElement("testsuite")
                     .attribute("name", className)
                     .attribute("tests", String.valueOf(result.getTestsCount()))
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.internal.os.OperatingSystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The index of the test output file. For each test class and each test, the index holds the start and end position in the output file of the first and
+ * last stdout and stderr events. A position of -1 means there are no such events.
+ *
+ * <p>The index file contains a table of classes sorted by class id followed by a table of tests sorted by class and test id, using fixed size records,
+ * so that a region can be found using binary search. The file is memory mapped when read, except on Windows where a mapped file cannot be deleted
+ * until the mapping is garbage collected. There the file is read into a single buffer instead.</p>
+ */
+class TestOutputIndex {
+    private static final int MAGIC = 0x474f5549;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    // class id, index of first test, test count, stdout start, stdout stop, stderr start, stderr stop
+    private static final int CLASS_RECORD_SIZE = 8 + 4 + 4 + 4 * 8;
+    // test id, stdout start, stdout stop, stderr start, stderr stop
+    private static final int TEST_RECORD_SIZE = 8 + 4 * 8;
+
+    private final ByteBuffer buffer;
+    private final int classCount;
+    private final int testCount;
+
+    private TestOutputIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Test outputs index file has an unsupported format.");
+        }
+        classCount = buffer.getInt(8);
+        testCount = buffer.getInt(12);
+        if (buffer.capacity() != HEADER_SIZE + (long) classCount * CLASS_RECORD_SIZE + (long) testCount * TEST_RECORD_SIZE) {
+            throw new IllegalStateException("Test outputs index file is incomplete.");
+        }
+    }
+
+    static TestOutputIndex read(File indexFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer;
+            if (OperatingSystem.current().isWindows()) {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                }
+                buffer.flip();
+            } else {
+                // The mapping stays valid once the file is closed
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return new TestOutputIndex(buffer);
+        } finally {
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the start and stop position of the given output of the given class, or null when the class has no such output.
+     */
+    long[] classRegion(long classId, boolean stdout) {
+        int classRecord = findClass(classId);
+        if (classRecord < 0) {
+            return null;
+        }
+        return region(classRecordPos(classRecord) + 16, stdout);
+    }
+
+    /**
+     * Returns the start and stop position of the given output of the given test, or null when the test has no such output.
+     */
+    long[] testRegion(long classId, long testId, boolean stdout) {
+        int classRecord = findClass(classId);
+        if (classRecord < 0) {
+            return null;
+        }
+        int pos = classRecordPos(classRecord);
+        int firstTest = buffer.getInt(pos + 8);
+        int low = firstTest;
+        int high = firstTest + buffer.getInt(pos + 12) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = buffer.getLong(testRecordPos(mid));
+            if (midId < testId) {
+                low = mid + 1;
+            } else if (midId > testId) {
+                high = mid - 1;
+            } else {
+                return region(testRecordPos(mid) + 8, stdout);
+            }
+        }
+        return null;
+    }
+
+    private int findClass(long classId) {
+        int low = 0;
+        int high = classCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = buffer.getLong(classRecordPos(mid));
+            if (midId < classId) {
+                low = mid + 1;
+            } else if (midId > classId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private long[] region(int pos, boolean stdout) {
+        int regionPos = stdout ? pos : pos + 16;
+        long start = buffer.getLong(regionPos);
+        if (start < 0) {
+            return null;
+        }
+        return new long[]{start, buffer.getLong(regionPos + 8)};
+    }
+
+    private int classRecordPos(int classRecord) {
+        return HEADER_SIZE + classRecord * CLASS_RECORD_SIZE;
+    }
+
+    private int testRecordPos(int testRecord) {
+        return HEADER_SIZE + classCount * CLASS_RECORD_SIZE + testRecord * TEST_RECORD_SIZE;
+    }
+
+    /**
+     * Collects the output regions of each test while the output file is written. Regions are kept in primitive arrays using open addressing, rather
+     * than in maps of boxed ids, and are sorted once when the index is written.
+     */
+    static class Builder {
+        private static final int INITIAL_CAPACITY = 64;
+        // class id and test id of each entry
+        private long[] ids = new long[2 * INITIAL_CAPACITY];
+        // stdout start, stdout stop, stderr start and stderr stop of each entry
+        private long[] regions = newRegions(INITIAL_CAPACITY);
+        // entry index + 1 for each hash slot, 0 for an empty slot
+        private int[] slots = new int[2 * INITIAL_CAPACITY];
+        private int size;
+
+        void mark(long classId, long testId, boolean stdout, long pos) {
+            int offset = 4 * entryFor(classId, testId) + (stdout ? 0 : 2);
+            if (regions[offset] < 0) {
+                regions[offset] = pos;
+            }
+            regions[offset + 1] = pos;
+        }
+
+        private int entryFor(long classId, long testId) {
+            int mask = slots.length - 1;
+            int slot = hash(classId, testId) & mask;
+            while (slots[slot] != 0) {
+                int entry = slots[slot] - 1;
+                if (ids[2 * entry] == classId && ids[2 * entry + 1] == testId) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (2 * size == ids.length) {
+                grow();
+                return entryFor(classId, testId);
+            }
+            int entry = size++;
+            ids[2 * entry] = classId;
+            ids[2 * entry + 1] = testId;
+            slots[slot] = entry + 1;
+            return entry;
+        }
+
+        private void grow() {
+            int capacity = ids.length;
+            long[] newIds = new long[2 * capacity];
+            System.arraycopy(ids, 0, newIds, 0, ids.length);
+            ids = newIds;
+            long[] newRegions = newRegions(capacity);
+            System.arraycopy(regions, 0, newRegions, 0, regions.length);
+            regions = newRegions;
+            slots = new int[2 * capacity];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = hash(ids[2 * entry], ids[2 * entry + 1]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = entry + 1;
+            }
+        }
+
+        private static long[] newRegions(int capacity) {
+            long[] regions = new long[4 * capacity];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = -1;
+            }
+            return regions;
+        }
+
+        private static int hash(long classId, long testId) {
+            long hash = classId * 31 + testId;
+            hash ^= hash >>> 32;
+            hash *= 0x9e3779b97f4a7c15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        void write(File indexFile) throws IOException {
+            int[] order = sortedEntries();
+            int classCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || ids[2 * order[i]] != ids[2 * order[i - 1]]) {
+                    classCount++;
+                }
+            }
+
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+            try {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(classCount);
+                outputStream.writeInt(size);
+                int first = 0;
+                while (first < size) {
+                    long classId = ids[2 * order[first]];
+                    int end = first;
+                    long[] classRegions = {-1, -1, -1, -1};
+                    while (end < size && ids[2 * order[end]] == classId) {
+                        int offset = 4 * order[end];
+                        for (int stream = 0; stream < 4; stream += 2) {
+                            long start = regions[offset + stream];
+                            if (start >= 0 && (classRegions[stream] < 0 || start < classRegions[stream])) {
+                                classRegions[stream] = start;
+                            }
+                            classRegions[stream + 1] = Math.max(classRegions[stream + 1], regions[offset + stream + 1]);
+                        }
+                        end++;
+                    }
+                    outputStream.writeLong(classId);
+                    outputStream.writeInt(first);
+                    outputStream.writeInt(end - first);
+                    for (long value : classRegions) {
+                        outputStream.writeLong(value);
+                    }
+                    first = end;
+                }
+                for (int i = 0; i < size; i++) {
+                    int entry = order[i];
+                    outputStream.writeLong(ids[2 * entry + 1]);
+                    for (int j = 0; j < 4; j++) {
+                        outputStream.writeLong(regions[4 * entry + j]);
+                    }
+                }
+            } finally {
+                outputStream.close();
+            }
+        }
+
+        /**
+         * Returns the entry indexes ordered by class id then test id, using a merge sort.
+         */
+        private int[] sortedEntries() {
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size - width; low += 2 * width) {
+                    int mid = low + width;
+                    int high = Math.min(low + 2 * width, size);
+                    int left = low;
+                    int right = mid;
+                    for (int i = low; i < high; i++) {
+                        if (left < mid && (right >= high || compare(order[left], order[right]) <= 0)) {
+                            buffer[i] = order[left++];
+                        } else {
+                            buffer[i] = order[right++];
+                        }
+                    }
+                    System.arraycopy(buffer, low, order, low, high - low);
+                }
+            }
+            return order;
+        }
+
+        private int compare(int entry1, int entry2) {
+            long classId1 = ids[2 * entry1];
+            long classId2 = ids[2 * entry2];
+            if (classId1 != classId2) {
+                return classId1 < classId2 ? -1 : 1;
+            }
+            long testId1 = ids[2 * entry1 + 1];
+            long testId2 = ids[2 * entry2 + 1];
+            return testId1 < testId2 ? -1 : testId1 == testId2 ? 0 : 1;
+        }
+    }
+}
@@ -16,20 +16,20 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.serialize.Decoder;
 import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
 import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 
 public class TestOutputStore {
 
@@ -49,30 +49,10 @@ public class TestOutputStore {
         return new File(resultsDir, getOutputsFile().getName() + ".idx");
     }
 
-    private static class Region {
-        long start;
-        long stop;
-
-        private Region() {
-            start = -1;
-            stop = -1;
-        }
-
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
-        }
-    }
-
-    private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
-    }
-
     public class Writer implements Closeable {
         private final KryoBackedEncoder output;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final TestOutputIndex.Builder index = new TestOutputIndex.Builder();
 
         public Writer() {
             try {
@@ -110,59 +90,15 @@ public class TestOutputStore {
         }
 
         private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
-            }
-
-            Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
-            }
-
-            TestCaseRegion region = testCaseRegions.get(testId);
-
-            Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            int total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
-            }
-            streamRegion.stop = total;
+            index.mark(classId, testId, isStdout, output.getWritePosition());
         }
 
         private void writeIndex() {
-            Output indexOutput;
             try {
-                indexOutput = new Output(new FileOutputStream(getIndexFile()));
-            } catch (FileNotFoundException e) {
+                index.write(getIndexFile());
+            } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
-
-
-            try {
-                indexOutput.writeInt(index.size(), true);
-
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
-                    Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
-
-                    indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
-                    }
-                }
-            } finally {
-                indexOutput.close();
-            }
         }
     }
 
@@ -170,54 +106,8 @@ public class TestOutputStore {
         return new Writer();
     }
 
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
-
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
-            }
-
-            children.put(key, index);
-        }
-
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
-        }
-    }
-
     public class Reader implements Closeable {
-        private final Index index;
+        private final TestOutputIndex index;
         private final RandomAccessFile dataFile;
 
         public Reader() {
@@ -229,41 +119,10 @@ public class TestOutputStore {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
                 }
 
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
-
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
                 try {
+                    index = TestOutputIndex.read(indexFile);
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -287,13 +146,7 @@ public class TestOutputStore {
                 return false;
             }
 
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
-            }
+            return index.classRegion(classId, destination == TestOutputEvent.Destination.StdOut) != null;
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
@@ -313,19 +166,10 @@ public class TestOutputStore {
                 return;
             }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-
-            if (targetIndex == null) {
-                return;
-            }
-
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+            long[] region = testId == 0 ? index.classRegion(classId, stdout) : index.testRegion(classId, testId, stdout);
 
-            if (region.start < 0) {
+            if (region == null) {
                 return;
             }
 
@@ -333,9 +177,9 @@ public class TestOutputStore {
             boolean ignoreTestLevel = !allClassOutput && testId == 0;
 
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
+                long maxPos = region[1] - region[0];
+                KryoBackedDecoder decoder = new KryoBackedDecoder(new PositionalInputStream(dataFile.getChannel(), region[0]));
+                MessageWriter messageWriter = new MessageWriter(messageStorageCharset);
                 while (decoder.getReadPosition() <= maxPos) {
                     boolean readStdout = decoder.readBoolean();
                     long readClassId = decoder.readSmallLong();
@@ -360,17 +204,7 @@ public class TestOutputStore {
                     }
 
                     if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
-
-                        writer.write(message);
+                        messageWriter.write(decoder, readLength, writer);
                     } else {
                         decoder.skipBytes(readLength);
                     }
@@ -381,6 +215,83 @@ public class TestOutputStore {
         }
     }
 
+    /**
+     * Decodes messages and writes them to a writer through fixed size buffers, so that the output of a test does not need to be held in memory.
+     */
+    private static class MessageWriter {
+        private final CharsetDecoder charsetDecoder;
+        private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+        private final CharBuffer chars = CharBuffer.allocate(8192);
+
+        private MessageWriter(Charset charset) {
+            charsetDecoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        void write(Decoder decoder, int length, java.io.Writer writer) throws IOException {
+            charsetDecoder.reset();
+            bytes.clear();
+            int remaining = length;
+            while (remaining > 0) {
+                int count = Math.min(remaining, bytes.remaining());
+                decoder.readBytes(bytes.array(), bytes.position(), count);
+                bytes.position(bytes.position() + count);
+                remaining -= count;
+                bytes.flip();
+                decode(false, writer);
+                // Keep any partial character for the next chunk
+                bytes.compact();
+            }
+            bytes.flip();
+            decode(true, writer);
+            while (charsetDecoder.flush(chars).isOverflow()) {
+                writeChars(writer);
+            }
+            writeChars(writer);
+        }
+
+        private void decode(boolean endOfInput, java.io.Writer writer) throws IOException {
+            while (charsetDecoder.decode(bytes, chars, endOfInput).isOverflow()) {
+                writeChars(writer);
+            }
+            writeChars(writer);
+        }
+
+        private void writeChars(java.io.Writer writer) throws IOException {
+            chars.flip();
+            writer.write(chars.array(), chars.position(), chars.remaining());
+            chars.clear();
+        }
+    }
+
+    /**
+     * Reads a file from a given position without moving the file pointer, so that the output of several test classes can be read at the same time.
+     */
+    private static class PositionalInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+
+        private PositionalInputStream(FileChannel channel, long position) {
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int count = read(buffer, 0, 1);
+            return count < 0 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            int count = channel.read(ByteBuffer.wrap(bytes, offset, length), position);
+            if (count > 0) {
+                position += count;
+            }
+            return count;
+        }
+    }
+
     // IMPORTANT: return must be closed when done with.
     public Reader reader() {
         return new Reader();
@@ -22,21 +22,36 @@ import org.gradle.messaging.remote.internal.PlaceholderException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Collects the test results into memory and spools the test output to file during execution (to avoid holding it all in memory).
+ *
+ * <p>When given a result writer, the results of the test classes run by a test class suite are removed from memory and written when the suite
+ * completes, so that only the results of the running test classes are held in memory. The results that remain are left for the caller to write.
+ * A class that runs again after its results were written, for example under another suite, keeps its id, so that {@link TestResultSerializer}
+ * reads its results back as one class.</p>
  */
 public class TestReportDataCollector implements TestListener, TestOutputListener {
 
     private final Map<String, TestClassResult> results;
     private final TestOutputStore.Writer outputWriter;
+    private final TestResultSerializer.Writer resultWriter;
     private final Map<TestDescriptor, TestMethodResult> currentTestMethods = new HashMap<TestDescriptor, TestMethodResult>();
+    private final Map<TestDescriptor, Set<String>> classesBySuite = new HashMap<TestDescriptor, Set<String>>();
+    private final Map<String, Long> writtenClassIds = new HashMap<String, Long>();
     private long internalIdCounter = 1;
 
     public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter) {
+        this(results, outputWriter, null);
+    }
+
+    public TestReportDataCollector(Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter, TestResultSerializer.Writer resultWriter) {
         this.results = results;
         this.outputWriter = outputWriter;
+        this.resultWriter = resultWriter;
     }
 
     public void beforeSuite(TestDescriptor suite) {
@@ -51,12 +66,50 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
                 methodResult.addFailure(failureMessage(throwable), stackTrace(throwable), exceptionClassName(throwable));
             }
             methodResult.completed(result);
-            TestClassResult classResult = new TestClassResult(internalIdCounter++, suite.getName(), result.getStartTime());
+            TestClassResult classResult = newClassResult(suite.getName(), result.getStartTime());
             classResult.add(methodResult);
             results.put(suite.getName(), classResult);
+            ranBy(suite, suite.getName());
+        }
+        Set<String> classNames = classesBySuite.remove(suite);
+        if (resultWriter != null && classNames != null) {
+            for (String className : classNames) {
+                TestClassResult classResult = results.remove(className);
+                if (classResult != null) {
+                    resultWriter.write(classResult);
+                    writtenClassIds.put(className, classResult.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers that the given test class was run by the nearest test class suite of the given test, if any.
+     */
+    private void ranByClassSuite(TestDescriptor test, String className) {
+        TestDescriptor suite = test;
+        while (suite != null && (!suite.isComposite() || suite.getClassName() == null)) {
+            suite = suite.getParent();
+        }
+        if (suite != null) {
+            ranBy(suite, className);
         }
     }
 
+    private void ranBy(TestDescriptor suite, String className) {
+        Set<String> classNames = classesBySuite.get(suite);
+        if (classNames == null) {
+            classNames = new HashSet<String>();
+            classesBySuite.put(suite, classNames);
+        }
+        classNames.add(className);
+    }
+
+    private TestClassResult newClassResult(String className, long startTime) {
+        Long id = writtenClassIds.get(className);
+        return new TestClassResult(id != null ? id : internalIdCounter++, className, startTime);
+    }
+
     public void beforeTest(TestDescriptor testDescriptor) {
         TestMethodResult methodResult = new TestMethodResult(internalIdCounter++, testDescriptor.getName());
         currentTestMethods.put(testDescriptor, methodResult);
@@ -70,13 +123,14 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
         }
         TestClassResult classResult = results.get(className);
         if (classResult == null) {
-            classResult = new TestClassResult(internalIdCounter++, className, result.getStartTime());
+            classResult = newClassResult(className, result.getStartTime());
             results.put(className, classResult);
         } else if (classResult.getStartTime() == 0) {
             //class results may be created earlier, where we don't yet have access to the start time
             classResult.setStartTime(result.getStartTime());
         }
         classResult.add(methodResult);
+        ranByClassSuite(testDescriptor, className);
     }
 
     private String failureMessage(Throwable throwable) {
@@ -121,9 +175,10 @@ public class TestReportDataCollector implements TestListener, TestOutputListener
             //it's possible that we receive an output for a suite here
             //in this case we will create the test result for a suite that normally would not be created
             //feels like this scenario should modelled more explicitly
-            classResult = new TestClassResult(internalIdCounter++, className, 0);
+            classResult = newClassResult(className, 0);
             results.put(className, classResult);
         }
+        ranByClassSuite(testDescriptor, className);
 
         TestMethodResult methodResult = currentTestMethods.get(testDescriptor);
         if (methodResult == null) {
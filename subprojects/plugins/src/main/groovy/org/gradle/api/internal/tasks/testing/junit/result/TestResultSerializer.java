@@ -20,17 +20,25 @@ import org.gradle.api.Action;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestResult;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.messaging.serialize.Decoder;
 import org.gradle.messaging.serialize.Encoder;
-import org.gradle.messaging.serialize.FlushableEncoder;
 import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
 import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
 
 import java.io.*;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Reads and writes the results of the test classes of a test run. The results of each class are written as the class completes, so the results of
+ * a run are not held in memory.
+ */
 public class TestResultSerializer {
-    private static final int RESULT_VERSION = 2;
+    private static final int RESULT_VERSION = 4;
 
     private final File resultsFile;
 
@@ -39,27 +47,79 @@ public class TestResultSerializer {
     }
 
     public void write(Collection<TestClassResult> results) {
+        Writer writer = writer();
         try {
-            OutputStream outputStream = new FileOutputStream(resultsFile);
-            try {
-                if (!results.isEmpty()) { // only write if we have results, otherwise truncate
-                    FlushableEncoder encoder = new KryoBackedEncoder(outputStream);
-                    encoder.writeSmallInt(RESULT_VERSION);
-                    write(results, encoder);
-                    encoder.flush();
-                }
-            } finally {
-                outputStream.close();
+            for (TestClassResult result : results) {
+                writer.write(result);
             }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns a writer that replaces the results with the results of the classes passed to it.
+     */
+    public Writer writer() {
+        try {
+            return new Writer(new FileOutputStream(resultsFile));
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
-    private void write(Collection<TestClassResult> results, Encoder encoder) throws IOException {
-        encoder.writeSmallInt(results.size());
-        for (TestClassResult result : results) {
-            write(result, encoder);
+    /**
+     * Writes the results of one class at a time. Each class is preceded by a marker, and the last class is followed by an end marker. The end marker
+     * is followed by the ids of the classes that were written more than once, and then by the position of these ids, so that a reader can find them
+     * without reading the results. Nothing is written when there are no results.
+     */
+    public class Writer {
+        private final OutputStream outputStream;
+        private final KryoBackedEncoder encoder;
+        private final Set<Long> classIds = new HashSet<Long>();
+        private final Set<Long> repeatedClassIds = new HashSet<Long>();
+        private boolean hasResults;
+
+        private Writer(OutputStream outputStream) {
+            this.outputStream = outputStream;
+            this.encoder = new KryoBackedEncoder(outputStream);
+        }
+
+        public void write(TestClassResult result) {
+            try {
+                if (!hasResults) {
+                    encoder.writeSmallInt(RESULT_VERSION);
+                    hasResults = true;
+                }
+                if (!classIds.add(result.getId())) {
+                    repeatedClassIds.add(result.getId());
+                }
+                encoder.writeBoolean(true);
+                TestResultSerializer.this.write(result, encoder);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void close() {
+            try {
+                try {
+                    if (hasResults) {
+                        encoder.writeBoolean(false);
+                        long repeatedClassIdsPos = encoder.getWritePosition();
+                        encoder.writeSmallInt(repeatedClassIds.size());
+                        for (Long id : repeatedClassIds) {
+                            encoder.writeSmallLong(id);
+                        }
+                        encoder.writeLong(repeatedClassIdsPos);
+                    }
+                    encoder.flush();
+                } finally {
+                    outputStream.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
     }
 
@@ -87,6 +147,10 @@ public class TestResultSerializer {
         }
     }
 
+    /**
+     * Visits the results of each class once. A class that was written more than once, such as a class run by more than one test class suite, is
+     * visited once with all of its results, after the other classes.
+     */
     public void read(Action<? super TestClassResult> visitor) {
         if (!isHasResults()) {
             return;
@@ -99,7 +163,7 @@ public class TestResultSerializer {
                 if (version != RESULT_VERSION) {
                     throw new IllegalArgumentException(String.format("Unexpected result file version %d found in %s.", version, resultsFile));
                 }
-                readResults(decoder, visitor);
+                readResults(decoder, readRepeatedClassIds(), visitor);
             } finally {
                 inputStream.close();
             }
@@ -108,14 +172,53 @@ public class TestResultSerializer {
         }
     }
 
+    private Set<Long> readRepeatedClassIds() throws IOException {
+        RandomAccessFile file = new RandomAccessFile(resultsFile, "r");
+        try {
+            file.seek(file.length() - 8);
+            file.seek(file.readLong());
+            Decoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(file));
+            int count = decoder.readSmallInt();
+            Set<Long> repeatedClassIds = new HashSet<Long>();
+            for (int i = 0; i < count; i++) {
+                repeatedClassIds.add(decoder.readSmallLong());
+            }
+            return repeatedClassIds;
+        } finally {
+            file.close();
+        }
+    }
+
     public boolean isHasResults() {
         return resultsFile.exists() && resultsFile.length() > 0;
     }
 
-    private void readResults(Decoder decoder, Action<? super TestClassResult> visitor) throws ClassNotFoundException, IOException {
-        int classCount = decoder.readSmallInt();
-        for (int i = 0; i < classCount; i++) {
+    /**
+     * Returns the time at which the results file was last written, or 0 when there is no results file. An empty results file, written by a run
+     * that had no results, has a timestamp.
+     */
+    public long getTimestamp() {
+        return resultsFile.lastModified();
+    }
+
+    private void readResults(Decoder decoder, Set<Long> repeatedClassIds, Action<? super TestClassResult> visitor) throws ClassNotFoundException, IOException {
+        Map<Long, TestClassResult> mergedResults = new LinkedHashMap<Long, TestClassResult>();
+        while (decoder.readBoolean()) {
             TestClassResult classResult = readClassResult(decoder);
+            if (!repeatedClassIds.contains(classResult.getId())) {
+                visitor.execute(classResult);
+                continue;
+            }
+            TestClassResult mergedResult = mergedResults.get(classResult.getId());
+            if (mergedResult == null) {
+                mergedResults.put(classResult.getId(), classResult);
+            } else {
+                for (TestMethodResult methodResult : classResult.getResults()) {
+                    mergedResult.add(methodResult);
+                }
+            }
+        }
+        for (TestClassResult classResult : mergedResults.values()) {
             visitor.execute(classResult);
         }
     }
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.actor.Actor;
+import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.dispatch.DispatchException;
+
+import java.util.*;
+
+/**
+ * Manages a set of parallel TestClassProcessors, using the durations of the test classes in a previous run to balance the work between the
+ * processors. While test classes are being found, each processor that is not running a test class is given the longest test class found so
+ * far. When all test classes have been found, the remaining test classes are given, longest first, to the processor that is expected to
+ * finish its work first.
+ *
+ * <p>A test class whose duration is not known is expected to take the average duration of the known test classes.</p>
+ */
+public class BalancedParallelTestClassProcessor implements TestClassProcessor {
+    private final int maxProcessors;
+    private final Factory<TestClassProcessor> factory;
+    private final ActorFactory actorFactory;
+    private final Map<String, Long> classDurations;
+    private final long unknownDuration;
+    private final Object lock = new Object();
+    private final List<TestClassRunInfo> waiting = new ArrayList<TestClassRunInfo>();
+    private final List<Fork> forks = new ArrayList<Fork>();
+    private final List<Actor> actors = new ArrayList<Actor>();
+    private final Comparator<TestClassRunInfo> longestFirst = new Comparator<TestClassRunInfo>() {
+        public int compare(TestClassRunInfo o1, TestClassRunInfo o2) {
+            long duration1 = expectedDuration(o1.getTestClassName());
+            long duration2 = expectedDuration(o2.getTestClassName());
+            return duration1 > duration2 ? -1 : duration1 < duration2 ? 1 : 0;
+        }
+    };
+    private TestResultProcessor resultProcessor;
+    private Actor resultProcessorActor;
+    private boolean allClassesFound;
+
+    /**
+     * @param classDurations the durations in milliseconds of the test classes in a previous run, keyed by class name.
+     */
+    public BalancedParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> classDurations) {
+        this.maxProcessors = maxProcessors;
+        this.factory = factory;
+        this.actorFactory = actorFactory;
+        this.classDurations = classDurations;
+        this.unknownDuration = averageDuration(classDurations.values());
+    }
+
+    private static long averageDuration(Collection<Long> durations) {
+        if (durations.isEmpty()) {
+            return 1;
+        }
+        long total = 0;
+        for (Long duration : durations) {
+            total += duration;
+        }
+        return Math.max(1, total / durations.size());
+    }
+
+    private long expectedDuration(String className) {
+        Long duration = classDurations.get(className);
+        return duration == null ? unknownDuration : duration;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        resultProcessorActor = actorFactory.createActor(resultProcessor);
+        this.resultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        synchronized (lock) {
+            waiting.add(testClass);
+            dispatchToIdleForks();
+        }
+    }
+
+    public void stop() {
+        synchronized (lock) {
+            allClassesFound = true;
+            Collections.sort(waiting, longestFirst);
+            for (TestClassRunInfo testClass : waiting) {
+                leastBusyFork().process(testClass);
+            }
+            waiting.clear();
+        }
+        List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
+        for (Fork fork : forks) {
+            processors.add(fork.processor);
+        }
+        try {
+            CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
+        } catch (DispatchException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+    }
+
+    private void dispatchToIdleForks() {
+        while (!allClassesFound && !waiting.isEmpty()) {
+            Fork fork = idleFork();
+            if (fork == null) {
+                return;
+            }
+            TestClassRunInfo longest = Collections.min(waiting, longestFirst);
+            waiting.remove(longest);
+            fork.process(longest);
+        }
+    }
+
+    private Fork idleFork() {
+        for (Fork fork : forks) {
+            if (fork.running.isEmpty()) {
+                return fork;
+            }
+        }
+        return forks.size() < maxProcessors ? startFork() : null;
+    }
+
+    private Fork leastBusyFork() {
+        if (forks.size() < maxProcessors) {
+            return startFork();
+        }
+        Fork leastBusy = null;
+        for (Fork fork : forks) {
+            if (leastBusy == null || fork.expectedWork < leastBusy.expectedWork) {
+                leastBusy = fork;
+            }
+        }
+        return leastBusy;
+    }
+
+    private Fork startFork() {
+        TestClassProcessor processor = factory.create();
+        Actor actor = actorFactory.createActor(processor);
+        Fork fork = new Fork(actor.getProxy(TestClassProcessor.class));
+        actors.add(actor);
+        forks.add(fork);
+        fork.processor.startProcessing(fork);
+        return fork;
+    }
+
+    private void classCompleted(Fork fork, String className) {
+        synchronized (lock) {
+            if (fork.running.remove(className)) {
+                fork.expectedWork -= expectedDuration(className);
+                dispatchToIdleForks();
+            }
+        }
+    }
+
+    /**
+     * A processor, and the test classes it has been given that have not completed. Receives the results of the processor, to find out when a
+     * test class has completed.
+     */
+    private class Fork implements TestResultProcessor {
+        final TestClassProcessor processor;
+        final List<String> running = new ArrayList<String>();
+        final Map<Object, String> classIds = new HashMap<Object, String>();
+        long expectedWork;
+
+        Fork(TestClassProcessor processor) {
+            this.processor = processor;
+        }
+
+        void process(TestClassRunInfo testClass) {
+            running.add(testClass.getTestClassName());
+            expectedWork += expectedDuration(testClass.getTestClassName());
+            processor.processTestClass(testClass);
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            if (test.isComposite() && test.getClassName() != null) {
+                synchronized (classIds) {
+                    classIds.put(test.getId(), test.getClassName());
+                }
+            }
+            resultProcessor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            resultProcessor.completed(testId, event);
+            String className;
+            synchronized (classIds) {
+                className = classIds.remove(testId);
+            }
+            if (className != null) {
+                classCompleted(this, className);
+            }
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            resultProcessor.failure(testId, result);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stops passing test classes to another processor once a test has failed, so that a failure is reported without waiting for the remaining test
+ * classes. Test classes that have already been passed to the processor still run.
+ */
+public class FailFastTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(FailFastTestClassProcessor.class);
+    private final TestClassProcessor processor;
+    private final AtomicBoolean failed;
+    private int skipped;
+
+    public FailFastTestClassProcessor(TestClassProcessor processor) {
+        this(processor, new AtomicBoolean());
+    }
+
+    /**
+     * @param failed set once a test has failed. Can be shared by processors that run the test classes of the same task one after another.
+     */
+    public FailFastTestClassProcessor(TestClassProcessor processor, AtomicBoolean failed) {
+        this.processor = processor;
+        this.failed = failed;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        processor.startProcessing(new FailureDetector(resultProcessor));
+    }
+
+    public synchronized void processTestClass(TestClassRunInfo testClass) {
+        if (failed.get()) {
+            skipped++;
+            return;
+        }
+        processor.processTestClass(testClass);
+    }
+
+    public void stop() {
+        try {
+            processor.stop();
+        } finally {
+            synchronized (this) {
+                if (skipped > 0) {
+                    LOGGER.lifecycle("Skipped {} test classes after a test failed.", skipped);
+                }
+            }
+        }
+    }
+
+    private class FailureDetector implements TestResultProcessor {
+        private final TestResultProcessor resultProcessor;
+
+        FailureDetector(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+            resultProcessor.started(test, event);
+        }
+
+        public void completed(Object testId, TestCompleteEvent event) {
+            if (event.getResultType() == TestResult.ResultType.FAILURE) {
+                failed.set(true);
+            }
+            resultProcessor.completed(testId, event);
+        }
+
+        public void output(Object testId, TestOutputEvent event) {
+            resultProcessor.output(testId, event);
+        }
+
+        public void failure(Object testId, Throwable result) {
+            failed.set(true);
+            resultProcessor.failure(testId, result);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.Factory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Passes the test classes that satisfy a spec to another processor as soon as they are found, and the remaining test classes once all test
+ * classes have been found.
+ *
+ * <p>When the prioritized test classes are to complete first, they are run by one processor, which is stopped before the remaining test classes are
+ * passed to a second processor. Otherwise, all test classes are passed to the same processor.</p>
+ */
+public class PrioritizedTestClassProcessor implements TestClassProcessor {
+    private final Factory<? extends TestClassProcessor> processorFactory;
+    private final Spec<? super TestClassRunInfo> prioritized;
+    private final boolean completePrioritizedFirst;
+    private final List<TestClassRunInfo> deferred = new ArrayList<TestClassRunInfo>();
+    private TestResultProcessor resultProcessor;
+    private TestClassProcessor processor;
+
+    public PrioritizedTestClassProcessor(Factory<? extends TestClassProcessor> processorFactory, Spec<? super TestClassRunInfo> prioritized, boolean completePrioritizedFirst) {
+        this.processorFactory = processorFactory;
+        this.prioritized = prioritized;
+        this.completePrioritizedFirst = completePrioritizedFirst;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        this.resultProcessor = resultProcessor;
+        processor = processorFactory.create();
+        processor.startProcessing(resultProcessor);
+    }
+
+    public synchronized void processTestClass(TestClassRunInfo testClass) {
+        if (prioritized.isSatisfiedBy(testClass)) {
+            processor.processTestClass(testClass);
+        } else {
+            deferred.add(testClass);
+        }
+    }
+
+    public void stop() {
+        synchronized (this) {
+            if (completePrioritizedFirst && !deferred.isEmpty()) {
+                // Wait for the prioritized test classes to complete, so that their results are known before the remaining test classes are dispatched
+                processor.stop();
+                processor = processorFactory.create();
+                processor.startProcessing(resultProcessor);
+            }
+        }
+        try {
+            synchronized (this) {
+                for (TestClassRunInfo testClass : deferred) {
+                    processor.processTestClass(testClass);
+                }
+                deferred.clear();
+            }
+        } finally {
+            processor.stop();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+
+/**
+ * Passes only the test classes that satisfy a spec to another processor.
+ */
+public class SelectingTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = Logging.getLogger(SelectingTestClassProcessor.class);
+    private final TestClassProcessor processor;
+    private final Spec<? super TestClassRunInfo> selected;
+    private int skipped;
+
+    public SelectingTestClassProcessor(TestClassProcessor processor, Spec<? super TestClassRunInfo> selected) {
+        this.processor = processor;
+        this.selected = selected;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        processor.startProcessing(resultProcessor);
+    }
+
+    public synchronized void processTestClass(TestClassRunInfo testClass) {
+        if (selected.isSatisfiedBy(testClass)) {
+            processor.processTestClass(testClass);
+        } else {
+            skipped++;
+        }
+    }
+
+    public void stop() {
+        try {
+            processor.stop();
+        } finally {
+            synchronized (this) {
+                if (skipped > 0) {
+                    LOGGER.lifecycle("Skipped {} test classes not affected by the changes since the previous run.", skipped);
+                }
+            }
+        }
+    }
+}
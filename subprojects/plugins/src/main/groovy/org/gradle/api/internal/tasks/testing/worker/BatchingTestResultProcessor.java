@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Collects the events of a test worker into batches, and sends each batch to the build process as a single message. A batch is sent when it holds
+ * a given number of events or characters of output, when a test class or suite completes, and otherwise shortly after its first event.
+ * Can be used by several threads at once.
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    static final int MAX_EVENTS = 500;
+    static final int MAX_OUTPUT_CHARS = 64 * 1024;
+    static final long FLUSH_INTERVAL_MILLIS = 50;
+
+    private final RemoteTestResultProcessor target;
+    private final int maxEvents;
+    private final int maxOutputChars;
+    private final long flushIntervalMillis;
+    private final StoppableExecutor flushExecutor;
+    private final Set<Object> compositeIds = new HashSet<Object>();
+    private TestEventBatch batch = new TestEventBatch();
+    private int outputChars;
+    private boolean stopped;
+
+    public BatchingTestResultProcessor(RemoteTestResultProcessor target, ExecutorFactory executorFactory) {
+        this(target, executorFactory, MAX_EVENTS, MAX_OUTPUT_CHARS, FLUSH_INTERVAL_MILLIS);
+    }
+
+    BatchingTestResultProcessor(RemoteTestResultProcessor target, ExecutorFactory executorFactory, int maxEvents, int maxOutputChars, long flushIntervalMillis) {
+        this.target = target;
+        this.maxEvents = maxEvents;
+        this.maxOutputChars = maxOutputChars;
+        this.flushIntervalMillis = flushIntervalMillis;
+        flushExecutor = executorFactory.create("Test event batch flusher");
+        flushExecutor.execute(new Runnable() {
+            public void run() {
+                flushPeriodically();
+            }
+        });
+    }
+
+    private synchronized void flushPeriodically() {
+        while (!stopped) {
+            try {
+                wait(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            flush();
+        }
+    }
+
+    public synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+        if (test.isComposite()) {
+            compositeIds.add(test.getId());
+        }
+        add(TestEventBatch.STARTED, test, event);
+    }
+
+    public synchronized void completed(Object testId, TestCompleteEvent event) {
+        add(TestEventBatch.COMPLETED, testId, event);
+        if (compositeIds.remove(testId)) {
+            // The build process may be waiting for a test class to complete before it sends the next one
+            flush();
+        }
+    }
+
+    public synchronized void output(Object testId, TestOutputEvent event) {
+        outputChars += event.getMessage().length();
+        add(TestEventBatch.OUTPUT, testId, event);
+    }
+
+    public synchronized void failure(Object testId, Throwable result) {
+        add(TestEventBatch.FAILURE, testId, result);
+    }
+
+    private void add(byte kind, Object param1, Object param2) {
+        batch.add(kind, param1, param2);
+        if (batch.size() >= maxEvents || outputChars >= maxOutputChars) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the events collected so far, if any.
+     */
+    public synchronized void flush() {
+        if (batch.size() == 0) {
+            return;
+        }
+        TestEventBatch events = batch;
+        batch = new TestEventBatch();
+        outputChars = 0;
+        target.processBatch(events);
+    }
+
+    /**
+     * Sends the events collected so far, and stops sending batches in the background.
+     */
+    public void stop() {
+        synchronized (this) {
+            stopped = true;
+            notifyAll();
+        }
+        flushExecutor.stop();
+        flush();
+    }
+}
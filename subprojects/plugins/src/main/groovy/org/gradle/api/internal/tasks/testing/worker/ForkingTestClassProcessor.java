@@ -35,16 +35,25 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final boolean reuseWorkerProcess;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
 
     public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, false);
+    }
+
+    /**
+     * @param reuseWorkerProcess whether the tests may run in an idle worker process left by earlier tests, and whose process may be used by later tests.
+     */
+    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction, boolean reuseWorkerProcess) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
         this.classPath = classPath;
         this.buildConfigAction = buildConfigAction;
+        this.reuseWorkerProcess = reuseWorkerProcess;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,7 +64,12 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         if (remoteProcessor == null) {
             WorkerProcessBuilder builder = workerFactory.create();
             builder.applicationClasspath(classPath);
-            builder.setLoadApplicationInSystemClassLoader(true);
+            if (reuseWorkerProcess) {
+                // The test classes are loaded in a new isolated ClassLoader each time the process is used
+                builder.setReusable(true);
+            } else {
+                builder.setLoadApplicationInSystemClassLoader(true);
+            }
             builder.worker(new TestWorker(processorFactory));
             options.copyTo(builder.getJavaCommand());
             buildConfigAction.execute(builder);
@@ -65,7 +79,11 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
             ObjectConnection connection = workerProcess.getConnection();
             connection.useParameterSerializer(new TestEventSerializer());
-            connection.addIncoming(TestResultProcessor.class, resultProcessor);
+            connection.addIncoming(RemoteTestResultProcessor.class, new RemoteTestResultProcessor() {
+                public void processBatch(TestEventBatch events) {
+                    events.applyTo(resultProcessor);
+                }
+            });
             remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
             connection.connect();
 
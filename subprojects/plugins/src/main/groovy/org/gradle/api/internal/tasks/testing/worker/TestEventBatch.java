@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A sequence of test events, sent from a test worker to the build process as a single message. Each event is held as a kind and two parameters.
+ */
+public class TestEventBatch {
+    static final byte STARTED = 0;
+    static final byte COMPLETED = 1;
+    static final byte OUTPUT = 2;
+    static final byte FAILURE = 3;
+
+    private byte[] kinds = new byte[16];
+    private final List<Object> params = new ArrayList<Object>();
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    byte getKind(int index) {
+        return kinds[index];
+    }
+
+    Object getParam(int index, int param) {
+        return params.get(2 * index + param);
+    }
+
+    void add(byte kind, Object param1, Object param2) {
+        if (size == kinds.length) {
+            byte[] newKinds = new byte[2 * size];
+            System.arraycopy(kinds, 0, newKinds, 0, size);
+            kinds = newKinds;
+        }
+        kinds[size++] = kind;
+        params.add(param1);
+        params.add(param2);
+    }
+
+    /**
+     * Passes the events to the given processor, in the order they were added.
+     */
+    public void applyTo(TestResultProcessor processor) {
+        for (int i = 0; i < size; i++) {
+            Object param1 = params.get(2 * i);
+            Object param2 = params.get(2 * i + 1);
+            switch (kinds[i]) {
+                case STARTED:
+                    processor.started((TestDescriptorInternal) param1, (TestStartEvent) param2);
+                    break;
+                case COMPLETED:
+                    processor.completed(param1, (TestCompleteEvent) param2);
+                    break;
+                case OUTPUT:
+                    processor.output(param1, (TestOutputEvent) param2);
+                    break;
+                case FAILURE:
+                    processor.failure(param1, (Throwable) param2);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("Unknown test event kind %s.", kinds[i]));
+            }
+        }
+    }
+}
@@ -80,6 +80,7 @@ public class TestEventSerializer implements StatefulSerializer<Object[]> {
             add(TestCompleteEvent.class, new TestCompleteEventSerializer());
             add(DefaultTestOutputEvent.class, new DefaultTestOutputEventSerializer());
             add(Throwable.class, new ThrowableSerializer());
+            add(TestEventBatch.class, new TestEventBatchSerializer(this));
         }
 
         private <T> void add(Class<T> type, Serializer<T> serializer) {
@@ -146,6 +147,38 @@ public class TestEventSerializer implements StatefulSerializer<Object[]> {
         }
     }
 
+    /**
+     * Writes the number of events, then the kind and the two parameters of each event.
+     */
+    private static class TestEventBatchSerializer implements Serializer<TestEventBatch> {
+        private final Serializer<Object> paramSerializer;
+
+        private TestEventBatchSerializer(Serializer<Object> paramSerializer) {
+            this.paramSerializer = paramSerializer;
+        }
+
+        public TestEventBatch read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            TestEventBatch batch = new TestEventBatch();
+            for (int i = 0; i < count; i++) {
+                byte kind = decoder.readByte();
+                Object param1 = paramSerializer.read(decoder);
+                Object param2 = paramSerializer.read(decoder);
+                batch.add(kind, param1, param2);
+            }
+            return batch;
+        }
+
+        public void write(Encoder encoder, TestEventBatch value) throws Exception {
+            encoder.writeSmallInt(value.size());
+            for (int i = 0; i < value.size(); i++) {
+                encoder.writeByte(value.getKind(i));
+                paramSerializer.write(encoder, value.getParam(i, 0));
+                paramSerializer.write(encoder, value.getParam(i, 1));
+            }
+        }
+    }
+
     private static class ThrowableSerializer implements Serializer<Throwable> {
         public Throwable read(Decoder decoder) throws Exception {
             return (Throwable) Message.receive(decoder.getInputStream(), getClass().getClassLoader());
@@ -19,7 +19,6 @@ package org.gradle.api.internal.tasks.testing.worker;
 import org.gradle.api.Action;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
-import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.internal.UncheckedException;
@@ -47,7 +46,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private final WorkerTestClassProcessorFactory factory;
     private CountDownLatch completed;
     private TestClassProcessor processor;
-    private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor resultProcessor;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -89,7 +88,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializer(new TestEventSerializer());
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        this.resultProcessor = new BatchingTestResultProcessor(serverConnection.addOutgoing(RemoteTestResultProcessor.class), testServices.get(ExecutorFactory.class));
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -112,7 +111,11 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     public void stop() {
         Thread.currentThread().setName("Test worker");
         try {
-            processor.stop();
+            try {
+                processor.stop();
+            } finally {
+                resultProcessor.stop();
+            }
         } finally {
             completed.countDown();
         }
@@ -17,6 +17,7 @@
 package org.gradle.api.tasks.testing;
 
 import groovy.lang.Closure;
+import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.Incubating;
 import org.gradle.api.file.FileCollection;
@@ -29,7 +30,9 @@ import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.detection.AffectedTestClassFinder;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.PreviousTestResults;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
@@ -50,6 +53,7 @@ import org.gradle.api.tasks.util.PatternFilterable;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.listener.ListenerBroadcast;
@@ -66,7 +70,11 @@ import org.gradle.util.ConfigureUtil;
 import org.gradle.util.DeprecationLogger;
 
 import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.*;
 
 /**
@@ -444,6 +452,16 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        boolean selectAffected = DefaultTestExecuter.isSelectAffected();
+        PreviousTestResults previousResults = DefaultTestExecuter.isBalanceForks(this) || DefaultTestExecuter.isFailedFirst() || selectAffected
+                ? readPreviousResults(binaryResultsDir) : PreviousTestResults.NONE;
+        AffectedTestClassFinder affectedClassFinder = null;
+        if (selectAffected) {
+            affectedClassFinder = new AffectedTestClassFinder(new File(getTemporaryDir(), "testSelection.bin"));
+            Set<String> affectedClasses = affectedClassFinder.findAffectedClasses(new ArrayList<File>(getClasspath().getFiles()), hashInputProperties());
+            // The test classes that failed in the previous run must run again, so run all test classes when they are not known
+            previousResults = previousResults.withAffectedClasses(previousResults.getTimestamp() > 0 ? affectedClasses : null);
+        }
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -451,7 +469,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         TestOutputStore testOutputStore = new TestOutputStore(binaryResultsDir);
 
         TestOutputStore.Writer outputWriter = testOutputStore.writer();
-        TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter);
+        TestResultSerializer.Writer resultWriter = new TestResultSerializer(binaryResultsDir).writer();
+        TestReportDataCollector testReportDataCollector = new TestReportDataCollector(results, outputWriter, resultWriter);
 
         addTestListener(testReportDataCollector);
         addTestOutputListener(testReportDataCollector);
@@ -463,16 +482,22 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
                 getTestListenerBroadcaster().getSource(), testOutputListenerBroadcaster.getSource());
 
         try {
-            testExecuter.execute(this, resultProcessor);
+            testExecuter.execute(this, resultProcessor, previousResults);
         } finally {
             testListenerBroadcaster.removeAll();
             testOutputListenerBroadcaster.removeAll();
-            outputWriter.close();
+            try {
+                outputWriter.close();
+            } finally {
+                writeRemainingResults(results.values(), resultWriter);
+            }
         }
 
-        new TestResultSerializer(binaryResultsDir).write(results.values());
+        if (affectedClassFinder != null) {
+            affectedClassFinder.save();
+        }
 
-        TestResultsProvider testResultsProvider = new InMemoryTestResultsProvider(results.values(), testOutputStore.reader());
+        TestResultsProvider testResultsProvider = new BinaryResultBackedTestResultsProvider(binaryResultsDir);
 
         try {
             JUnitXmlReport junitXml = reports.getJunitXml();
@@ -502,6 +527,56 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     }
 
 
+    /**
+     * Writes the results of the test classes whose suite did not complete, such as those run by TestNG, which does not report test class suites.
+     */
+    private void writeRemainingResults(Collection<TestClassResult> results, TestResultSerializer.Writer resultWriter) {
+        try {
+            for (TestClassResult result : results) {
+                resultWriter.write(result);
+            }
+        } finally {
+            resultWriter.close();
+        }
+    }
+
+    private PreviousTestResults readPreviousResults(File binaryResultsDir) {
+        final Map<String, Long> classDurations = new HashMap<String, Long>();
+        final Set<String> failedClasses = new HashSet<String>();
+        TestResultSerializer serializer = new TestResultSerializer(binaryResultsDir);
+        try {
+            serializer.read(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    classDurations.put(result.getClassName(), result.getDuration());
+                    if (result.getFailuresCount() > 0) {
+                        failedClasses.add(result.getClassName());
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // The previous results are only used to order the test classes and balance the work between the test processes, so carry on without them
+            getLogger().info("Could not read the test results of the previous run.", e);
+            return PreviousTestResults.NONE;
+        }
+        return new PreviousTestResults(classDurations, failedClasses, serializer.getTimestamp(), null);
+    }
+
+    /**
+     * Returns a hash of the input properties of this task, or null when they cannot be serialized.
+     */
+    private String hashInputProperties() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream outputStream = new ObjectOutputStream(bytes);
+            outputStream.writeObject(new TreeMap<String, Object>(getInputs().getProperties()));
+            outputStream.close();
+            return HashUtil.createHash(new ByteArrayInputStream(bytes.toByteArray()), "MD5").asHexString();
+        } catch (IOException e) {
+            getLogger().info("Could not hash the input properties of the task.", e);
+            return null;
+        }
+    }
+
     /**
      * Returns the {@link org.gradle.api.tasks.testing.TestListener} broadcaster.  This broadcaster will send messages to all listeners that have been registered with the ListenerManager.
      */
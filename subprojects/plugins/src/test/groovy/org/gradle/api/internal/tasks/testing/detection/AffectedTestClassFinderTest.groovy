@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.AccessedFromPrivateClass
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.HasNonPrivateConstants
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.SomeClass
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.SomeOtherClass
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.YetAnotherClass
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AffectedTestClassFinderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    final TestFile stateFile = tmpDir.file("state.bin")
+    final TestFile classesDir = tmpDir.file("classes")
+    final TestFile jar = tmpDir.file("lib.jar")
+
+    def setup() {
+        [SomeClass, SomeOtherClass, YetAnotherClass, AccessedFromPrivateClass, HasNonPrivateConstants].each { copyClass(it) }
+        classesDir.file("resource.txt").text = "resource"
+        jar.text = "jar"
+    }
+
+    def "all classes are affected when there is no snapshot of the previous run"() {
+        expect:
+        find() == null
+    }
+
+    def "no classes are affected when nothing has changed"() {
+        given:
+        findAndSave()
+
+        expect:
+        find() == [] as Set
+    }
+
+    def "finds changed classes and the classes that depend on them"() {
+        given:
+        findAndSave()
+
+        when:
+        change(YetAnotherClass)
+
+        then:
+        find() == [YetAnotherClass.name, SomeOtherClass.name] as Set
+    }
+
+    def "compares with the snapshot of the most recent saved run"() {
+        given:
+        findAndSave()
+        change(YetAnotherClass)
+        findAndSave()
+
+        expect:
+        find() == [] as Set
+    }
+
+    def "all classes are affected when the previous run did not save its snapshot"() {
+        given:
+        findAndSave()
+        change(YetAnotherClass)
+        new AffectedTestClassFinder(stateFile).findAffectedClasses([classesDir, jar], "inputs")
+
+        expect:
+        find() == null
+    }
+
+    def "all classes are affected when a change may affect any class"() {
+        given:
+        findAndSave()
+
+        when:
+        change(HasNonPrivateConstants)
+
+        then:
+        find() == null
+    }
+
+    def "all classes are affected when a file other than a class file has changed"() {
+        given:
+        findAndSave()
+
+        when:
+        tmpDir.file(path).text = "changed"
+
+        then:
+        find() == null
+
+        where:
+        path << ["classes/resource.txt", "lib.jar"]
+    }
+
+    def "all classes are affected when the other inputs have changed"() {
+        given:
+        findAndSave()
+
+        expect:
+        find("changed inputs") == null
+    }
+
+    def "all classes are affected when the other inputs are not known"() {
+        given:
+        def finder = new AffectedTestClassFinder(stateFile)
+        finder.findAffectedClasses([classesDir, jar], null)
+        finder.save()
+
+        expect:
+        find(null) == null
+    }
+
+    private Set<String> find(String inputsHash = "inputs") {
+        return new AffectedTestClassFinder(stateFile).findAffectedClasses([classesDir, jar], inputsHash)
+    }
+
+    private void findAndSave() {
+        def finder = new AffectedTestClassFinder(stateFile)
+        finder.findAffectedClasses([classesDir, jar], "inputs")
+        finder.save()
+    }
+
+    private TestFile classFile(Class<?> type) {
+        return classesDir.file(type.name.replace('.', '/') + ".class")
+    }
+
+    private void copyClass(Class<?> type) {
+        def resource = type.classLoader.getResource(type.name.replace('.', '/') + ".class")
+        classFile(type).parentFile.mkdirs()
+        classFile(type).bytes = resource.bytes
+    }
+
+    private void change(Class<?> type) {
+        // Trailing bytes are ignored when the class file is parsed
+        classFile(type).bytes = classFile(type).bytes + ([0] as byte[])
+    }
+}
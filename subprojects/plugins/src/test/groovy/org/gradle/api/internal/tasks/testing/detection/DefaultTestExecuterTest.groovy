@@ -51,7 +51,7 @@ class DefaultTestExecuterTest extends Specification {
 
     def "testClassDirectory for testclassdetector is configured before executing"() {
         when:
-        executer.execute(testTask, testResultProcessor);
+        executer.execute(testTask, testResultProcessor, PreviousTestResults.NONE);
         then:
         1 * testFramework.getDetector() >> testFrameworkTestDetector
         1 * testTask.getTestClassesDir() >> testClassesDir
@@ -60,7 +60,7 @@ class DefaultTestExecuterTest extends Specification {
 
     def "testClasspath for testclassdetector is configured before executing"() {
         when:
-        executer.execute(testTask, testResultProcessor);
+        executer.execute(testTask, testResultProcessor, PreviousTestResults.NONE);
         then:
         1 * testTask.getClasspath() >> testClasspath
         1 * testFrameworkTestDetector.setTestClasspath(testClasspath)
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheFile = tmpDir.file("cache.bin")
+    def classFile = tmpDir.file("classes/SomeTest.class")
+
+    def setup() {
+        classFile.text = "class file"
+    }
+
+    def "returns details of class file parsed by previous run"() {
+        given:
+        def cache = newCache("junit")
+        cache.load()
+
+        expect:
+        cache.get(classFile) == null
+
+        when:
+        cache.put(classFile, new TestClassDetectionCache.ClassDetails("SomeTest", "java/lang/Object", false, true))
+        cache.save()
+        cache = newCache("junit")
+        cache.load()
+        def details = cache.get(classFile)
+
+        then:
+        details.className == "SomeTest"
+        details.superClassName == "java/lang/Object"
+        !details.isAbstract()
+        details.test
+    }
+
+    def "returns details of class file with same content at another location"() {
+        given:
+        def cache = newCache("junit")
+        cache.put(classFile, new TestClassDetectionCache.ClassDetails("SomeTest", null, true, false))
+        cache.save()
+        def copy = tmpDir.file("other/SomeTest.class")
+        copy.text = classFile.text
+
+        when:
+        cache = newCache("junit")
+        cache.load()
+        def details = cache.get(copy)
+
+        then:
+        details.className == "SomeTest"
+        details.superClassName == null
+        details.isAbstract()
+    }
+
+    def "does not return details of class file that has changed"() {
+        given:
+        def cache = newCache("junit")
+        cache.put(classFile, new TestClassDetectionCache.ClassDetails("SomeTest", null, false, true))
+        cache.save()
+        classFile.text = "changed class file"
+
+        when:
+        cache = newCache("junit")
+        cache.load()
+
+        then:
+        cache.get(classFile) == null
+    }
+
+    def "discards details cached for another detector"() {
+        given:
+        def cache = newCache("junit")
+        cache.put(classFile, new TestClassDetectionCache.ClassDetails("SomeTest", null, false, true))
+        cache.save()
+
+        when:
+        cache = newCache("testng")
+        cache.load()
+
+        then:
+        cache.get(classFile) == null
+    }
+
+    def "ignores cache file that cannot be read"() {
+        given:
+        cacheFile.text = "not a cache"
+        def cache = newCache("junit")
+
+        when:
+        cache.load()
+
+        then:
+        cache.get(classFile) == null
+    }
+
+    private TestClassDetectionCache newCache(String detectorType) {
+        return new TestClassDetectionCache(cacheFile, detectorType)
+    }
+}
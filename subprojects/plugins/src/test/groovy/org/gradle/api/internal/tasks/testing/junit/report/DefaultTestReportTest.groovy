@@ -461,6 +461,18 @@ class DefaultTestReportTest extends Specification {
         testClassFile.assertHasStandardError('err:\u0102')
     }
 
+    def generatesReportUsingASingleThread() {
+        given:
+        def report = new DefaultTestReport(1)
+
+        when:
+        report.generateReport(failingBuildResults(), reportDir)
+
+        then:
+        results(indexFile).assertHasTests(7)
+        results(reportDir.file('classes/org.gradle.failing.SomeIgnoredSomePassedSomeFailed.html')).assertHasFailures(1)
+    }
+
     def results(TestFile file) {
         return new HtmlTestResultsFixture(file)
     }
@@ -55,6 +55,25 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         0 * generator.saxWriter._
     }
 
+    def "writes results of many classes using a limited number of threads"() {
+        def generator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, resultsProvider, TestOutputAssociation.WITH_SUITE, 2)
+        generator.saxWriter = Mock(JUnitXmlResultWriter)
+        def classes = (1..20).collect { new TestClassResult(it, "FooTest$it", 100).add(new TestMethodResult(it, "foo")) }
+        def written = Collections.synchronizedList([])
+
+        resultsProvider.visitClasses(_) >> { Action action ->
+            classes.each { action.execute(it) }
+        }
+
+        when:
+        generator.generate()
+
+        then:
+        20 * generator.saxWriter.write(_, _) >> { TestClassResult result, OutputStream output -> written << result }
+        0 * generator.saxWriter._
+        written as Set == classes as Set
+    }
+
     def "adds context information to the failure if something goes wrong"() {
         def fooTest = new TestClassResult(1, 'FooTest', 100)
                 .add(new TestMethodResult(1, "foo"))
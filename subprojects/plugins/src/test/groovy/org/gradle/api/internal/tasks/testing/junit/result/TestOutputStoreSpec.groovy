@@ -89,6 +89,45 @@ class TestOutputStoreSpec extends WorkspaceTest {
         collectOutput(reader, 2, StdOut) == "[out-6]"
     }
 
+    def "finds output of many classes and tests written in any order"() {
+        when:
+        def writer = output.writer()
+        def ids = []
+        (1..50).each { classId -> (0..20).each { testId -> ids << [classId * 7919 % 101, testId * 31 % 23] } }
+        Collections.shuffle(ids, new Random(1))
+        ids.each { classId, testId -> writer.onOutput(classId, testId, output(StdOut, "[$classId-$testId]")) }
+        writer.onOutput(Long.MAX_VALUE, output(StdErr, "[max]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        ids.every { classId, testId -> collectOutput(reader, classId, testId, StdOut) == "[$classId-$testId]" }
+        ids.every { classId, testId -> reader.hasOutput(classId, StdOut) && !reader.hasOutput(classId, StdErr) }
+        collectOutput(reader, Long.MAX_VALUE, StdErr) == "[max]"
+        !reader.hasOutput(100, StdOut)
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads large output containing multi-byte characters"() {
+        given:
+        def message = ("\u0107\u20ac\ud83d\ude00 abc " * 10000).toString()
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.onOutput(1, 1, output(StdOut, "[out]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectAllOutput(reader, 1, StdOut) == message + "[out]"
+
+        cleanup:
+        reader.close()
+    }
+
     def DefaultTestOutputEvent output(TestOutputEvent.Destination destination, String msg) {
         new DefaultTestOutputEvent(destination, msg)
     }
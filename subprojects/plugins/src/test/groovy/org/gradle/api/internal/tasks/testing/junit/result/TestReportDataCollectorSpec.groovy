@@ -16,9 +16,12 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result
 
+import org.gradle.api.Action
 import org.gradle.api.internal.tasks.testing.*
 import org.gradle.api.internal.tasks.testing.results.DefaultTestResult
 import org.gradle.messaging.remote.internal.PlaceholderException
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Issue
 import spock.lang.Specification
 
@@ -29,6 +32,7 @@ import static org.gradle.api.tasks.testing.TestResult.ResultType.FAILURE
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
 
 class TestReportDataCollectorSpec extends Specification {
+    @Rule TestNameTestDirectoryProvider tmp = new TestNameTestDirectoryProvider()
     def Map<String, TestClassResult> results = [:]
     def TestOutputStore.Writer writer = Mock()
     def collector = new TestReportDataCollector(results, writer)
@@ -207,6 +211,76 @@ class TestReportDataCollectorSpec extends Specification {
         result.results[0].failures.size() == 1
     }
 
+    def "writes results of test classes when their suite completes"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def resultWriter = serializer.writer()
+        def spillingCollector = new TestReportDataCollector(results, writer, resultWriter)
+        def root = new DefaultTestSuiteDescriptor("1", "Suite")
+        def fooClass = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "FooTest"), root)
+        def fooTest = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod"), fooClass)
+        def barClass = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.2", "BarTest"), root)
+        def barTest = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.2.1", "BarTest", "testMethod"), barClass)
+
+        when:
+        spillingCollector.beforeSuite(root)
+        spillingCollector.beforeSuite(fooClass)
+        spillingCollector.beforeSuite(barClass)
+        spillingCollector.beforeTest(fooTest)
+        spillingCollector.beforeTest(barTest)
+        spillingCollector.afterTest(fooTest, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+        spillingCollector.afterTest(barTest, new DefaultTestResult(FAILURE, 100, 300, 1, 0, 1, [new RuntimeException("Boo!")]))
+        spillingCollector.afterSuite(fooClass, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+
+        then:
+        results.keySet() == ["BarTest"] as Set
+
+        when:
+        spillingCollector.afterSuite(barClass, new DefaultTestResult(FAILURE, 100, 300, 1, 0, 1, []))
+        spillingCollector.afterSuite(root, new DefaultTestResult(FAILURE, 0, 500, 2, 1, 1, []))
+        resultWriter.close()
+        def written = []
+        serializer.read({ written << it } as Action)
+
+        then:
+        results.empty
+        written*.className == ["FooTest", "BarTest"]
+        written[1].failuresCount == 1
+        written[1].results[0].failures[0].message == "java.lang.RuntimeException: Boo!"
+    }
+
+    def "writes results of a test class run by two suites as one class"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+        def resultWriter = serializer.writer()
+        def spillingCollector = new TestReportDataCollector(results, writer, resultWriter)
+        def root = new DefaultTestSuiteDescriptor("1", "Suite")
+        def suite1 = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1", "Suite1"), root)
+        def fooClass1 = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.1.1", "FooTest"), suite1)
+        def fooTest1 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.1.1.1", "FooTest", "testMethod"), fooClass1)
+        def suite2 = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.2", "Suite2"), root)
+        def fooClass2 = new DecoratingTestDescriptor(new DefaultTestClassDescriptor("1.2.1", "FooTest"), suite2)
+        def fooTest2 = new DecoratingTestDescriptor(new DefaultTestDescriptor("1.2.1.1", "FooTest", "testMethod"), fooClass2)
+
+        when:
+        spillingCollector.beforeSuite(root)
+        [[suite1, fooClass1, fooTest1], [suite2, fooClass2, fooTest2]].each { suite, fooClass, fooTest ->
+            spillingCollector.beforeSuite(suite)
+            spillingCollector.beforeSuite(fooClass)
+            spillingCollector.beforeTest(fooTest)
+            spillingCollector.afterTest(fooTest, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+            spillingCollector.afterSuite(fooClass, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+            spillingCollector.afterSuite(suite, new DefaultTestResult(SUCCESS, 100, 200, 1, 1, 0, []))
+        }
+        spillingCollector.afterSuite(root, new DefaultTestResult(SUCCESS, 0, 500, 2, 2, 0, []))
+        resultWriter.close()
+        def written = []
+        serializer.read({ written << it } as Action)
+
+        then:
+        results.empty
+        written*.className == ["FooTest"]
+        written[0].testsCount == 2
+    }
+
     @Issue("GRADLE-2730")
     def "test case timestamp is correct even if output received for given class"() {
         def test = new DefaultTestDescriptor("1.1.1", "FooTest", "testMethod")
@@ -67,6 +67,55 @@ class TestResultSerializerTest extends Specification {
         readClass2.results.empty
     }
 
+    def "writes results one class at a time"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+
+        when:
+        def writer = serializer.writer()
+        writer.write(new TestClassResult(1, 'Class1', 1234))
+        writer.write(new TestClassResult(2, 'Class2', 5678))
+        writer.close()
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        serializer.hasResults
+        read*.className == ['Class1', 'Class2']
+    }
+
+    def "reads a class written more than once as one class"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+
+        when:
+        def writer = serializer.writer()
+        writer.write(new TestClassResult(1, 'Class1', 1234).add(new TestMethodResult(1, "method1", TestResult.ResultType.SUCCESS, 100, 2300)))
+        writer.write(new TestClassResult(2, 'Class2', 5678))
+        writer.write(new TestClassResult(1, 'Class1', 3456).add(new TestMethodResult(3, "method1", TestResult.ResultType.FAILURE, 100, 4500)))
+        writer.close()
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        read*.className == ['Class2', 'Class1']
+        read[1].startTime == 1234
+        read[1].results*.id == [1, 3]
+        read[1].failuresCount == 1
+    }
+
+    def "writes nothing when there are no results"() {
+        def serializer = new TestResultSerializer(tmp.createDir("results"))
+
+        when:
+        serializer.write([])
+        def read = []
+        serializer.read({ read << it } as Action)
+
+        then:
+        !serializer.hasResults
+        serializer.timestamp > 0
+        read.empty
+    }
+
     List<TestClassResult> serialize(Collection<TestClassResult> results) {
         def serializer = new TestResultSerializer(tmp.createDir("results"))
         serializer.write(results)
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.*
+import org.gradle.internal.Factory
+import org.gradle.messaging.actor.Actor
+import org.gradle.messaging.actor.ActorFactory
+import spock.lang.Specification
+
+class BalancedParallelTestClassProcessorTest extends Specification {
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final TestResultProcessor asyncResultProcessor = Mock()
+    private final Actor resultProcessorActor = Mock()
+    private final ActorFactory actorFactory = Mock()
+    private final TestClassProcessor asyncProcessor1 = Mock()
+    private final TestClassProcessor asyncProcessor2 = Mock()
+    private final Actor actor1 = Mock()
+    private final Actor actor2 = Mock()
+    private final List<TestResultProcessor> forkResultProcessors = []
+    private final BalancedParallelTestClassProcessor processor = new BalancedParallelTestClassProcessor(2, factory, actorFactory, [short: 10L, medium: 50L, long: 100L])
+
+    def setup() {
+        _ * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        _ * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        _ * factory.create() >> Stub(TestClassProcessor)
+        _ * actorFactory.createActor(_ as TestClassProcessor) >>> [actor1, actor2]
+        _ * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        _ * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        _ * asyncProcessor1.startProcessing(_) >> { TestResultProcessor forkResultProcessor -> forkResultProcessors << forkResultProcessor }
+        _ * asyncProcessor2.startProcessing(_) >> { TestResultProcessor forkResultProcessor -> forkResultProcessors << forkResultProcessor }
+        processor.startProcessing(resultProcessor)
+    }
+
+    def "gives test classes to idle processors as they are found"() {
+        when:
+        processor.processTestClass(testClass("medium"))
+        processor.processTestClass(testClass("short"))
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "medium" })
+        1 * asyncProcessor2.processTestClass({ it.testClassName == "short" })
+    }
+
+    def "gives longest waiting test class to processor when it completes its test class"() {
+        given:
+        processor.processTestClass(testClass("medium"))
+        processor.processTestClass(testClass("short"))
+
+        when:
+        processor.processTestClass(testClass("short"))
+        processor.processTestClass(testClass("long"))
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        classCompleted(forkResultProcessors[1], "short")
+
+        then:
+        1 * asyncResultProcessor.started({ it.className == "short" }, _)
+        1 * asyncResultProcessor.completed("short", _)
+        1 * asyncProcessor2.processTestClass({ it.testClassName == "long" })
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def "gives remaining test classes longest first to processor expected to finish first when stopped"() {
+        given:
+        processor.processTestClass(testClass("long"))
+        processor.processTestClass(testClass("short"))
+        processor.processTestClass(testClass("medium"))
+        processor.processTestClass(testClass("short"))
+        processor.processTestClass(testClass("unknown"))
+
+        when:
+        processor.stop()
+
+        then:
+        1 * asyncProcessor2.processTestClass({ it.testClassName == "unknown" })
+
+        then:
+        1 * asyncProcessor2.processTestClass({ it.testClassName == "medium" })
+
+        then:
+        1 * asyncProcessor1.processTestClass({ it.testClassName == "short" })
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * asyncProcessor2.stop()
+        1 * actor1.stop()
+        1 * actor2.stop()
+        1 * resultProcessorActor.stop()
+    }
+
+    def "does nothing when no tests processed"() {
+        when:
+        processor.stop()
+
+        then:
+        0 * factory.create()
+        1 * resultProcessorActor.stop()
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        return new DefaultTestClassRunInfo(name)
+    }
+
+    private static void classCompleted(TestResultProcessor resultProcessor, String name) {
+        resultProcessor.started(new DefaultTestClassDescriptor(name, name), new TestStartEvent(0))
+        resultProcessor.completed(name, new TestCompleteEvent(0))
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.tasks.testing.TestResult
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+class FailFastTestClassProcessorTest extends Specification {
+    private final TestClassProcessor target = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final FailFastTestClassProcessor processor = new FailFastTestClassProcessor(target)
+    private TestResultProcessor targetResultProcessor
+
+    def setup() {
+        _ * target.startProcessing(_) >> { TestResultProcessor p -> targetResultProcessor = p }
+        processor.startProcessing(resultProcessor)
+    }
+
+    def "passes test classes on until a test fails"() {
+        def test1 = new DefaultTestClassRunInfo("Test1")
+        def test2 = new DefaultTestClassRunInfo("Test2")
+        def success = new TestCompleteEvent(0, TestResult.ResultType.SUCCESS)
+        def failure = new TestCompleteEvent(0, TestResult.ResultType.FAILURE)
+
+        when:
+        processor.processTestClass(test1)
+        targetResultProcessor.completed("test", success)
+        processor.processTestClass(test2)
+
+        then:
+        1 * target.processTestClass(test1)
+        1 * resultProcessor.completed("test", success)
+        1 * target.processTestClass(test2)
+
+        when:
+        targetResultProcessor.completed("test", failure)
+        processor.processTestClass(new DefaultTestClassRunInfo("Test3"))
+        processor.stop()
+
+        then:
+        1 * resultProcessor.completed("test", failure)
+        1 * target.stop()
+        0 * target._
+    }
+
+    def "skips test classes after a failure is reported"() {
+        def failure = new RuntimeException()
+
+        when:
+        targetResultProcessor.failure("test", failure)
+        processor.processTestClass(new DefaultTestClassRunInfo("Test1"))
+
+        then:
+        1 * resultProcessor.failure("test", failure)
+        0 * target._
+    }
+
+    def "skips test classes after a failure is reported to another processor sharing the same state"() {
+        def failed = new AtomicBoolean()
+        TestResultProcessor firstResultProcessor = null
+        def firstTarget = Stub(TestClassProcessor) {
+            startProcessing(_) >> { TestResultProcessor p -> firstResultProcessor = p }
+        }
+        def first = new FailFastTestClassProcessor(firstTarget, failed)
+        def secondTarget = Mock(TestClassProcessor)
+        def second = new FailFastTestClassProcessor(secondTarget, failed)
+
+        when:
+        first.startProcessing(resultProcessor)
+        firstResultProcessor.completed("test", new TestCompleteEvent(0, TestResult.ResultType.FAILURE))
+        first.stop()
+        second.startProcessing(resultProcessor)
+        second.processTestClass(new DefaultTestClassRunInfo("Test1"))
+
+        then:
+        1 * secondTarget.startProcessing(_)
+        0 * secondTarget._
+    }
+}
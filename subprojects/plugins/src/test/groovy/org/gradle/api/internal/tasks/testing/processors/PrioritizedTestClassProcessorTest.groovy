@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.specs.Spec
+import org.gradle.internal.Factory
+import spock.lang.Specification
+
+class PrioritizedTestClassProcessorTest extends Specification {
+    private final TestClassProcessor target = Mock()
+    private final TestClassProcessor second = Mock()
+    private final Factory<TestClassProcessor> factory = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final Spec prioritized = { it.testClassName.startsWith("Failed") } as Spec
+    def passing1 = new DefaultTestClassRunInfo("Passing1")
+    def failed1 = new DefaultTestClassRunInfo("Failed1")
+    def passing2 = new DefaultTestClassRunInfo("Passing2")
+    def failed2 = new DefaultTestClassRunInfo("Failed2")
+
+    def "passes prioritized test classes on as they are found and the other test classes at the end"() {
+        def processor = new PrioritizedTestClassProcessor(factory, prioritized, false)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(passing1)
+        processor.processTestClass(failed1)
+        processor.processTestClass(passing2)
+        processor.processTestClass(failed2)
+
+        then:
+        1 * factory.create() >> target
+        1 * target.startProcessing(resultProcessor)
+        1 * target.processTestClass(failed1)
+        1 * target.processTestClass(failed2)
+        0 * target._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * target.processTestClass(passing1)
+
+        then:
+        1 * target.processTestClass(passing2)
+
+        then:
+        1 * target.stop()
+        0 * target._
+        0 * factory._
+    }
+
+    def "completes prioritized test classes before passing the other test classes to another processor"() {
+        def processor = new PrioritizedTestClassProcessor(factory, prioritized, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(passing1)
+        processor.processTestClass(failed1)
+        processor.processTestClass(passing2)
+
+        then:
+        1 * factory.create() >> target
+        1 * target.startProcessing(resultProcessor)
+        1 * target.processTestClass(failed1)
+        0 * target._
+
+        when:
+        processor.stop()
+
+        then:
+        1 * target.stop()
+
+        then:
+        1 * factory.create() >> second
+        1 * second.startProcessing(resultProcessor)
+
+        then:
+        1 * second.processTestClass(passing1)
+
+        then:
+        1 * second.processTestClass(passing2)
+
+        then:
+        1 * second.stop()
+        0 * target._
+        0 * second._
+    }
+
+    def "uses one processor when there are no other test classes"() {
+        def processor = new PrioritizedTestClassProcessor(factory, prioritized, true)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(failed1)
+        processor.stop()
+
+        then:
+        1 * factory.create() >> target
+        1 * target.startProcessing(resultProcessor)
+        1 * target.processTestClass(failed1)
+        1 * target.stop()
+        0 * _._
+    }
+}
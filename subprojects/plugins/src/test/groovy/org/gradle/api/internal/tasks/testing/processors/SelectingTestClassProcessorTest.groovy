@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.processors
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.specs.Spec
+import spock.lang.Specification
+
+class SelectingTestClassProcessorTest extends Specification {
+    private final TestClassProcessor target = Mock()
+    private final TestResultProcessor resultProcessor = Mock()
+    private final Spec selected = { it.testClassName.startsWith("Affected") } as Spec
+    private final SelectingTestClassProcessor processor = new SelectingTestClassProcessor(target, selected)
+
+    def "passes on only the selected test classes"() {
+        def affected = new DefaultTestClassRunInfo("Affected")
+        def unaffected = new DefaultTestClassRunInfo("Unaffected")
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(affected)
+        processor.processTestClass(unaffected)
+        processor.stop()
+
+        then:
+        1 * target.startProcessing(resultProcessor)
+        1 * target.processTestClass(affected)
+        1 * target.stop()
+        0 * target._
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+class BatchingTestResultProcessorTest extends Specification {
+    final List<TestEventBatch> batches = new CopyOnWriteArrayList<TestEventBatch>()
+    final RemoteTestResultProcessor target = { TestEventBatch batch -> batches << batch } as RemoteTestResultProcessor
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    BatchingTestResultProcessor processor
+
+    def cleanup() {
+        processor?.stop()
+        executorFactory.stop()
+    }
+
+    def "sends batch when it holds the maximum number of events"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, 3, 1000, 60000)
+        def test = new DefaultTestDescriptor("test", "SomeTest", "method")
+
+        when:
+        processor.started(test, new TestStartEvent(0))
+        processor.output("test", outputEvent("a"))
+
+        then:
+        batches.empty
+
+        when:
+        processor.completed("test", new TestCompleteEvent(0))
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 3
+        (0..2).collect { batches[0].getKind(it) } == [TestEventBatch.STARTED, TestEventBatch.OUTPUT, TestEventBatch.COMPLETED]
+    }
+
+    def "sends batch when it holds the maximum amount of output"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, 1000, 10, 60000)
+
+        when:
+        processor.output("test", outputEvent("12345"))
+
+        then:
+        batches.empty
+
+        when:
+        processor.output("test", outputEvent("67890"))
+        processor.output("test", outputEvent("more"))
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 2
+    }
+
+    def "sends batch when a test class completes"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, 1000, 1000, 60000)
+        def testClass = new DefaultTestClassDescriptor("class", "SomeTest")
+        def test = new DefaultTestDescriptor("test", "SomeTest", "method")
+
+        when:
+        processor.started(testClass, new TestStartEvent(0))
+        processor.started(test, new TestStartEvent(0, "class"))
+        processor.completed("test", new TestCompleteEvent(0))
+
+        then:
+        batches.empty
+
+        when:
+        processor.completed("class", new TestCompleteEvent(0))
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 4
+    }
+
+    def "sends remaining events on stop"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, 1000, 1000, 60000)
+
+        when:
+        processor.failure("test", new RuntimeException("broken"))
+        processor.stop()
+
+        then:
+        batches.size() == 1
+        batches[0].getKind(0) == TestEventBatch.FAILURE
+        batches[0].getParam(0, 1).message == "broken"
+    }
+
+    def "sends pending events in the background"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, 1000, 1000, 10)
+
+        when:
+        processor.output("test", outputEvent("a"))
+        def timeout = System.currentTimeMillis() + 10000
+        while (batches.empty && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10)
+        }
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 1
+    }
+
+    def "sends the output of an output heavy test in few messages"() {
+        given:
+        processor = new BatchingTestResultProcessor(target, executorFactory, BatchingTestResultProcessor.MAX_EVENTS, BatchingTestResultProcessor.MAX_OUTPUT_CHARS, 60000)
+        def events = 20 * BatchingTestResultProcessor.MAX_EVENTS
+
+        when:
+        events.times { processor.output("test", outputEvent("Line $it of the output of some test\n")) }
+        processor.stop()
+
+        then:
+        batches.size() == 20
+        batches.sum { it.size() } == events
+    }
+
+    def "applies events to processor in order"() {
+        given:
+        def batch = new TestEventBatch()
+        def test = new DefaultTestDescriptor("test", "SomeTest", "method")
+        def start = new TestStartEvent(0)
+        def output = outputEvent("a")
+        def failure = new RuntimeException()
+        def complete = new TestCompleteEvent(0)
+        batch.add(TestEventBatch.STARTED, test, start)
+        batch.add(TestEventBatch.OUTPUT, "test", output)
+        batch.add(TestEventBatch.FAILURE, "test", failure)
+        batch.add(TestEventBatch.COMPLETED, "test", complete)
+        def resultProcessor = Mock(TestResultProcessor)
+
+        when:
+        batch.applyTo(resultProcessor)
+
+        then:
+        1 * resultProcessor.started(test, start)
+
+        then:
+        1 * resultProcessor.output("test", output)
+
+        then:
+        1 * resultProcessor.failure("test", failure)
+
+        then:
+        1 * resultProcessor.completed("test", complete)
+        0 * _
+    }
+
+    private static TestOutputEvent outputEvent(String message) {
+        return new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, message)
+    }
+}
@@ -100,7 +100,26 @@ public class ForkingTestClassProcessorTest {
         processor.stop();
     }
 
+    @Test
+    public void startsReusableWorkerProcessWhenWorkerProcessIsReused() {
+        ForkingTestClassProcessor processor = new ForkingTestClassProcessor(workerFactory, processorFactory, options, appClassPath, action, true);
+        expectWorkerProcessStarted(true);
+        context.checking(new Expectations() {{
+            one(worker).processTestClass(test1);
+            one(worker).stop();
+            one(workerProcess).waitForStop();
+        }});
+
+        processor.startProcessing(resultProcessor);
+        processor.processTestClass(test1);
+        processor.stop();
+    }
+
     private void expectWorkerProcessStarted() {
+        expectWorkerProcessStarted(false);
+    }
+
+    private void expectWorkerProcessStarted(final boolean reusable) {
         context.checking(new Expectations() {{
             WorkerProcessBuilder builder = context.mock(WorkerProcessBuilder.class);
             ObjectConnection connection = context.mock(ObjectConnection.class);
@@ -113,7 +132,11 @@ public class ForkingTestClassProcessorTest {
 
             one(builder).applicationClasspath(appClassPath);
 
-            one(builder).setLoadApplicationInSystemClassLoader(true);
+            if (reusable) {
+                one(builder).setReusable(true);
+            } else {
+                one(builder).setLoadApplicationInSystemClassLoader(true);
+            }
 
             one(action).execute(builder);
             
@@ -130,7 +153,7 @@ public class ForkingTestClassProcessorTest {
             allowing(workerProcess).getConnection();
             will(returnValue(connection));
 
-            one(connection).addIncoming(TestResultProcessor.class, resultProcessor);
+            one(connection).addIncoming(with(equal(RemoteTestResultProcessor.class)), with(any(RemoteTestResultProcessor.class)));
             
             one(connection).addOutgoing(RemoteTestClassProcessor.class);
             will(returnValue(worker));
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.messaging.serialize.ObjectReader;
+import org.gradle.messaging.serialize.ObjectWriter;
+import org.gradle.messaging.serialize.kryo.KryoBackedDecoder;
+import org.gradle.messaging.serialize.kryo.KryoBackedEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compares the cost of sending the output of an output heavy test from a test worker as one message per event with sending it in batches. Each
+ * message is encoded, flushed and decoded in the same way as the worker connection does. This is not run as part of the tests.
+ *
+ * <p>Usage: {@code TestEventBatchingBenchmark [events] [rounds]}</p>
+ */
+public class TestEventBatchingBenchmark {
+    private static final TestEventSerializer SERIALIZER = new TestEventSerializer();
+
+    public static void main(String[] args) throws Exception {
+        int events = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Object testId = new CompositeIdGenerator.CompositeId(1L, 2L);
+        TestOutputEvent[] output = new TestOutputEvent[events];
+        for (int i = 0; i < events; i++) {
+            output[i] = new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, String.format("Line %d of the output of some test%n", i));
+        }
+
+        for (int round = 0; round < rounds; round++) {
+            long individual = sendIndividually(testId, output);
+            long batched = sendInBatches(testId, output);
+            System.out.println(String.format("Round %d: one message per event %d ms, batched %d ms", round + 1, individual, batched));
+        }
+    }
+
+    private static long sendIndividually(Object testId, TestOutputEvent[] output) throws Exception {
+        long start = System.nanoTime();
+        MessageChannel channel = new MessageChannel();
+        for (TestOutputEvent event : output) {
+            channel.send(new Object[]{testId, event});
+        }
+        channel.receiveAll();
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static long sendInBatches(Object testId, TestOutputEvent[] output) throws Exception {
+        long start = System.nanoTime();
+        final MessageChannel channel = new MessageChannel();
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        try {
+            BatchingTestResultProcessor processor = new BatchingTestResultProcessor(new RemoteTestResultProcessor() {
+                public void processBatch(TestEventBatch events) {
+                    channel.send(new Object[]{events});
+                }
+            }, executorFactory);
+            try {
+                for (TestOutputEvent event : output) {
+                    processor.output(testId, event);
+                }
+            } finally {
+                processor.stop();
+            }
+        } finally {
+            executorFactory.stop();
+        }
+        channel.receiveAll();
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * Encodes and flushes each message as it is sent, and decodes all of the messages when they are received.
+     */
+    private static class MessageChannel {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final KryoBackedEncoder encoder = new KryoBackedEncoder(bytes);
+        private final ObjectWriter<Object[]> writer = SERIALIZER.newWriter(encoder);
+        private int messages;
+
+        void send(Object[] message) {
+            try {
+                writer.write(message);
+                encoder.flush();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            messages++;
+        }
+
+        void receiveAll() throws Exception {
+            ObjectReader<Object[]> reader = SERIALIZER.newReader(new KryoBackedDecoder(new ByteArrayInputStream(bytes.toByteArray())));
+            for (int i = 0; i < messages; i++) {
+                reader.read();
+            }
+        }
+    }
+}
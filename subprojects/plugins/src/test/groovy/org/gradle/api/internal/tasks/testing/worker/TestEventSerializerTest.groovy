@@ -193,6 +193,30 @@ class TestEventSerializerTest extends Specification {
         result[0].cause.message == "cause"
     }
 
+    def "serializes TestEventBatch"() {
+        def id = new CompositeIdGenerator.CompositeId(1L, 2L)
+        def batch = new TestEventBatch()
+        batch.add(TestEventBatch.STARTED, new DefaultTestClassDescriptor(id, "some-test"), new TestStartEvent(123L))
+        batch.add(TestEventBatch.OUTPUT, id, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "hi"))
+        batch.add(TestEventBatch.FAILURE, id, new RuntimeException("broken"))
+        batch.add(TestEventBatch.COMPLETED, id, new TestCompleteEvent(456L, TestResult.ResultType.FAILURE))
+
+        when:
+        def result = serialize(batch)
+
+        then:
+        result.length == 1
+        result[0] instanceof TestEventBatch
+        result[0].size() == 4
+        (0..3).every { result[0].getKind(it) == batch.getKind(it) }
+        result[0].getParam(0, 0).name == "some-test"
+        result[0].getParam(0, 1).startTime == 123L
+        result[0].getParam(1, 0) == id
+        result[0].getParam(1, 1).message == "hi"
+        result[0].getParam(2, 1).message == "broken"
+        result[0].getParam(3, 1).resultType == TestResult.ResultType.FAILURE
+    }
+
     def Object[] serialize(Object... source) {
         def outstr = new ByteArrayOutputStream()
         serializer.newWriter(new OutputStreamBackedEncoder(outstr)).write(source)
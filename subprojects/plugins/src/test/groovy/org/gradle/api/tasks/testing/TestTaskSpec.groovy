@@ -50,7 +50,7 @@ class TestTaskSpec extends Specification {
         2 * testOutputListenerBroadcaster.add(_)
 
         then:
-        1 * testExecuter.execute(task, _ as TestResultProcessor)
+        1 * testExecuter.execute(task, _ as TestResultProcessor, _)
 
         then:
         1 * testListenerBroadcaster.removeAll()
@@ -58,7 +58,7 @@ class TestTaskSpec extends Specification {
     }
 
     def "removes listeners even if execution fails"() {
-        testExecuter.execute(task, _ as TestResultProcessor) >> { throw new RuntimeException("Boo!")}
+        testExecuter.execute(task, _ as TestResultProcessor, _) >> { throw new RuntimeException("Boo!")}
 
         when:
         task.executeTests()
@@ -28,6 +28,7 @@ import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.detection.PreviousTestResults;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.detection.TestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
@@ -193,7 +194,7 @@ public class TestTest extends AbstractConventionTaskTest {
             }
         });
         context.checking(new Expectations() {{
-            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)));
+            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)), with(notNullValue(PreviousTestResults.class)));
         }});
 
         WeakReference<TestFramework> weakRef = new WeakReference<TestFramework>(test.getTestFramework());
@@ -318,7 +319,7 @@ public class TestTest extends AbstractConventionTaskTest {
 
     private void expectTestsExecuted() {
         context.checking(new Expectations() {{
-            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)));
+            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)), with(notNullValue(PreviousTestResults.class)));
         }});
     }
 
@@ -339,7 +340,7 @@ public class TestTest extends AbstractConventionTaskTest {
 
             ignoring(testDescriptor);
 
-            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)));
+            one(testExecuterMock).execute(with(sameInstance(test)), with(notNullValue(TestListenerAdapter.class)), with(notNullValue(PreviousTestResults.class)));
             will(new Action() {
                 public void describeTo(Description description) {
                     description.appendText("fail tests");